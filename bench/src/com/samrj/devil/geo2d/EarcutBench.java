@@ -0,0 +1,122 @@
+package com.samrj.devil.geo2d;
+
+import com.samrj.devil.util.IntList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks for Earcut, on single large polygons with a hole, and on batches
+ * of small polygons triangulated in parallel.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EarcutBench
+{
+    /**
+     * Returns a jagged, star-shaped polygon with the given number of vertices,
+     * a quarter of which form a hole in its middle.
+     */
+    private static double[] polygon(Random random, int vertices)
+    {
+        int outer = vertices - vertices/4, inner = vertices/4;
+        double[] data = new double[vertices*2];
+        
+        for (int i=0; i<outer; i++)
+        {
+            double angle = i*2.0*Math.PI/outer, radius = 1.0 + random.nextDouble()*0.2;
+            data[i*2] = Math.cos(angle)*radius;
+            data[i*2 + 1] = Math.sin(angle)*radius;
+        }
+        
+        //Holes wind the other way.
+        for (int i=0; i<inner; i++)
+        {
+            double angle = -i*2.0*Math.PI/inner, radius = 0.4 + random.nextDouble()*0.05;
+            data[(outer + i)*2] = Math.cos(angle)*radius;
+            data[(outer + i)*2 + 1] = Math.sin(angle)*radius;
+        }
+        
+        return data;
+    }
+    
+    @State(Scope.Thread)
+    public static class Polygon
+    {
+        @Param({"10000", "100000", "1000000"})
+        public int vertices;
+        
+        double[] data;
+        int[] holes;
+        final IntList triangles = new IntList();
+        
+        @Setup
+        public void setup()
+        {
+            data = polygon(new Random(0), vertices);
+            holes = new int[] {vertices - vertices/4};
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class Batch
+    {
+        @Param({"1024"})
+        public int polygons;
+        
+        @Param({"256"})
+        public int vertices;
+        
+        double[][] data;
+        int[][] holes;
+        
+        @Setup
+        public void setup()
+        {
+            Random random = new Random(0);
+            data = new double[polygons][];
+            holes = new int[polygons][];
+            for (int i=0; i<polygons; i++)
+            {
+                data[i] = polygon(random, vertices);
+                holes[i] = new int[] {vertices - vertices/4};
+            }
+        }
+    }
+    
+    @Benchmark
+    public List<Integer> boxed(Polygon p)
+    {
+        return Earcut.earcut(p.data, p.holes, 2);
+    }
+    
+    @Benchmark
+    public IntList intList(Polygon p)
+    {
+        p.triangles.clear();
+        Earcut.earcut(p.data, p.holes, 2, p.triangles);
+        return p.triangles;
+    }
+    
+    @Benchmark
+    public int[][] batchParallel(Batch b)
+    {
+        return Earcut.earcutAll(b.data, b.holes, 2);
+    }
+    
+    @Benchmark
+    public int[][] batchSequential(Batch b)
+    {
+        int[][] result = new int[b.polygons][];
+        for (int i=0; i<b.polygons; i++) result[i] = Earcut.earcutArray(b.data[i], b.holes[i], 2);
+        return result;
+    }
+}
@@ -0,0 +1,103 @@
+package com.samrj.devil.geo3d;
+
+import com.samrj.devil.math.Vec3;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks for the 3D intersection tests. Each operation cycles through a
+ * fixed set of random rays or sweeps, of which some hit and some miss, so
+ * that branch prediction does not flatter the results.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Geo3DBench
+{
+    private static final int CASES = 1024;
+    
+    private final Box3 box = new Box3(-1.0f, -1.0f, -1.0f, 1.0f, 1.0f, 1.0f);
+    private final Triangle3 triangle = new Triangle3(new Vec3(-2.0f, 0.0f, -2.0f), new Vec3(2.0f, 0.0f, -2.0f), new Vec3(0.0f, 0.0f, 2.0f));
+    private final Edge3 edge = new Edge3(new Vec3(-2.0f, 0.0f, 0.0f), new Vec3(2.0f, 0.0f, 0.0f));
+    private final Vec3 vertex = new Vec3();
+    private final Ellipsoid ellipsoid = new Ellipsoid();
+    private final Vec3[] starts = new Vec3[CASES], deltas = new Vec3[CASES];
+    private int index;
+    
+    private static Vec3 random(Random random, float scale)
+    {
+        return new Vec3(random.nextFloat()*2.0f - 1.0f,
+                        random.nextFloat()*2.0f - 1.0f,
+                        random.nextFloat()*2.0f - 1.0f).mult(scale);
+    }
+    
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(0);
+        for (int i=0; i<CASES; i++)
+        {
+            starts[i] = random(random, 4.0f);
+            deltas[i] = random(random, 1.0f).sub(starts[i]).mult(2.0f);
+        }
+        ellipsoid.radii.set(0.5f, 1.0f, 0.5f);
+    }
+    
+    private int next()
+    {
+        return index = (index + 1) & (CASES - 1);
+    }
+    
+    @Benchmark
+    public boolean boxTouchingRay()
+    {
+        int i = next();
+        return Box3.touchingRay(box, starts[i], deltas[i], true);
+    }
+    
+    @Benchmark
+    public float boxRaytrace()
+    {
+        int i = next();
+        return Box3.raytrace(box, starts[i], deltas[i], true);
+    }
+    
+    @Benchmark
+    public RaycastResult raycastTriangle()
+    {
+        int i = next();
+        return Geo3DUtil.raycast(triangle, starts[i], deltas[i], true);
+    }
+    
+    @Benchmark
+    public SweepResult ellipsoidSweepTriangle()
+    {
+        int i = next();
+        ellipsoid.pos.set(starts[i]);
+        return ellipsoid.sweep(deltas[i], triangle);
+    }
+    
+    @Benchmark
+    public SweepResult ellipsoidSweepEdge()
+    {
+        int i = next();
+        ellipsoid.pos.set(starts[i]);
+        return ellipsoid.sweep(deltas[i], edge);
+    }
+    
+    @Benchmark
+    public SweepResult ellipsoidSweepVertex()
+    {
+        int i = next();
+        ellipsoid.pos.set(starts[i]);
+        return ellipsoid.sweep(deltas[i], vertex);
+    }
+}
@@ -0,0 +1,86 @@
+package com.samrj.devil.gl;
+
+import com.samrj.devil.math.Util.PrimType;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Throughput benchmarks for BlockCompressor, on a synthetic photographic
+ * texture. Uses no OpenGL context. The PSNR of each format and mode is
+ * printed after each trial.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockCompressorBench
+{
+    private static final int SIZE = 1024;
+    
+    @Param({"BC1", "BC3", "BC4", "BC5"})
+    public BlockCompressor.Format format;
+    
+    @Param({"false", "true"})
+    public boolean quality;
+    
+    private BlockCompressor compressor;
+    private Image image;
+    private ByteBuffer compressed;
+    
+    @Setup
+    public void setup()
+    {
+        compressor = new BlockCompressor(format, quality);
+        image = new Image(SIZE, SIZE, 4, PrimType.BYTE, false);
+        compressed = memAlloc(compressor.getCompressedSize(SIZE, SIZE));
+        
+        //Smooth gradients and waves, with noise, roughly like a photo.
+        Random random = new Random(0);
+        ByteBuffer buffer = image.buffer;
+        for (int y=0; y<SIZE; y++) for (int x=0; x<SIZE; x++)
+        {
+            double wave = Math.sin(x*0.05)*Math.cos(y*0.03);
+            int r = (int)(128.0 + 90.0*wave) + random.nextInt(9) - 4;
+            int g = (x*255)/SIZE + random.nextInt(9) - 4;
+            int b = (y*255)/SIZE + random.nextInt(9) - 4;
+            int a = (int)(128.0 + 127.0*Math.sin((x + y)*0.01));
+            int i = (x + y*SIZE)*4;
+            buffer.put(i, (byte)Math.max(0, Math.min(255, r)));
+            buffer.put(i + 1, (byte)Math.max(0, Math.min(255, g)));
+            buffer.put(i + 2, (byte)Math.max(0, Math.min(255, b)));
+            buffer.put(i + 3, (byte)a);
+        }
+    }
+    
+    @TearDown
+    public void tearDown()
+    {
+        Image decoded = new Image(SIZE, SIZE, 4, PrimType.BYTE, false);
+        BlockCompressor.decompress(format, compressed, decoded);
+        System.out.printf("%s %s PSNR: %.2f dB%n", format, quality ? "quality" : "fast",
+                BlockCompressor.psnr(image, decoded, format));
+        decoded.delete();
+        image.delete();
+        memFree(compressed);
+    }
+    
+    /**
+     * Measures whole 1024x1024 images per second.
+     */
+    @Benchmark
+    public ByteBuffer compress()
+    {
+        compressor.compress(image, compressed);
+        return compressed;
+    }
+}
@@ -0,0 +1,98 @@
+package com.samrj.devil.math;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Measures the error of the fast approximations in Util against double
+ * precision Math, over an even sweep of values and over float bit patterns
+ * spread across every exponent. Prints the maximum absolute, relative and ulp
+ * errors of each function, with the argument at which each occurred.
+ *
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public class FastMathAccuracy
+{
+    private interface FloatFunction
+    {
+        float apply(float f);
+    }
+
+    private static final class Error
+    {
+        private final String name;
+        private double maxAbs, maxRel, maxUlp;
+        private float absAt, relAt, ulpAt;
+
+        private Error(String name)
+        {
+            this.name = name;
+        }
+
+        private void add(float f, float approx, double exact)
+        {
+            if (Double.isNaN(exact) || Double.isInfinite(exact)) return;
+
+            double abs = Math.abs(approx - exact);
+            double rel = exact == 0.0 ? abs : abs/Math.abs(exact);
+            double ulp = abs/Math.ulp((float)exact);
+            if (abs > maxAbs) {maxAbs = abs; absAt = f;}
+            if (rel > maxRel) {maxRel = rel; relAt = f;}
+            if (ulp > maxUlp) {maxUlp = ulp; ulpAt = f;}
+        }
+
+        private void print()
+        {
+            System.out.printf("%-10s abs %.3e (at %s)  rel %.3e (at %s)  ulp %.2f (at %s)%n",
+                    name, maxAbs, absAt, maxRel, relAt, maxUlp, ulpAt);
+        }
+    }
+
+    private static void sweep(String name, FloatFunction approx, DoubleUnaryOperator exact,
+                              float min, float max, int steps)
+    {
+        Error error = new Error(name);
+
+        for (int i=0; i<=steps; i++)
+        {
+            float f = min + (max - min)*(i/(float)steps);
+            error.add(f, approx.apply(f), exact.applyAsDouble(f));
+        }
+
+        //Every 64th positive float bit pattern, and its negation.
+        for (int bits=0; bits<0x7F800000; bits+=64)
+        {
+            float f = Float.intBitsToFloat(bits);
+            if (f >= min && f <= max) error.add(f, approx.apply(f), exact.applyAsDouble(f));
+            if (-f >= min && -f <= max) error.add(-f, approx.apply(-f), exact.applyAsDouble(-f));
+        }
+
+        error.print();
+    }
+
+    public static void main(String[] args)
+    {
+        Vec2 sinCos = new Vec2();
+
+        sweep("sin", Util::fastSin, Math::sin, -8192.0f, 8192.0f, 1 << 24);
+        sweep("cos", Util::fastCos, Math::cos, -8192.0f, 8192.0f, 1 << 24);
+        sweep("sincos.x", f -> {Util.fastSinCos(f, sinCos); return sinCos.x;}, Math::cos, -8192.0f, 8192.0f, 1 << 24);
+        sweep("sincos.y", f -> {Util.fastSinCos(f, sinCos); return sinCos.y;}, Math::sin, -8192.0f, 8192.0f, 1 << 24);
+        sweep("acos", Util::fastAcos, Math::acos, -1.0f, 1.0f, 1 << 24);
+        sweep("exp", Util::fastExp, Math::exp, -87.0f, 88.0f, 1 << 24);
+        sweep("rsqrt", Util::fastRsqrt, f -> 1.0/Math.sqrt(f), Float.MIN_NORMAL, Float.MAX_VALUE, 1 << 24);
+        sweep("cbrt", Util::fastCbrt, Math::cbrt, -Float.MAX_VALUE, Float.MAX_VALUE, 1 << 24);
+
+        //Every direction around the unit circle, at several lengths.
+        Error atan2 = new Error("atan2");
+        for (int i=0; i<(1 << 24); i++)
+        {
+            double angle = i*(2.0*Math.PI/(1 << 24)) - Math.PI;
+            float length = (i & 3) == 0 ? 1.0f : (i & 3) == 1 ? 1.0e-20f : (i & 3) == 2 ? 1.0e20f : 3.7f;
+            float y = (float)(Math.sin(angle)*length), x = (float)(Math.cos(angle)*length);
+            atan2.add(y/x, Util.fastAtan2(y, x), Math.atan2(y, x));
+        }
+        atan2.print();
+    }
+}
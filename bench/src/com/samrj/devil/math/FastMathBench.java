@@ -0,0 +1,127 @@
+package com.samrj.devil.math;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks for the fast approximations in Util, each alongside the Math
+ * function it replaces.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastMathBench
+{
+    private final Vec2 sinCos = new Vec2();
+    private float angle = 2.345f;
+    private float y = 0.7f, x = -1.3f;
+    private float cosine = -0.37f;
+    private float power = 3.21f;
+    private float value = 17.5f;
+    
+    @Benchmark
+    public float sin()
+    {
+        return (float)Math.sin(angle);
+    }
+    
+    @Benchmark
+    public float fastSin()
+    {
+        return Util.fastSin(angle);
+    }
+    
+    @Benchmark
+    public float cos()
+    {
+        return (float)Math.cos(angle);
+    }
+    
+    @Benchmark
+    public float fastCos()
+    {
+        return Util.fastCos(angle);
+    }
+    
+    @Benchmark
+    public Vec2 sinCos()
+    {
+        sinCos.x = (float)Math.cos(angle);
+        sinCos.y = (float)Math.sin(angle);
+        return sinCos;
+    }
+    
+    @Benchmark
+    public Vec2 fastSinCos()
+    {
+        Util.fastSinCos(angle, sinCos);
+        return sinCos;
+    }
+    
+    @Benchmark
+    public float atan2()
+    {
+        return (float)Math.atan2(y, x);
+    }
+    
+    @Benchmark
+    public float fastAtan2()
+    {
+        return Util.fastAtan2(y, x);
+    }
+    
+    @Benchmark
+    public float acos()
+    {
+        return (float)Math.acos(cosine);
+    }
+    
+    @Benchmark
+    public float fastAcos()
+    {
+        return Util.fastAcos(cosine);
+    }
+    
+    @Benchmark
+    public float exp()
+    {
+        return (float)Math.exp(power);
+    }
+    
+    @Benchmark
+    public float fastExp()
+    {
+        return Util.fastExp(power);
+    }
+    
+    @Benchmark
+    public float rsqrt()
+    {
+        return 1.0f/(float)Math.sqrt(value);
+    }
+    
+    @Benchmark
+    public float fastRsqrt()
+    {
+        return Util.fastRsqrt(value);
+    }
+    
+    @Benchmark
+    public float cbrt()
+    {
+        return (float)Math.cbrt(value);
+    }
+    
+    @Benchmark
+    public float fastCbrt()
+    {
+        return Util.fastCbrt(value);
+    }
+}
@@ -0,0 +1,58 @@
+package com.samrj.devil.math;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks for Mat4. Each operation is measured both in place and in its
+ * allocating form, so that the cost of allocation shows up in gc.alloc.rate.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Mat4Bench
+{
+    private final Mat4 a = new Mat4(), b = new Mat4(), result = new Mat4();
+    
+    @Setup
+    public void setup()
+    {
+        Transform ta = new Transform(new Vec3(1.0f, 2.0f, 3.0f), Quat.rotation(new Vec3(1.0f, 1.0f, 0.0f).normalize(), 0.7f), new Vec3(1.5f));
+        Transform tb = new Transform(new Vec3(-2.0f, 0.5f, 4.0f), Quat.rotation(new Vec3(0.0f, 1.0f, 1.0f).normalize(), -1.3f), new Vec3(0.5f, 2.0f, 1.0f));
+        Mat4.transform(ta, a);
+        Mat4.transform(tb, b);
+    }
+    
+    @Benchmark
+    public Mat4 mult()
+    {
+        Mat4.mult(a, b, result);
+        return result;
+    }
+    
+    @Benchmark
+    public Mat4 multAlloc()
+    {
+        return Mat4.mult(a, b);
+    }
+    
+    @Benchmark
+    public Mat4 invert()
+    {
+        Mat4.invert(a, result);
+        return result;
+    }
+    
+    @Benchmark
+    public Mat4 invertAlloc()
+    {
+        return Mat4.invert(a);
+    }
+}
@@ -0,0 +1,104 @@
+package com.samrj.devil.math;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the scalar batch math kernels with the kernels selected at runtime,
+ * which are the vector kernels when they are available. The selected kernels
+ * are printed at setup.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MathKernelsBench
+{
+    @Param({"scalar", "selected"})
+    public String kernels;
+    
+    @Param({"4096"})
+    public int count;
+    
+    private MathKernels k;
+    private float[] matA, matB, matR;
+    private float[] points, pointsR;
+    private float[] quatA, quatB, quatR;
+    private float[] ax, ay, az, bx, by, bz, rx, ry, rz;
+    
+    private static float[] random(Random random, int length)
+    {
+        float[] array = new float[length];
+        for (int i=0; i<length; i++) array[i] = random.nextFloat()*2.0f - 1.0f;
+        return array;
+    }
+    
+    @Setup
+    public void setup()
+    {
+        k = kernels.equals("scalar") ? MathKernels.scalar() : MathKernels.get();
+        System.out.println("Using " + k.getName() + " kernels.");
+        
+        Random random = new Random(0);
+        matA = random(random, count*16);
+        matB = random(random, count*16);
+        matR = new float[count*16];
+        points = random(random, count*3);
+        pointsR = new float[count*3];
+        quatA = random(random, count*4);
+        quatB = random(random, count*4);
+        quatR = new float[count*4];
+        ax = random(random, count); ay = random(random, count); az = random(random, count);
+        bx = random(random, count); by = random(random, count); bz = random(random, count);
+        rx = new float[count]; ry = new float[count]; rz = new float[count];
+    }
+    
+    @Benchmark
+    public float[] mat4Mult()
+    {
+        k.mat4Mult(matA, 16, matB, 16, matR, count);
+        return matR;
+    }
+    
+    @Benchmark
+    public float[] mat4MultPoints()
+    {
+        k.mat4MultPoints(matA, 0, points, pointsR, count);
+        return pointsR;
+    }
+    
+    @Benchmark
+    public float[] quatNormalize()
+    {
+        k.quatNormalize(quatA, quatR, count);
+        return quatR;
+    }
+    
+    @Benchmark
+    public float[] quatSlerp()
+    {
+        k.quatSlerp(quatA, quatB, 0.25f, quatR, count);
+        return quatR;
+    }
+    
+    @Benchmark
+    public float[] dot()
+    {
+        k.dot(ax, ay, az, bx, by, bz, rx, count);
+        return rx;
+    }
+    
+    @Benchmark
+    public float[] cross()
+    {
+        k.cross(ax, ay, az, bx, by, bz, rx, ry, rz, count);
+        return rx;
+    }
+}
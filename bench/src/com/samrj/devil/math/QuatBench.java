@@ -0,0 +1,53 @@
+package com.samrj.devil.math;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks for Quat.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuatBench
+{
+    private final Quat a = Quat.rotation(new Vec3(1.0f, 1.0f, 0.0f).normalize(), 0.7f);
+    private final Quat b = Quat.rotation(new Vec3(0.0f, 1.0f, 1.0f).normalize(), -1.3f);
+    private final Quat unnormalized = new Quat(1.0f, 2.0f, 3.0f, 4.0f);
+    private final Quat result = new Quat();
+    private float t = 0.25f;
+    
+    @Benchmark
+    public Quat slerp()
+    {
+        Quat.slerp(a, b, t, result);
+        return result;
+    }
+    
+    @Benchmark
+    public Quat slerpAlloc()
+    {
+        return Quat.slerp(a, b, t);
+    }
+    
+    @Benchmark
+    public Quat normalize()
+    {
+        Quat.normalize(unnormalized, result);
+        return result;
+    }
+    
+    @Benchmark
+    public Quat mult()
+    {
+        Quat.mult(a, b, result);
+        return result;
+    }
+}
@@ -0,0 +1,45 @@
+package com.samrj.devil.math;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks for Transform.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformBench
+{
+    private final Transform a = new Transform(new Vec3(1.0f, 2.0f, 3.0f), Quat.rotation(new Vec3(1.0f, 1.0f, 0.0f).normalize(), 0.7f), new Vec3(1.5f));
+    private final Transform b = new Transform(new Vec3(-2.0f, 0.5f, 4.0f), Quat.rotation(new Vec3(0.0f, 1.0f, 1.0f).normalize(), -1.3f), new Vec3(0.5f, 2.0f, 1.0f));
+    private final Transform result = new Transform();
+    private final Mat4 matrix = new Mat4();
+    
+    @Benchmark
+    public Transform mult()
+    {
+        Transform.mult(a, b, result);
+        return result;
+    }
+    
+    @Benchmark
+    public Transform multAlloc()
+    {
+        return Transform.mult(a, b);
+    }
+    
+    @Benchmark
+    public Mat4 toMatrix()
+    {
+        Mat4.transform(a, matrix);
+        return matrix;
+    }
+}
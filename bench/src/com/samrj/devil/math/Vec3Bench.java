@@ -0,0 +1,80 @@
+package com.samrj.devil.math;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks for Vec3.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Vec3Bench
+{
+    private final Vec3 a = new Vec3(1.0f, 2.0f, 3.0f), b = new Vec3(-4.0f, 0.5f, 2.0f);
+    private final Vec3 result = new Vec3();
+    private final Quat quat = Quat.rotation(new Vec3(1.0f, 1.0f, 0.0f).normalize(), 0.7f);
+    private final Transform transform = new Transform(new Vec3(1.0f, 2.0f, 3.0f), quat, new Vec3(1.5f));
+    private final Mat4 matrix = Mat4.transform(transform);
+    
+    @Benchmark
+    public Vec3 add()
+    {
+        Vec3.add(a, b, result);
+        return result;
+    }
+    
+    @Benchmark
+    public Vec3 addAlloc()
+    {
+        return Vec3.add(a, b);
+    }
+    
+    @Benchmark
+    public float dot()
+    {
+        return Vec3.dot(a, b);
+    }
+    
+    @Benchmark
+    public Vec3 cross()
+    {
+        Vec3.cross(a, b, result);
+        return result;
+    }
+    
+    @Benchmark
+    public Vec3 normalize()
+    {
+        Vec3.normalize(a, result);
+        return result;
+    }
+    
+    @Benchmark
+    public Vec3 multMat4()
+    {
+        Vec3.mult(a, matrix, result);
+        return result;
+    }
+    
+    @Benchmark
+    public Vec3 multQuat()
+    {
+        Vec3.mult(a, quat, result);
+        return result;
+    }
+    
+    @Benchmark
+    public Vec3 multTransform()
+    {
+        Vec3.mult(a, transform, result);
+        return result;
+    }
+}
@@ -0,0 +1,78 @@
+package com.samrj.devil.model;
+
+import com.samrj.devil.math.Quat;
+import com.samrj.devil.math.Transform;
+import com.samrj.devil.math.Vec3;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks for TransformGraph, against walking each node's parent chain with
+ * Transform.mult(), as ModelObject.getParentedTransform() does. The hierarchy
+ * is a set of chains, each eight nodes deep.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformGraphBench
+{
+    private static final int DEPTH = 8;
+    
+    @Param({"64", "1024"})
+    private int size;
+    
+    private Transform[] locals;
+    private int[] parents;
+    private TransformGraph graph;
+    private final Transform result = new Transform();
+    
+    @Setup
+    public void setup()
+    {
+        locals = new Transform[size];
+        parents = new int[size];
+        graph = new TransformGraph(size);
+        for (int i=0; i<size; i++)
+        {
+            Quat rot = Quat.rotation(new Vec3(0.0f, 1.0f, 0.0f), i*0.1f);
+            locals[i] = new Transform(new Vec3(1.0f, 0.0f, 0.5f), rot, new Vec3(1.0f));
+            parents[i] = i % DEPTH == 0 ? TransformGraph.NONE : i - 1;
+            graph.add(parents[i], locals[i]);
+        }
+        graph.update();
+    }
+    
+    @Benchmark
+    public Transform walkParents()
+    {
+        for (int i=0; i<size; i++)
+        {
+            result.set(locals[i]);
+            for (int p=parents[i]; p!=TransformGraph.NONE; p=parents[p]) result.mult(locals[p]);
+        }
+        return result;
+    }
+    
+    @Benchmark
+    public TransformGraph updateAll()
+    {
+        for (int i=0; i<size; i+=DEPTH) graph.setLocal(i, locals[i]);
+        graph.update();
+        return graph;
+    }
+    
+    @Benchmark
+    public TransformGraph updateOne()
+    {
+        graph.setLocal(size/2, locals[size/2]);
+        graph.update();
+        return graph;
+    }
+}
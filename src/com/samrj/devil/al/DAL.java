@@ -23,6 +23,8 @@
 package com.samrj.devil.al;
 
 import com.samrj.devil.math.Vec3;
+import com.samrj.devil.util.NativeMemory;
+import com.samrj.devil.util.NativeMemory.Category;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -174,7 +176,7 @@ public class DAL
         }
         catch (Throwable t) //Prevent memory leaks by passing through throwables.
         {
-            memFree(buffer.close());
+            NativeMemory.free(buffer.close());
             throw t;
         }
         in.close();
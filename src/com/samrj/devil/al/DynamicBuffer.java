@@ -1,9 +1,9 @@
 package com.samrj.devil.al;
 
+import com.samrj.devil.util.NativeMemory;
+import com.samrj.devil.util.NativeMemory.Category;
 import java.nio.ByteBuffer;
 
-import static org.lwjgl.system.MemoryUtil.*;
-
 /**
  * A dynamically resizing direct byte buffer. Automatically allocates a bigger
  * buffer every time the capacity is reached.
@@ -19,7 +19,7 @@ public class DynamicBuffer
     
     public DynamicBuffer(int size)
     {
-        buffer = memAlloc(size);
+        buffer = NativeMemory.malloc(Category.AL, size);
     }
     
     public DynamicBuffer()
@@ -52,15 +52,8 @@ public class DynamicBuffer
             newCapacity = Integer.MAX_VALUE;
         }
         
-        int size = buffer.position();
-        buffer.flip();
-        
-        ByteBuffer newBuffer = memAlloc(newCapacity);
-        memCopy(buffer, newBuffer);
-        memFree(buffer);
-        
-        buffer = newBuffer;
-        buffer.position(size);
+        buffer = NativeMemory.realloc(buffer, newCapacity);
+        buffer.limit(newCapacity);
     }
     
     public void put(byte b)
@@ -138,7 +131,7 @@ public class DynamicBuffer
      * This is the only way to access the data inside the data stored in this
      * buffer.
      * 
-     * The returned ByteBuffer must be explicitly freed.
+     * The returned ByteBuffer must be freed with NativeMemory.free().
      * 
      * @return The memory block that backs this buffer.
      */
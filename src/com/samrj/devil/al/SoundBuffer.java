@@ -1,6 +1,8 @@
 package com.samrj.devil.al;
 
 import com.samrj.devil.math.Util.PrimType;
+import com.samrj.devil.util.NativeMemory;
+import com.samrj.devil.util.NativeMemory.Category;
 import java.nio.ByteBuffer;
 
 import static org.lwjgl.system.MemoryUtil.*;
@@ -40,7 +42,7 @@ public class SoundBuffer extends DALObj
         }
         catch (Throwable t)
         {
-            memFree(pcm.close());
+            NativeMemory.free(pcm.close());
             throw t;
         }
         
@@ -60,6 +62,6 @@ public class SoundBuffer extends DALObj
     @Override
     void delete()
     {
-        memFree(buffer);
+        NativeMemory.free(buffer);
     }
 }
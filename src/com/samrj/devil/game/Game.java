@@ -29,6 +29,8 @@ import com.samrj.devil.game.sync.SleepHybrid;
 import com.samrj.devil.game.sync.SleepMethod;
 import com.samrj.devil.game.sync.Sync;
 import com.samrj.devil.math.Vec2i;
+import com.samrj.devil.util.Arena;
+import com.samrj.devil.util.NativeMemory;
 import java.io.IOException;
 import java.util.Objects;
 import java.util.function.Consumer;
@@ -540,6 +542,9 @@ public final class Game
 
                 if (!vsync && fpsLimit > 0) sync.sync();
                 glfwSwapBuffers(window);
+
+                //Memory taken from the frame arena lasts only one frame.
+                Arena.endFrame();
             }
         }
         catch (IOException e)
@@ -581,6 +586,8 @@ public final class Game
 
                 glfwDestroyWindow(window);
                 glfwTerminate();
+                Arena.freeThread();
+                if (NativeMemory.TRACE) System.err.print(NativeMemory.report());
 
                 window = NULL;
                 capabilities = null;
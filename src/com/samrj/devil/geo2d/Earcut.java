@@ -18,20 +18,32 @@
 
 package com.samrj.devil.geo2d;
 
+import com.samrj.devil.util.IntList;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * Polygon triangulization algorithm.
  * 
  * Originally from https://github.com/mapbox/earcut
  * apparently ported to Java by Jani Simomaa: https://github.com/earcut4j/earcut4j
+ * 
+ * Nodes are stored in parallel arrays rather than objects, and each thread
+ * reuses its own arrays, so triangulating into an IntList allocates nothing
+ * once the arrays are large enough. Polygons with more than 80 vertices use a
+ * z-order curve hash to speed up ear checks.
  */
 public final class Earcut {
 
-    private Earcut() {
-    };
+    private static final int NULL = -1;
+
+    private static final ThreadLocal<Earcut> POOL = ThreadLocal.withInitial(Earcut::new);
+
+    // Scratch arrays larger than this many entries are dropped after use, so
+    // one huge polygon does not pin its memory to the thread forever.
+    private static final int MAX_RETAINED = 1 << 16;
 
     /**
      * Triangulates the given polygon
@@ -42,7 +54,7 @@ public final class Earcut {
     public static List<Integer> earcut(double[] data) {
         return earcut(data, null, 2);
     }
-    
+
     /**
      * Triangulates the given polygon
      * 
@@ -52,104 +64,264 @@ public final class Earcut {
      * @return List containing groups of three vertice indices in the resulting array forms a triangle.
      */
     public static List<Integer> earcut(double[] data, int[] holeIndices, int dim) {
+        int[] indices = earcutArray(data, holeIndices, dim);
+        List<Integer> triangles = new ArrayList<>(indices.length);
+        for (int index : indices)
+            triangles.add(index);
+        return triangles;
+    }
+
+    /**
+     * Triangulates the given polygon, appending the vertice indices of each
+     * triangle to the given list. Allocates nothing if the list has enough
+     * capacity, and this thread has triangulated a polygon this large before.
+     * Scratch space for very large polygons is not kept between calls.
+     * 
+     * @param data is a flat array of vertice coordinates like [x0,y0, x1,y1, x2,y2, ...].
+     * @param holeIndices is an array of hole indices if any, or null.
+     * @param dim  is the number of coordinates per vertice in the input array
+     * @param triangles the list to append triangle indices to.
+     * @return the number of triangles appended.
+     */
+    public static int earcut(double[] data, int[] holeIndices, int dim, IntList triangles) {
+        int before = triangles.size();
+        POOL.get().triangulate(data, holeIndices, dim, triangles);
+        return (triangles.size() - before) / 3;
+    }
 
+    /**
+     * Triangulates the given polygon, returning groups of three vertice
+     * indices in a new array.
+     * 
+     * @param data is a flat array of vertice coordinates like [x0,y0, x1,y1, x2,y2, ...].
+     * @param holeIndices is an array of hole indices if any, or null.
+     * @param dim  is the number of coordinates per vertice in the input array
+     * @return array containing groups of three vertice indices.
+     */
+    public static int[] earcutArray(double[] data, int[] holeIndices, int dim) {
+        Earcut earcut = POOL.get();
+        earcut.output.clear();
+        earcut.triangulate(data, holeIndices, dim, earcut.output);
+        int[] result = earcut.output.toArray();
+        if (earcut.output.capacity() > MAX_RETAINED)
+            earcut.output = new IntList();
+        return result;
+    }
+
+    /**
+     * Triangulates each of the given polygons in parallel, using the common
+     * fork-join pool.
+     * 
+     * @param polygons the flat vertice coordinates of each polygon.
+     * @param holeIndices the hole indices of each polygon, or null if none
+     *                    have holes. Individual entries may also be null.
+     * @param dim  is the number of coordinates per vertice in every polygon
+     * @return the triangle indices of each polygon, in the same order.
+     */
+    public static int[][] earcutAll(double[][] polygons, int[][] holeIndices, int dim) {
+        if (holeIndices != null && holeIndices.length != polygons.length)
+            throw new IllegalArgumentException("Hole indices must be given for every polygon.");
+
+        int[][] result = new int[polygons.length][];
+        IntStream.range(0, polygons.length).parallel().forEach(i ->
+            result[i] = earcutArray(polygons[i], holeIndices != null ? holeIndices[i] : null, dim));
+        return result;
+    }
+
+    // Node storage. Each node is an index into these arrays.
+    private int[] vi = new int[0];
+    private double[] vx = new double[0];
+    private double[] vy = new double[0];
+    private int[] vz = new int[0];
+    private boolean[] steiner = new boolean[0];
+    private int[] prev = new int[0];
+    private int[] next = new int[0];
+    private int[] prevZ = new int[0];
+    private int[] nextZ = new int[0];
+    private int numNodes;
+
+    private IntList output = new IntList();
+    private int[] holeQueue = new int[0];
+    private int[] sortBuffer = new int[0];
+
+    private IntList triangles;
+    private int dim;
+    private double minX, minY, invSize;
+
+    private Earcut() {
+    }
+
+    private void triangulate(double[] data, int[] holeIndices, int dim, IntList triangles) {
         boolean hasHoles = holeIndices != null && holeIndices.length > 0;
         int outerLen = hasHoles ? holeIndices[0] * dim : data.length;
 
-        Node outerNode = linkedList(data, 0, outerLen, dim, true);
-
-        List<Integer> triangles = new ArrayList<>();
-
-        if (outerNode == null)
-            return triangles;
-
-        double minX = 0;
-        double minY = 0;
-        double maxX = 0;
-        double maxY = 0;
-        double size = Double.MIN_VALUE;
-
-        if (hasHoles)
-            outerNode = eliminateHoles(data, holeIndices, outerNode, dim);
-
-        // if the shape is not too simple, we'll use z-order curve hash later;
-        // calculate polygon bbox
-        if (data.length > 80 * dim) {
-            minX = maxX = data[0];
-            minY = maxY = data[1];
-
-            for (int i = dim; i < outerLen; i += dim) {
-                double x = data[i];
-                double y = data[i + 1];
-                if (x < minX)
-                    minX = x;
-                if (y < minY)
-                    minY = y;
-                if (x > maxX)
-                    maxX = x;
-                if (y > maxY)
-                    maxY = y;
+        int numHoles = hasHoles ? holeIndices.length : 0;
+        reserve(data.length / dim + numHoles * 2 + 8);
+        numNodes = 0;
+        this.triangles = triangles;
+        this.dim = dim;
+
+        try {
+            int outerNode = linkedList(data, 0, outerLen, dim, true);
+            if (outerNode == NULL)
+                return;
+
+            if (hasHoles)
+                outerNode = eliminateHoles(data, holeIndices, outerNode, dim);
+
+            minX = 0;
+            minY = 0;
+            invSize = 0;
+
+            // if the shape is not too simple, we'll use z-order curve hash later;
+            // calculate polygon bbox
+            if (data.length > 80 * dim) {
+                double maxX, maxY;
+                minX = maxX = data[0];
+                minY = maxY = data[1];
+
+                for (int i = dim; i < outerLen; i += dim) {
+                    double x = data[i];
+                    double y = data[i + 1];
+                    if (x < minX)
+                        minX = x;
+                    if (y < minY)
+                        minY = y;
+                    if (x > maxX)
+                        maxX = x;
+                    if (y > maxY)
+                        maxY = y;
+                }
+
+                // minX, minY and invSize are later used to transform coords into
+                // integers for z-order calculation
+                double size = Math.max(maxX - minX, maxY - minY);
+                invSize = size != 0 ? 32767 / size : 0;
             }
 
-            // minX, minY and size are later used to transform coords into
-            // integers for z-order calculation
-            size = Math.max(maxX - minX, maxY - minY);
+            earcutLinked(outerNode, 0);
+        } finally {
+            this.triangles = null;
+            trim();
         }
+    }
 
-        earcutLinked(outerNode, triangles, dim, minX, minY, size, Integer.MIN_VALUE);
+    private void trim() {
+        if (vi.length > MAX_RETAINED) {
+            vi = new int[0];
+            vx = new double[0];
+            vy = new double[0];
+            vz = new int[0];
+            steiner = new boolean[0];
+            prev = new int[0];
+            next = new int[0];
+            prevZ = new int[0];
+            nextZ = new int[0];
+        }
+        if (holeQueue.length > MAX_RETAINED) {
+            holeQueue = new int[0];
+            sortBuffer = new int[0];
+        }
+    }
 
-        return triangles;
+    private void reserve(int capacity) {
+        if (vi.length >= capacity)
+            return;
+
+        int newCapacity = Math.max(capacity, vi.length + (vi.length >> 1));
+        vi = Arrays.copyOf(vi, newCapacity);
+        vx = Arrays.copyOf(vx, newCapacity);
+        vy = Arrays.copyOf(vy, newCapacity);
+        vz = Arrays.copyOf(vz, newCapacity);
+        steiner = Arrays.copyOf(steiner, newCapacity);
+        prev = Arrays.copyOf(prev, newCapacity);
+        next = Arrays.copyOf(next, newCapacity);
+        prevZ = Arrays.copyOf(prevZ, newCapacity);
+        nextZ = Arrays.copyOf(nextZ, newCapacity);
     }
 
-    private static void earcutLinked(Node ear, List<Integer> triangles, int dim, double minX, double minY, double size, int pass) {
-        if (ear == null)
+    private int newNode(int i, double x, double y) {
+        reserve(numNodes + 1);
+        int p = numNodes++;
+
+        // vertice index in coordinates array
+        vi[p] = i;
+
+        // vertex coordinates
+        vx[p] = x;
+        vy[p] = y;
+
+        // previous and next vertice nodes in a polygon ring
+        prev[p] = NULL;
+        next[p] = NULL;
+
+        // z-order curve value, or -1 if not yet computed
+        vz[p] = -1;
+
+        // previous and next nodes in z-order
+        prevZ[p] = NULL;
+        nextZ[p] = NULL;
+
+        // indicates whether this is a steiner point
+        steiner[p] = false;
+        return p;
+    }
+
+    private void addTriangle(int a, int b, int c) {
+        triangles.add(vi[a] / dim);
+        triangles.add(vi[b] / dim);
+        triangles.add(vi[c] / dim);
+    }
+
+    private void earcutLinked(int ear, int pass) {
+        if (ear == NULL)
             return;
 
+        boolean hashed = invSize != 0;
+
         // interlink polygon nodes in z-order
-        if (pass == Integer.MIN_VALUE && size != Double.MIN_VALUE)
-            indexCurve(ear, minX, minY, size);
+        if (pass == 0 && hashed)
+            indexCurve(ear);
 
-        Node stop = ear;
+        int stop = ear;
 
         // iterate through ears, slicing them one by one
-        while (ear.prev != ear.next) {
-            Node prev = ear.prev;
-            Node next = ear.next;
+        while (prev[ear] != next[ear]) {
+            int p = prev[ear];
+            int n = next[ear];
 
-            if (size != Double.MIN_VALUE ? isEarHashed(ear, minX, minY, size) : isEar(ear)) {
+            if (hashed ? isEarHashed(ear) : isEar(ear)) {
                 // cut off the triangle
-                triangles.add(prev.i / dim);
-                triangles.add(ear.i / dim);
-                triangles.add(next.i / dim);
+                addTriangle(p, ear, n);
 
                 removeNode(ear);
 
                 // skipping the next vertice leads to less sliver triangles
-                ear = next.next;
-                stop = next.next;
+                ear = next[n];
+                stop = next[n];
 
                 continue;
             }
 
-            ear = next;
+            ear = n;
 
             // if we looped through the whole remaining polygon and can't find
             // any more ears
             if (ear == stop) {
                 // try filtering points and slicing again
-                if (pass == Integer.MIN_VALUE) {
-                    earcutLinked(filterPoints(ear, null), triangles, dim, minX, minY, size, 1);
+                if (pass == 0) {
+                    earcutLinked(filterPoints(ear, NULL), 1);
 
                     // if this didn't work, try curing all small
                     // self-intersections locally
                 } else if (pass == 1) {
-                    ear = cureLocalIntersections(ear, triangles, dim);
-                    earcutLinked(ear, triangles, dim, minX, minY, size, 2);
+                    ear = cureLocalIntersections(ear);
+                    earcutLinked(ear, 2);
 
                     // as a last resort, try splitting the remaining polygon
                     // into two
                 } else if (pass == 2) {
-                    splitEarcut(ear, triangles, dim, minX, minY, size);
+                    splitEarcut(ear);
                 }
 
                 break;
@@ -157,235 +329,239 @@ public final class Earcut {
         }
     }
 
-    private static void splitEarcut(Node start, List<Integer> triangles, int dim, double minX, double minY, double size) {
+    private void splitEarcut(int start) {
         // look for a valid diagonal that divides the polygon into two
-        Node a = start;
+        int a = start;
         do {
-            Node b = a.next.next;
-            while (b != a.prev) {
-                if (a.i != b.i && isValidDiagonal(a, b)) {
+            int b = next[next[a]];
+            while (b != prev[a]) {
+                if (vi[a] != vi[b] && isValidDiagonal(a, b)) {
                     // split the polygon in two by the diagonal
-                    Node c = splitPolygon(a, b);
+                    int c = splitPolygon(a, b);
 
                     // filter colinear points around the cuts
-                    a = filterPoints(a, a.next);
-                    c = filterPoints(c, c.next);
+                    a = filterPoints(a, next[a]);
+                    c = filterPoints(c, next[c]);
 
                     // run earcut on each half
-                    earcutLinked(a, triangles, dim, minX, minY, size, Integer.MIN_VALUE);
-                    earcutLinked(c, triangles, dim, minX, minY, size, Integer.MIN_VALUE);
+                    earcutLinked(a, 0);
+                    earcutLinked(c, 0);
                     return;
                 }
-                b = b.next;
+                b = next[b];
             }
-            a = a.next;
+            a = next[a];
         } while (a != start);
     }
 
-    private static boolean isValidDiagonal(Node a, Node b) {
-        return a.next.i != b.i && a.prev.i != b.i && !intersectsPolygon(a, b) && locallyInside(a, b) && locallyInside(b, a) && middleInside(a, b);
+    private boolean isValidDiagonal(int a, int b) {
+        return vi[next[a]] != vi[b] && vi[prev[a]] != vi[b] && !intersectsPolygon(a, b) && locallyInside(a, b) && locallyInside(b, a) && middleInside(a, b);
     }
 
-    private static boolean middleInside(Node a, Node b) {
-        Node p = a;
+    private boolean middleInside(int a, int b) {
+        int p = a;
         boolean inside = false;
-        double px = (a.x + b.x) / 2;
-        double py = (a.y + b.y) / 2;
+        double px = (vx[a] + vx[b]) / 2;
+        double py = (vy[a] + vy[b]) / 2;
         do {
-            if (((p.y > py) != (p.next.y > py)) && (px < (p.next.x - p.x) * (py - p.y) / (p.next.y - p.y) + p.x))
+            int n = next[p];
+            if (((vy[p] > py) != (vy[n] > py)) && (px < (vx[n] - vx[p]) * (py - vy[p]) / (vy[n] - vy[p]) + vx[p]))
                 inside = !inside;
-            p = p.next;
+            p = n;
         } while (p != a);
 
         return inside;
     }
 
-    private static boolean intersectsPolygon(Node a, Node b) {
-        Node p = a;
+    private boolean intersectsPolygon(int a, int b) {
+        int ai = vi[a], bi = vi[b];
+        int p = a;
         do {
-            if (p.i != a.i && p.next.i != a.i && p.i != b.i && p.next.i != b.i && intersects(p, p.next, a, b))
+            int n = next[p];
+            if (vi[p] != ai && vi[n] != ai && vi[p] != bi && vi[n] != bi && intersects(p, n, a, b))
                 return true;
-            p = p.next;
+            p = n;
         } while (p != a);
 
         return false;
     }
 
-    private static boolean intersects(Node p1, Node q1, Node p2, Node q2) {
+    private boolean intersects(int p1, int q1, int p2, int q2) {
         if ((equals(p1, q1) && equals(p2, q2)) || (equals(p1, q2) && equals(p2, q1)))
             return true;
         return area(p1, q1, p2) > 0 != area(p1, q1, q2) > 0 && area(p2, q2, p1) > 0 != area(p2, q2, q1) > 0;
     }
 
-    private static Node cureLocalIntersections(Node start, List<Integer> triangles, int dim) {
-        Node p = start;
+    private int cureLocalIntersections(int start) {
+        int p = start;
         do {
-            Node a = p.prev, b = p.next.next;
+            int a = prev[p], b = next[next[p]];
 
-            if (!equals(a, b) && intersects(a, p, p.next, b) && locallyInside(a, b) && locallyInside(b, a)) {
+            if (!equals(a, b) && intersects(a, p, next[p], b) && locallyInside(a, b) && locallyInside(b, a)) {
 
-                triangles.add(a.i / dim);
-                triangles.add(p.i / dim);
-                triangles.add(b.i / dim);
+                addTriangle(a, p, b);
 
                 // remove two nodes involved
                 removeNode(p);
-                removeNode(p.next);
+                removeNode(next[p]);
 
                 p = start = b;
             }
-            p = p.next;
+            p = next[p];
         } while (p != start);
 
         return p;
     }
 
-    private static boolean isEar(Node ear) {
-        Node a = ear.prev, b = ear, c = ear.next;
+    private boolean isEar(int ear) {
+        int a = prev[ear], b = ear, c = next[ear];
 
         if (area(a, b, c) >= 0)
             return false; // reflex, can't be an ear
 
+        double ax = vx[a], ay = vy[a], bx = vx[b], by = vy[b], cx = vx[c], cy = vy[c];
+
         // now make sure we don't have other points inside the potential ear
-        Node p = ear.next.next;
+        int p = next[c];
 
-        while (p != ear.prev) {
-            if (pointInTriangle(a.x, a.y, b.x, b.y, c.x, c.y, p.x, p.y) && area(p.prev, p, p.next) >= 0)
+        while (p != a) {
+            if (pointInTriangle(ax, ay, bx, by, cx, cy, vx[p], vy[p]) && area(prev[p], p, next[p]) >= 0)
                 return false;
-            p = p.next;
+            p = next[p];
         }
 
         return true;
     }
 
-    private static boolean isEarHashed(Node ear, double minX, double minY, double size) {
-        Node a = ear.prev;
-        Node b = ear;
-        Node c = ear.next;
+    private boolean isEarHashed(int ear) {
+        int a = prev[ear];
+        int b = ear;
+        int c = next[ear];
 
         if (area(a, b, c) >= 0)
             return false; // reflex, can't be an ear
 
+        double ax = vx[a], ay = vy[a], bx = vx[b], by = vy[b], cx = vx[c], cy = vy[c];
+
         // triangle bbox; min & max are calculated like this for speed
-        double minTX = a.x < b.x ? (a.x < c.x ? a.x : c.x) : (b.x < c.x ? b.x : c.x), minTY = a.y < b.y ? (a.y < c.y ? a.y : c.y) : (b.y < c.y ? b.y : c.y),
-                maxTX = a.x > b.x ? (a.x > c.x ? a.x : c.x) : (b.x > c.x ? b.x : c.x), maxTY = a.y > b.y ? (a.y > c.y ? a.y : c.y) : (b.y > c.y ? b.y : c.y);
+        double minTX = ax < bx ? (ax < cx ? ax : cx) : (bx < cx ? bx : cx), minTY = ay < by ? (ay < cy ? ay : cy) : (by < cy ? by : cy),
+                maxTX = ax > bx ? (ax > cx ? ax : cx) : (bx > cx ? bx : cx), maxTY = ay > by ? (ay > cy ? ay : cy) : (by > cy ? by : cy);
 
         // z-order range for the current triangle bbox;
-        double minZ = zOrder(minTX, minTY, minX, minY, size);
-        double maxZ = zOrder(maxTX, maxTY, minX, minY, size);
+        int minZ = zOrder(minTX, minTY);
+        int maxZ = zOrder(maxTX, maxTY);
 
         // first look for points inside the triangle in increasing z-order
-        Node p = ear.nextZ;
+        int p = nextZ[ear];
 
-        while (p != null && p.z <= maxZ) {
-            if (p != ear.prev && p != ear.next && pointInTriangle(a.x, a.y, b.x, b.y, c.x, c.y, p.x, p.y) && area(p.prev, p, p.next) >= 0)
+        while (p != NULL && vz[p] <= maxZ) {
+            if (p != a && p != c && pointInTriangle(ax, ay, bx, by, cx, cy, vx[p], vy[p]) && area(prev[p], p, next[p]) >= 0)
                 return false;
-            p = p.nextZ;
+            p = nextZ[p];
         }
 
         // then look for points in decreasing z-order
-        p = ear.prevZ;
+        p = prevZ[ear];
 
-        while (p != null && p.z >= minZ) {
-            if (p != ear.prev && p != ear.next && pointInTriangle(a.x, a.y, b.x, b.y, c.x, c.y, p.x, p.y) && area(p.prev, p, p.next) >= 0)
+        while (p != NULL && vz[p] >= minZ) {
+            if (p != a && p != c && pointInTriangle(ax, ay, bx, by, cx, cy, vx[p], vy[p]) && area(prev[p], p, next[p]) >= 0)
                 return false;
-            p = p.prevZ;
+            p = prevZ[p];
         }
 
         return true;
     }
 
-    private static double zOrder(double x, double y, double minX, double minY, double size) {
+    private int zOrder(double x, double y) {
         // coords are transformed into non-negative 15-bit integer range
-        int lx = new Double(32767 * (x - minX) / size).intValue();
-        int ly = new Double(32767 * (y - minY) / size).intValue();
+        int lx = (int) ((x - minX) * invSize);
+        int ly = (int) ((y - minY) * invSize);
 
         lx = (lx | (lx << 8)) & 0x00FF00FF;
         lx = (lx | (lx << 4)) & 0x0F0F0F0F;
         lx = (lx | (lx << 2)) & 0x33333333;
         lx = (lx | (lx << 1)) & 0x55555555;
 
-        y = (ly | (ly << 8)) & 0x00FF00FF;
-        y = (ly | (ly << 4)) & 0x0F0F0F0F;
-        y = (ly | (ly << 2)) & 0x33333333;
-        y = (ly | (ly << 1)) & 0x55555555;
+        ly = (ly | (ly << 8)) & 0x00FF00FF;
+        ly = (ly | (ly << 4)) & 0x0F0F0F0F;
+        ly = (ly | (ly << 2)) & 0x33333333;
+        ly = (ly | (ly << 1)) & 0x55555555;
 
         return lx | (ly << 1);
     }
 
-    private static void indexCurve(Node start, double minX, double minY, double size) {
-        Node p = start;
+    private void indexCurve(int start) {
+        int p = start;
         do {
-            if (p.z == Double.MIN_VALUE)
-                p.z = zOrder(p.x, p.y, minX, minY, size);
-            p.prevZ = p.prev;
-            p.nextZ = p.next;
-            p = p.next;
+            if (vz[p] == -1)
+                vz[p] = zOrder(vx[p], vy[p]);
+            prevZ[p] = prev[p];
+            nextZ[p] = next[p];
+            p = next[p];
         } while (p != start);
 
-        p.prevZ.nextZ = null;
-        p.prevZ = null;
+        nextZ[prevZ[p]] = NULL;
+        prevZ[p] = NULL;
 
         sortLinked(p);
     }
 
-    private static Node sortLinked(Node list) {
+    private int sortLinked(int list) {
         int inSize = 1;
-        
 
         int numMerges;
         do {
-            Node p = list;
-            list = null;
-            Node tail = null;
+            int p = list;
+            list = NULL;
+            int tail = NULL;
             numMerges = 0;
 
-            while (p != null) {
+            while (p != NULL) {
                 numMerges++;
-                Node q = p;
+                int q = p;
                 int pSize = 0;
                 for (int i = 0; i < inSize; i++) {
                     pSize++;
-                    q = q.nextZ;
-                    if (q == null)
+                    q = nextZ[q];
+                    if (q == NULL)
                         break;
                 }
 
                 int qSize = inSize;
 
-                while (pSize > 0 || (qSize > 0 && q != null)) {
-                    Node e;
+                while (pSize > 0 || (qSize > 0 && q != NULL)) {
+                    int e;
                     if (pSize == 0) {
                         e = q;
-                        q = q.nextZ;
+                        q = nextZ[q];
                         qSize--;
-                    } else if (qSize == 0 || q == null) {
+                    } else if (qSize == 0 || q == NULL) {
                         e = p;
-                        p = p.nextZ;
+                        p = nextZ[p];
                         pSize--;
-                    } else if (p.z <= q.z) {
+                    } else if (vz[p] <= vz[q]) {
                         e = p;
-                        p = p.nextZ;
+                        p = nextZ[p];
                         pSize--;
                     } else {
                         e = q;
-                        q = q.nextZ;
+                        q = nextZ[q];
                         qSize--;
                     }
 
-                    if (tail != null)
-                        tail.nextZ = e;
+                    if (tail != NULL)
+                        nextZ[tail] = e;
                     else
                         list = e;
 
-                    e.prevZ = tail;
+                    prevZ[e] = tail;
                     tail = e;
                 }
 
                 p = q;
             }
 
-            tail.nextZ = null;
+            nextZ[tail] = NULL;
             inSize *= 2;
 
         } while (numMerges > 1);
@@ -393,136 +569,157 @@ public final class Earcut {
         return list;
     }
 
-    private static Node eliminateHoles(double[] data, int[] holeIndices, Node outerNode, int dim) {
-        List<Node> queue = new ArrayList<>();
-
+    private int eliminateHoles(double[] data, int[] holeIndices, int outerNode, int dim) {
         int len = holeIndices.length;
+        if (holeQueue.length < len) {
+            holeQueue = new int[len];
+            sortBuffer = new int[len];
+        }
+
+        int queueSize = 0;
         for (int i = 0; i < len; i++) {
             int start = holeIndices[i] * dim;
             int end = i < len - 1 ? holeIndices[i + 1] * dim : data.length;
-            Node list = linkedList(data, start, end, dim, false);
-            if (list == list.next)
-                list.steiner = true;
-            queue.add(getLeftmost(list));
+            int list = linkedList(data, start, end, dim, false);
+            if (list == NULL)
+                continue;
+            if (list == next[list])
+                steiner[list] = true;
+            holeQueue[queueSize++] = getLeftmost(list);
         }
 
-        queue.sort(new Comparator<Node>() {
-
-            @Override
-            public int compare(Node o1, Node o2) {
-                if (o1.x - o2.x > 0)
-                    return 1;
-                else if (o1.x - o2.x < 0)
-                    return -2;
-                return 0;
-            }
-        });
+        sortByX(holeQueue, queueSize);
 
-        for (Node node : queue) {
-            eliminateHole(node, outerNode);
-            outerNode = filterPoints(outerNode, outerNode.next);
+        for (int i = 0; i < queueSize; i++) {
+            eliminateHole(holeQueue[i], outerNode);
+            outerNode = filterPoints(outerNode, next[outerNode]);
         }
 
         return outerNode;
     }
 
-    private static Node filterPoints(Node start, Node end) {
-        if (start == null)
+    /**
+     * Stable merge sort of the given nodes by x coordinate.
+     */
+    private void sortByX(int[] nodes, int count) {
+        int[] src = nodes, dst = sortBuffer;
+        for (int width = 1; width < count; width *= 2) {
+            for (int lo = 0; lo < count; lo += 2 * width) {
+                int mid = Math.min(lo + width, count), hi = Math.min(lo + 2 * width, count);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi)
+                    dst[k++] = vx[src[j]] < vx[src[i]] ? src[j++] : src[i++];
+                while (i < mid)
+                    dst[k++] = src[i++];
+                while (j < hi)
+                    dst[k++] = src[j++];
+            }
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+        if (src != nodes)
+            System.arraycopy(src, 0, nodes, 0, count);
+    }
+
+    private int filterPoints(int start, int end) {
+        if (start == NULL)
             return start;
-        if (end == null)
+        if (end == NULL)
             end = start;
 
-        Node p = start;
+        int p = start;
         boolean again;
 
         do {
             again = false;
 
-            if (!p.steiner && equals(p, p.next) || area(p.prev, p, p.next) == 0) {
+            if (!steiner[p] && equals(p, next[p]) || area(prev[p], p, next[p]) == 0) {
                 removeNode(p);
-                p = end = p.prev;
-                if (p == p.next)
-                    return null;
+                p = end = prev[p];
+                if (p == next[p])
+                    return NULL;
                 again = true;
             } else {
-                p = p.next;
+                p = next[p];
             }
         } while (again || p != end);
 
         return end;
     }
 
-    private static boolean equals(Node p1, Node p2) {
-        return p1.x == p2.x && p1.y == p2.y;
+    private boolean equals(int p1, int p2) {
+        return vx[p1] == vx[p2] && vy[p1] == vy[p2];
     }
 
-    private static double area(Node p, Node q, Node r) {
-        return (q.y - p.y) * (r.x - q.x) - (q.x - p.x) * (r.y - q.y);
+    private double area(int p, int q, int r) {
+        return (vy[q] - vy[p]) * (vx[r] - vx[q]) - (vx[q] - vx[p]) * (vy[r] - vy[q]);
     }
 
-    private static void eliminateHole(Node hole, Node outerNode) {
+    private void eliminateHole(int hole, int outerNode) {
         outerNode = findHoleBridge(hole, outerNode);
-        if (outerNode != null) {
-            Node b = splitPolygon(outerNode, hole);
-            filterPoints(b, b.next);
+        if (outerNode != NULL) {
+            int b = splitPolygon(outerNode, hole);
+            filterPoints(b, next[b]);
         }
     }
 
-    private static Node splitPolygon(Node a, Node b) {
-        Node a2 = new Node(a.i, a.x, a.y);
-        Node b2 = new Node(b.i, b.x, b.y);
-        Node an = a.next;
-        Node bp = b.prev;
+    private int splitPolygon(int a, int b) {
+        int a2 = newNode(vi[a], vx[a], vy[a]);
+        int b2 = newNode(vi[b], vx[b], vy[b]);
+        int an = next[a];
+        int bp = prev[b];
 
-        a.next = b;
-        b.prev = a;
+        next[a] = b;
+        prev[b] = a;
 
-        a2.next = an;
-        an.prev = a2;
+        next[a2] = an;
+        prev[an] = a2;
 
-        b2.next = a2;
-        a2.prev = b2;
+        next[b2] = a2;
+        prev[a2] = b2;
 
-        bp.next = b2;
-        b2.prev = bp;
+        next[bp] = b2;
+        prev[b2] = bp;
 
         return b2;
     }
 
     // David Eberly's algorithm for finding a bridge between hole and outer
     // polygon
-    private static Node findHoleBridge(Node hole, Node outerNode) {
-        Node p = outerNode;
-        double hx = hole.x;
-        double hy = hole.y;
+    private int findHoleBridge(int hole, int outerNode) {
+        int p = outerNode;
+        double hx = vx[hole];
+        double hy = vy[hole];
         double qx = -Double.MAX_VALUE;
-        Node m = null;
+        int m = NULL;
 
         // find a segment intersected by a ray from the hole's leftmost point to
         // the left;
         // segment's endpoint with lesser x will be potential connection point
         do {
-            if (hy <= p.y && hy >= p.next.y) {
-                double x = p.x + (hy - p.y) * (p.next.x - p.x) / (p.next.y - p.y);
+            int n = next[p];
+            if (hy <= vy[p] && hy >= vy[n]) {
+                double x = vx[p] + (hy - vy[p]) * (vx[n] - vx[p]) / (vy[n] - vy[p]);
                 if (x <= hx && x > qx) {
                     qx = x;
                     if (x == hx) {
-                        if (hy == p.y)
+                        if (hy == vy[p])
                             return p;
-                        if (hy == p.next.y)
-                            return p.next;
+                        if (hy == vy[n])
+                            return n;
                     }
-                    m = p.x < p.next.x ? p : p.next;
+                    m = vx[p] < vx[n] ? p : n;
                 }
             }
-            p = p.next;
+            p = n;
         } while (p != outerNode);
 
-        if (m == null)
-            return null;
+        if (m == NULL)
+            return NULL;
 
         if (hx == qx)
-            return m.prev; // hole touches outer segment; pick lower endpoint
+            return prev[m]; // hole touches outer segment; pick lower endpoint
 
         // look for points inside the triangle of hole point, segment
         // intersection and endpoint;
@@ -530,33 +727,33 @@ public final class Earcut {
         // otherwise choose the point of the minimum angle with the ray as
         // connection point
 
-        Node stop = m;
-        double mx = m.x;
-        double my = m.y;
+        int stop = m;
+        double mx = vx[m];
+        double my = vy[m];
         double tanMin = Double.MAX_VALUE;
         double tan;
 
-        p = m.next;
+        p = next[m];
 
         while (p != stop) {
-            if (hx >= p.x && p.x >= mx && pointInTriangle(hy < my ? hx : qx, hy, mx, my, hy < my ? qx : hx, hy, p.x, p.y)) {
+            if (hx >= vx[p] && vx[p] >= mx && pointInTriangle(hy < my ? hx : qx, hy, mx, my, hy < my ? qx : hx, hy, vx[p], vy[p])) {
 
-                tan = Math.abs(hy - p.y) / (hx - p.x); // tangential
+                tan = Math.abs(hy - vy[p]) / (hx - vx[p]); // tangential
 
-                if ((tan < tanMin || (tan == tanMin && p.x > m.x)) && locallyInside(p, hole)) {
+                if ((tan < tanMin || (tan == tanMin && vx[p] > vx[m])) && locallyInside(p, hole)) {
                     m = p;
                     tanMin = tan;
                 }
             }
 
-            p = p.next;
+            p = next[p];
         }
 
         return m;
     }
 
-    private static boolean locallyInside(Node a, Node b) {
-        return area(a.prev, a, a.next) < 0 ? area(a, b, a.next) >= 0 && area(a, a.prev, b) >= 0 : area(a, b, a.prev) < 0 || area(a, a.next, b) < 0;
+    private boolean locallyInside(int a, int b) {
+        return area(prev[a], a, next[a]) < 0 ? area(a, b, next[a]) >= 0 && area(a, prev[a], b) >= 0 : area(a, b, prev[a]) < 0 || area(a, next[a], b) < 0;
     }
 
     private static boolean pointInTriangle(double ax, double ay, double bx, double by, double cx, double cy, double px, double py) {
@@ -564,19 +761,19 @@ public final class Earcut {
                 && (bx - px) * (cy - py) - (cx - px) * (by - py) >= 0;
     }
 
-    private static Node getLeftmost(Node start) {
-        Node p = start;
-        Node leftmost = start;
+    private int getLeftmost(int start) {
+        int p = start;
+        int leftmost = start;
         do {
-            if (p.x < leftmost.x)
+            if (vx[p] < vx[leftmost])
                 leftmost = p;
-            p = p.next;
+            p = next[p];
         } while (p != start);
         return leftmost;
     }
 
-    private static Node linkedList(double[] data, int start, int end, int dim, boolean clockwise) {
-        Node last = null;
+    private int linkedList(double[] data, int start, int end, int dim, boolean clockwise) {
+        int last = NULL;
         if (clockwise == (signedArea(data, start, end, dim) > 0)) {
             for (int i = start; i < end; i += dim) {
                 last = insertNode(i, data[i], data[i + 1], last);
@@ -587,36 +784,36 @@ public final class Earcut {
             }
         }
 
-        if (last != null && equals(last, last.next)) {
+        if (last != NULL && equals(last, next[last])) {
             removeNode(last);
-            last = last.next;
+            last = next[last];
         }
         return last;
     }
 
-    private static void removeNode(Node p) {
-        p.next.prev = p.prev;
-        p.prev.next = p.next;
+    private void removeNode(int p) {
+        prev[next[p]] = prev[p];
+        next[prev[p]] = next[p];
 
-        if (p.prevZ != null) {
-            p.prevZ.nextZ = p.nextZ;
+        if (prevZ[p] != NULL) {
+            nextZ[prevZ[p]] = nextZ[p];
         }
-        if (p.nextZ != null) {
-            p.nextZ.prevZ = p.prevZ;
+        if (nextZ[p] != NULL) {
+            prevZ[nextZ[p]] = prevZ[p];
         }
     }
 
-    private static Node insertNode(int i, double x, double y, Node last) {
-        Node p = new Node(i, x, y);
+    private int insertNode(int i, double x, double y, int last) {
+        int p = newNode(i, x, y);
 
-        if (last == null) {
-            p.prev = p;
-            p.next = p;
+        if (last == NULL) {
+            prev[p] = p;
+            next[p] = p;
         } else {
-            p.next = last.next;
-            p.prev = last;
-            last.next.prev = p;
-            last.next = p;
+            next[p] = next[last];
+            prev[p] = last;
+            prev[next[last]] = p;
+            next[last] = p;
         }
         return p;
     }
@@ -630,48 +827,4 @@ public final class Earcut {
         }
         return sum;
     }
-
-    private static class Node {
-
-        int i;
-        double x;
-        double y;
-        double z;
-        boolean steiner;
-
-        Node prev;
-        Node next;
-        Node prevZ;
-        Node nextZ;
-
-        Node(int i, double x, double y) {
-            // vertice index in coordinates array
-            this.i = i;
-
-            // vertex coordinates
-            this.x = x;
-            this.y = y;
-
-            // previous and next vertice nodes in a polygon ring
-            this.prev = null;
-            this.next = null;
-
-            // z-order curve value
-            this.z = Double.MIN_VALUE;
-
-            // previous and next nodes in z-order
-            this.prevZ = null;
-            this.nextZ = null;
-
-            // indicates whether this is a steiner point
-            this.steiner = false;
-        }
-
-        @Override
-        public String toString() {
-            StringBuilder sb = new StringBuilder();
-            sb.append("{i: ").append(i).append(", x: ").append(x).append(", y: ").append(y).append(", prev: ").append(prev).append(", next: ").append(next);
-            return sb.toString();
-        }
-    }
 }
@@ -73,6 +73,9 @@ public final class ActorDriver
     public Consumer<Vec3> landCallback;
     
     private final Vec3 displacement = new Vec3();
+    private final Vec3 avgVel = new Vec3(), startVel = new Vec3();
+    private final Vec3 adjMoveDir = new Vec3(), dv = new Vec3();
+    private final Vec3 sweepDir = new Vec3(), nudge = new Vec3(), temp = new Vec3();
     private final Vec3 groundNormal = new Vec3(0.0f, 1.0f, 0.0f);
     private final Vec3 slideNormal = new Vec3(0.0f, 1.0f, 0.0f);
     private Object groundObject, slideObject;
@@ -96,7 +99,7 @@ public final class ActorDriver
     {
         if (acc == 0.0f) return;
         
-        Vec3 dv = Vec3.sub(desiredVel, vel);
+        Vec3.sub(desiredVel, vel, dv);
         float dvLen = dv.length();
         
         if (dvLen > acc) vel.madd(dv, acc/dvLen);
@@ -239,11 +242,11 @@ public final class ActorDriver
     public void step(float dt)
     {
         boolean startOnGround = onGround();
-        Vec3 avgVel = new Vec3(vel);
-        Vec3 startVel = new Vec3(vel);
+        avgVel.set(vel);
+        startVel.set(vel);
         
         boolean wantToMove = !moveDir.isZero();
-        Vec3 adjMoveDir = new Vec3(moveDir);
+        adjMoveDir.set(moveDir);
 
         if (startOnGround) //Walking
         {
@@ -288,8 +291,8 @@ public final class ActorDriver
                 float oldY = pos.y;
                 pos.y += climbHeight;
 
-                Vec3 step = new Vec3(0.0f, -2.0f*climbHeight, 0.0f);
-                SweepResult sweep = geom.sweepUnsorted(shape, step)
+                sweepDir.set(0.0f, -2.0f*climbHeight, 0.0f);
+                SweepResult sweep = geom.sweepUnsorted(shape, sweepDir)
                         .filter(e -> isValidGround(e.normal))
                         .reduce((a, b) -> a.time < b.time ? a : b)
                         .orElse(null);
@@ -311,8 +314,8 @@ public final class ActorDriver
                 float oldY = pos.y;
                 pos.y += climbHeight;
 
-                Vec3 step = new Vec3(0.0f, -2.0f*climbHeight, 0.0f);
-                SweepResult sweep = geom.sweepUnsorted(shape, step)
+                sweepDir.set(0.0f, -2.0f*climbHeight, 0.0f);
+                SweepResult sweep = geom.sweepUnsorted(shape, sweepDir)
                         .reduce((a, b) -> a.time < b.time ? a : b)
                         .orElse(null);
                 
@@ -326,14 +329,15 @@ public final class ActorDriver
             }
             
             //Clip against the level
-            Vec3 nudge = new Vec3();
+            nudge.set();
             
             geom.intersectUnsorted(shape).forEach(isect ->
             {
-                nudge.add(Vec3.sub(isect.point, isect.surface));
+                Vec3.sub(isect.point, isect.surface, temp);
+                nudge.add(temp);
                 
                 float height = isect.point.y - pos.y + shape.radii.y;
-                if (height > climbHeight) vel.set(Geo3DUtil.restrain(vel, isect.normal));
+                if (height > climbHeight) Geo3DUtil.restrain(vel, isect.normal, vel);
 
                 if (isValidGround(isect.normal) && (!onGround() || isect.normal.y > groundNormal.y))
                 {
@@ -346,7 +350,11 @@ public final class ActorDriver
         }
         
         boolean endOnGround = onGround();
-        if (endOnGround) vel.y = Geo3DUtil.restrain(vel, groundNormal).y;
+        if (endOnGround)
+        {
+            Geo3DUtil.restrain(vel, groundNormal, temp);
+            vel.y = temp.y;
+        }
 
         //Check for landing
         if (landCallback != null && !startOnGround && endOnGround)
@@ -22,6 +22,7 @@
 
 package com.samrj.devil.geo3d;
 
+import com.samrj.devil.math.Scratch;
 import com.samrj.devil.math.Util;
 import com.samrj.devil.math.Vec3;
 import com.samrj.devil.math.Vec4;
@@ -38,6 +39,17 @@ public class Ellipsoid implements ConvexShape
     public final Vec3 pos = new Vec3();
     public final Vec3 radii = new Vec3();
     
+    private static float sqrt(float f)
+    {
+        return Util.FAST_MATH ? f*Util.fastRsqrt(f) : (float)Math.sqrt(f);
+    }
+    
+    private static void normalize(Vec3 v)
+    {
+        if (Util.FAST_MATH) v.mult(Util.fastRsqrt(v.squareLength()));
+        else v.normalize();
+    }
+    
     private IsectResult isectCenter(Object object)
     {
         IsectResult out = new IsectResult(object);
@@ -52,169 +64,204 @@ public class Ellipsoid implements ConvexShape
     @Override
     public IsectResult isect(Vec3 v)
     {
-        Vec3 dir = Vec3.sub(v, pos).div(radii);
-        float sqLen = dir.squareLength();
-        if (sqLen > 1.0f) return null; //Too far away.
-        
-        float len = (float)Math.sqrt(sqLen);
-        if (Float.isNaN(len)) return null;
-        if (Util.isZero(len, EPSILON)) return isectCenter(v); //Intersecting center.
-        
-        IsectResult out = new IsectResult(v);
-        Vec3.copy(v, out.point);
-        Vec3 tmp = Vec3.div(dir, len);
-        Vec3.negate(tmp, out.normal);
-        Vec3.mult(tmp, radii, out.surface);
-        out.surface.add(pos);
-        out.depth = Vec3.dist(out.point, out.surface);
-        return out;
+        try (Scratch scratch = Scratch.push())
+        {
+            Vec3 dir = scratch.vec3();
+            Vec3.sub(v, pos, dir);
+            dir.div(radii);
+            float sqLen = dir.squareLength();
+            if (sqLen > 1.0f) return null; //Too far away.
+            
+            float len = sqrt(sqLen);
+            if (Float.isNaN(len)) return null;
+            if (Util.isZero(len, EPSILON)) return isectCenter(v); //Intersecting center.
+            
+            IsectResult out = new IsectResult(v);
+            Vec3.copy(v, out.point);
+            dir.div(len);
+            Vec3.negate(dir, out.normal);
+            Vec3.mult(dir, radii, out.surface);
+            out.surface.add(pos);
+            out.depth = Vec3.dist(out.point, out.surface);
+            return out;
+        }
     }
 
     @Override
     public IsectResult isect(Edge3 e)
     {
-        Vec3 aDir = Vec3.sub(e.a, pos).div(radii);
-        Vec3 eDir = Vec3.sub(e.b, e.a).div(radii);
-        
-        float eLenSq = eDir.squareLength();
-        float et = -aDir.dot(eDir)/eLenSq;
-        if (et < 0.0f || et > 1.0f) return null; //Not touching segment.
-        
-        Vec3 dir = Vec3.madd(aDir, eDir, et);
-        float sqLen = dir.squareLength();
-        if (sqLen > 1.0f) return null; //Too far away.
-        
-        float len = (float)Math.sqrt(sqLen);
-        if (Float.isNaN(len)) return null;
-        if (Util.isZero(len, EPSILON)) return isectCenter(e); //Intersecting center.
-        
-        IsectResult out = new IsectResult(e);
-        Vec3.lerp(e.a, e.b, et, out.point);
-        Vec3 tmp = Vec3.div(dir, len);
-        Vec3.negate(tmp, out.normal);
-        out.normal.div(radii).normalize();
-        Vec3.mult(tmp, radii, out.surface);
-        out.surface.add(pos);
-        out.depth = Vec3.dist(out.point, out.surface);
-        return out;
+        try (Scratch scratch = Scratch.push())
+        {
+            Vec3 aDir = scratch.vec3(), eDir = scratch.vec3(), dir = scratch.vec3();
+            Vec3.sub(e.a, pos, aDir);
+            aDir.div(radii);
+            Vec3.sub(e.b, e.a, eDir);
+            eDir.div(radii);
+            
+            float eLenSq = eDir.squareLength();
+            float et = -aDir.dot(eDir)/eLenSq;
+            if (et < 0.0f || et > 1.0f) return null; //Not touching segment.
+            
+            Vec3.madd(aDir, eDir, et, dir);
+            float sqLen = dir.squareLength();
+            if (sqLen > 1.0f) return null; //Too far away.
+            
+            float len = sqrt(sqLen);
+            if (Float.isNaN(len)) return null;
+            if (Util.isZero(len, EPSILON)) return isectCenter(e); //Intersecting center.
+            
+            IsectResult out = new IsectResult(e);
+            Vec3.lerp(e.a, e.b, et, out.point);
+            dir.div(len);
+            Vec3.negate(dir, out.normal);
+            normalize(out.normal.div(radii));
+            Vec3.mult(dir, radii, out.surface);
+            out.surface.add(pos);
+            out.depth = Vec3.dist(out.point, out.surface);
+            return out;
+        }
     }
 
     @Override
     public IsectResult isect(Triangle3 f)
     {
-        Vec3 aDir = Vec3.sub(f.a, pos).div(radii);
-        Vec3 bDir = Vec3.sub(f.b, pos).div(radii);
-        Vec3 cDir = Vec3.sub(f.c, pos).div(radii);
-        Triangle3 localTri = new Triangle3(aDir, bDir, cDir);
-        Vec4 plane = Triangle3.plane(localTri);
-        
-        if (plane.w > 0.0f) plane.negate();
-        if (plane.w < -1.0f || Float.isNaN(plane.w)) return null; //Too far apart or NaN.
-        
-        Vec3 bary = Triangle3.barycentric(f, pos);
-        if (!Geo3DUtil.baryContained(bary)) return null; //Not inside triangle.
-        
-        if (Util.isZero(plane.w, EPSILON)) return isectCenter(f); //Intersected center.
-        
-        IsectResult out = new IsectResult(f);
-        Triangle3.interpolate(f, bary, out.point);
-        Triangle3.interpolate(localTri, bary, out.surface);
-        out.surface.div(-plane.w).mult(radii).add(pos);
-        Geo3DUtil.normal(plane, out.normal);
-        out.normal.div(radii).normalize();
-        out.depth = Vec3.dist(out.point, out.surface);
-        return out;
+        try (Scratch scratch = Scratch.push())
+        {
+            Vec3 aDir = scratch.vec3(), bDir = scratch.vec3(), cDir = scratch.vec3();
+            Vec3.sub(f.a, pos, aDir);
+            aDir.div(radii);
+            Vec3.sub(f.b, pos, bDir);
+            bDir.div(radii);
+            Vec3.sub(f.c, pos, cDir);
+            cDir.div(radii);
+            Vec4 plane = scratch.vec4();
+            Triangle3.plane(aDir, bDir, cDir, plane);
+            
+            if (plane.w > 0.0f) plane.negate();
+            if (plane.w < -1.0f || Float.isNaN(plane.w)) return null; //Too far apart or NaN.
+            
+            Vec3 bary = scratch.vec3();
+            Triangle3.barycentric(f, pos, bary);
+            if (!Geo3DUtil.baryContained(bary)) return null; //Not inside triangle.
+            
+            if (Util.isZero(plane.w, EPSILON)) return isectCenter(f); //Intersected center.
+            
+            IsectResult out = new IsectResult(f);
+            Triangle3.interpolate(f, bary, out.point);
+            Triangle3.interpolate(aDir, bDir, cDir, bary, out.surface);
+            out.surface.div(-plane.w).mult(radii).add(pos);
+            Geo3DUtil.normal(plane, out.normal);
+            normalize(out.normal.div(radii));
+            out.depth = Vec3.dist(out.point, out.surface);
+            return out;
+        }
     }
 
     @Override
     public SweepResult sweep(Vec3 dp, Vec3 v)
     {
-        Vec3 dpe = Vec3.div(dp, radii);
-        float dpSqLen = dpe.squareLength();
-        Vec3 pDir = Vec3.sub(pos, v).div(radii);
-        float pSqDist = pDir.squareLength();
-        
-        float t = Geo3DUtil.solveQuadratic(dpSqLen,
-                                           2.0f*pDir.dot(dpe),
-                                           pSqDist - 1.0f);
-
-        if (Float.isNaN(t)) return null; //Missed the vertex.
-        if (t < 0.0f || t > 1.0f)
-            return null; //Moving away or won't get there in time.
-        
-        SweepResult out = new SweepResult(v);
-        out.time = t;
-        Vec3.copy(v, out.point);
-        Vec3.madd(pos, dp, t, out.position);
-        Vec3.sub(out.position, out.point, out.normal);
-        out.normal.div(radii).normalize();
-        return out;
+        try (Scratch scratch = Scratch.push())
+        {
+            Vec3 dpe = scratch.vec3(), pDir = scratch.vec3();
+            Vec3.div(dp, radii, dpe);
+            float dpSqLen = dpe.squareLength();
+            Vec3.sub(pos, v, pDir);
+            pDir.div(radii);
+            float pSqDist = pDir.squareLength();
+            
+            float t = Geo3DUtil.solveQuadratic(dpSqLen,
+                                               2.0f*pDir.dot(dpe),
+                                               pSqDist - 1.0f);
+            
+            if (Float.isNaN(t)) return null; //Missed the vertex.
+            if (t < 0.0f || t > 1.0f)
+                return null; //Moving away or won't get there in time.
+            
+            SweepResult out = new SweepResult(v);
+            out.time = t;
+            Vec3.copy(v, out.point);
+            Vec3.madd(pos, dp, t, out.position);
+            Vec3.sub(out.position, out.point, out.normal);
+            normalize(out.normal.div(radii));
+            return out;
+        }
     }
 
     @Override
     public SweepResult sweep(Vec3 dp, Edge3 e)
     {
-        Vec3 dpe = Vec3.div(dp, radii);
-        float dpeLen = dpe.squareLength();
-        
-        Vec3 ae = Vec3.div(e.a, radii);
-        Vec3 be = Vec3.div(e.b, radii);
-
-        Vec3 segDir = Vec3.sub(be, ae);
-        float segSqLen = segDir.squareLength();
-        Vec3 aDir = Vec3.sub(e.a, pos).div(radii);
-
-        float segDotDP = segDir.dot(dpe);
-        float segDotA = segDir.dot(aDir);
-
-        float t = Geo3DUtil.solveQuadratic(
-                segDotDP*segDotDP - segSqLen*dpeLen,
-                2.0f*(segSqLen*dpe.dot(aDir) - segDotDP*segDotA),
-                segSqLen*(1.0f - aDir.squareLength()) + segDotA*segDotA);
-
-        if (Float.isNaN(t)) return null; //Missed the line.
-        if (t < 0.0f || t > 1.0f)  return null; //Moving away or won't get there in time.
-
-        float et = (segDotDP*t - segDotA)/segSqLen;
-        if (et < 0.0f || et > 1.0f) return null; //Hit the line but missed the segment.
-        if (!Float.isFinite(et)) return null; //Degenerate segment.
-        
-        SweepResult out = new SweepResult(e);
-        out.time = t;
-        Vec3.lerp(e.a, e.b, et, out.point);
-        Vec3.madd(pos, dp, t, out.position);
-        Vec3.sub(out.position, out.point, out.normal);
-        out.normal.div(radii).div(radii).normalize(); //wtf?
-        return out;
+        try (Scratch scratch = Scratch.push())
+        {
+            Vec3 dpe = scratch.vec3(), segDir = scratch.vec3(), aDir = scratch.vec3();
+            Vec3.div(dp, radii, dpe);
+            float dpeLen = dpe.squareLength();
+            
+            Vec3 ae = scratch.vec3();
+            Vec3.div(e.a, radii, ae);
+            Vec3.div(e.b, radii, segDir);
+            segDir.sub(ae);
+            float segSqLen = segDir.squareLength();
+            Vec3.sub(e.a, pos, aDir);
+            aDir.div(radii);
+            
+            float segDotDP = segDir.dot(dpe);
+            float segDotA = segDir.dot(aDir);
+            
+            float t = Geo3DUtil.solveQuadratic(
+                    segDotDP*segDotDP - segSqLen*dpeLen,
+                    2.0f*(segSqLen*dpe.dot(aDir) - segDotDP*segDotA),
+                    segSqLen*(1.0f - aDir.squareLength()) + segDotA*segDotA);
+            
+            if (Float.isNaN(t)) return null; //Missed the line.
+            if (t < 0.0f || t > 1.0f)  return null; //Moving away or won't get there in time.
+            
+            float et = (segDotDP*t - segDotA)/segSqLen;
+            if (et < 0.0f || et > 1.0f) return null; //Hit the line but missed the segment.
+            if (!Float.isFinite(et)) return null; //Degenerate segment.
+            
+            SweepResult out = new SweepResult(e);
+            out.time = t;
+            Vec3.lerp(e.a, e.b, et, out.point);
+            Vec3.madd(pos, dp, t, out.position);
+            Vec3.sub(out.position, out.point, out.normal);
+            normalize(out.normal.div(radii).div(radii)); //wtf?
+            return out;
+        }
     }
 
     @Override
     public SweepResult sweep(Vec3 dp, Triangle3 f)
     {
-        Vec3 p0 = Vec3.div(pos, radii);
-        Vec3 cDir = Vec3.div(dp, radii);
-        
-        Vec3 ae = Vec3.div(f.a, radii);
-        Vec3 be = Vec3.div(f.b, radii);
-        Vec3 ce = Vec3.div(f.c, radii);
-        Triangle3 localTri = new Triangle3(ae, be, ce);
-        
-        Vec4 plane = Triangle3.plane(localTri);
-        float t = Geo3DUtil.sweepSpherePlane(p0, cDir, plane, 1.0f);
-        if (Float.isNaN(t) || t <= 0.0f || t >= 1.0f)
-            return null; //Moving away or won't get there in time.
-        
-        Vec3 position = Vec3.madd(pos, dp, t);
-        Vec3 bary = Triangle3.barycentric(f, position);
-        if (!Geo3DUtil.baryContained(bary)) return null; //Missed the triangle.
-        
-        SweepResult out = new SweepResult(f);
-        out.time = t;
-        Triangle3.interpolate(f, bary, out.point);
-        Vec3.copy(position, out.position);
-        Vec3.sub(position, out.point, out.normal);
-        out.normal.normalize();
-        return out;
+        try (Scratch scratch = Scratch.push())
+        {
+            Vec3 p0 = scratch.vec3(), cDir = scratch.vec3();
+            Vec3.div(pos, radii, p0);
+            Vec3.div(dp, radii, cDir);
+            
+            Vec3 ae = scratch.vec3(), be = scratch.vec3(), ce = scratch.vec3();
+            Vec3.div(f.a, radii, ae);
+            Vec3.div(f.b, radii, be);
+            Vec3.div(f.c, radii, ce);
+            
+            Vec4 plane = scratch.vec4();
+            Triangle3.plane(ae, be, ce, plane);
+            float t = Geo3DUtil.sweepSpherePlane(p0, cDir, plane, 1.0f);
+            if (Float.isNaN(t) || t <= 0.0f || t >= 1.0f)
+                return null; //Moving away or won't get there in time.
+            
+            Vec3 position = scratch.vec3(), bary = scratch.vec3();
+            Vec3.madd(pos, dp, t, position);
+            Triangle3.barycentric(f, position, bary);
+            if (!Geo3DUtil.baryContained(bary)) return null; //Missed the triangle.
+            
+            SweepResult out = new SweepResult(f);
+            out.time = t;
+            Triangle3.interpolate(f, bary, out.point);
+            Vec3.copy(position, out.position);
+            Vec3.sub(position, out.point, out.normal);
+            normalize(out.normal);
+            return out;
+        }
     }
 
     @Override
@@ -1,7 +1,6 @@
 package com.samrj.devil.geo3d;
 
 import com.samrj.devil.math.Mat4;
-import com.samrj.devil.math.Vec3;
 
 /**
  * Allows a frustum to be derived from any 4x4 projection matrix; whether it is
@@ -14,48 +13,93 @@ import com.samrj.devil.math.Vec3;
  */
 public class Frustum
 {
-    private final Vec3[] normals;
-    private final float[] constants;
+    //Six planes, each stored as a normal followed by a constant.
+    private final float[] planes = new float[24];
     
     public Frustum(Mat4 matrix)
+    {
+        set(matrix);
+    }
+    
+    /**
+     * Recalculates this frustum's planes from the given matrix.
+     * 
+     * @param matrix The matrix to derive this frustum from.
+     * @return This frustum.
+     */
+    public final Frustum set(Mat4 matrix)
     {
         float m11 = matrix.a, m12 = matrix.b, m13 = matrix.c, m14 = matrix.d;
         float m21 = matrix.e, m22 = matrix.f, m23 = matrix.g, m24 = matrix.h;
         float m31 = matrix.i, m32 = matrix.j, m33 = matrix.k, m34 = matrix.l;
         float m41 = matrix.m, m42 = matrix.n, m43 = matrix.o, m44 = matrix.p;
         
-        Vec3 leftN = new Vec3(m41 + m11, m42 + m12, m43 + m13);
-        float leftP = m44 + m14;
-        Vec3 rightN = new Vec3(m41 - m11, m42 - m12, m43 - m13);
-        float rightP = m44 - m14;
-        Vec3 bottomN = new Vec3(m41 + m21, m42 + m22, m43 + m23);
-        float bottomP = m44 + m24;
-        Vec3 topN = new Vec3(m41 - m21, m42 - m22, m43 - m23);
-        float topP = m44 - m24;
-        Vec3 nearN = new Vec3(m41 + m31, m42 + m32, m43 + m33);
-        float nearP = m44 + m34;
-        Vec3 farN = new Vec3(m41 - m31, m42 - m32, m43 - m33);
-        float farP = m44 - m34;
-        
-        normals = new Vec3[]{leftN, rightN, bottomN, topN, nearN, farN};
-        constants = new float[]{leftP, rightP, bottomP, topP, nearP, farP};
+        setPlane(0, m41 + m11, m42 + m12, m43 + m13, m44 + m14); //Left
+        setPlane(1, m41 - m11, m42 - m12, m43 - m13, m44 - m14); //Right
+        setPlane(2, m41 + m21, m42 + m22, m43 + m23, m44 + m24); //Bottom
+        setPlane(3, m41 - m21, m42 - m22, m43 - m23, m44 - m24); //Top
+        setPlane(4, m41 + m31, m42 + m32, m43 + m33, m44 + m34); //Near
+        setPlane(5, m41 - m31, m42 - m32, m43 - m33, m44 - m34); //Far
+        return this;
     }
-
+    
+    private void setPlane(int plane, float x, float y, float z, float w)
+    {
+        int i = plane*4;
+        planes[i] = x;
+        planes[i + 1] = y;
+        planes[i + 2] = z;
+        planes[i + 3] = w;
+    }
+    
+    /**
+     * Returns true if the given box is definitely not inside this frustum. A
+     * false result does not mean that the box is definitely visible.
+     */
+    public boolean cull(float minX, float minY, float minZ, float maxX, float maxY, float maxZ)
+    {
+        for (int i=0; i<24; i+=4)
+        {
+            float x = planes[i], y = planes[i + 1], z = planes[i + 2];
+            float d = Math.max(minX*x, maxX*x) +
+                      Math.max(minY*y, maxY*y) +
+                      Math.max(minZ*z, maxZ*z) + planes[i + 3];
+            if (!(d > 0.0f)) return true;
+        }
+        return false;
+    }
+    
     /**
      * Returns true if the given box is definitely not inside this frustum. A
      * false result does not mean that the box is definitely visible.
      */
     public boolean cull(Box3 box)
     {
-        boolean inside = true;
-        for (int i=0; i<6; i++)
+        return cull(box.min.x, box.min.y, box.min.z, box.max.x, box.max.y, box.max.z);
+    }
+    
+    /**
+     * Returns true if the given box lies entirely inside this frustum, meaning
+     * that anything contained by the box needs no further culling.
+     */
+    public boolean encloses(float minX, float minY, float minZ, float maxX, float maxY, float maxZ)
+    {
+        for (int i=0; i<24; i+=4)
         {
-            Vec3 normal = normals[i];
-            float d = Math.max(box.min.x*normal.x, box.max.x*normal.x) +
-                      Math.max(box.min.y*normal.y, box.max.y*normal.y) +
-                      Math.max(box.min.z*normal.z, box.max.z*normal.z) + constants[i];
-            inside &= d > 0;
+            float x = planes[i], y = planes[i + 1], z = planes[i + 2];
+            float d = Math.min(minX*x, maxX*x) +
+                      Math.min(minY*y, maxY*y) +
+                      Math.min(minZ*z, maxZ*z) + planes[i + 3];
+            if (!(d > 0.0f)) return false;
         }
-        return !inside;
+        return true;
+    }
+    
+    /**
+     * Returns true if the given box lies entirely inside this frustum.
+     */
+    public boolean encloses(Box3 box)
+    {
+        return encloses(box.min.x, box.min.y, box.min.z, box.max.x, box.max.y, box.max.z);
     }
 }
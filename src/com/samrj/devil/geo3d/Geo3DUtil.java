@@ -1,6 +1,7 @@
 package com.samrj.devil.geo3d;
 
 import com.samrj.devil.math.Mat3;
+import com.samrj.devil.math.Scratch;
 import com.samrj.devil.math.Util;
 import com.samrj.devil.math.Vec3;
 import com.samrj.devil.math.Vec4;
@@ -37,8 +38,10 @@ public class Geo3DUtil
      */
     public static final void closest(Vec3 p, Vec4 plane, Vec3 r)
     {
-        Vec3 n = normal(plane);
-        Vec3.madd(p, n, plane.w - p.dot(n), r);
+        float s = plane.w - (p.x*plane.x + p.y*plane.y + p.z*plane.z);
+        r.x = p.x + plane.x*s;
+        r.y = p.y + plane.y*s;
+        r.z = p.z + plane.z*s;
     }
     
     /**
@@ -73,36 +76,35 @@ public class Geo3DUtil
     
     static final float solveQuadratic(float a, float b, float c)
     {
-        float[] solutions = Util.quadFormula(a, b, c);
+        //Same as Util.quadFormula(), without allocating an array.
+        if (Util.isSubnormal(a)) return Float.NaN;
         
-        switch (solutions.length)
-        {
-            case 0: return Float.NaN;
-            case 1: return solutions[0];
-            case 2:
-                float s1 = solutions[0];
-                float s2 = solutions[1];
-                
-                if (s1 < 0.0f || s2 < 0.0f)
-                     return s1 > s2 ? s1 : s2; //If either are negative, return the larger one.
-                else return s1 < s2 ? s1 : s2; //Otherwise, return the smaller one.
-            default:
-                assert(false);
-                throw new Error();
-        }
+        float discriminant = b*b - 4f*a*c;
+        
+        if (discriminant < 0.0f || !Float.isFinite(discriminant)) return Float.NaN;
+        if (discriminant == 0.0f) return -b/(a*2f);
+        
+        float sqrtDisc = (float)Math.sqrt(discriminant);
+        float a2 = a*2f;
+        float s1 = (-b - sqrtDisc)/a2;
+        float s2 = (sqrtDisc - b)/a2;
+        
+        if (s1 < 0.0f || s2 < 0.0f)
+             return s1 > s2 ? s1 : s2; //If either are negative, return the larger one.
+        else return s1 < s2 ? s1 : s2; //Otherwise, return the smaller one.
     }
     
     static float sweepSpherePlane(Vec3 p, Vec3 dp, Vec4 plane, float r)
     {
-        Vec3 n = normal(plane);
         float dist = dist(p, plane);
+        float nDotDP = plane.x*dp.x + plane.y*dp.y + plane.z*dp.z;
         if (dist < 0.0f)
         {
             dist = -dist;
-            n.negate();
+            nDotDP = -nDotDP;
         }
         if (dist < r) return 0.0f;
-        return (r - dist)/n.dot(dp);
+        return (r - dist)/nDotDP;
     }
     
     /**
@@ -111,41 +113,58 @@ public class Geo3DUtil
      */
     public static RaycastResult raycast(Triangle3 f, Vec3 p0, Vec3 dp, boolean terminated)
     {
-        Vec3 ab = Vec3.sub(f.b, f.a);
-        Vec3 ac = Vec3.sub(f.c, f.a);
-        
-        Vec3 n = Vec3.cross(ab, ac);
-        float d = -dp.dot(n);
-        if (d == 0.0f) return null; //Ray parallel to triangle.
-        boolean backface = d < 0.0f;
-        if (backface)
+        try (Scratch scratch = Scratch.push())
         {
-            d = -d;
-            n.negate();
-        }
-        
-        float ood = 1.0f/d;
-        Vec3 ap = Vec3.sub(p0, f.a);
-        float t = ap.dot(n)*ood;
-        if (t < 0.0f) return null; //Ray behind triangle.
-        if (terminated && t > 1.0f) return null; //Triangle too far.
-        
-        Vec3 e = backface ? Vec3.cross(dp, ap) : Vec3.cross(ap, dp);
-        float v = ac.dot(e);
-        if (v < 0.0f || v > d) return null; //Missed triangle.
-        float w = -ab.dot(e);
-        if (w < 0.0f || v + w > d) return null; //Missed triangle.
+            Vec3 ab = scratch.vec3(), ac = scratch.vec3(), n = scratch.vec3();
+            Vec3 ap = scratch.vec3(), e = scratch.vec3();
+            
+            Vec3.sub(f.b, f.a, ab);
+            Vec3.sub(f.c, f.a, ac);
+            
+            Vec3.cross(ab, ac, n);
+            float d = -dp.dot(n);
+            if (d == 0.0f) return null; //Ray parallel to triangle.
+            boolean backface = d < 0.0f;
+            if (backface)
+            {
+                d = -d;
+                n.negate();
+            }
+            
+            float ood = 1.0f/d;
+            Vec3.sub(p0, f.a, ap);
+            float t = ap.dot(n)*ood;
+            if (t < 0.0f) return null; //Ray behind triangle.
+            if (terminated && t > 1.0f) return null; //Triangle too far.
+            
+            if (backface) Vec3.cross(dp, ap, e);
+            else Vec3.cross(ap, dp, e);
+            float v = ac.dot(e);
+            if (v < 0.0f || v > d) return null; //Missed triangle.
+            float w = -ab.dot(e);
+            if (w < 0.0f || v + w > d) return null; //Missed triangle.
 
-        v = v*ood;
-        w = w*ood;
-        float u = 1.0f - v - w;
-        
-        RaycastResult out = new RaycastResult(f);
-        out.time = t;
-        Vec3.mult(f.a, u, out.point);
-        out.point.madd(f.b, v).madd(f.c, w);
-        Vec3.normalize(n, out.normal);
-        return out;
+            v = v*ood;
+            w = w*ood;
+            float u = 1.0f - v - w;
+            
+            RaycastResult out = new RaycastResult(f);
+            out.time = t;
+            Vec3.mult(f.a, u, out.point);
+            out.point.madd(f.b, v).madd(f.c, w);
+            Vec3.normalize(n, out.normal);
+            return out;
+        }
+    }
+    
+    /**
+     * Reduces the degrees of freedom of the given vector, using the given
+     * normal vector, and stores the result in {@code result}.
+     */
+    public static final void restrain(Vec3 v, Vec3 normal, Vec3 result)
+    {
+        if (normal.dot(v) < 0.0f) Vec3.reject(v, normal, result);
+        else Vec3.copy(v, result);
     }
     
     /**
@@ -218,13 +237,20 @@ public class Geo3DUtil
 
         if (length != 0.0f)
         {
-            Vec3 b = new Vec3(0.0f, n.z, -n.y);
-            if (b.isZero(0.01f)) b.set(-n.z, 0.0f, n.x);
-            b.normalize();
+            float bx = 0.0f, by = n.z, bz = -n.y;
+            if (Math.abs(by) <= 0.01f && Math.abs(bz) <= 0.01f)
+            {
+                bx = -n.z; by = 0.0f; bz = n.x;
+            }
+            float bLen = (float)Math.sqrt(bx*bx + by*by + bz*bz);
+            bx /= bLen; by /= bLen; bz /= bLen;
             
-            Vec3 t = Vec3.cross(n, b).normalize();
-            result.set(b.x, b.y, b.z,
-                       t.x, t.y, t.z,
+            float tx = n.y*bz - n.z*by;
+            float ty = n.z*bx - n.x*bz;
+            float tz = n.x*by - n.y*bx;
+            float tLen = (float)Math.sqrt(tx*tx + ty*ty + tz*tz);
+            result.set(bx, by, bz,
+                       tx/tLen, ty/tLen, tz/tLen,
                        n.x, n.y, n.z);
         }
         else result.setIdentity();
@@ -19,7 +19,12 @@ public class Triangle3
      */
     public static float area(Triangle3 t)
     {
-        return Vec3.sub(t.b, t.a).cross(Vec3.sub(t.c, t.a)).length()*0.5f;
+        float bx = t.b.x - t.a.x, by = t.b.y - t.a.y, bz = t.b.z - t.a.z;
+        float cx = t.c.x - t.a.x, cy = t.c.y - t.a.y, cz = t.c.z - t.a.z;
+        float x = by*cz - bz*cy;
+        float y = bz*cx - bx*cz;
+        float z = bx*cy - by*cx;
+        return (float)Math.sqrt(x*x + y*y + z*z)*0.5f;
     }
     // </editor-fold>
     // <editor-fold defaultstate="collapsed" desc="Static mutator methods">
@@ -47,12 +52,14 @@ public class Triangle3
      */
     public static void barycentric(Triangle3 t, Vec3 p, Vec3 result)
     {
-        Vec3 v0 = Vec3.sub(t.b, t.a), v1 = Vec3.sub(t.c, t.a), v2 = Vec3.sub(p, t.a);
-        float d00 = v0.dot(v0);
-        float d01 = v0.dot(v1);
-        float d11 = v1.dot(v1);
-        float d20 = v2.dot(v0);
-        float d21 = v2.dot(v1);
+        float x0 = t.b.x - t.a.x, y0 = t.b.y - t.a.y, z0 = t.b.z - t.a.z;
+        float x1 = t.c.x - t.a.x, y1 = t.c.y - t.a.y, z1 = t.c.z - t.a.z;
+        float x2 = p.x - t.a.x, y2 = p.y - t.a.y, z2 = p.z - t.a.z;
+        float d00 = x0*x0 + y0*y0 + z0*z0;
+        float d01 = x0*x1 + y0*y1 + z0*z1;
+        float d11 = x1*x1 + y1*y1 + z1*z1;
+        float d20 = x2*x0 + y2*y0 + z2*z0;
+        float d21 = x2*x1 + y2*y1 + z2*z1;
         float denom = d00*d11 - d01*d01;
         
         result.y = (d11*d20 - d01*d21)/denom;
@@ -70,10 +77,16 @@ public class Triangle3
      */
     public static void interpolate(Triangle3 t, Vec3 bary, Vec3 result)
     {
-        Vec3 out = Vec3.mult(t.a, bary.x); //Temp var in case bary == result
-        Vec3.madd(out, t.b, bary.y, out);
-        Vec3.madd(out, t.c, bary.z, out);
-        Vec3.copy(out, result);
+        interpolate(t.a, t.b, t.c, bary, result);
+    }
+    
+    static void interpolate(Vec3 a, Vec3 b, Vec3 c, Vec3 bary, Vec3 result)
+    {
+        //Temp vars in case bary == result
+        float x = a.x*bary.x + b.x*bary.y + c.x*bary.z;
+        float y = a.y*bary.x + b.y*bary.y + c.y*bary.z;
+        float z = a.z*bary.x + b.z*bary.y + c.z*bary.z;
+        result.x = x; result.y = y; result.z = z;
     }
     
     /**
@@ -85,8 +98,12 @@ public class Triangle3
      */
     public static void normal(Triangle3 t, Vec3 result)
     {
-        Vec3 n = Vec3.sub(t.c, t.a).cross(Vec3.sub(t.b, t.a));
-        Vec3.normalize(n, result);
+        float cx = t.c.x - t.a.x, cy = t.c.y - t.a.y, cz = t.c.z - t.a.z;
+        float bx = t.b.x - t.a.x, by = t.b.y - t.a.y, bz = t.b.z - t.a.z;
+        result.x = cy*bz - cz*by;
+        result.y = cz*bx - cx*bz;
+        result.z = cx*by - cy*bx;
+        result.normalize();
     }
     
     /**
@@ -98,11 +115,21 @@ public class Triangle3
      */
     public static void plane(Triangle3 t, Vec4 result)
     {
-        Vec3 n = normal(t);
-        result.x = n.x;
-        result.y = n.y;
-        result.z = n.z;
-        result.w = t.a.dot(n);
+        plane(t.a, t.b, t.c, result);
+    }
+    
+    static void plane(Vec3 a, Vec3 b, Vec3 c, Vec4 result)
+    {
+        float cx = c.x - a.x, cy = c.y - a.y, cz = c.z - a.z;
+        float bx = b.x - a.x, by = b.y - a.y, bz = b.z - a.z;
+        float x = cy*bz - cz*by;
+        float y = cz*bx - cx*bz;
+        float z = cx*by - cy*bx;
+        float len = (float)Math.sqrt(x*x + y*y + z*z);
+        result.x = x/len;
+        result.y = y/len;
+        result.z = z/len;
+        result.w = a.x*result.x + a.y*result.y + a.z*result.z;
     }
     // </editor-fold>
     /**
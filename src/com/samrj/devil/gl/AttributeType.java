@@ -2,6 +2,7 @@ package com.samrj.devil.gl;
 
 import static org.lwjgl.opengl.GL11C.*;
 import static org.lwjgl.opengl.GL20C.*;
+import static org.lwjgl.opengl.GL30C.*;
 
 /**
  * @author Samuel Johnson (SmashMaster)
@@ -21,6 +22,18 @@ public enum AttributeType
     VEC2I(8,  2, 1, GL_INT_VEC2,   GL_INT),
     VEC3I(12, 3, 1, GL_INT_VEC3,   GL_INT),
     VEC4I(16, 4, 1, GL_INT_VEC4,   GL_INT),
+    
+    //Compact formats, which are converted to the shader's type as they are read.
+    HALF_VEC2   (4, 2, 1, GL_FLOAT_VEC2, GL_HALF_FLOAT,     false, false),
+    HALF_VEC4   (8, 4, 1, GL_FLOAT_VEC4, GL_HALF_FLOAT,     false, false),
+    SNORM8_VEC2 (2, 2, 1, GL_FLOAT_VEC2, GL_BYTE,           true,  false),
+    SNORM8_VEC4 (4, 4, 1, GL_FLOAT_VEC4, GL_BYTE,           true,  false),
+    SNORM16_VEC2(4, 2, 1, GL_FLOAT_VEC2, GL_SHORT,          true,  false),
+    SNORM16_VEC4(8, 4, 1, GL_FLOAT_VEC4, GL_SHORT,          true,  false),
+    UNORM16_VEC2(4, 2, 1, GL_FLOAT_VEC2, GL_UNSIGNED_SHORT, true,  false),
+    UNORM8_VEC4 (4, 4, 1, GL_FLOAT_VEC4, GL_UNSIGNED_BYTE,  true,  false),
+    UBYTE_VEC4I (4, 4, 1, GL_INT_VEC4,   GL_UNSIGNED_BYTE,  false, true),
+    
     NONE(0, 0, 0, GL_FALSE, GL_FALSE);
     
     public static final AttributeType get(int glEnum)
@@ -71,14 +84,26 @@ public enum AttributeType
      * Whether or not this type is an integer type.
      */
     public final boolean isInteger;
+    
+    /**
+     * Whether or not this type's fixed-point components are normalized to the
+     * range [0, 1] or [-1, 1] when read as floats.
+     */
+    public final boolean normalized;
 
-    private AttributeType(int size, int components, int layers, int glEnum, int glComponent)
+    private AttributeType(int size, int components, int layers, int glEnum, int glComponent, boolean normalized, boolean isInteger)
     {
         this.size = size;
         this.components = components;
         this.layers = layers;
         this.glEnum = glEnum;
         this.glComponent = glComponent;
-        isInteger = glComponent == GL_INT;
+        this.normalized = normalized;
+        this.isInteger = isInteger;
+    }
+    
+    private AttributeType(int size, int components, int layers, int glEnum, int glComponent)
+    {
+        this(size, components, layers, glEnum, glComponent, false, glComponent == GL_INT);
     }
 }
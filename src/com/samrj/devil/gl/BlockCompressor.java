@@ -0,0 +1,801 @@
+package com.samrj.devil.gl;
+
+import com.samrj.devil.math.Util.PrimType;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+import static org.lwjgl.opengl.EXTTextureCompressionS3TC.*;
+import static org.lwjgl.opengl.GL30C.*;
+
+/**
+ * Encodes byte images into BC1, BC3, BC4 or BC5 compressed images on the CPU,
+ * using every available core. Fast mode fits each block's endpoints to its
+ * bounding box, while quality mode uses principal component analysis followed
+ * by least-squares refinement, and searches for better alpha endpoints.
+ * 
+ * Compressed images may be cached in a file next to their source image, and
+ * are reused as long as the source file and the compressor's settings match.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class BlockCompressor
+{
+    private static final int CACHE_MAGIC = 0x44564243; //DVBC
+    private static final int CACHE_VERSION = 1;
+    
+    /**
+     * Block compression formats.
+     */
+    public enum Format
+    {
+        /**
+         * RGB, 4 bits per pixel.
+         */
+        BC1(GL_COMPRESSED_RGB_S3TC_DXT1_EXT, 8),
+        
+        /**
+         * RGBA with interpolated alpha, 8 bits per pixel.
+         */
+        BC3(GL_COMPRESSED_RGBA_S3TC_DXT5_EXT, 16),
+        
+        /**
+         * Single channel, 4 bits per pixel.
+         */
+        BC4(GL_COMPRESSED_RED_RGTC1, 8),
+        
+        /**
+         * Two channels, 8 bits per pixel. Commonly used for normal maps.
+         */
+        BC5(GL_COMPRESSED_RG_RGTC2, 16);
+        
+        /**
+         * Returns the format with the given OpenGL enum, or null if none.
+         * 
+         * @param glFormat An OpenGL compressed texture format.
+         * @return The corresponding block format, or null.
+         */
+        public static Format get(int glFormat)
+        {
+            for (Format format : values()) if (format.glFormat == glFormat) return format;
+            return null;
+        }
+        
+        /**
+         * The OpenGL enum for this format.
+         */
+        public final int glFormat;
+        
+        /**
+         * The size of each 4x4 block in this format, in bytes.
+         */
+        public final int blockSize;
+        
+        private Format(int glFormat, int blockSize)
+        {
+            this.glFormat = glFormat;
+            this.blockSize = blockSize;
+        }
+    }
+    
+    // <editor-fold defaultstate="collapsed" desc="Block encoding">
+    private static int pack565(float r, float g, float b)
+    {
+        int r5 = Math.round(Math.min(Math.max(r, 0.0f), 255.0f)*31.0f/255.0f);
+        int g6 = Math.round(Math.min(Math.max(g, 0.0f), 255.0f)*63.0f/255.0f);
+        int b5 = Math.round(Math.min(Math.max(b, 0.0f), 255.0f)*31.0f/255.0f);
+        return (r5 << 11) | (g6 << 5) | b5;
+    }
+    
+    private static void unpack565(int c, int[] rgb, int i)
+    {
+        int r5 = (c >> 11) & 31, g6 = (c >> 5) & 63, b5 = c & 31;
+        rgb[i] = (r5 << 3) | (r5 >> 2);
+        rgb[i + 1] = (g6 << 2) | (g6 >> 4);
+        rgb[i + 2] = (b5 << 3) | (b5 >> 2);
+    }
+    
+    private static void colorPalette(int c0, int c1, int[] palette)
+    {
+        unpack565(c0, palette, 0);
+        unpack565(c1, palette, 3);
+        for (int j=0; j<3; j++)
+        {
+            palette[6 + j] = (2*palette[j] + palette[3 + j])/3;
+            palette[9 + j] = (palette[j] + 2*palette[3 + j])/3;
+        }
+    }
+    
+    /**
+     * Returns the color block for the given endpoints, with indices chosen to
+     * minimize error. The block's total squared error is written to err[0].
+     */
+    private static long fitColorIndices(int[] rgb, int c0, int c1, int[] palette, long[] err)
+    {
+        if (c0 < c1)
+        {
+            int t = c0;
+            c0 = c1;
+            c1 = t;
+        }
+        
+        colorPalette(c0, c1, palette);
+        long indices = 0, error = 0;
+        int choices = c0 == c1 ? 1 : 4; //Equal endpoints would select three-color mode.
+        
+        for (int p=0; p<16; p++)
+        {
+            int r = rgb[p*3], g = rgb[p*3 + 1], b = rgb[p*3 + 2];
+            int best = 0, bestDist = Integer.MAX_VALUE;
+            for (int i=0; i<choices; i++)
+            {
+                int dr = r - palette[i*3], dg = g - palette[i*3 + 1], db = b - palette[i*3 + 2];
+                int dist = dr*dr + dg*dg + db*db;
+                if (dist < bestDist)
+                {
+                    bestDist = dist;
+                    best = i;
+                }
+            }
+            indices |= (long)best << (p*2);
+            error += bestDist;
+        }
+        
+        err[0] = error;
+        return c0 | ((long)c1 << 16) | (indices << 32);
+    }
+    
+    private static long encodeColorFast(int[] rgb, int[] palette, long[] err)
+    {
+        float[] min = {255.0f, 255.0f, 255.0f}, max = {0.0f, 0.0f, 0.0f}, mean = new float[3];
+        for (int p=0; p<16; p++) for (int j=0; j<3; j++)
+        {
+            int v = rgb[p*3 + j];
+            min[j] = Math.min(min[j], v);
+            max[j] = Math.max(max[j], v);
+            mean[j] += v/16.0f;
+        }
+        
+        //Pick the box diagonal which best follows the colors.
+        float covRG = 0.0f, covBG = 0.0f;
+        for (int p=0; p<16; p++)
+        {
+            float dg = rgb[p*3 + 1] - mean[1];
+            covRG += (rgb[p*3] - mean[0])*dg;
+            covBG += (rgb[p*3 + 2] - mean[2])*dg;
+        }
+        if (covRG < 0.0f)
+        {
+            float t = min[0];
+            min[0] = max[0];
+            max[0] = t;
+        }
+        if (covBG < 0.0f)
+        {
+            float t = min[2];
+            min[2] = max[2];
+            max[2] = t;
+        }
+        
+        //Inset the box slightly, since the extremes are rarely all used.
+        for (int j=0; j<3; j++)
+        {
+            float inset = (max[j] - min[j])/16.0f;
+            min[j] += inset;
+            max[j] -= inset;
+        }
+        
+        return fitColorIndices(rgb, pack565(max[0], max[1], max[2]), pack565(min[0], min[1], min[2]), palette, err);
+    }
+    
+    private static long encodeColorQuality(int[] rgb, int[] palette, long[] err)
+    {
+        float[] mean = new float[3];
+        for (int p=0; p<16; p++) for (int j=0; j<3; j++) mean[j] += rgb[p*3 + j]/16.0f;
+        
+        float[] cov = new float[6]; //xx, xy, xz, yy, yz, zz
+        for (int p=0; p<16; p++)
+        {
+            float x = rgb[p*3] - mean[0], y = rgb[p*3 + 1] - mean[1], z = rgb[p*3 + 2] - mean[2];
+            cov[0] += x*x;
+            cov[1] += x*y;
+            cov[2] += x*z;
+            cov[3] += y*y;
+            cov[4] += y*z;
+            cov[5] += z*z;
+        }
+        
+        //Power iteration for the principal axis.
+        float ax = 1.0f, ay = 1.0f, az = 1.0f;
+        for (int i=0; i<8; i++)
+        {
+            float nx = cov[0]*ax + cov[1]*ay + cov[2]*az;
+            float ny = cov[1]*ax + cov[3]*ay + cov[4]*az;
+            float nz = cov[2]*ax + cov[4]*ay + cov[5]*az;
+            float len = Math.max(Math.max(Math.abs(nx), Math.abs(ny)), Math.abs(nz));
+            if (len == 0.0f) break;
+            ax = nx/len;
+            ay = ny/len;
+            az = nz/len;
+        }
+        
+        float minT = Float.POSITIVE_INFINITY, maxT = Float.NEGATIVE_INFINITY;
+        int minP = 0, maxP = 0;
+        for (int p=0; p<16; p++)
+        {
+            float t = rgb[p*3]*ax + rgb[p*3 + 1]*ay + rgb[p*3 + 2]*az;
+            if (t < minT)
+            {
+                minT = t;
+                minP = p;
+            }
+            if (t > maxT)
+            {
+                maxT = t;
+                maxP = p;
+            }
+        }
+        
+        long best = fitColorIndices(rgb, pack565(rgb[maxP*3], rgb[maxP*3 + 1], rgb[maxP*3 + 2]),
+                                         pack565(rgb[minP*3], rgb[minP*3 + 1], rgb[minP*3 + 2]), palette, err);
+        long bestErr = err[0];
+        
+        //Least-squares refinement of the endpoints, given the chosen indices.
+        for (int iter=0; iter<2 && bestErr > 0; iter++)
+        {
+            float aa = 0.0f, ab = 0.0f, bb = 0.0f;
+            float[] ax0 = new float[3], bx0 = new float[3];
+            for (int p=0; p<16; p++)
+            {
+                int index = (int)(best >>> (32 + p*2)) & 3;
+                float alpha = index == 0 ? 1.0f : index == 1 ? 0.0f : index == 2 ? 2.0f/3.0f : 1.0f/3.0f;
+                float beta = 1.0f - alpha;
+                aa += alpha*alpha;
+                ab += alpha*beta;
+                bb += beta*beta;
+                for (int j=0; j<3; j++)
+                {
+                    ax0[j] += alpha*rgb[p*3 + j];
+                    bx0[j] += beta*rgb[p*3 + j];
+                }
+            }
+            
+            float det = aa*bb - ab*ab;
+            if (Math.abs(det) < 1e-6f) break;
+            float[] e0 = new float[3], e1 = new float[3];
+            for (int j=0; j<3; j++)
+            {
+                e0[j] = (bb*ax0[j] - ab*bx0[j])/det;
+                e1[j] = (aa*bx0[j] - ab*ax0[j])/det;
+            }
+            
+            long block = fitColorIndices(rgb, pack565(e0[0], e0[1], e0[2]), pack565(e1[0], e1[1], e1[2]), palette, err);
+            if (err[0] >= bestErr) break;
+            best = block;
+            bestErr = err[0];
+        }
+        
+        err[0] = bestErr;
+        return best;
+    }
+    
+    private static void alphaPalette(int a0, int a1, int[] palette)
+    {
+        palette[0] = a0;
+        palette[1] = a1;
+        if (a0 > a1) for (int i=1; i<7; i++) palette[i + 1] = ((7 - i)*a0 + i*a1)/7;
+        else
+        {
+            for (int i=1; i<5; i++) palette[i + 1] = ((5 - i)*a0 + i*a1)/5;
+            palette[6] = 0;
+            palette[7] = 255;
+        }
+    }
+    
+    private static long fitAlphaIndices(int[] values, int a0, int a1, int[] palette, long[] err)
+    {
+        alphaPalette(a0, a1, palette);
+        long indices = 0, error = 0;
+        
+        for (int p=0; p<16; p++)
+        {
+            int v = values[p];
+            int best = 0, bestDist = Integer.MAX_VALUE;
+            for (int i=0; i<8; i++)
+            {
+                int d = v - palette[i];
+                if (d*d < bestDist)
+                {
+                    bestDist = d*d;
+                    best = i;
+                }
+            }
+            indices |= (long)best << (p*3);
+            error += bestDist;
+        }
+        
+        err[0] = error;
+        return a0 | ((long)a1 << 8) | (indices << 16);
+    }
+    
+    private static long encodeAlpha(int[] values, boolean quality, int[] palette, long[] err)
+    {
+        int min = 255, max = 0, innerMin = 255, innerMax = 0;
+        for (int p=0; p<16; p++)
+        {
+            int v = values[p];
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+            if (v != 0 && v != 255)
+            {
+                innerMin = Math.min(innerMin, v);
+                innerMax = Math.max(innerMax, v);
+            }
+        }
+        
+        if (max == min) return fitAlphaIndices(values, max, min, palette, err);
+        
+        long best = fitAlphaIndices(values, max, min, palette, err);
+        if (!quality) return best;
+        long bestErr = err[0];
+        
+        //Search around the extremes, since pulling them in can reduce error.
+        int range = Math.min(4, (max - min)/4);
+        for (int lo=min; lo<=min+range; lo++) for (int hi=max; hi>=max-range; hi--)
+        {
+            if (hi <= lo || (lo == min && hi == max)) continue;
+            long block = fitAlphaIndices(values, hi, lo, palette, err);
+            if (err[0] < bestErr)
+            {
+                best = block;
+                bestErr = err[0];
+            }
+        }
+        
+        //Six-value mode represents exact zeros and ones for free.
+        if (innerMin <= innerMax)
+        {
+            long block = fitAlphaIndices(values, innerMin, innerMax, palette, err);
+            if (err[0] < bestErr)
+            {
+                best = block;
+                bestErr = err[0];
+            }
+        }
+        
+        err[0] = bestErr;
+        return best;
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="Block decoding">
+    private static void decodeColor(long block, boolean bc1, int[] rgb)
+    {
+        int c0 = (int)(block & 0xFFFF), c1 = (int)((block >>> 16) & 0xFFFF);
+        int[] palette = new int[12];
+        colorPalette(c0, c1, palette);
+        if (bc1 && c0 <= c1) for (int j=0; j<3; j++)
+        {
+            palette[6 + j] = (palette[j] + palette[3 + j])/2;
+            palette[9 + j] = 0;
+        }
+        
+        for (int p=0; p<16; p++)
+        {
+            int index = (int)(block >>> (32 + p*2)) & 3;
+            for (int j=0; j<3; j++) rgb[p*3 + j] = palette[index*3 + j];
+        }
+    }
+    
+    private static void decodeAlpha(long block, int[] values)
+    {
+        int[] palette = new int[8];
+        alphaPalette((int)(block & 0xFF), (int)((block >>> 8) & 0xFF), palette);
+        for (int p=0; p<16; p++) values[p] = palette[(int)(block >>> (16 + p*3)) & 7];
+    }
+    // </editor-fold>
+    
+    private static long getLong(ByteBuffer buffer, int index)
+    {
+        long value = 0;
+        for (int i=7; i>=0; i--) value = (value << 8) | (buffer.get(index + i) & 0xFF);
+        return value;
+    }
+    
+    private static void putLong(ByteBuffer buffer, int index, long value)
+    {
+        for (int i=0; i<8; i++) buffer.put(index + i, (byte)(value >>> (i*8)));
+    }
+    
+    /**
+     * Reads the 4x4 block at the given position into separate channel arrays,
+     * clamping at the edges of the image. Images with one or two bands are
+     * treated as luminance and luminance-alpha.
+     */
+    private static void readBlock(Image image, int bx, int by, int[] rgb, int[] alpha, int[] red, int[] green)
+    {
+        ByteBuffer buffer = image.buffer;
+        int bands = image.bands;
+        
+        for (int p=0; p<16; p++)
+        {
+            int x = Math.min(bx*4 + (p & 3), image.width - 1);
+            int y = Math.min(by*4 + (p >> 2), image.height - 1);
+            int i = (x + y*image.width)*bands;
+            
+            int r = buffer.get(i) & 0xFF;
+            int g = bands >= 3 ? buffer.get(i + 1) & 0xFF : r;
+            int b = bands >= 3 ? buffer.get(i + 2) & 0xFF : r;
+            int a = bands == 4 ? buffer.get(i + 3) & 0xFF : bands == 2 ? buffer.get(i + 1) & 0xFF : 255;
+            
+            rgb[p*3] = r;
+            rgb[p*3 + 1] = g;
+            rgb[p*3 + 2] = b;
+            alpha[p] = a;
+            red[p] = r;
+            green[p] = bands >= 2 ? buffer.get(i + 1) & 0xFF : r;
+        }
+    }
+    
+    private final Format format;
+    private final boolean quality;
+    
+    /**
+     * Creates a new block compressor for the given format.
+     * 
+     * @param format The format to compress images to.
+     * @param quality Whether to spend more time for better quality.
+     */
+    public BlockCompressor(Format format, boolean quality)
+    {
+        if (format == null) throw new NullPointerException();
+        this.format = format;
+        this.quality = quality;
+    }
+    
+    /**
+     * @return The format this compressor encodes to.
+     */
+    public Format getFormat()
+    {
+        return format;
+    }
+    
+    /**
+     * @return Whether this compressor is in quality mode.
+     */
+    public boolean isQuality()
+    {
+        return quality;
+    }
+    
+    /**
+     * Returns the size, in bytes, of the given image once compressed.
+     * 
+     * @param width The width of the image.
+     * @param height The height of the image.
+     * @return The compressed size of the image.
+     */
+    public int getCompressedSize(int width, int height)
+    {
+        return ((width + 3)/4)*((height + 3)/4)*format.blockSize;
+    }
+    
+    private void compressRow(Image image, ByteBuffer out, int by)
+    {
+        int[] rgb = new int[48], alpha = new int[16], red = new int[16], green = new int[16];
+        int[] palette = new int[12];
+        long[] err = new long[1];
+        int blocksX = (image.width + 3)/4;
+        
+        for (int bx=0; bx<blocksX; bx++)
+        {
+            readBlock(image, bx, by, rgb, alpha, red, green);
+            int offset = (bx + by*blocksX)*format.blockSize;
+            
+            switch (format)
+            {
+                case BC1:
+                    putLong(out, offset, quality ? encodeColorQuality(rgb, palette, err) : encodeColorFast(rgb, palette, err));
+                    break;
+                case BC3:
+                    putLong(out, offset, encodeAlpha(alpha, quality, palette, err));
+                    putLong(out, offset + 8, quality ? encodeColorQuality(rgb, palette, err) : encodeColorFast(rgb, palette, err));
+                    break;
+                case BC4:
+                    putLong(out, offset, encodeAlpha(red, quality, palette, err));
+                    break;
+                case BC5:
+                    putLong(out, offset, encodeAlpha(red, quality, palette, err));
+                    putLong(out, offset + 8, encodeAlpha(green, quality, palette, err));
+                    break;
+            }
+        }
+    }
+    
+    /**
+     * Compresses the given image, which must be in byte format. Rows of blocks
+     * are compressed in parallel.
+     * 
+     * @param image The image to compress.
+     * @return A newly allocated compressed image.
+     */
+    public ImageCompressed compress(Image image)
+    {
+        ImageCompressed out = DGL.genImageCompressed(image.width, image.height, format.glFormat);
+        try
+        {
+            out.allocate(getCompressedSize(image.width, image.height));
+            compress(image, out.buffer());
+            return out;
+        }
+        catch (Throwable t) //Prevent memory leaks by passing through throwables.
+        {
+            DGL.delete(out);
+            throw t;
+        }
+    }
+    
+    /**
+     * Compresses the given image into the given buffer, which must have at
+     * least getCompressedSize() bytes remaining. Does not use OpenGL, so may
+     * be called from any thread. Rows of blocks are compressed in parallel.
+     * 
+     * @param image The image to compress.
+     * @param out The buffer to write the compressed blocks to.
+     */
+    public void compress(Image image, ByteBuffer out)
+    {
+        if (image.deleted()) throw new IllegalStateException("Image is deleted.");
+        if (image.type != PrimType.BYTE) throw new IllegalArgumentException("Image must be in byte format.");
+        if (format == Format.BC5 && image.bands < 2) throw new IllegalArgumentException("BC5 requires two bands.");
+        if (out.remaining() < getCompressedSize(image.width, image.height))
+            throw new IllegalArgumentException("Buffer too small.");
+        
+        ByteBuffer buffer = out.slice();
+        int blocksY = (image.height + 3)/4;
+        IntStream.range(0, blocksY).parallel().forEach(by -> compressRow(image, buffer, by));
+    }
+    
+    /**
+     * Returns the cache file used for the given source file.
+     * 
+     * @param source An image file.
+     * @return The compressed cache file for the given image.
+     */
+    public File getCacheFile(File source)
+    {
+        return new File(source.getPath() + "." + format.name().toLowerCase(Locale.ROOT));
+    }
+    
+    /**
+     * Compresses the given image, or loads it from a cache file next to the
+     * given source file if it is up to date. The cache is rewritten whenever
+     * it is missing or out of date.
+     * 
+     * @param image The image to compress.
+     * @param source The file the image was loaded from.
+     * @return A newly allocated compressed image.
+     * @throws IOException If an io exception occurs.
+     */
+    public ImageCompressed compress(Image image, File source) throws IOException
+    {
+        ImageCompressed cached = readCache(image, source);
+        if (cached != null) return cached;
+        
+        ImageCompressed out = compress(image);
+        writeCache(source, out);
+        return out;
+    }
+    
+    private ImageCompressed readCache(Image image, File source)
+    {
+        File file = getCacheFile(source);
+        if (!file.isFile()) return null;
+        
+        int size = getCompressedSize(image.width, image.height);
+        ImageCompressed out = null;
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+        {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION) return null;
+            if (in.readInt() != format.glFormat || in.readBoolean() != quality) return null;
+            if (in.readLong() != source.length() || in.readLong() != source.lastModified()) return null;
+            if (in.readInt() != image.width || in.readInt() != image.height || in.readInt() != size) return null;
+            
+            out = DGL.genImageCompressed(image.width, image.height, format.glFormat).allocate(size);
+            ByteBuffer buffer = out.buffer();
+            byte[] bytes = new byte[8192];
+            for (int pos=0; pos<size; pos+=bytes.length)
+            {
+                int len = Math.min(bytes.length, size - pos);
+                in.readFully(bytes, 0, len);
+                for (int j=0; j<len; j++) buffer.put(pos + j, bytes[j]);
+            }
+            return out;
+        }
+        catch (IOException e)
+        {
+            //A truncated or unreadable cache is simply recompressed.
+            if (out != null) DGL.delete(out);
+            return null;
+        }
+    }
+    
+    private void writeCache(File source, ImageCompressed image) throws IOException
+    {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(getCacheFile(source)))))
+        {
+            out.writeInt(CACHE_MAGIC);
+            out.writeInt(CACHE_VERSION);
+            out.writeInt(format.glFormat);
+            out.writeBoolean(quality);
+            out.writeLong(source.length());
+            out.writeLong(source.lastModified());
+            out.writeInt(image.width);
+            out.writeInt(image.height);
+            out.writeInt(image.size());
+            
+            ByteBuffer buffer = image.buffer();
+            byte[] bytes = new byte[8192];
+            for (int pos=0; pos<image.size(); pos+=bytes.length)
+            {
+                int len = Math.min(bytes.length, image.size() - pos);
+                for (int j=0; j<len; j++) bytes[j] = buffer.get(pos + j);
+                out.write(bytes, 0, len);
+            }
+        }
+    }
+    
+    /**
+     * Decompresses the given image into the given byte image, which must have
+     * the same dimensions. BC1 and BC3 images write red, green, blue and, if
+     * present, alpha bands. BC4 and BC5 images write one or two bands.
+     * 
+     * @param compressed A BC1, BC3, BC4 or BC5 compressed image.
+     * @param image The image to decompress to.
+     */
+    public static void decompress(ImageCompressed compressed, Image image)
+    {
+        Format format = Format.get(compressed.format);
+        if (format == null) throw new IllegalArgumentException("Unsupported compressed format.");
+        if (image.width != compressed.width || image.height != compressed.height)
+            throw new IllegalArgumentException("Incompatible image dimensions.");
+        
+        decompress(format, compressed.buffer(), image);
+    }
+    
+    /**
+     * Decompresses blocks of the given format from the given buffer into the
+     * given byte image. Does not use OpenGL, so may be called from any thread.
+     * 
+     * @param format The format of the compressed blocks.
+     * @param compressed The buffer to read compressed blocks from.
+     * @param image The image to decompress to.
+     */
+    public static void decompress(Format format, ByteBuffer compressed, Image image)
+    {
+        if (image.type != PrimType.BYTE) throw new IllegalArgumentException("Image must be in byte format.");
+        
+        ByteBuffer in = compressed.slice(), out = image.buffer;
+        int blocksX = (image.width + 3)/4, blocksY = (image.height + 3)/4;
+        int bands = image.bands;
+        
+        IntStream.range(0, blocksY).parallel().forEach(by ->
+        {
+            int[] rgb = new int[48], a = new int[16], g = new int[16];
+            for (int bx=0; bx<blocksX; bx++)
+            {
+                int offset = (bx + by*blocksX)*format.blockSize;
+                Arrays.fill(a, 255);
+                switch (format)
+                {
+                    case BC1: decodeColor(getLong(in, offset), true, rgb); break;
+                    case BC3:
+                        decodeAlpha(getLong(in, offset), a);
+                        decodeColor(getLong(in, offset + 8), false, rgb);
+                        break;
+                    case BC4:
+                        decodeAlpha(getLong(in, offset), g);
+                        for (int p=0; p<16; p++) rgb[p*3] = g[p];
+                        break;
+                    case BC5:
+                        decodeAlpha(getLong(in, offset), a);
+                        for (int p=0; p<16; p++) rgb[p*3] = a[p];
+                        decodeAlpha(getLong(in, offset + 8), g);
+                        for (int p=0; p<16; p++) rgb[p*3 + 1] = g[p];
+                        break;
+                }
+                
+                for (int p=0; p<16; p++)
+                {
+                    int x = bx*4 + (p & 3), y = by*4 + (p >> 2);
+                    if (x >= image.width || y >= image.height) continue;
+                    int i = (x + y*image.width)*bands;
+                    
+                    if (format == Format.BC4 || format == Format.BC5 || bands < 3)
+                    {
+                        out.put(i, (byte)rgb[p*3]);
+                        if (bands >= 2) out.put(i + 1, (byte)(format == Format.BC5 ? rgb[p*3 + 1] : a[p]));
+                    }
+                    else
+                    {
+                        out.put(i, (byte)rgb[p*3]);
+                        out.put(i + 1, (byte)rgb[p*3 + 1]);
+                        out.put(i + 2, (byte)rgb[p*3 + 2]);
+                        if (bands == 4) out.put(i + 3, (byte)a[p]);
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * Returns the peak signal-to-noise ratio, in decibels, of the given
+     * compressed image relative to its original. Only the channels stored by
+     * the compressed format are compared. Identical images return infinity.
+     * 
+     * @param original The original byte image.
+     * @param compressed A compressed version of the original.
+     * @return The PSNR of the compressed image.
+     */
+    public static double psnr(Image original, ImageCompressed compressed)
+    {
+        Format format = Format.get(compressed.format);
+        if (format == null) throw new IllegalArgumentException("Unsupported compressed format.");
+        if (original.type != PrimType.BYTE) throw new IllegalArgumentException("Image must be in byte format.");
+        
+        Image decoded = DGL.genImage(original.width, original.height, original.bands, PrimType.BYTE);
+        try
+        {
+            decompress(compressed, decoded);
+            return psnr(original, decoded, format);
+        }
+        finally
+        {
+            DGL.delete(decoded);
+        }
+    }
+    
+    /**
+     * Returns the peak signal-to-noise ratio of the given decoded image
+     * relative to its original, comparing only the channels stored by the
+     * given format.
+     */
+    static double psnr(Image original, Image decoded, Format format)
+    {
+        int bands = original.bands;
+        int channels;
+        switch (format)
+        {
+            case BC1: channels = Math.min(bands, 3); break;
+            case BC4: channels = 1; break;
+            case BC5: channels = 2; break;
+            default: channels = bands;
+        }
+        
+        double sum = 0.0;
+        long count = 0;
+        for (int p=0; p<original.width*original.height; p++)
+            for (int b=0; b<channels; b++)
+            {
+                int i = p*bands + b;
+                int d = (original.buffer.get(i) & 0xFF) - (decoded.buffer.get(i) & 0xFF);
+                sum += d*d;
+                count++;
+            }
+        
+        double mse = sum/count;
+        return mse == 0.0 ? Double.POSITIVE_INFINITY : 10.0*Math.log10(255.0*255.0/mse);
+    }
+}
@@ -29,15 +29,18 @@ import java.awt.image.BufferedImage;
 import java.awt.image.Raster;
 import java.io.File;
 import java.io.IOException;
+import java.nio.IntBuffer;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.Set;
 import javax.imageio.ImageIO;
+import org.lwjgl.PointerBuffer;
 import org.lwjgl.opengl.GL;
 import org.lwjgl.opengl.GLCapabilities;
 import org.lwjgl.system.MemoryStack;
 
 import static org.lwjgl.opengl.GL11C.*;
+import static org.lwjgl.opengl.GL14C.*;
 import static org.lwjgl.opengl.GL20C.*;
 import static org.lwjgl.opengl.GL30C.*;
 import static org.lwjgl.opengl.GL31C.*;
@@ -307,6 +310,19 @@ public final class DGL
         return gen(new MeshBuffer(mesh, false));
     }
     
+    /**
+     * Returns a new mesh drawer, which buffers the given mesh onto the GPU
+     * using the given vertex format.
+     * 
+     * @param mesh The mesh to buffer.
+     * @param format The format to store vertex data in.
+     * @return A new mesh buffer.
+     */
+    public static MeshBuffer genMeshBuffer(Mesh mesh, MeshFormat format)
+    {
+        return gen(new MeshBuffer(mesh, false, format));
+    }
+    
     /**
      * Returns a new mesh edge drawer, which buffers the given mesh edges onto
      * the GPU.
@@ -318,6 +334,19 @@ public final class DGL
     {
         return gen(new MeshBuffer(mesh, true));
     }
+    
+    /**
+     * Returns a new mesh edge drawer, which buffers the given mesh edges onto
+     * the GPU using the given vertex format.
+     * 
+     * @param mesh The mesh to buffer.
+     * @param format The format to store vertex data in.
+     * @return A new mesh buffer.
+     */
+    public static MeshBuffer genMeshEdgeBuffer(Mesh mesh, MeshFormat format)
+    {
+        return gen(new MeshBuffer(mesh, true, format));
+    }
     // </editor-fold>
     // <editor-fold defaultstate="collapsed" desc="Image methods">
     /**
@@ -516,7 +545,21 @@ public final class DGL
         delete(image);
         return texture;
     }
-    
+
+    /**
+     * Creates a new asynchronous 2D texture loader, which decodes images on
+     * the given number of worker threads, and uploads at most the given number
+     * of bytes each time it is updated.
+     * 
+     * @param threads The number of threads to decode images on.
+     * @param byteBudget The number of bytes to upload per update.
+     * @return A new texture loader.
+     */
+    public static TextureLoader genTextureLoader(int threads, long byteBudget)
+    {
+        return gen(new TextureLoader(threads, byteBudget));
+    }
+
     /**
      * Generates a new OpenGL name for a 3D texture.
      * 
@@ -846,6 +889,19 @@ public final class DGL
         return readFBO == drawFBO ? readFBO : null;
     }
     // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="Profiler methods">
+    /**
+     * Creates a new frame profiler which keeps the results of the given number
+     * of most recent frames.
+     * 
+     * @param windowSize The number of frames to keep.
+     * @return A newly created frame profiler.
+     */
+    public static FrameProfiler genFrameProfiler(int windowSize)
+    {
+        return gen(new FrameProfiler(windowSize));
+    }
+    // </editor-fold>
     
     /**
      * Draws the given vertex data using the given primitive mode. A shader must
@@ -864,8 +920,31 @@ public final class DGL
         VAO.bindFor(null, vData, boundProgram, () ->
         {
             if (inds < 0) glDrawArrays(mode, 0, verts);
-            else glDrawElements(mode, inds, GL_UNSIGNED_INT, 0);
+            else glDrawElements(mode, inds, vData.indexType(), vData.indexOffset());
         });
+        Profiler.addDrawCalls(1);
+    }
+    
+    /**
+     * Draws several ranges of the given indexed vertex data in a single call,
+     * using the given primitive mode. A shader must be bound. Each range is
+     * given by a number of indices, and the byte offset of its first index.
+     * Only the remaining elements of each buffer are drawn.
+     * 
+     * @param vData The vertex data to render.
+     * @param mode An OpenGL primitive draw mode.
+     * @param counts The number of indices in each range.
+     * @param offsets The byte offset of each range in the index buffer.
+     */
+    public static void drawRanges(VertexData vData, int mode, IntBuffer counts, PointerBuffer offsets)
+    {
+        if (boundProgram == null) throw new IllegalStateException("No shader program is in use.");
+        if (vData.numIndices() < 0) throw new IllegalArgumentException("Vertex data is not indexed.");
+        if (counts.remaining() != offsets.remaining()) throw new IllegalArgumentException("Range count mismatch.");
+        if (!counts.hasRemaining()) return;
+        
+        VAO.bindFor(null, vData, boundProgram, () -> glMultiDrawElements(mode, counts, vData.indexType(), offsets));
+        Profiler.addDrawCalls(1);
     }
     
     /**
@@ -887,8 +966,9 @@ public final class DGL
         VAO.bindFor(null, vData, boundProgram, () ->
         {
             if (inds < 0) glDrawArraysInstanced(mode, 0, verts, primcount);
-            else glDrawElementsInstanced(mode, inds, GL_UNSIGNED_INT, 0, primcount);
+            else glDrawElementsInstanced(mode, inds, vData.indexType(), vData.indexOffset(), primcount);
         });
+        Profiler.addDrawCalls(1);
     }
     
     /**
@@ -913,8 +993,9 @@ public final class DGL
         VAO.bindFor(iData, vData, boundProgram, () ->
         {
             if (inds < 0) glDrawArraysInstanced(mode, 0, verts, primcount);
-            else glDrawElementsInstanced(mode, inds, GL_UNSIGNED_INT, 0, primcount);
+            else glDrawElementsInstanced(mode, inds, vData.indexType(), vData.indexOffset(), primcount);
         });
+        Profiler.addDrawCalls(1);
     }
     
     /**
@@ -0,0 +1,540 @@
+package com.samrj.devil.gl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.lwjgl.opengl.GLCapabilities;
+
+import static org.lwjgl.opengl.GL15C.*;
+import static org.lwjgl.opengl.GL33C.*;
+
+/**
+ * Hierarchical frame profiler. Records the CPU and GPU time spent in named,
+ * nested scopes, along with the number of draw calls and bytes uploaded in
+ * each scope, and keeps the results for a rolling window of frames.
+ * 
+ * GPU times are measured with timestamp queries rather than elapsed time
+ * queries, since elapsed time queries cannot be nested. Queries are buffered
+ * for several frames and only read once their results are available, so the
+ * profiler never stalls the pipeline. If a frame's results are not ready by
+ * the time its buffer is needed again, its GPU times are reported as -1.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class FrameProfiler extends DGLObj
+{
+    private static final int BUFFERED_FRAMES = 2;
+    
+    private static String quote(String name, boolean json)
+    {
+        StringBuilder builder = new StringBuilder(name.length() + 2);
+        builder.append('"');
+        for (int i=0; i<name.length(); i++)
+        {
+            char c = name.charAt(i);
+            if (c == '"') builder.append(json ? "\\\"" : "\"\"");
+            else if (c == '\\' && json) builder.append("\\\\");
+            else if (c < ' ') builder.append(' ');
+            else builder.append(c);
+        }
+        return builder.append('"').toString();
+    }
+    
+    private final int windowSize;
+    private final boolean timerQueries;
+    private final Slot[] slots = new Slot[BUFFERED_FRAMES];
+    private final ArrayDeque<Frame> window;
+    private final ArrayDeque<PendingScope> stack = new ArrayDeque<>();
+    
+    private Slot current;
+    private long frameNumber;
+    private boolean deleted;
+    
+    FrameProfiler(int windowSize)
+    {
+        DGL.checkState();
+        if (windowSize <= 0) throw new IllegalArgumentException("Window size must be positive.");
+        
+        this.windowSize = windowSize;
+        GLCapabilities caps = DGL.getCapabilities();
+        timerQueries = caps.OpenGL33 || caps.GL_ARB_timer_query;
+        for (int i=0; i<BUFFERED_FRAMES; i++) slots[i] = new Slot();
+        window = new ArrayDeque<>(windowSize);
+    }
+    
+    /**
+     * @return Whether GPU timing is supported by the current context.
+     */
+    public boolean isGPUTimingSupported()
+    {
+        return timerQueries;
+    }
+    
+    /**
+     * Begins profiling a new frame. The frame itself is recorded as the
+     * outermost scope.
+     */
+    public void beginFrame()
+    {
+        if (deleted) throw new IllegalStateException("Profiler deleted.");
+        if (current != null) throw new IllegalStateException("Frame already begun.");
+        
+        collect();
+        
+        Slot slot = slots[(int)(frameNumber%BUFFERED_FRAMES)];
+        if (slot.pending) slot.finish(false); //Out of time. Drop the GPU results.
+        
+        slot.start(frameNumber++);
+        current = slot;
+        begin("Frame");
+    }
+    
+    /**
+     * Begins a new scope with the given name, nested within the current scope.
+     * Every call to begin() must be matched with a call to end().
+     * 
+     * @param name The name of the scope.
+     */
+    public void begin(String name)
+    {
+        if (current == null) throw new IllegalStateException("Frame not begun.");
+        if (name == null) throw new NullPointerException();
+        
+        PendingScope parent = stack.peek();
+        PendingScope scope = new PendingScope(name, stack.size(), parent != null ? parent.index : -1, current.scopes.size());
+        current.scopes.add(scope);
+        stack.push(scope);
+        
+        scope.beginQuery = current.queryTimestamp();
+        scope.drawCalls = Profiler.getDrawCalls();
+        scope.uploadedBytes = Profiler.getUploadedBytes();
+        scope.cpuStart = System.nanoTime();
+    }
+    
+    /**
+     * Ends the current scope.
+     */
+    public void end()
+    {
+        long time = System.nanoTime();
+        if (current == null) throw new IllegalStateException("Frame not begun.");
+        if (stack.size() <= 1) throw new IllegalStateException("No scope to end.");
+        endScope(time);
+    }
+    
+    private void endScope(long time)
+    {
+        PendingScope scope = stack.pop();
+        scope.cpuEnd = time;
+        scope.drawCalls = Profiler.getDrawCalls() - scope.drawCalls;
+        scope.uploadedBytes = Profiler.getUploadedBytes() - scope.uploadedBytes;
+        scope.endQuery = current.queryTimestamp();
+    }
+    
+    /**
+     * Ends the current frame. All scopes begun during this frame must have
+     * been ended. The frame's results become available once the GPU has
+     * finished with it, usually a frame or two later.
+     */
+    public void endFrame()
+    {
+        long time = System.nanoTime();
+        if (current == null) throw new IllegalStateException("Frame not begun.");
+        if (stack.size() != 1) throw new IllegalStateException("Unended scope: " + stack.peek().name);
+        
+        endScope(time);
+        current.vram = Profiler.getUsedVRAMByType();
+        current.pending = true;
+        current = null;
+        
+        collect();
+    }
+    
+    private void collect()
+    {
+        //Collect in frame order, so the window stays sorted.
+        for (int i=0; i<BUFFERED_FRAMES; i++)
+        {
+            Slot slot = slots[(int)((frameNumber + i)%BUFFERED_FRAMES)];
+            if (slot.pending && slot != current && slot.available()) slot.finish(true);
+        }
+    }
+    
+    private void record(Frame frame)
+    {
+        if (window.size() == windowSize) window.removeFirst();
+        window.addLast(frame);
+    }
+    
+    /**
+     * Returns each completed frame in the rolling window, from oldest to
+     * newest.
+     * 
+     * @return A list of frames.
+     */
+    public List<Frame> getFrames()
+    {
+        return Collections.unmodifiableList(new ArrayList<>(window));
+    }
+    
+    /**
+     * @return The most recently completed frame, or null if none have completed.
+     */
+    public Frame getLatestFrame()
+    {
+        return window.peekLast();
+    }
+    
+    private double average(String name, boolean gpu)
+    {
+        long total = 0;
+        int frames = 0;
+        
+        for (Frame frame : window)
+        {
+            long frameTotal = 0;
+            boolean found = false;
+            
+            for (Scope scope : frame.scopes) if (scope.name.equals(name))
+            {
+                long time = gpu ? scope.gpuTime : scope.cpuTime;
+                if (time < 0) continue;
+                frameTotal += time;
+                found = true;
+            }
+            
+            if (found)
+            {
+                total += frameTotal;
+                frames++;
+            }
+        }
+        
+        return frames > 0 ? total/(double)frames : -1.0;
+    }
+    
+    /**
+     * Returns the average CPU time, in nanoseconds, spent per frame within
+     * scopes of the given name, over the frames in the window that contain
+     * such a scope. Returns -1 if no such frames exist.
+     * 
+     * @param name The name of the scope.
+     * @return The average CPU time of the scope, in nanoseconds.
+     */
+    public double getAverageCPUTime(String name)
+    {
+        return average(name, false);
+    }
+    
+    /**
+     * Returns the average GPU time, in nanoseconds, spent per frame within
+     * scopes of the given name, over the frames in the window that have GPU
+     * results for such a scope. Returns -1 if no such frames exist.
+     * 
+     * @param name The name of the scope.
+     * @return The average GPU time of the scope, in nanoseconds.
+     */
+    public double getAverageGPUTime(String name)
+    {
+        return average(name, true);
+    }
+    
+    /**
+     * Writes each frame in the window to the given writer as CSV, with one row
+     * per scope. Times are in nanoseconds, relative to the start of the frame.
+     * 
+     * @param out The writer to write to.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void writeCSV(Writer out) throws IOException
+    {
+        out.write("frame,scope,depth,parent,cpu_start_ns,cpu_ns,gpu_start_ns,gpu_ns,draw_calls,uploaded_bytes\n");
+        for (Frame frame : window) for (Scope scope : frame.scopes)
+        {
+            out.write(frame.number + "," + quote(scope.name, false) + "," + scope.depth + "," + scope.parent + "," +
+                      scope.cpuStart + "," + scope.cpuTime + "," + scope.gpuStart + "," + scope.gpuTime + "," +
+                      scope.drawCalls + "," + scope.uploadedBytes + "\n");
+        }
+        out.flush();
+    }
+    
+    /**
+     * Writes each frame in the window to the given writer in the Chrome trace
+     * event format, which can be opened with chrome://tracing or Perfetto. CPU
+     * scopes are placed on thread 0, GPU scopes on thread 1, and VRAM usage is
+     * written as a counter.
+     * 
+     * @param out The writer to write to.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void writeChromeTrace(Writer out) throws IOException
+    {
+        out.write("{\"traceEvents\":[\n");
+        out.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":0,\"tid\":0,\"args\":{\"name\":\"CPU\"}},\n");
+        out.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":0,\"tid\":1,\"args\":{\"name\":\"GPU\"}}");
+        
+        Frame first = window.peekFirst();
+        long origin = first != null ? first.startTime : 0L;
+        
+        for (Frame frame : window)
+        {
+            long frameStart = frame.startTime - origin;
+            
+            for (Scope scope : frame.scopes)
+            {
+                String args = ",\"args\":{\"frame\":" + frame.number + ",\"draw_calls\":" + scope.drawCalls +
+                              ",\"uploaded_bytes\":" + scope.uploadedBytes + "}}";
+                String name = quote(scope.name, true);
+                
+                out.write(",\n{\"name\":" + name + ",\"cat\":\"cpu\",\"ph\":\"X\",\"pid\":0,\"tid\":0,\"ts\":" +
+                          (frameStart + scope.cpuStart)/1000.0 + ",\"dur\":" + scope.cpuTime/1000.0 + args);
+                
+                if (scope.gpuTime >= 0)
+                    out.write(",\n{\"name\":" + name + ",\"cat\":\"gpu\",\"ph\":\"X\",\"pid\":0,\"tid\":1,\"ts\":" +
+                              (frameStart + scope.gpuStart)/1000.0 + ",\"dur\":" + scope.gpuTime/1000.0 + args);
+            }
+            
+            StringBuilder vram = new StringBuilder();
+            for (Map.Entry<Class<?>, Long> entry : frame.vram.entrySet())
+            {
+                if (vram.length() > 0) vram.append(',');
+                vram.append('"').append(entry.getKey().getSimpleName()).append("\":").append(entry.getValue()/8L);
+            }
+            out.write(",\n{\"name\":\"VRAM bytes\",\"ph\":\"C\",\"pid\":0,\"ts\":" + frameStart/1000.0 +
+                      ",\"args\":{" + vram + "}}");
+        }
+        
+        out.write("\n]}\n");
+        out.flush();
+    }
+    
+    @Override
+    void delete()
+    {
+        if (current != null)
+        {
+            stack.clear();
+            current = null;
+        }
+        
+        for (Slot slot : slots) if (slot.queries.length > 0)
+            glDeleteQueries(slot.queries);
+        
+        deleted = true;
+    }
+    
+    /**
+     * A single completed scope.
+     */
+    public static final class Scope
+    {
+        /**
+         * The name given to this scope.
+         */
+        public final String name;
+        
+        /**
+         * How deeply this scope is nested. The frame itself has depth zero.
+         */
+        public final int depth;
+        
+        /**
+         * The index of this scope's parent within its frame, or -1 for the
+         * frame itself.
+         */
+        public final int parent;
+        
+        /**
+         * The start time and duration of this scope on the CPU, in nanoseconds
+         * relative to the start of the frame.
+         */
+        public final long cpuStart, cpuTime;
+        
+        /**
+         * The start time and duration of this scope on the GPU, in nanoseconds
+         * relative to the GPU start of the frame, or -1 if unavailable.
+         */
+        public final long gpuStart, gpuTime;
+        
+        /**
+         * The number of draw calls issued and bytes uploaded to the GPU during
+         * this scope, including its children.
+         */
+        public final long drawCalls, uploadedBytes;
+        
+        private Scope(PendingScope s, long frameStart, long gpuStart, long gpuEnd, long gpuOrigin)
+        {
+            name = s.name;
+            depth = s.depth;
+            parent = s.parent;
+            cpuStart = s.cpuStart - frameStart;
+            cpuTime = s.cpuEnd - s.cpuStart;
+            
+            if (gpuOrigin >= 0)
+            {
+                this.gpuStart = gpuStart - gpuOrigin;
+                gpuTime = gpuEnd - gpuStart;
+            }
+            else
+            {
+                this.gpuStart = -1;
+                gpuTime = -1;
+            }
+            
+            drawCalls = s.drawCalls;
+            uploadedBytes = s.uploadedBytes;
+        }
+        
+        @Override
+        public String toString()
+        {
+            return "[" + name + " cpu: " + cpuTime + "ns, gpu: " + gpuTime + "ns, draws: " + drawCalls + ", uploaded: " + uploadedBytes + "B]";
+        }
+    }
+    
+    /**
+     * A single completed frame.
+     */
+    public static final class Frame
+    {
+        /**
+         * The number of this frame, counting from zero when the profiler was
+         * created.
+         */
+        public final long number;
+        
+        /**
+         * The value of System.nanoTime() when this frame began.
+         */
+        public final long startTime;
+        
+        /**
+         * Every scope in this frame, in the order they began. The first scope
+         * is the frame itself.
+         */
+        public final List<Scope> scopes;
+        
+        /**
+         * The VRAM used by each type of object, in bits, at the end of this
+         * frame.
+         */
+        public final Map<Class<?>, Long> vram;
+        
+        private Frame(long number, long startTime, List<Scope> scopes, Map<Class<?>, Long> vram)
+        {
+            this.number = number;
+            this.startTime = startTime;
+            this.scopes = scopes;
+            this.vram = vram;
+        }
+        
+        /**
+         * @return The total CPU time of this frame, in nanoseconds.
+         */
+        public long getCPUTime()
+        {
+            return scopes.get(0).cpuTime;
+        }
+        
+        /**
+         * @return The total GPU time of this frame, in nanoseconds, or -1 if
+         *         unavailable.
+         */
+        public long getGPUTime()
+        {
+            return scopes.get(0).gpuTime;
+        }
+    }
+    
+    private static final class PendingScope
+    {
+        private final String name;
+        private final int depth, parent, index;
+        private long cpuStart, cpuEnd;
+        private long drawCalls, uploadedBytes;
+        private int beginQuery = -1, endQuery = -1;
+        
+        private PendingScope(String name, int depth, int parent, int index)
+        {
+            this.name = name;
+            this.depth = depth;
+            this.parent = parent;
+            this.index = index;
+        }
+    }
+    
+    private final class Slot
+    {
+        private final List<PendingScope> scopes = new ArrayList<>();
+        private int[] queries = new int[0];
+        private int numQueries;
+        private long number;
+        private Map<Class<?>, Long> vram;
+        private boolean pending;
+        
+        private void start(long number)
+        {
+            this.number = number;
+            scopes.clear();
+            numQueries = 0;
+            vram = null;
+            pending = false;
+        }
+        
+        private int queryTimestamp()
+        {
+            if (!timerQueries) return -1;
+            
+            if (numQueries == queries.length)
+            {
+                int oldLength = queries.length;
+                queries = Arrays.copyOf(queries, Math.max(16, oldLength*2));
+                int[] generated = new int[queries.length - oldLength];
+                glGenQueries(generated);
+                System.arraycopy(generated, 0, queries, oldLength, generated.length);
+            }
+            
+            glQueryCounter(queries[numQueries], GL_TIMESTAMP);
+            return numQueries++;
+        }
+        
+        private boolean available()
+        {
+            if (numQueries == 0) return true;
+            //Queries complete in order, so only the last needs to be checked.
+            return glGetQueryObjecti(queries[numQueries - 1], GL_QUERY_RESULT_AVAILABLE) != GL_FALSE;
+        }
+        
+        private void finish(boolean readGPU)
+        {
+            long[] times = null;
+            if (readGPU && numQueries > 0)
+            {
+                times = new long[numQueries];
+                for (int i=0; i<numQueries; i++) times[i] = glGetQueryObjecti64(queries[i], GL_QUERY_RESULT);
+            }
+            
+            PendingScope root = scopes.get(0);
+            long gpuOrigin = times != null ? times[root.beginQuery] : -1L;
+            
+            Scope[] results = new Scope[scopes.size()];
+            for (int i=0; i<results.length; i++)
+            {
+                PendingScope s = scopes.get(i);
+                long gpuStart = times != null ? times[s.beginQuery] : -1L;
+                long gpuEnd = times != null ? times[s.endQuery] : -1L;
+                results[i] = new Scope(s, root.cpuStart, gpuStart, gpuEnd, gpuOrigin);
+            }
+            
+            record(new Frame(number, root.cpuStart, Collections.unmodifiableList(Arrays.asList(results)), vram));
+            pending = false;
+        }
+    }
+}
@@ -22,11 +22,12 @@
 
 package com.samrj.devil.gl;
 
+import com.samrj.devil.util.NativeMemory;
+import com.samrj.devil.util.NativeMemory.Category;
 import java.nio.ByteBuffer;
 
 import static org.lwjgl.opengl.GL11C.*;
 import static org.lwjgl.opengl.GL15C.*;
-import static org.lwjgl.system.MemoryUtil.*;
 
 /**
  * Vertex data for streaming vertex data. Suitable for data that is built and
@@ -67,12 +68,12 @@ public final class GrowableVertexStream extends VertexBuilder
     @Override
     void onBegin()
     {
-        vertexBuffer = memAlloc(INITIAL_MAX_VERTS*vertexSize());
+        vertexBuffer = NativeMemory.malloc(Category.GL, INITIAL_MAX_VERTS*vertexSize());
         vbo = glGenBuffers();
         
         if (indicesEnabled)
         {
-            indexBuffer = memAlloc(INITIAL_MAX_INDICES*4);
+            indexBuffer = NativeMemory.malloc(Category.GL, INITIAL_MAX_INDICES*4);
             ebo = glGenBuffers();
         }
         
@@ -101,11 +102,8 @@ public final class GrowableVertexStream extends VertexBuilder
         int newPosition = position + bytes;
         if (newPosition > buffer.limit())
         {
-            ByteBuffer newBuffer = memAlloc(buffer.capacity()*2);
-            buffer.flip();
-            memCopy(buffer, newBuffer);
-            memFree(buffer);
-            newBuffer.position(position);
+            ByteBuffer newBuffer = NativeMemory.realloc(buffer, buffer.capacity()*2);
+            newBuffer.limit(newBuffer.capacity());
             return newBuffer;
         }
         return buffer;
@@ -140,6 +138,7 @@ public final class GrowableVertexStream extends VertexBuilder
         
         //Allocate new stores, orphaning the old ones to allow for asynchronous drawing.
         vertexBuffer.flip();
+        Profiler.addUploadedBytes(vertexBuffer.remaining());
         int prevBinding = glGetInteger(GL_ARRAY_BUFFER_BINDING);
         glBindBuffer(GL_ARRAY_BUFFER, vbo);
         glBufferData(GL_ARRAY_BUFFER, vertexBuffer, GL_STREAM_DRAW);
@@ -148,6 +147,7 @@ public final class GrowableVertexStream extends VertexBuilder
         if (indicesEnabled)
         {
             indexBuffer.flip();
+            Profiler.addUploadedBytes(indexBuffer.remaining());
             prevBinding = glGetInteger(GL_ELEMENT_ARRAY_BUFFER_BINDING);
             glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
             glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexBuffer, GL_STREAM_DRAW);
@@ -191,13 +191,13 @@ public final class GrowableVertexStream extends VertexBuilder
     {
         if (state == State.READY)
         {
-            memFree(vertexBuffer);
+            NativeMemory.free(vertexBuffer);
             vertexBuffer = null;
             glDeleteBuffers(vbo);
             
             if (indicesEnabled)
             {
-                memFree(indexBuffer);
+                NativeMemory.free(indexBuffer);
                 indexBuffer = null;
                 glDeleteBuffers(ebo);
             }
@@ -23,6 +23,8 @@
 package com.samrj.devil.gl;
 
 import com.samrj.devil.math.Util.PrimType;
+import com.samrj.devil.util.NativeMemory;
+import com.samrj.devil.util.NativeMemory.Category;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBuffer;
 import java.awt.image.Raster;
@@ -85,7 +87,16 @@ public final class Image extends DGLObj
     
     Image(int width, int height, int bands, PrimType type)
     {
-        DGL.checkState();
+        this(width, height, bands, type, true);
+    }
+
+    /**
+     * Images allocated without checking state may be created on any thread,
+     * but are not tracked by DGL, and must be deleted by their owner.
+     */
+    Image(int width, int height, int bands, PrimType type, boolean checkState)
+    {
+        if (checkState) DGL.checkState();
         if (width < 0 || height < 0)
             throw new IllegalArgumentException("Illegal dimensions specified.");
         if (bands <= 0 || bands > 4)
@@ -99,7 +110,7 @@ public final class Image extends DGLObj
         this.type = type;
         size = width*height*bands*type.size;
         
-        buffer = memAlloc(size);
+        buffer = NativeMemory.malloc(Category.GL, size);
     }
     
     /**
@@ -285,7 +296,7 @@ public final class Image extends DGLObj
     @Override
     void delete()
     {
-        memFree(buffer);
+        NativeMemory.free(buffer);
         deleted = true;
     }
     
@@ -1,5 +1,7 @@
 package com.samrj.devil.gl;
 
+import com.samrj.devil.util.NativeMemory;
+import com.samrj.devil.util.NativeMemory.Category;
 import java.nio.ByteBuffer;
 
 import static org.lwjgl.system.MemoryUtil.*;
@@ -52,7 +54,7 @@ public class ImageCompressed extends DGLObj
         if (buffer != null) throw new IllegalStateException("Buffer already allocated.");
         
         this.size = size;
-        buffer = memAlloc(size);
+        buffer = NativeMemory.malloc(Category.GL, size);
         return this;
     }
     
@@ -92,7 +94,7 @@ public class ImageCompressed extends DGLObj
     void delete()
     {
         size = -1;
-        memFree(buffer);
+        NativeMemory.free(buffer);
         buffer = null;
         deleted = true;
     }
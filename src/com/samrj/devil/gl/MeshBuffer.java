@@ -22,7 +22,13 @@
 
 package com.samrj.devil.gl;
 
+import com.samrj.devil.math.Util;
+import com.samrj.devil.math.Vec2;
+import com.samrj.devil.math.Vec3;
 import com.samrj.devil.model.Mesh;
+import com.samrj.devil.model.MeshLOD;
+import com.samrj.devil.util.NativeMemory;
+import com.samrj.devil.util.NativeMemory.Category;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -32,9 +38,11 @@ import java.util.Map;
 import static com.samrj.devil.gl.AttributeType.*;
 import static org.lwjgl.opengl.GL11C.*;
 import static org.lwjgl.opengl.GL15C.*;
+import static org.lwjgl.system.MemoryUtil.*;
 
 /**
- * Utility OpenGL wrapper for DevilModel meshes.
+ * Utility OpenGL wrapper for DevilModel meshes. Vertex data may be stored in a
+ * compact format; see MeshFormat.
  * 
  * @author Samuel Johnson (SmashMaster)
  */
@@ -42,6 +50,14 @@ public class MeshBuffer extends DGLObj implements VertexData
 {
     private final Mesh mesh;
     private final boolean edges;
+    private final MeshFormat format;
+    private final long vertexBytes, indexBytes;
+    
+    private final Vec3 positionScale = new Vec3(1.0f), positionOffset = new Vec3();
+    private final Map<String, Vec2> uvScales, uvOffsets;
+    private final long[] lodOffsets;
+    private final int[] lodIndexCounts;
+    private int lod;
     
     private final Attribute position;
     private final Attribute normal;
@@ -55,26 +71,83 @@ public class MeshBuffer extends DGLObj implements VertexData
     private final Map<String, Attribute> attributes;
     private int vbo, ibo;
     
-    MeshBuffer(Mesh mesh, boolean edges)
+    MeshBuffer(Mesh mesh, boolean edges, MeshFormat format)
     {
         this.mesh = mesh;
         this.edges = edges;
+        this.format = new MeshFormat(format);
+        
+        int n = mesh.numVertices;
+        ByteBuffer src = mesh.vertexData;
+        ByteBuffer data = format.isFull() || src == null ? src : NativeMemory.malloc(Category.GL, encodedSize(mesh, format));
+        int offset = 0;
+        
+        //Set up attributes, encoding them if necessary.
+        AttributeType positionType;
+        switch (format.positions)
+        {
+            case HALF: positionType = HALF_VEC4; break;
+            case SNORM16: positionType = SNORM16_VEC4; break;
+            default: positionType = VEC3;
+        }
+        position = new Attribute(positionType, data == src ? mesh.positionOffset : offset, true);
+        if (data != src)
+        {
+            getPositionTransform(src, mesh.positionOffset, n, format.positions, positionScale, positionOffset);
+            encodePositions(src, mesh.positionOffset, n, format.positions, positionScale, positionOffset, data, offset);
+            offset += n*positionType.size;
+        }
+        
+        normal = new Attribute(directionType(format.normals), data == src ? mesh.normalOffset : offset, true);
+        if (data != src)
+        {
+            encodeDirections(src, mesh.normalOffset, n, format.normals, data, offset);
+            offset += n*normal.type.size;
+        }
         
-        //Set up attributes.
-        position = new Attribute(VEC3, mesh.positionOffset, true);
-        normal = new Attribute(VEC3, mesh.normalOffset, true);
         uvs = new HashMap<>();
+        uvScales = new HashMap<>();
+        uvOffsets = new HashMap<>();
         for (int i=0; i<mesh.uvLayers.length; i++)
         {
-            Attribute color =  new Attribute(VEC2, mesh.uvOffsets[i], true);
-            uvs.put(mesh.uvLayers[i], color);
+            AttributeType uvType;
+            switch (format.uvs)
+            {
+                case HALF: uvType = HALF_VEC2; break;
+                case UNORM16: uvType = UNORM16_VEC2; break;
+                default: uvType = VEC2;
+            }
+            Attribute uv = new Attribute(uvType, data == src ? mesh.uvOffsets[i] : offset, true);
+            uvs.put(mesh.uvLayers[i], uv);
+            
+            Vec2 uvScale = new Vec2(1.0f), uvOffset = new Vec2();
+            if (data != src)
+            {
+                encodeUVs(src, mesh.uvOffsets[i], n, format.uvs, data, offset, uvScale, uvOffset);
+                offset += n*uvType.size;
+            }
+            uvScales.put(mesh.uvLayers[i], uvScale);
+            uvOffsets.put(mesh.uvLayers[i], uvOffset);
         }
-        tangent = new Attribute(VEC3, mesh.tangentOffset, mesh.hasTangents);
+        
+        tangent = new Attribute(tangentType(format.tangents), data == src ? mesh.tangentOffset : offset, mesh.hasTangents);
+        if (data != src && mesh.hasTangents)
+        {
+            encodeTangents(src, mesh.tangentOffset, n, format.tangents, data, offset);
+            offset += n*tangent.type.size;
+        }
+        
         colors = new HashMap<>();
         for (int i=0; i<mesh.colorLayers.length; i++)
         {
-            Attribute color =  new Attribute(VEC3, mesh.colorOffsets[i], true);
+            AttributeType colorType = format.colors == MeshFormat.Color.UNORM8 ? UNORM8_VEC4 : VEC3;
+            Attribute color =  new Attribute(colorType, data == src ? mesh.colorOffsets[i] : offset, true);
             colors.put(mesh.colorLayers[i], color);
+            if (data != src)
+            {
+                encodeColors(src, mesh.colorOffsets[i], n, format.colors, data, offset);
+                offset += n*colorType.size;
+            }
         }
         
         AttributeType groupsType, weightType;
@@ -87,31 +160,389 @@ public class MeshBuffer extends DGLObj implements VertexData
             case 4: groupsType = VEC4I; weightType = VEC4; break;
             default: throw new IllegalArgumentException("Vertex group count of " + mesh.numGroups + ", limited to four.");
         }
+        if (mesh.numGroups > 0 && format.groups == MeshFormat.Groups.BYTE)
+        {
+            groupsType = UBYTE_VEC4I;
+            weightType = UNORM8_VEC4;
+        }
         
-        groups = new Attribute(groupsType, mesh.groupIndexOffset, mesh.numGroups > 0);
-        weights = new Attribute(weightType, mesh.groupWeightOffset, mesh.numGroups > 0);
-        material = new Attribute(INT, mesh.materialOffset, mesh.hasMaterials);
+        if (data == src)
+        {
+            groups = new Attribute(groupsType, mesh.groupIndexOffset, mesh.numGroups > 0);
+            weights = new Attribute(weightType, mesh.groupWeightOffset, mesh.numGroups > 0);
+        }
+        else
+        {
+            groups = new Attribute(groupsType, offset, mesh.numGroups > 0);
+            weights = new Attribute(weightType, offset + n*groupsType.size, mesh.numGroups > 0);
+            encodeGroups(src, mesh.groupIndexOffset, mesh.groupWeightOffset, n, mesh.numGroups, format.groups, data, offset);
+            offset += n*(groupsType.size + weightType.size);
+        }
+        
+        material = new Attribute(INT, data == src ? mesh.materialOffset : offset, mesh.hasMaterials);
+        if (data != src && mesh.hasMaterials)
+        {
+            memCopy(memAddress0(src) + mesh.materialOffset, memAddress0(data) + offset, n*4L);
+            offset += n*4;
+        }
+        
+        if (data != src)
+        {
+            data.position(0);
+            data.limit(offset);
+        }
         
         vbo = glGenBuffers();
         int prevBinding = glGetInteger(GL_ARRAY_BUFFER_BINDING);
         glBindBuffer(GL_ARRAY_BUFFER, vbo);
-        glBufferData(GL_ARRAY_BUFFER, mesh.vertexData, GL_STATIC_DRAW);
+        glBufferData(GL_ARRAY_BUFFER, data, GL_STATIC_DRAW);
         glBindBuffer(GL_ARRAY_BUFFER, prevBinding);
+        vertexBytes = data.remaining();
+        if (data != src) NativeMemory.free(data);
         
         ByteBuffer indexData = edges ? mesh.edgeIndexData : mesh.indexData;
         
+        //Levels of detail share the vertex data, so their indices follow the full mesh's.
+        MeshLOD[] lods = edges ? new MeshLOD[0] : mesh.lods;
+        lodOffsets = new long[lods.length + 1];
+        lodIndexCounts = new int[lods.length + 1];
+        lodIndexCounts[0] = edges ? mesh.numEdges*2 : mesh.numTriangles*3;
+        long totalIndexBytes = indexData.remaining();
+        for (int i=0; i<lods.length; i++)
+        {
+            lodOffsets[i + 1] = totalIndexBytes;
+            lodIndexCounts[i + 1] = lods[i].numTriangles*3;
+            if (lods[i].indexData != null) totalIndexBytes += lods[i].indexData.remaining();
+        }
+        
         ibo = glGenBuffers();
         prevBinding = glGetInteger(GL_ELEMENT_ARRAY_BUFFER_BINDING);
         glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ibo);
-        glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexData, GL_STATIC_DRAW);
+        if (lods.length == 0) glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexData, GL_STATIC_DRAW);
+        else
+        {
+            glBufferData(GL_ELEMENT_ARRAY_BUFFER, totalIndexBytes, GL_STATIC_DRAW);
+            glBufferSubData(GL_ELEMENT_ARRAY_BUFFER, 0L, indexData);
+            for (int i=0; i<lods.length; i++) if (lods[i].indexData != null)
+                glBufferSubData(GL_ELEMENT_ARRAY_BUFFER, lodOffsets[i + 1], lods[i].indexData);
+        }
         glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, prevBinding);
+        indexBytes = totalIndexBytes;
         
         attributes = new HashMap<>();
         
-        Profiler.addUsedVRAM(mesh.vertexData.remaining()*8L);
-        Profiler.addUsedVRAM(indexData.remaining()*8L);
+        Profiler.addUsedVRAM(MeshBuffer.class, vertexBytes*8L);
+        Profiler.addUsedVRAM(MeshBuffer.class, indexBytes*8L);
+        Profiler.addUploadedBytes(vertexBytes + indexBytes);
+    }
+    
+    MeshBuffer(Mesh mesh, boolean edges)
+    {
+        this(mesh, edges, new MeshFormat());
+    }
+    
+    // <editor-fold defaultstate="collapsed" desc="Encoding">
+    private static AttributeType directionType(MeshFormat.Direction direction)
+    {
+        switch (direction)
+        {
+            case OCT16: return SNORM16_VEC2;
+            case OCT8: return SNORM8_VEC2;
+            default: return VEC3;
+        }
+    }
+    
+    private static AttributeType tangentType(MeshFormat.Direction direction)
+    {
+        switch (direction)
+        {
+            case OCT16: return SNORM16_VEC4;
+            case OCT8: return SNORM8_VEC4;
+            default: return VEC4;
+        }
+    }
+    
+    private static int encodedSize(Mesh mesh, MeshFormat format)
+    {
+        int size = 0;
+        switch (format.positions)
+        {
+            case FLOAT: size += 12; break;
+            default: size += 8;
+        }
+        size += directionType(format.normals).size;
+        size += mesh.uvLayers.length*(format.uvs == MeshFormat.UV.FLOAT ? 8 : 4);
+        if (mesh.hasTangents) size += tangentType(format.tangents).size;
+        size += mesh.colorLayers.length*(format.colors == MeshFormat.Color.FLOAT ? 12 : 4);
+        if (mesh.numGroups > 0) size += format.groups == MeshFormat.Groups.FULL ? mesh.numGroups*8 : 8;
+        if (mesh.hasMaterials) size += 4;
+        return Math.max(mesh.numVertices*size, 1);
+    }
+    
+    private static void getPositionTransform(ByteBuffer src, int srcOffset, int n, MeshFormat.Position encoding, Vec3 scale, Vec3 offset)
+    {
+        Vec3 min = new Vec3(Float.POSITIVE_INFINITY), max = new Vec3(Float.NEGATIVE_INFINITY);
+        for (int i=0; i<n; i++)
+        {
+            int p = srcOffset + i*12;
+            float x = src.getFloat(p), y = src.getFloat(p + 4), z = src.getFloat(p + 8);
+            min.set(Math.min(min.x, x), Math.min(min.y, y), Math.min(min.z, z));
+            max.set(Math.max(max.x, x), Math.max(max.y, y), Math.max(max.z, z));
+        }
+        
+        if (n == 0) offset.set();
+        else Vec3.lerp(min, max, 0.5f, offset);
+        
+        switch (encoding)
+        {
+            case SNORM16:
+                if (n == 0) scale.set(1.0f);
+                else
+                {
+                    Vec3.sub(max, offset, scale);
+                    if (scale.x == 0.0f) scale.x = 1.0f;
+                    if (scale.y == 0.0f) scale.y = 1.0f;
+                    if (scale.z == 0.0f) scale.z = 1.0f;
+                }
+                break;
+            case HALF:
+                scale.set(1.0f);
+                break;
+            default:
+                scale.set(1.0f);
+                offset.set();
+        }
+    }
+    
+    private static short snorm16(float f)
+    {
+        return (short)Math.round(Util.clamp(f, -1.0f, 1.0f)*32767.0f);
+    }
+    
+    private static short unorm16(float f)
+    {
+        return (short)Math.round(Util.saturate(f)*65535.0f);
+    }
+    
+    private static byte unorm8(float f)
+    {
+        return (byte)Math.round(Util.saturate(f)*255.0f);
+    }
+    
+    private static void encodePositions(ByteBuffer src, int srcOffset, int n, MeshFormat.Position encoding, Vec3 scale, Vec3 center, ByteBuffer dst, int dstOffset)
+    {
+        if (encoding == MeshFormat.Position.FLOAT)
+        {
+            memCopy(memAddress0(src) + srcOffset, memAddress0(dst) + dstOffset, n*12L);
+            return;
+        }
+        
+        for (int i=0; i<n; i++)
+        {
+            int p = srcOffset + i*12, d = dstOffset + i*8;
+            float x = (src.getFloat(p) - center.x)/scale.x;
+            float y = (src.getFloat(p + 4) - center.y)/scale.y;
+            float z = (src.getFloat(p + 8) - center.z)/scale.z;
+            
+            if (encoding == MeshFormat.Position.HALF)
+            {
+                dst.putShort(d, Util.toHalf(x));
+                dst.putShort(d + 2, Util.toHalf(y));
+                dst.putShort(d + 4, Util.toHalf(z));
+                dst.putShort(d + 6, Util.toHalf(1.0f));
+            }
+            else
+            {
+                dst.putShort(d, snorm16(x));
+                dst.putShort(d + 2, snorm16(y));
+                dst.putShort(d + 4, snorm16(z));
+                dst.putShort(d + 6, Short.MAX_VALUE);
+            }
+        }
+    }
+    
+    /**
+     * Octahedral encoding. Projects the direction onto an octahedron, then
+     * folds its lower half over the upper half, giving a point in the square
+     * [-1, 1]^2. Writes the result to the given array.
+     */
+    private static void octEncode(float x, float y, float z, float[] result)
+    {
+        float l1 = Math.abs(x) + Math.abs(y) + Math.abs(z);
+        if (l1 == 0.0f)
+        {
+            result[0] = 0.0f;
+            result[1] = 0.0f;
+            return;
+        }
+        
+        float u = x/l1, v = y/l1;
+        if (z < 0.0f)
+        {
+            float fu = (1.0f - Math.abs(v))*(u >= 0.0f ? 1.0f : -1.0f);
+            float fv = (1.0f - Math.abs(u))*(v >= 0.0f ? 1.0f : -1.0f);
+            u = fu;
+            v = fv;
+        }
+        result[0] = u;
+        result[1] = v;
+    }
+    
+    private static void encodeDirections(ByteBuffer src, int srcOffset, int n, MeshFormat.Direction encoding, ByteBuffer dst, int dstOffset)
+    {
+        if (encoding == MeshFormat.Direction.FLOAT)
+        {
+            memCopy(memAddress0(src) + srcOffset, memAddress0(dst) + dstOffset, n*12L);
+            return;
+        }
+        
+        float[] oct = new float[2];
+        for (int i=0; i<n; i++)
+        {
+            int p = srcOffset + i*12;
+            octEncode(src.getFloat(p), src.getFloat(p + 4), src.getFloat(p + 8), oct);
+            
+            if (encoding == MeshFormat.Direction.OCT16)
+            {
+                dst.putShort(dstOffset + i*4, snorm16(oct[0]));
+                dst.putShort(dstOffset + i*4 + 2, snorm16(oct[1]));
+            }
+            else
+            {
+                dst.put(dstOffset + i*2, (byte)Math.round(Util.clamp(oct[0], -1.0f, 1.0f)*127.0f));
+                dst.put(dstOffset + i*2 + 1, (byte)Math.round(Util.clamp(oct[1], -1.0f, 1.0f)*127.0f));
+            }
+        }
+    }
+    
+    /**
+     * Tangents are encoded like directions, with the bitangent sign in the
+     * third component. The fourth component of compact tangents is unused.
+     */
+    private static void encodeTangents(ByteBuffer src, int srcOffset, int n, MeshFormat.Direction encoding, ByteBuffer dst, int dstOffset)
+    {
+        if (encoding == MeshFormat.Direction.FLOAT)
+        {
+            memCopy(memAddress0(src) + srcOffset, memAddress0(dst) + dstOffset, n*16L);
+            return;
+        }
+        
+        float[] oct = new float[2];
+        for (int i=0; i<n; i++)
+        {
+            int p = srcOffset + i*16;
+            octEncode(src.getFloat(p), src.getFloat(p + 4), src.getFloat(p + 8), oct);
+            boolean negative = src.getFloat(p + 12) < 0.0f;
+            
+            if (encoding == MeshFormat.Direction.OCT16)
+            {
+                dst.putShort(dstOffset + i*8, snorm16(oct[0]));
+                dst.putShort(dstOffset + i*8 + 2, snorm16(oct[1]));
+                dst.putShort(dstOffset + i*8 + 4, negative ? (short)-32767 : (short)32767);
+                dst.putShort(dstOffset + i*8 + 6, (short)0);
+            }
+            else
+            {
+                dst.put(dstOffset + i*4, (byte)Math.round(Util.clamp(oct[0], -1.0f, 1.0f)*127.0f));
+                dst.put(dstOffset + i*4 + 1, (byte)Math.round(Util.clamp(oct[1], -1.0f, 1.0f)*127.0f));
+                dst.put(dstOffset + i*4 + 2, negative ? (byte)-127 : (byte)127);
+                dst.put(dstOffset + i*4 + 3, (byte)0);
+            }
+        }
     }
     
+    private static void encodeUVs(ByteBuffer src, int srcOffset, int n, MeshFormat.UV encoding, ByteBuffer dst, int dstOffset, Vec2 scale, Vec2 offset)
+    {
+        switch (encoding)
+        {
+            case FLOAT:
+                memCopy(memAddress0(src) + srcOffset, memAddress0(dst) + dstOffset, n*8L);
+                return;
+            case HALF:
+                for (int i=0; i<n; i++)
+                {
+                    dst.putShort(dstOffset + i*4, Util.toHalf(src.getFloat(srcOffset + i*8)));
+                    dst.putShort(dstOffset + i*4 + 2, Util.toHalf(src.getFloat(srcOffset + i*8 + 4)));
+                }
+                return;
+        }
+        
+        Vec2 min = new Vec2(Float.POSITIVE_INFINITY), max = new Vec2(Float.NEGATIVE_INFINITY);
+        for (int i=0; i<n; i++)
+        {
+            float u = src.getFloat(srcOffset + i*8), v = src.getFloat(srcOffset + i*8 + 4);
+            min.set(Math.min(min.x, u), Math.min(min.y, v));
+            max.set(Math.max(max.x, u), Math.max(max.y, v));
+        }
+        
+        if (n > 0)
+        {
+            Vec2.sub(max, min, scale);
+            if (scale.x == 0.0f) scale.x = 1.0f;
+            if (scale.y == 0.0f) scale.y = 1.0f;
+            offset.set(min);
+        }
+        
+        for (int i=0; i<n; i++)
+        {
+            float u = (src.getFloat(srcOffset + i*8) - offset.x)/scale.x;
+            float v = (src.getFloat(srcOffset + i*8 + 4) - offset.y)/scale.y;
+            dst.putShort(dstOffset + i*4, unorm16(u));
+            dst.putShort(dstOffset + i*4 + 2, unorm16(v));
+        }
+    }
+    
+    private static void encodeColors(ByteBuffer src, int srcOffset, int n, MeshFormat.Color encoding, ByteBuffer dst, int dstOffset)
+    {
+        if (encoding == MeshFormat.Color.FLOAT)
+        {
+            memCopy(memAddress0(src) + srcOffset, memAddress0(dst) + dstOffset, n*12L);
+            return;
+        }
+        
+        for (int i=0; i<n; i++)
+        {
+            int p = srcOffset + i*12, d = dstOffset + i*4;
+            dst.put(d, unorm8(src.getFloat(p)));
+            dst.put(d + 1, unorm8(src.getFloat(p + 4)));
+            dst.put(d + 2, unorm8(src.getFloat(p + 8)));
+            dst.put(d + 3, (byte)255);
+        }
+    }
+    
+    private static void encodeGroups(ByteBuffer src, int indexOffset, int weightOffset, int n, int numGroups, MeshFormat.Groups encoding, ByteBuffer dst, int dstOffset)
+    {
+        if (numGroups == 0) return;
+        
+        if (encoding == MeshFormat.Groups.FULL)
+        {
+            long size = (long)n*numGroups*4;
+            memCopy(memAddress0(src) + indexOffset, memAddress0(dst) + dstOffset, size);
+            memCopy(memAddress0(src) + weightOffset, memAddress0(dst) + dstOffset + size, size);
+            return;
+        }
+        
+        int dstWeightOffset = dstOffset + n*4;
+        for (int i=0; i<n; i++)
+        {
+            for (int g=0; g<4; g++)
+            {
+                int index = 0;
+                float weight = 0.0f;
+                if (g < numGroups)
+                {
+                    index = src.getInt(indexOffset + (i*numGroups + g)*4);
+                    weight = src.getFloat(weightOffset + (i*numGroups + g)*4);
+                }
+                if (index < 0 || index > 255)
+                    throw new IllegalArgumentException("Vertex group index " + index + " does not fit in a byte.");
+                dst.put(dstOffset + i*4 + g, (byte)index);
+                dst.put(dstWeightOffset + i*4 + g, unorm8(weight));
+            }
+        }
+    }
+    // </editor-fold>
+    
     private void setName(Attribute att, String name)
     {
         att.name = name;
@@ -178,11 +609,58 @@ public class MeshBuffer extends DGLObj implements VertexData
         setName(material, name);
     }
     
+    /**
+     * @return The format this buffer's vertex data is stored in.
+     */
+    public MeshFormat getFormat()
+    {
+        return new MeshFormat(format);
+    }
+    
+    /**
+     * @return The scale by which to multiply positions read from this buffer.
+     */
+    public Vec3 getPositionScale()
+    {
+        return new Vec3(positionScale);
+    }
+    
+    /**
+     * @return The offset to add to positions read from this buffer, after
+     *         scaling them.
+     */
+    public Vec3 getPositionOffset()
+    {
+        return new Vec3(positionOffset);
+    }
+    
+    /**
+     * @param layer The name of a UV layer.
+     * @return The scale by which to multiply UVs read from the given layer, or
+     *         null if there is no such layer.
+     */
+    public Vec2 getUVScale(String layer)
+    {
+        Vec2 scale = uvScales.get(layer);
+        return scale != null ? new Vec2(scale) : null;
+    }
+    
+    /**
+     * @param layer The name of a UV layer.
+     * @return The offset to add to UVs read from the given layer, after scaling
+     *         them, or null if there is no such layer.
+     */
+    public Vec2 getUVOffset(String layer)
+    {
+        Vec2 offset = uvOffsets.get(layer);
+        return offset != null ? new Vec2(offset) : null;
+    }
+    
     @Override
     void delete()
     {
-        Profiler.removeUsedVRAM(mesh.vertexData.remaining()*8L);
-        Profiler.removeUsedVRAM((edges ? mesh.edgeIndexData : mesh.indexData).remaining()*8L);
+        Profiler.removeUsedVRAM(MeshBuffer.class, vertexBytes*8L);
+        Profiler.removeUsedVRAM(MeshBuffer.class, indexBytes*8L);
         
         glDeleteBuffers(vbo);
         glDeleteBuffers(ibo);
@@ -190,19 +668,19 @@ public class MeshBuffer extends DGLObj implements VertexData
         vbo = -1;
         ibo = -1;
     }
-
+    
     @Override
     public int vbo()
     {
         return vbo;
     }
-
+    
     @Override
     public int ibo()
     {
         return ibo;
     }
-
+    
     @Override
     public Iterable<VertexData.Attribute> attributes()
     {
@@ -210,7 +688,7 @@ public class MeshBuffer extends DGLObj implements VertexData
         for (Attribute att : attributes.values()) if (att.enabled) out.add(att);
         return out;
     }
-
+    
     @Override
     public VertexData.Attribute getAttribute(String name)
     {
@@ -222,11 +700,53 @@ public class MeshBuffer extends DGLObj implements VertexData
     {
         return mesh.numVertices;
     }
-
+    
     @Override
     public int numIndices()
     {
-        return edges ? mesh.numEdges*2 : mesh.numTriangles*3;
+        return lodIndexCounts[lod];
+    }
+    
+    @Override
+    public long indexOffset()
+    {
+        return lodOffsets[lod];
+    }
+    
+    /**
+     * @return The number of levels of detail this buffer can draw, including
+     *         the full mesh.
+     */
+    public int getLODCount()
+    {
+        return lodOffsets.length;
+    }
+    
+    /**
+     * @return The level of detail this buffer draws.
+     */
+    public int getLOD()
+    {
+        return lod;
+    }
+    
+    /**
+     * Sets the level of detail to draw, as returned by Mesh.selectLOD(). Zero
+     * is the full mesh, and each following level is the matching entry of
+     * the mesh's lods. Edge buffers only have the full mesh.
+     * 
+     * @param lod The level of detail to draw.
+     */
+    public void setLOD(int lod)
+    {
+        if (lod < 0 || lod >= lodOffsets.length) throw new ArrayIndexOutOfBoundsException();
+        this.lod = lod;
+    }
+    
+    @Override
+    public int indexType()
+    {
+        return mesh.shortIndices ? GL_UNSIGNED_SHORT : GL_UNSIGNED_INT;
     }
     
     private class Attribute implements VertexData.Attribute
@@ -242,19 +762,19 @@ public class MeshBuffer extends DGLObj implements VertexData
             this.offset = offset;
             this.enabled = enabled;
         }
-
+        
         @Override
         public String getName()
         {
             return name;
         }
-
+        
         @Override
         public AttributeType getType()
         {
             return type;
         }
-
+        
         @Override
         public int getStride()
         {
@@ -0,0 +1,173 @@
+package com.samrj.devil.gl;
+
+/**
+ * Selects how each attribute of a mesh is encoded when it is buffered onto the
+ * GPU. By default, every attribute is stored as full-precision floats or ints,
+ * exactly as the mesh stores them.
+ * 
+ * Compact positions and UVs are stored relative to their bounds, and must be
+ * decoded by multiplying by the scale and adding the offset given by
+ * MeshBuffer. Octahedral normals and tangents must be decoded using a function
+ * like the one given in GLSL_OCT_DECODE.
+ * 
+ * Tangents are read as a vec4. Full tangents store the direction in xyz and the
+ * bitangent sign in w. Octahedral tangents store the encoded direction in xy,
+ * and the bitangent sign in z.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class MeshFormat
+{
+    /**
+     * GLSL source for a function which decodes an octahedral direction, as
+     * read from a vec2 attribute.
+     */
+    public static final String GLSL_OCT_DECODE =
+            "vec3 octDecode(vec2 e)\n" +
+            "{\n" +
+            "    vec3 v = vec3(e, 1.0 - abs(e.x) - abs(e.y));\n" +
+            "    if (v.z < 0.0) v.xy = (1.0 - abs(v.yx))*vec2(v.x >= 0.0 ? 1.0 : -1.0, v.y >= 0.0 ? 1.0 : -1.0);\n" +
+            "    return normalize(v);\n" +
+            "}\n";
+    
+    /**
+     * Returns a new format which uses the most compact encoding for every
+     * attribute.
+     */
+    public static MeshFormat compact()
+    {
+        MeshFormat format = new MeshFormat();
+        format.positions = Position.SNORM16;
+        format.normals = Direction.OCT16;
+        format.tangents = Direction.OCT16;
+        format.uvs = UV.UNORM16;
+        format.colors = Color.UNORM8;
+        format.groups = Groups.BYTE;
+        return format;
+    }
+    
+    public enum Position
+    {
+        /**
+         * Three floats.
+         */
+        FLOAT,
+        
+        /**
+         * Four half-floats, relative to the center of the mesh's bounds. The
+         * scale is always one.
+         */
+        HALF,
+        
+        /**
+         * Four normalized shorts, relative to the mesh's bounds.
+         */
+        SNORM16;
+    }
+    
+    public enum Direction
+    {
+        /**
+         * Three floats.
+         */
+        FLOAT,
+        
+        /**
+         * Two normalized shorts, octahedral encoded.
+         */
+        OCT16,
+        
+        /**
+         * Two normalized bytes, octahedral encoded.
+         */
+        OCT8;
+    }
+    
+    public enum UV
+    {
+        /**
+         * Two floats.
+         */
+        FLOAT,
+        
+        /**
+         * Two half-floats. The scale is always one, and the offset zero.
+         */
+        HALF,
+        
+        /**
+         * Two normalized unsigned shorts, relative to the layer's bounds.
+         */
+        UNORM16;
+    }
+    
+    public enum Color
+    {
+        /**
+         * Three floats.
+         */
+        FLOAT,
+        
+        /**
+         * Four normalized unsigned bytes, with an alpha of one.
+         */
+        UNORM8;
+    }
+    
+    public enum Groups
+    {
+        /**
+         * One int and one float per group.
+         */
+        FULL,
+        
+        /**
+         * Four unsigned bytes for group indices, and four normalized unsigned
+         * bytes for weights. Unused groups have an index and weight of zero.
+         * Group indices must be less than 256.
+         */
+        BYTE;
+    }
+    
+    public Position positions = Position.FLOAT;
+    public Direction normals = Direction.FLOAT;
+    public Direction tangents = Direction.FLOAT;
+    public UV uvs = UV.FLOAT;
+    public Color colors = Color.FLOAT;
+    public Groups groups = Groups.FULL;
+    
+    /**
+     * Creates a new full-precision format.
+     */
+    public MeshFormat()
+    {
+    }
+    
+    /**
+     * Copies the given format.
+     * 
+     * @param format The format to copy.
+     */
+    public MeshFormat(MeshFormat format)
+    {
+        positions = format.positions;
+        normals = format.normals;
+        tangents = format.tangents;
+        uvs = format.uvs;
+        colors = format.colors;
+        groups = format.groups;
+    }
+    
+    /**
+     * Returns whether this format stores every attribute exactly as the mesh
+     * does.
+     */
+    public boolean isFull()
+    {
+        return positions == Position.FLOAT && normals == Direction.FLOAT &&
+               tangents == Direction.FLOAT && uvs == UV.FLOAT &&
+               colors == Color.FLOAT && groups == Groups.FULL;
+    }
+}
@@ -0,0 +1,497 @@
+package com.samrj.devil.gl;
+
+import com.samrj.devil.math.Util.PrimType;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Generates mipmap chains for images on the CPU, rather than leaving it to the
+ * driver. Each level is filtered from the level above it, kept in floating
+ * point so that rounding does not accumulate down the chain. Layers are
+ * computed in parallel, and results are deterministic.
+ * 
+ * Generated levels may be cached in a file next to the source image, and are
+ * reused as long as the source file and the generator's settings are the same.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class MipmapGenerator
+{
+    private static final int CACHE_MAGIC = 0x44564D50; //DVMP
+    private static final int CACHE_VERSION = 2;
+    
+    private static final float KAISER_RADIUS = 3.0f;
+    private static final float KAISER_ALPHA = 4.0f;
+    
+    private static final float[] SRGB_TO_LINEAR = new float[256];
+    static
+    {
+        for (int i=0; i<256; i++) SRGB_TO_LINEAR[i] = srgbToLinear(i/255.0f);
+    }
+    
+    private static float srgbToLinear(float c)
+    {
+        return c <= 0.04045f ? c/12.92f : (float)Math.pow((c + 0.055f)/1.055f, 2.4);
+    }
+    
+    private static float linearToSRGB(float c)
+    {
+        return c <= 0.0031308f ? c*12.92f : 1.055f*(float)Math.pow(c, 1.0/2.4) - 0.055f;
+    }
+    
+    private static double bessel0(double x)
+    {
+        //Power series for the zeroth order modified Bessel function.
+        double sum = 1.0, term = 1.0, half = x*0.5;
+        for (int k=1; k<32; k++)
+        {
+            term *= half/k;
+            sum += term*term;
+        }
+        return sum;
+    }
+    
+    private static float kaiser(float t)
+    {
+        float r = t/KAISER_RADIUS;
+        if (r <= -1.0f || r >= 1.0f) return 0.0f;
+        double sinc = t == 0.0f ? 1.0 : Math.sin(Math.PI*t)/(Math.PI*t);
+        return (float)(sinc*bessel0(KAISER_ALPHA*Math.sqrt(1.0 - r*r))/bessel0(KAISER_ALPHA));
+    }
+    
+    /**
+     * Returns the number of mipmap levels below the base level for an image of
+     * the given size, down to a single pixel.
+     * 
+     * @param width The width of the base level.
+     * @param height The height of the base level.
+     * @return The number of mipmap levels to generate.
+     */
+    public static int getLevelCount(int width, int height)
+    {
+        return 31 - Integer.numberOfLeadingZeros(Math.max(Math.max(width, height), 1));
+    }
+    
+    private static float scale(PrimType type)
+    {
+        switch (type)
+        {
+            case BYTE: return 255.0f;
+            case CHAR: return 65535.0f;
+            default: return 1.0f;
+        }
+    }
+    
+    private static boolean isAlpha(int band, int bands)
+    {
+        return (bands == 2 && band == 1) || (bands == 4 && band == 3);
+    }
+    
+    /**
+     * The filter used to downsample each level.
+     */
+    public enum Filter
+    {
+        /**
+         * Averages every pixel covered by each output pixel. Fast, but blurry.
+         */
+        BOX,
+        
+        /**
+         * Kaiser-windowed sinc filter. Sharper, with less aliasing.
+         */
+        KAISER;
+    }
+    
+    private final Filter filter;
+    private final boolean srgb;
+    
+    /**
+     * Creates a new mipmap generator using the given filter.
+     * 
+     * @param filter The filter to downsample with.
+     * @param srgb Whether the color bands of byte and char images are sRGB
+     *        encoded, and should be filtered in linear space. Alpha bands and
+     *        other types are always filtered as they are.
+     */
+    public MipmapGenerator(Filter filter, boolean srgb)
+    {
+        if (filter == null) throw new NullPointerException();
+        this.filter = filter;
+        this.srgb = srgb;
+    }
+    
+    /**
+     * Creates a new mipmap generator which uses a box filter, in linear space.
+     */
+    public MipmapGenerator()
+    {
+        this(Filter.BOX, false);
+    }
+    
+    /**
+     * Generates every mipmap level below the given image, which is level zero.
+     * The returned images must be deleted through DGL.
+     * 
+     * @param image The base image.
+     * @return Mipmap levels one and onwards.
+     */
+    public Image[] generate(Image image)
+    {
+        return generate(new Image[] {image})[0];
+    }
+    
+    /**
+     * Generates every mipmap level for each of the given images, in parallel.
+     * The returned images must be deleted through DGL.
+     * 
+     * @param layers The base images.
+     * @return For each layer, mipmap levels one and onwards.
+     */
+    public Image[][] generate(Image... layers)
+    {
+        DGL.checkState();
+        
+        //Images can only be allocated on the DGL thread, so allocate up front.
+        Image[][] out = new Image[layers.length][];
+        for (int l=0; l<layers.length; l++)
+        {
+            Image image = layers[l];
+            if (image.deleted()) throw new IllegalStateException("Image is deleted.");
+            
+            int count = getLevelCount(image.width, image.height);
+            out[l] = new Image[count];
+            for (int i=0; i<count; i++)
+            {
+                int w = Math.max(image.width >> (i + 1), 1);
+                int h = Math.max(image.height >> (i + 1), 1);
+                out[l][i] = DGL.genImage(w, h, image.bands, image.type);
+            }
+        }
+        
+        //One task per layer, so only as many layers as there are worker
+        //threads are expanded to floating point at once.
+        IntStream.range(0, layers.length).parallel().forEach(l ->
+        {
+            Image src = layers[l];
+            float[] level = read(src);
+            int width = src.width, height = src.height;
+            for (Image dst : out[l])
+            {
+                level = downsample(level, width, height, dst.width, dst.height, dst.bands);
+                write(level, dst);
+                width = dst.width;
+                height = dst.height;
+            }
+        });
+        
+        return out;
+    }
+    
+    private float[] read(Image image)
+    {
+        ByteBuffer buffer = image.buffer;
+        int bands = image.bands, size = image.type.size;
+        int n = image.width*image.height*bands;
+        float scale = scale(image.type);
+        float[] out = new float[n];
+        
+        for (int i=0; i<n; i++)
+        {
+            int index = i*size;
+            boolean linearize = srgb && scale != 1.0f && !isAlpha(i%bands, bands);
+            
+            switch (image.type)
+            {
+                case BYTE:
+                    int value = Byte.toUnsignedInt(buffer.get(index));
+                    out[i] = linearize ? SRGB_TO_LINEAR[value] : value/scale;
+                    break;
+                case CHAR:
+                    float c = buffer.getChar(index)/scale;
+                    out[i] = linearize ? srgbToLinear(c) : c;
+                    break;
+                case SHORT: out[i] = buffer.getShort(index); break;
+                case INT: out[i] = buffer.getInt(index); break;
+                case FLOAT: out[i] = buffer.getFloat(index); break;
+                default: throw new IllegalArgumentException();
+            }
+        }
+        
+        return out;
+    }
+    
+    private void write(float[] data, Image image)
+    {
+        ByteBuffer buffer = image.buffer;
+        int bands = image.bands, size = image.type.size;
+        float scale = scale(image.type);
+        
+        for (int i=0; i<data.length; i++)
+        {
+            int index = i*size;
+            float v = data[i];
+            if (srgb && scale != 1.0f && !isAlpha(i%bands, bands))
+                v = linearToSRGB(Math.max(v, 0.0f));
+            
+            switch (image.type)
+            {
+                case BYTE: buffer.put(index, (byte)Math.round(Math.min(Math.max(v, 0.0f), 1.0f)*scale)); break;
+                case CHAR: buffer.putChar(index, (char)Math.round(Math.min(Math.max(v, 0.0f), 1.0f)*scale)); break;
+                case SHORT: buffer.putShort(index, (short)Math.min(Math.max(Math.round(v), Short.MIN_VALUE), Short.MAX_VALUE)); break;
+                case INT: buffer.putInt(index, (int)Math.round((double)v)); break;
+                case FLOAT: buffer.putFloat(index, v); break;
+                default: throw new IllegalArgumentException();
+            }
+        }
+    }
+    
+    private float[] downsample(float[] src, int srcWidth, int srcHeight, int dstWidth, int dstHeight, int bands)
+    {
+        Weights horizontal = new Weights(srcWidth, dstWidth);
+        Weights vertical = new Weights(srcHeight, dstHeight);
+        
+        //Separable filter: rows first, then columns.
+        float[] temp = new float[dstWidth*srcHeight*bands];
+        for (int y=0; y<srcHeight; y++) for (int x=0; x<dstWidth; x++)
+        {
+            int start = horizontal.start[x], end = horizontal.start[x + 1];
+            int out = (x + y*dstWidth)*bands;
+            for (int w=start; w<end; w++)
+            {
+                float weight = horizontal.weights[w];
+                int in = (horizontal.indices[w] + y*srcWidth)*bands;
+                for (int b=0; b<bands; b++) temp[out + b] += src[in + b]*weight;
+            }
+        }
+        
+        float[] result = new float[dstWidth*dstHeight*bands];
+        for (int y=0; y<dstHeight; y++)
+        {
+            int start = vertical.start[y], end = vertical.start[y + 1];
+            for (int w=start; w<end; w++)
+            {
+                float weight = vertical.weights[w];
+                int in = vertical.indices[w]*dstWidth*bands;
+                int out = y*dstWidth*bands;
+                for (int i=0; i<dstWidth*bands; i++) result[out + i] += temp[in + i]*weight;
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Generates every mipmap level below the given image, or loads them from a
+     * cache file next to the given source file if it is up to date. The cache
+     * is rewritten whenever it is missing or out of date.
+     * 
+     * @param image The base image.
+     * @param source The file the base image was loaded from.
+     * @return Mipmap levels one and onwards.
+     * @throws IOException If an io exception occurs.
+     */
+    public Image[] generate(Image image, File source) throws IOException
+    {
+        return generate(new Image[] {image}, new File[] {source})[0];
+    }
+    
+    /**
+     * Generates every mipmap level for each of the given images, loading any
+     * which are up to date from cache files next to their source files. Any
+     * missing or outdated layers are generated in parallel and cached.
+     * 
+     * @param layers The base images.
+     * @param sources The files each base image was loaded from.
+     * @return For each layer, mipmap levels one and onwards.
+     * @throws IOException If an io exception occurs.
+     */
+    public Image[][] generate(Image[] layers, File[] sources) throws IOException
+    {
+        if (layers.length != sources.length) throw new IllegalArgumentException("Layer and source counts differ.");
+        
+        Image[][] out = new Image[layers.length][];
+        List<Integer> missing = new ArrayList<>();
+        for (int l=0; l<layers.length; l++)
+        {
+            out[l] = readCache(layers[l], sources[l]);
+            if (out[l] == null) missing.add(l);
+        }
+        
+        if (missing.isEmpty()) return out;
+        
+        Image[] toGenerate = new Image[missing.size()];
+        for (int i=0; i<toGenerate.length; i++) toGenerate[i] = layers[missing.get(i)];
+        Image[][] generated = generate(toGenerate);
+        for (int i=0; i<toGenerate.length; i++) out[missing.get(i)] = generated[i];
+        
+        try
+        {
+            for (int l : missing) writeCache(layers[l], sources[l], out[l]);
+        }
+        catch (Throwable t) //Prevent memory leaks by passing through throwables.
+        {
+            for (Image[] levels : out) for (Image level : levels) DGL.delete(level);
+            throw t;
+        }
+        
+        return out;
+    }
+    
+    /**
+     * Returns the cache file used for the given source file.
+     * 
+     * @param source An image file.
+     * @return The mipmap cache file for the given image.
+     */
+    public static File getCacheFile(File source)
+    {
+        return new File(source.getPath() + ".mip");
+    }
+    
+    private Image[] readCache(Image image, File source)
+    {
+        File file = getCacheFile(source);
+        if (!file.isFile()) return null;
+        
+        int count = getLevelCount(image.width, image.height);
+        Image[] out = new Image[count];
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+        {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION) return null;
+            if (in.readInt() != filter.ordinal() || in.readBoolean() != srgb) return null;
+            if (in.readLong() != source.length() || in.readLong() != source.lastModified()) return null;
+            if (in.readInt() != image.width || in.readInt() != image.height) return null;
+            if (in.readInt() != image.bands || in.readInt() != image.type.ordinal()) return null;
+            if (in.readInt() != count) return null;
+            
+            byte[] bytes = new byte[8192];
+            for (int i=0; i<count; i++)
+            {
+                int w = Math.max(image.width >> (i + 1), 1);
+                int h = Math.max(image.height >> (i + 1), 1);
+                Image level = DGL.genImage(w, h, image.bands, image.type);
+                out[i] = level;
+                
+                for (int pos=0; pos<level.size; pos+=bytes.length)
+                {
+                    int len = Math.min(bytes.length, level.size - pos);
+                    in.readFully(bytes, 0, len);
+                    for (int j=0; j<len; j++) level.buffer.put(pos + j, bytes[j]);
+                }
+            }
+            
+            return out;
+        }
+        catch (IOException e)
+        {
+            //A truncated or unreadable cache is simply regenerated.
+            for (Image level : out) if (level != null) DGL.delete(level);
+            return null;
+        }
+    }
+    
+    private void writeCache(Image image, File source, Image[] levels) throws IOException
+    {
+        File file = getCacheFile(source);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))))
+        {
+            out.writeInt(CACHE_MAGIC);
+            out.writeInt(CACHE_VERSION);
+            out.writeInt(filter.ordinal());
+            out.writeBoolean(srgb);
+            out.writeLong(source.length());
+            out.writeLong(source.lastModified());
+            out.writeInt(image.width);
+            out.writeInt(image.height);
+            out.writeInt(image.bands);
+            out.writeInt(image.type.ordinal());
+            out.writeInt(levels.length);
+            
+            byte[] bytes = new byte[8192];
+            for (Image level : levels)
+                for (int pos=0; pos<level.size; pos+=bytes.length)
+                {
+                    int len = Math.min(bytes.length, level.size - pos);
+                    for (int j=0; j<len; j++) bytes[j] = level.buffer.get(pos + j);
+                    out.write(bytes, 0, len);
+                }
+        }
+    }
+    
+    /**
+     * Filter weights for one axis, stored as a flat list of source indices and
+     * weights for each destination pixel.
+     */
+    private final class Weights
+    {
+        private final int[] start;
+        private int[] indices;
+        private float[] weights;
+        private int size;
+        
+        private Weights(int srcSize, int dstSize)
+        {
+            start = new int[dstSize + 1];
+            indices = new int[dstSize*4];
+            weights = new float[dstSize*4];
+            float scale = srcSize/(float)dstSize;
+            
+            for (int d=0; d<dstSize; d++)
+            {
+                start[d] = size;
+                float sum = 0.0f;
+                
+                if (filter == Filter.BOX)
+                {
+                    float lo = d*scale, hi = (d + 1)*scale;
+                    for (int s=(int)lo; s<hi && s<srcSize; s++)
+                    {
+                        float weight = Math.min(hi, s + 1) - Math.max(lo, s);
+                        if (weight > 0.0f) sum += add(s, weight);
+                    }
+                }
+                else
+                {
+                    float center = (d + 0.5f)*scale;
+                    float radius = KAISER_RADIUS*scale;
+                    int s0 = (int)Math.floor(center - radius), s1 = (int)Math.ceil(center + radius);
+                    for (int s=s0; s<=s1; s++)
+                    {
+                        float weight = kaiser((s + 0.5f - center)/scale);
+                        if (weight != 0.0f) sum += add(Math.min(Math.max(s, 0), srcSize - 1), weight);
+                    }
+                }
+                
+                for (int i=start[d]; i<size; i++) weights[i] /= sum;
+            }
+            start[dstSize] = size;
+        }
+        
+        private float add(int index, float weight)
+        {
+            if (size == indices.length)
+            {
+                indices = Arrays.copyOf(indices, size*2);
+                weights = Arrays.copyOf(weights, size*2);
+            }
+            indices[size] = index;
+            weights[size++] = weight;
+            return weight;
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.samrj.devil.gl;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
- * General graphics performance/resource usage profiling class.
+ * General graphics performance/resource usage profiling class. Keeps running
+ * totals which FrameProfiler samples to attribute them to individual scopes.
  * 
  * @author Samuel Johnson (SmashMaster)
  * @copyright 2016 Samuel Johnson
@@ -10,6 +15,9 @@ package com.samrj.devil.gl;
 public final class Profiler
 {
     private static long usedVRAM;
+    private static final Map<Class<?>, Long> typeVRAM = new HashMap<>();
+    private static long drawCalls;
+    private static long uploadedBytes;
     
     /**
      * Adds the given number of bits to the internal VRAM usage counter. Is
@@ -19,8 +27,22 @@ public final class Profiler
      * @param bits A number of bits to add.
      */
     public static void addUsedVRAM(long bits)
+    {
+        addUsedVRAM(DGLObj.class, bits);
+    }
+    
+    /**
+     * Adds the given number of bits to the internal VRAM usage counter, and to
+     * the counter for the given type of object. May be negative to indicate
+     * VRAM no longer in use.
+     * 
+     * @param type The type of object using the VRAM.
+     * @param bits A number of bits to add.
+     */
+    public static void addUsedVRAM(Class<?> type, long bits)
     {
         usedVRAM += bits;
+        typeVRAM.merge(type, bits, Long::sum);
     }
     
     /**
@@ -30,9 +52,21 @@ public final class Profiler
      * @param bits A number of bits to add.
      */
     public static void removeUsedVRAM(long bits)
+    {
+        removeUsedVRAM(DGLObj.class, bits);
+    }
+    
+    /**
+     * Removes the given number of bits from the internal VRAM usage counter,
+     * and from the counter for the given type of object.
+     * 
+     * @param type The type of object which was using the VRAM.
+     * @param bits A number of bits to remove.
+     */
+    public static void removeUsedVRAM(Class<?> type, long bits)
     {
         if (bits < 0) throw new IllegalArgumentException();
-        usedVRAM -= bits;
+        addUsedVRAM(type, -bits);
     }
     
     /**
@@ -44,6 +78,62 @@ public final class Profiler
         return usedVRAM;
     }
     
+    /**
+     * Returns approximately how many bits of video memory are currently being
+     * used by the given type of object.
+     */
+    public static long getUsedVRAM(Class<?> type)
+    {
+        return typeVRAM.getOrDefault(type, 0L);
+    }
+    
+    /**
+     * Returns a copy of the current VRAM usage, in bits, for each type of
+     * object. VRAM reported without a type is listed under DGLObj.
+     */
+    public static Map<Class<?>, Long> getUsedVRAMByType()
+    {
+        return Collections.unmodifiableMap(new HashMap<>(typeVRAM));
+    }
+    
+    /**
+     * Adds the given number of draw calls to the internal draw call counter. Is
+     * called automatically for DGL's draw methods.
+     * 
+     * @param calls The number of draw calls issued.
+     */
+    public static void addDrawCalls(int calls)
+    {
+        drawCalls += calls;
+    }
+    
+    /**
+     * Returns the total number of draw calls issued so far.
+     */
+    public static long getDrawCalls()
+    {
+        return drawCalls;
+    }
+    
+    /**
+     * Adds the given number of bytes to the internal upload counter. Is called
+     * automatically whenever DevilUtil classes upload buffer or texture data.
+     * 
+     * @param bytes The number of bytes uploaded.
+     */
+    public static void addUploadedBytes(long bytes)
+    {
+        uploadedBytes += bytes;
+    }
+    
+    /**
+     * Returns the total number of bytes uploaded to the GPU so far.
+     */
+    public static long getUploadedBytes()
+    {
+        return uploadedBytes;
+    }
+    
     private Profiler()
     {
     }
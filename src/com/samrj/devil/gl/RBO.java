@@ -72,14 +72,14 @@ public final class RBO extends DGLObj
         tempUnbind(oldID);
         
         long newVRAM = TexUtil.getBits(format)*width*height;
-        Profiler.addUsedVRAM(newVRAM - vramUsage);
+        Profiler.addUsedVRAM(RBO.class, newVRAM - vramUsage);
         vramUsage = newVRAM;
     }
 
     @Override
     void delete()
     {
-        Profiler.removeUsedVRAM(vramUsage);
+        Profiler.removeUsedVRAM(RBO.class, vramUsage);
         vramUsage = 0;
         glDeleteRenderbuffers(id);
         deleted = true;
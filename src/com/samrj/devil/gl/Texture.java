@@ -75,10 +75,16 @@ public abstract class Texture<T extends Texture<T>> extends DGLObj
         if (bits < 0) throw new IllegalArgumentException();
         if (deleted) return;
         if (hasMipmaps) bits *= 2;
-        Profiler.addUsedVRAM(bits - vramUsage);
+        Profiler.addUsedVRAM(getClass(), bits - vramUsage);
         vramUsage = bits;
     }
     
+    final void setHasMipmaps()
+    {
+        if (!hasMipmaps) setVRAMUsage(vramUsage*2);
+        hasMipmaps = true;
+    }
+    
     /**
      * Binds this OpenGL texture to whichever texture unit is currently active.
      * 
@@ -124,7 +130,7 @@ public abstract class Texture<T extends Texture<T>> extends DGLObj
     @Override
     final void delete()
     {
-        Profiler.removeUsedVRAM(vramUsage);
+        Profiler.removeUsedVRAM(getClass(), vramUsage);
         glDeleteTextures(id);
         deleted = true;
     }
@@ -168,8 +174,7 @@ public abstract class Texture<T extends Texture<T>> extends DGLObj
     {
         int oldID = tempBind();
         glGenerateMipmap(target);
-        if (!hasMipmaps) setVRAMUsage(vramUsage*2);
-        hasMipmaps = true;
+        setHasMipmaps();
         tempUnbind(oldID);
         return getThis();
     }
@@ -65,6 +65,7 @@ public final class Texture1D extends Texture<Texture1D>
         int oldID = tempBind();
         glTexImage1D(target, 0, format, width, 0, dataFormat, primType, image.buffer);
         tempUnbind(oldID);
+        Profiler.addUploadedBytes(image.size);
         
         setVRAMUsage(TexUtil.getBits(format)*width);
         
@@ -1,6 +1,9 @@
 package com.samrj.devil.gl;
 
+import com.samrj.devil.graphics.TexUtil;
+
 import static org.lwjgl.opengl.GL11C.*;
+import static org.lwjgl.opengl.GL12C.*;
 
 /**
  * OpenGL 2D texture class.
@@ -23,6 +26,57 @@ public final class Texture2D extends Texture2DAbstract<Texture2D>
         tempUnbind(oldID);
     }
     
+    /**
+     * Uploads the given images as mipmap levels one and onwards for this
+     * texture, such as those created by MipmapGenerator. This texture must
+     * already have an image. After calling, the images may be safely deleted.
+     * 
+     * @param levels The mipmap levels to upload, starting from level one.
+     * @param format The texture format to store the images as.
+     * @return This texture.
+     */
+    public Texture2D mipmaps(Image[] levels, int format)
+    {
+        int dataFormat = TexUtil.getBaseFormat(format);
+        int primType = TexUtil.getPrimitiveType(format);
+        
+        //Rows of small levels are often not a multiple of four bytes.
+        int oldAlignment = glGetInteger(GL_UNPACK_ALIGNMENT);
+        glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+        int oldID = tempBind();
+        for (int i=0; i<levels.length; i++)
+        {
+            Image image = levels[i];
+            if (image.deleted()) throw new IllegalStateException("Image is deleted.");
+            if (image.bands != TexUtil.getBands(dataFormat))
+                throw new IllegalArgumentException("Incompatible format bands.");
+            
+            glTexImage2D(target, i + 1, format, image.width, image.height, 0, dataFormat, primType, image.buffer);
+            Profiler.addUploadedBytes(image.size);
+        }
+        glPixelStorei(GL_UNPACK_ALIGNMENT, oldAlignment);
+        glTexParameteri(target, GL_TEXTURE_MAX_LEVEL, levels.length);
+        tempUnbind(oldID);
+        
+        setHasMipmaps();
+        return this;
+    }
+    
+    /**
+     * Uploads the given images as mipmap levels one and onwards for this
+     * texture. This texture must already have an image.
+     * 
+     * @param levels The mipmap levels to upload, starting from level one.
+     * @return This texture.
+     */
+    public Texture2D mipmaps(Image... levels)
+    {
+        if (levels.length == 0) return this;
+        int format = TexUtil.getFormat(levels[0]);
+        if (format == -1) throw new IllegalArgumentException("Illegal image format.");
+        return mipmaps(levels, format);
+    }
+    
     @Override
     Texture2D getThis()
     {
@@ -115,6 +115,7 @@ abstract class Texture2DAbstract<T extends Texture2DAbstract<T>> extends Texture
         int oldID = tempBind();
         glTexImage2D(target, 0, format, width, height, 0, dataFormat, primType, image.buffer);
         tempUnbind(oldID);
+        Profiler.addUploadedBytes(image.size);
         
         setVRAMUsage(TexUtil.getBits(format)*width*height);
         
@@ -155,6 +156,7 @@ abstract class Texture2DAbstract<T extends Texture2DAbstract<T>> extends Texture
         nglCompressedTexImage2D(target, 0, image.format, width, height, 0,
                 image.size(), image.address());
         tempUnbind(oldID);
+        Profiler.addUploadedBytes(image.size());
         
         setVRAMUsage(image.size());
         
@@ -184,6 +186,7 @@ abstract class Texture2DAbstract<T extends Texture2DAbstract<T>> extends Texture
         int oldID = tempBind();
         glTexSubImage2D(target, 0, 0, 0, width, height, dataFormat, primType, image.buffer);
         tempUnbind(oldID);
+        Profiler.addUploadedBytes(image.size);
         return getThis();
     }
     
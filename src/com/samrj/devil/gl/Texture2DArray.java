@@ -1,6 +1,9 @@
 package com.samrj.devil.gl;
 
+import com.samrj.devil.graphics.TexUtil;
+
 import static org.lwjgl.opengl.GL11C.*;
+import static org.lwjgl.opengl.GL12C.*;
 import static org.lwjgl.opengl.GL30C.*;
 
 /**
@@ -24,6 +27,57 @@ public final class Texture2DArray extends Texture3DAbstract<Texture2DArray>
         tempUnbind(oldID);
     }
 
+    /**
+     * Uploads the given images as mipmap levels one and onwards for each layer
+     * of this texture, such as those created by MipmapGenerator. This texture
+     * must already have an image. After calling, the images may be safely
+     * deleted.
+     * 
+     * @param levels For each layer, the mipmap levels to upload, starting from
+     *        level one.
+     * @param format The texture format to store the images as.
+     * @return This texture.
+     */
+    public Texture2DArray mipmaps(Image[][] levels, int format)
+    {
+        if (levels.length != getDepth()) throw new IllegalArgumentException("Incorrect number of layers.");
+        if (levels.length == 0) return this;
+        
+        int dataFormat = TexUtil.getBaseFormat(format);
+        int primType = TexUtil.getPrimitiveType(format);
+        int numLevels = levels[0].length;
+        
+        //Rows of small levels are often not a multiple of four bytes.
+        int oldAlignment = glGetInteger(GL_UNPACK_ALIGNMENT);
+        glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+        int oldID = tempBind();
+        for (int i=0; i<numLevels; i++)
+        {
+            Image first = levels[0][i];
+            nglTexImage3D(target, i + 1, format, first.width, first.height, levels.length, 0, dataFormat, primType, 0L);
+            
+            for (int layer=0; layer<levels.length; layer++)
+            {
+                if (levels[layer].length != numLevels) throw new IllegalArgumentException("Inconsistent mipmap levels.");
+                Image image = levels[layer][i];
+                if (image.deleted()) throw new IllegalStateException("Image is deleted.");
+                if (image.bands != TexUtil.getBands(dataFormat))
+                    throw new IllegalArgumentException("Incompatible format bands.");
+                if (image.width != first.width || image.height != first.height)
+                    throw new IllegalArgumentException("Incompatible image dimensions.");
+                
+                glTexSubImage3D(target, i + 1, 0, 0, layer, image.width, image.height, 1, dataFormat, primType, image.buffer);
+                Profiler.addUploadedBytes(image.size);
+            }
+        }
+        glPixelStorei(GL_UNPACK_ALIGNMENT, oldAlignment);
+        glTexParameteri(target, GL_TEXTURE_MAX_LEVEL, numLevels);
+        tempUnbind(oldID);
+        
+        setHasMipmaps();
+        return this;
+    }
+    
     @Override
     Texture2DArray getThis()
     {
@@ -106,6 +106,7 @@ abstract class Texture3DAbstract<T extends Texture3DAbstract<T>> extends Texture
         int oldID = tempBind();
         glTexSubImage3D(target, 0, 0, 0, depth, width, height, 1, dataFormat, primType, image.buffer);
         tempUnbind(oldID);
+        Profiler.addUploadedBytes(image.size);
         return getThis();
     }
     
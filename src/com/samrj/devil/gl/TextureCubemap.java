@@ -94,6 +94,7 @@ public final class TextureCubemap extends Texture<TextureCubemap>
         for (int i=0; i<6; i++) glTexImage2D(GL_TEXTURE_CUBE_MAP_POSITIVE_X + i,
                 0, format, size, size, 0, dataFormat, primType, images[i].buffer);
         tempUnbind(oldID);
+        Profiler.addUploadedBytes(images[0].size*6L);
         
         setVRAMUsage(TexUtil.getBits(format)*size*size*6);
         
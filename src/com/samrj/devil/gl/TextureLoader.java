@@ -0,0 +1,451 @@
+package com.samrj.devil.gl;
+
+import com.samrj.devil.graphics.TexUtil;
+import com.samrj.devil.math.Util.PrimType;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.imageio.ImageIO;
+
+import static org.lwjgl.opengl.GL11C.*;
+import static org.lwjgl.opengl.GL15C.*;
+import static org.lwjgl.opengl.GL21C.*;
+import static org.lwjgl.opengl.GL30C.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Loads 2D textures asynchronously. Images are decoded on a pool of worker
+ * threads, then uploaded through a pixel buffer object a few rows at a time,
+ * so that no more than a fixed number of bytes are uploaded each frame.
+ * 
+ * Each load immediately returns a handle, whose texture is a shared white
+ * placeholder until its image has been completely uploaded, so that partially
+ * uploaded images are never visible. Loaded textures belong to the caller, and
+ * must be deleted through DGL as usual. The placeholder belongs to the loader.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class TextureLoader extends DGLObj
+{
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    
+    private static Image decode(String path) throws IOException
+    {
+        BufferedImage bImage = ImageIO.read(new File(path));
+        if (bImage == null) throw new IOException("Cannot read image from " + path);
+        
+        Raster raster = bImage.getRaster();
+        PrimType type = Image.getType(raster);
+        if (type == null) throw new IOException("Image is not bufferable: " + path);
+        
+        Image image = new Image(raster.getWidth(), raster.getHeight(), raster.getNumBands(), type, false);
+        try
+        {
+            return image.buffer(raster);
+        }
+        catch (Throwable t)
+        {
+            image.delete();
+            throw t;
+        }
+    }
+    
+    private final ExecutorService pool;
+    private final ArrayDeque<Handle> decoded = new ArrayDeque<>(); //Guarded by itself.
+    private final ArrayDeque<Handle> uploading = new ArrayDeque<>();
+    private final int pbo;
+    private final Texture2D placeholder;
+    private long byteBudget;
+    private volatile boolean deleted;
+    
+    TextureLoader(int threads, long byteBudget)
+    {
+        DGL.checkState();
+        if (threads <= 0) throw new IllegalArgumentException("Thread count must be positive.");
+        if (byteBudget <= 0) throw new IllegalArgumentException("Byte budget must be positive.");
+        
+        this.byteBudget = byteBudget;
+        pool = Executors.newFixedThreadPool(threads, r ->
+        {
+            Thread thread = new Thread(r, "DevilUtil (DGL) - Texture loader " + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pbo = glGenBuffers();
+        
+        Image image = DGL.genImage(1, 1, 4, PrimType.BYTE);
+        image.shade((x, y, b) -> 255);
+        placeholder = DGL.loadTex2D(image);
+        DGL.delete(image);
+    }
+    
+    /**
+     * @return The texture shown in place of textures which are still loading.
+     */
+    public Texture2D getPlaceholder()
+    {
+        return placeholder;
+    }
+    
+    /**
+     * Sets the maximum number of bytes to upload during each call to update().
+     * At least one row of an image is always uploaded, however, so that large
+     * images can make progress.
+     * 
+     * @param byteBudget The number of bytes to upload per frame.
+     */
+    public void setByteBudget(long byteBudget)
+    {
+        if (byteBudget <= 0) throw new IllegalArgumentException("Byte budget must be positive.");
+        this.byteBudget = byteBudget;
+    }
+    
+    /**
+     * @return The number of bytes uploaded per frame.
+     */
+    public long getByteBudget()
+    {
+        return byteBudget;
+    }
+    
+    /**
+     * Begins loading the image at the given path into a new 2D texture. The
+     * image is decoded on another thread, and uploaded during later calls to
+     * update().
+     * 
+     * @param path The file path of an image.
+     * @return A handle to the loading texture.
+     */
+    public Handle load(String path)
+    {
+        return load(path, false);
+    }
+    
+    /**
+     * Begins loading the image at the given path into a new 2D texture,
+     * optionally generating mipmaps for it once it is uploaded.
+     * 
+     * @param path The file path of an image.
+     * @param mipmap Whether to generate mipmaps for the texture.
+     * @return A handle to the loading texture.
+     */
+    public Handle load(String path, boolean mipmap)
+    {
+        if (deleted) throw new IllegalStateException("Texture loader deleted.");
+        if (path == null) throw new NullPointerException();
+        
+        Handle handle = new Handle(path, mipmap);
+        handle.task = pool.submit(() -> decode(handle));
+        return handle;
+    }
+    
+    private void decode(Handle handle)
+    {
+        if (deleted) handle.state = State.CANCELLED;
+        if (handle.state == State.CANCELLED) return;
+        
+        try
+        {
+            handle.image = decode(handle.path);
+        }
+        catch (Throwable t)
+        {
+            handle.error = t;
+        }
+        
+        synchronized (decoded)
+        {
+            if (deleted || handle.state == State.CANCELLED)
+            {
+                if (handle.image != null) handle.image.delete();
+                handle.image = null;
+                handle.state = State.CANCELLED;
+            }
+            else decoded.add(handle);
+        }
+    }
+    
+    /**
+     * Uploads decoded images to their textures, up to this loader's byte
+     * budget. Should be called once per frame.
+     * 
+     * @return The number of bytes uploaded.
+     */
+    public long update()
+    {
+        DGL.checkState();
+        if (deleted) throw new IllegalStateException("Texture loader deleted.");
+        
+        synchronized (decoded)
+        {
+            while (!decoded.isEmpty()) begin(decoded.poll());
+        }
+        
+        long budget = byteBudget;
+        long uploaded = 0;
+        while (!uploading.isEmpty() && uploaded < budget)
+        {
+            Handle handle = uploading.peek();
+            uploaded += upload(handle, Math.max(budget - uploaded, 1));
+            if (handle.state != State.UPLOADING) uploading.poll();
+        }
+        
+        return uploaded;
+    }
+    
+    private void begin(Handle handle)
+    {
+        if (handle.error != null)
+        {
+            handle.finish(State.FAILED);
+            return;
+        }
+        
+        Image image = handle.image;
+        int format = TexUtil.getFormat(image);
+        if (format == -1)
+        {
+            handle.error = new IllegalArgumentException("Illegal image format.");
+            handle.finish(State.FAILED);
+            return;
+        }
+        
+        handle.format = format;
+        handle.texture = DGL.genTex2D().image(image.width, image.height, format);
+        if (image.width == 0 || image.height == 0) complete(handle);
+        else
+        {
+            handle.state = State.UPLOADING;
+            uploading.add(handle);
+        }
+    }
+    
+    private long upload(Handle handle, long budget)
+    {
+        Image image = handle.image;
+        int rowBytes = image.width*image.bands*image.type.size;
+        int rows = (int)Math.max(Math.min(budget/rowBytes, image.height - handle.rows), 1);
+        int dataFormat = TexUtil.getBaseFormat(handle.format);
+        int primType = TexUtil.getPrimitiveType(handle.format);
+        
+        long offset = (long)handle.rows*rowBytes;
+        long bytes = (long)rows*rowBytes;
+        
+        //Orphan the buffer's old storage rather than wait for the GPU to finish with it.
+        glBindBuffer(GL_PIXEL_UNPACK_BUFFER, pbo);
+        glBufferData(GL_PIXEL_UNPACK_BUFFER, bytes, GL_STREAM_DRAW);
+        long address = nglMapBufferRange(GL_PIXEL_UNPACK_BUFFER, 0, bytes, GL_MAP_WRITE_BIT | GL_MAP_INVALIDATE_BUFFER_BIT);
+        memCopy(image.address() + offset, address, bytes);
+        glUnmapBuffer(GL_PIXEL_UNPACK_BUFFER);
+        
+        int oldAlignment = glGetInteger(GL_UNPACK_ALIGNMENT);
+        glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+        int oldID = handle.texture.tempBind();
+        nglTexSubImage2D(GL_TEXTURE_2D, 0, 0, handle.rows, image.width, rows, dataFormat, primType, 0L);
+        handle.texture.tempUnbind(oldID);
+        glPixelStorei(GL_UNPACK_ALIGNMENT, oldAlignment);
+        glBindBuffer(GL_PIXEL_UNPACK_BUFFER, 0);
+        Profiler.addUploadedBytes(bytes);
+        
+        handle.rows += rows;
+        if (handle.rows == image.height) complete(handle);
+        return bytes;
+    }
+    
+    private void complete(Handle handle)
+    {
+        if (handle.mipmap) handle.texture.generateMipmap();
+        handle.finish(State.DONE);
+    }
+    
+    /**
+     * @return The number of textures which have not yet finished loading.
+     */
+    public int getPendingCount()
+    {
+        synchronized (decoded)
+        {
+            return decoded.size() + uploading.size();
+        }
+    }
+    
+    @Override
+    void delete()
+    {
+        synchronized (decoded)
+        {
+            deleted = true;
+            for (Handle handle : decoded) handle.finish(State.CANCELLED);
+            decoded.clear();
+        }
+        for (Handle handle : uploading) handle.finish(State.CANCELLED);
+        uploading.clear();
+        
+        //Any images still being decoded are freed by their workers.
+        pool.shutdown();
+        glDeleteBuffers(pbo);
+        DGL.delete(placeholder);
+    }
+    
+    /**
+     * The state of a loading texture.
+     */
+    public enum State
+    {
+        DECODING, UPLOADING, DONE, FAILED, CANCELLED;
+    }
+    
+    /**
+     * Handle to a texture which is being loaded. Handles are only updated by
+     * their loader's update() method, so their state will not change between
+     * frames.
+     */
+    public final class Handle
+    {
+        /**
+         * The path of the image being loaded.
+         */
+        public final String path;
+        
+        private final boolean mipmap;
+        private volatile State state = State.DECODING;
+        private volatile Image image;
+        private volatile Throwable error;
+        private Future<?> task;
+        private Texture2D texture;
+        private int format, rows;
+        private Consumer<Handle> onDone;
+        
+        private Handle(String path, boolean mipmap)
+        {
+            this.path = path;
+            this.mipmap = mipmap;
+        }
+        
+        private void finish(State state)
+        {
+            if (image != null) image.delete();
+            image = null;
+            if (state != State.DONE && texture != null)
+            {
+                DGL.delete(texture);
+                texture = null;
+            }
+            this.state = state;
+            if (onDone != null) onDone.accept(this);
+            onDone = null;
+        }
+        
+        /**
+         * Returns the loaded texture, or the loader's placeholder if loading
+         * is not done or has failed.
+         * 
+         * @return The texture to draw with.
+         */
+        public Texture2D getTexture()
+        {
+            return state == State.DONE ? texture : placeholder;
+        }
+        
+        /**
+         * @return The loaded texture, or null if loading is not done or has failed.
+         */
+        public Texture2D getLoadedTexture()
+        {
+            return state == State.DONE ? texture : null;
+        }
+        
+        /**
+         * @return The current state of this handle.
+         */
+        public State getState()
+        {
+            return state;
+        }
+        
+        /**
+         * @return Whether this texture has finished loading, successfully or not.
+         */
+        public boolean isDone()
+        {
+            State s = state;
+            return s == State.DONE || s == State.FAILED || s == State.CANCELLED;
+        }
+        
+        /**
+         * @return The error which caused loading to fail, or null if none.
+         */
+        public Throwable getError()
+        {
+            return state == State.FAILED ? error : null;
+        }
+        
+        /**
+         * @return The fraction of this texture which has been uploaded, from
+         *         zero to one.
+         */
+        public float getProgress()
+        {
+            if (state == State.DONE) return 1.0f;
+            Image img = image;
+            return img != null && state == State.UPLOADING ? rows/(float)img.height : 0.0f;
+        }
+        
+        /**
+         * Sets an action to perform once this texture is done loading, or
+         * performs it immediately if it is already done. Actions are always
+         * performed on the DGL thread.
+         * 
+         * @param action The action to perform.
+         * @return This handle.
+         */
+        public Handle whenDone(Consumer<Handle> action)
+        {
+            DGL.checkState();
+            if (isDone()) action.accept(this);
+            else onDone = action;
+            return this;
+        }
+        
+        /**
+         * Stops loading this texture, releasing anything allocated for it. Has
+         * no effect if the texture is already done loading.
+         */
+        public void cancel()
+        {
+            DGL.checkState();
+            if (isDone()) return;
+            
+            synchronized (decoded)
+            {
+                if (decoded.remove(this))
+                {
+                    finish(State.CANCELLED);
+                    return;
+                }
+                
+                if (state == State.DECODING)
+                {
+                    //If the worker has already started, it will free its image.
+                    state = State.CANCELLED;
+                    task.cancel(false);
+                    if (onDone != null) onDone.accept(this);
+                    onDone = null;
+                    return;
+                }
+            }
+            
+            uploading.remove(this);
+            finish(State.CANCELLED);
+        }
+    }
+}
@@ -154,7 +154,7 @@ final class VAO extends DGLObj
     private void vertexAttribPointer(int index, AttributeType type, int stride, long pointerOffset)
     {
         if (type.isInteger) nglVertexAttribIPointer(index, type.components, type.glComponent, stride, pointerOffset);
-        else nglVertexAttribPointer(index, type.components, type.glComponent, false, stride, pointerOffset);
+        else nglVertexAttribPointer(index, type.components, type.glComponent, type.normalized, stride, pointerOffset);
     }
     
     private void bind()
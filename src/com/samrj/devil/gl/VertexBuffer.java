@@ -22,11 +22,12 @@
 
 package com.samrj.devil.gl;
 
+import com.samrj.devil.util.NativeMemory;
+import com.samrj.devil.util.NativeMemory.Category;
 import java.nio.ByteBuffer;
 
 import static org.lwjgl.opengl.GL11C.*;
 import static org.lwjgl.opengl.GL15C.*;
-import static org.lwjgl.system.MemoryUtil.*;
 
 /**
  * Vertex data for unmodifiable vertex data. Suitable for data that is built
@@ -66,8 +67,8 @@ public final class VertexBuffer extends VertexBuilder
     @Override
     void onBegin()
     {
-        vertexBuffer = memAlloc(maxVertices*vertexSize());
-        if (maxIndices > 0) indexBuffer = memAlloc(maxIndices*4);
+        vertexBuffer = NativeMemory.malloc(Category.GL, maxVertices*vertexSize());
+        if (maxIndices > 0) indexBuffer = NativeMemory.malloc(Category.GL, maxIndices*4);
         
         state = State.READY;
     }
@@ -112,7 +113,7 @@ public final class VertexBuffer extends VertexBuilder
         glBindBuffer(GL_ARRAY_BUFFER, prevBinding);
         
         debugVRAMUsage += vertexBuffer.remaining()*8L;
-        memFree(vertexBuffer);
+        NativeMemory.free(vertexBuffer);
         vertexBuffer = null;
 
         if (maxIndices > 0)
@@ -128,13 +129,14 @@ public final class VertexBuffer extends VertexBuilder
             }
             
             debugVRAMUsage += indexBuffer.remaining()*8L;
-            memFree(indexBuffer);
+            NativeMemory.free(indexBuffer);
             indexBuffer = null;
         }
         
         state = State.COMPLETE;
         
-        Profiler.addUsedVRAM(debugVRAMUsage);
+        Profiler.addUsedVRAM(VertexBuffer.class, debugVRAMUsage);
+        Profiler.addUploadedBytes(debugVRAMUsage/8L);
     }
     
     @Override
@@ -168,12 +170,12 @@ public final class VertexBuffer extends VertexBuilder
     {
         if (state == State.READY)
         {
-            memFree(vertexBuffer);
+            NativeMemory.free(vertexBuffer);
             vertexBuffer = null;
             
             if (maxIndices > 0)
             {
-                memFree(indexBuffer);
+                NativeMemory.free(indexBuffer);
                 indexBuffer = null;
             }
         }
@@ -185,6 +187,6 @@ public final class VertexBuffer extends VertexBuilder
         
         state = State.DELETED;
         
-        Profiler.removeUsedVRAM(debugVRAMUsage);
+        Profiler.removeUsedVRAM(VertexBuffer.class, debugVRAMUsage);
     }
 }
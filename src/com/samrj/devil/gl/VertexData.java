@@ -1,5 +1,7 @@
 package com.samrj.devil.gl;
 
+import static org.lwjgl.opengl.GL11C.*;
+
 /**
  * Interface for all vertex data.
  * 
@@ -44,6 +46,22 @@ public interface VertexData extends VAOBindable
      */
     public int numIndices();
     
+    /**
+     * @return The OpenGL type of this vertex data's indices.
+     */
+    public default int indexType()
+    {
+        return GL_UNSIGNED_INT;
+    }
+    
+    /**
+     * @return The offset, in bytes, of the first index to draw.
+     */
+    public default long indexOffset()
+    {
+        return 0L;
+    }
+    
     public interface Attribute
     {
         public String getName();
@@ -22,6 +22,8 @@
 
 package com.samrj.devil.gl;
 
+import com.samrj.devil.util.NativeMemory;
+import com.samrj.devil.util.NativeMemory.Category;
 import java.nio.ByteBuffer;
 
 import static org.lwjgl.opengl.GL11C.*;
@@ -66,7 +68,7 @@ public final class VertexStream extends VertexBuilder
     void onBegin()
     {
         vboSize = maxVertices*vertexSize();
-        vertexBuffer = memAlloc(vboSize);
+        vertexBuffer = NativeMemory.malloc(Category.GL, vboSize);
         vbo = glGenBuffers();
         int prevBinding = glGetInteger(GL_ARRAY_BUFFER_BINDING);
         glBindBuffer(GL_ARRAY_BUFFER, vbo);
@@ -76,7 +78,7 @@ public final class VertexStream extends VertexBuilder
         if (maxIndices > 0)
         {
             eboSize = maxIndices*4;
-            indexBuffer = memAlloc(eboSize);
+            indexBuffer = NativeMemory.malloc(Category.GL, eboSize);
             ebo = glGenBuffers();
             prevBinding = glGetInteger(GL_ELEMENT_ARRAY_BUFFER_BINDING);
             glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
@@ -86,8 +88,8 @@ public final class VertexStream extends VertexBuilder
         
         state = State.READY;
         
-        Profiler.addUsedVRAM(vboSize*8L);
-        Profiler.addUsedVRAM(eboSize*8L);
+        Profiler.addUsedVRAM(VertexStream.class, vboSize*8L);
+        Profiler.addUsedVRAM(VertexStream.class, eboSize*8L);
     }
     
     /**
@@ -150,6 +152,7 @@ public final class VertexStream extends VertexBuilder
             glBindBuffer(GL_ARRAY_BUFFER, vbo);
             nglBufferSubData(GL_ARRAY_BUFFER, offset, vertexSize(), memAddress0(vertexBuffer) + offset);
             glBindBuffer(GL_ARRAY_BUFFER, prevBinding);
+            Profiler.addUploadedBytes(vertexSize());
         }
     }
     
@@ -169,6 +172,7 @@ public final class VertexStream extends VertexBuilder
             glBindBuffer(GL_ARRAY_BUFFER, vbo);
             nglBufferSubData(GL_ARRAY_BUFFER, offset, size, memAddress0(vertexBuffer) + offset);
             glBindBuffer(GL_ARRAY_BUFFER, prevBinding);
+            Profiler.addUploadedBytes(size);
             
             uploadedVerts = bufferedVerts;
         }
@@ -183,6 +187,7 @@ public final class VertexStream extends VertexBuilder
             glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
             nglBufferSubData(GL_ELEMENT_ARRAY_BUFFER, offset, size, memAddress0(vertexBuffer) + offset);
             glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, prevBinding);
+            Profiler.addUploadedBytes(size);
             
             uploadedInds = bufferedInds;
         }
@@ -198,6 +203,7 @@ public final class VertexStream extends VertexBuilder
         
         //Allocate new stores, orphaning the old ones to allow for asynchronous drawing.
         vertexBuffer.flip();
+        Profiler.addUploadedBytes(vertexBuffer.remaining());
         int prevBinding = glGetInteger(GL_ARRAY_BUFFER_BINDING);
         glBindBuffer(GL_ARRAY_BUFFER, vbo);
         nglBufferData(GL_ARRAY_BUFFER, vboSize, NULL, GL_STREAM_DRAW);
@@ -207,6 +213,7 @@ public final class VertexStream extends VertexBuilder
         if (maxIndices > 0)
         {
             indexBuffer.flip();
+            Profiler.addUploadedBytes(indexBuffer.remaining());
             prevBinding = glGetInteger(GL_ELEMENT_ARRAY_BUFFER_BINDING);
             glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ebo);
             nglBufferData(GL_ELEMENT_ARRAY_BUFFER, eboSize, NULL, GL_STREAM_DRAW);
@@ -251,13 +258,13 @@ public final class VertexStream extends VertexBuilder
     {
         if (state == State.READY)
         {
-            memFree(vertexBuffer);
+            NativeMemory.free(vertexBuffer);
             vertexBuffer = null;
             glDeleteBuffers(vbo);
             
             if (maxIndices > 0)
             {
-                memFree(indexBuffer);
+                NativeMemory.free(indexBuffer);
                 indexBuffer = null;
                 glDeleteBuffers(ebo);
             }
@@ -265,7 +272,7 @@ public final class VertexStream extends VertexBuilder
         
         state = State.DELETED;
         
-        Profiler.removeUsedVRAM(vboSize*8L);
-        Profiler.removeUsedVRAM(eboSize*8L);
+        Profiler.removeUsedVRAM(VertexStream.class, vboSize*8L);
+        Profiler.removeUsedVRAM(VertexStream.class, eboSize*8L);
     }
 }
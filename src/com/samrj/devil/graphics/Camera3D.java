@@ -31,6 +31,8 @@ import com.samrj.devil.math.*;
  */
 public final class Camera3D
 {
+    private static final Vec3 FORWARD = new Vec3(0.0f, 0.0f, -1.0f);
+    
     /**
      * Returns an array of eight vectors, each one a vertex of this camera's
      * frustum. Returned in local space.
@@ -67,6 +69,10 @@ public final class Camera3D
     private float fov;
     private float hSlope, vSlope;
     
+    private final Quat invDir = new Quat();
+    private final Mat3 rot = new Mat3();
+    private final Vec3 temp = new Vec3();
+    
     public Camera3D(float zNear, float zFar, float fov, float aspectRatio)
     {
         this.zNear = zNear;
@@ -129,6 +135,20 @@ public final class Camera3D
         return vSlope;
     }
     
+    /**
+     * Returns the approximate height on screen of an object of the given size
+     * at the given point, as a fraction of the screen's height.
+     * 
+     * @param p The world position of the object.
+     * @param size The size of the object.
+     * @return The object's size on screen.
+     */
+    public float getScreenSize(Vec3 p, float size)
+    {
+        float dist = Math.max(pos.dist(p), zNear);
+        return size/(2.0f*dist*vSlope);
+    }
+    
     /**
      * Returns whether this camera frustum's width is smaller than its height.
      */
@@ -139,7 +159,8 @@ public final class Camera3D
     
     public void pointAt(Vec3 p)
     {
-        dir.setRotation(new Vec3(0.0f, 0.0f, -1.0f), Vec3.sub(p, pos));
+        Vec3.sub(p, pos, temp);
+        dir.setRotation(FORWARD, temp);
     }
     
     /**
@@ -147,10 +168,12 @@ public final class Camera3D
      */
     public void update()
     {
-        viewMat.setRotation(Quat.invert(dir));
-        viewMat.translate(Vec3.negate(pos));
+        Quat.invert(dir, invDir);
+        viewMat.setRotation(invDir);
+        Vec3.negate(pos, temp);
+        viewMat.translate(temp);
         
-        Mat3 rot = Mat3.rotation(dir);
+        Mat3.rotation(dir, rot);
         right.setAsColumn(rot, 0);
         up.setAsColumn(rot, 1);
         forward.setAsColumn(rot, 2).negate();
@@ -44,6 +44,7 @@ public final class Camera3DController
     private float pitch, yaw;
     private Geometry blockGeom;
     private Ellipsoid blockShape;
+    private final Vec3 temp = new Vec3(), dp = new Vec3();
     
     public Camera3DController(Camera3D camera)
     {
@@ -168,13 +169,12 @@ public final class Camera3DController
      */
     public void update()
     {
-        Vec3 temp = new Vec3();
         camera.dir.setRotation(temp.set(0, 1, 0), yaw);
         camera.dir.rotate(temp.set(1, 0, 0), pitch);
         
         camera.pos.set(target);
         camera.pos.y += height;
-        Vec3 dp = new Vec3(0, 0, distance).mult(camera.dir);
+        dp.set(0, 0, distance).mult(camera.dir);
         dp.add(temp.set(offset).mult(camera.dir));
         if (blockGeom != null && !dp.isZero())
         {
@@ -0,0 +1,235 @@
+package com.samrj.devil.graphics;
+
+import com.samrj.devil.geo3d.Frustum;
+import com.samrj.devil.gl.DGL;
+import com.samrj.devil.gl.VertexData;
+import com.samrj.devil.math.Mat4;
+import com.samrj.devil.math.Vec3;
+import com.samrj.devil.model.Mesh;
+import com.samrj.devil.model.MeshCluster;
+import com.samrj.devil.util.NativeMemory;
+import com.samrj.devil.util.NativeMemory.Category;
+import java.nio.IntBuffer;
+import org.lwjgl.PointerBuffer;
+
+/**
+ * Culls the clusters of a mesh against a view frustum and their normal cones,
+ * producing a compact list of index ranges which may be drawn with a single
+ * call to glMultiDrawElements. Adjacent visible clusters are merged into one
+ * range. Culling happens in the mesh's local space.
+ * 
+ * The mesh must have been loaded with clusters, and the ranges are only valid
+ * for a MeshBuffer drawing the mesh's full level of detail.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class ClusterCuller
+{
+    private final int numClusters, indexSize;
+    
+    //Six floats per cluster: min x, y, z, then max x, y, z.
+    private final float[] bounds;
+    private final MeshCluster[] clusters;
+    private final int[] firstIndices, indexCounts;
+    
+    private final Mat4 matrix = new Mat4();
+    private final Frustum cameraFrustum = new Frustum(matrix);
+    private final Vec3 viewPos = new Vec3();
+    
+    private final IntBuffer counts;
+    private final PointerBuffer offsets;
+    private int numVisible, numFrustumCulled, numBackfaceCulled;
+    private boolean destroyed;
+    
+    /**
+     * Creates a new culler for the clusters of the given mesh.
+     * 
+     * @param mesh A mesh loaded with clusters.
+     */
+    public ClusterCuller(Mesh mesh)
+    {
+        clusters = mesh.clusters;
+        if (clusters.length == 0) throw new IllegalArgumentException("Mesh " + mesh.name + " has no clusters.");
+        
+        numClusters = clusters.length;
+        indexSize = mesh.shortIndices ? 2 : 4;
+        bounds = new float[numClusters*6];
+        firstIndices = new int[numClusters];
+        indexCounts = new int[numClusters];
+        
+        for (int c=0; c<numClusters; c++)
+        {
+            MeshCluster cluster = clusters[c];
+            int i = c*6;
+            bounds[i] = cluster.bounds.min.x;
+            bounds[i + 1] = cluster.bounds.min.y;
+            bounds[i + 2] = cluster.bounds.min.z;
+            bounds[i + 3] = cluster.bounds.max.x;
+            bounds[i + 4] = cluster.bounds.max.y;
+            bounds[i + 5] = cluster.bounds.max.z;
+            
+            firstIndices[c] = cluster.firstTriangle*3;
+            indexCounts[c] = cluster.numTriangles*3;
+        }
+        
+        counts = NativeMemory.mallocInt(Category.GRAPHICS, numClusters);
+        offsets = NativeMemory.mallocPointer(Category.GRAPHICS, numClusters);
+        counts.limit(0);
+        offsets.limit(0);
+    }
+    
+    private void ensureAlive()
+    {
+        if (destroyed) throw new IllegalStateException("Culler destroyed.");
+    }
+    
+    /**
+     * Culls every cluster against the given frustum, and against the given
+     * view position if it is not null. Both must be in the mesh's local space.
+     * Afterwards, the visible ranges may be drawn.
+     * 
+     * @param frustum The frustum to cull against.
+     * @param viewPos The position the mesh is viewed from, or null to skip
+     *                back-face culling.
+     * @return The number of potentially visible clusters.
+     */
+    public int cull(Frustum frustum, Vec3 viewPos)
+    {
+        ensureAlive();
+        if (frustum == null) throw new NullPointerException();
+        
+        counts.clear();
+        offsets.clear();
+        numVisible = 0;
+        numFrustumCulled = 0;
+        numBackfaceCulled = 0;
+        int numRanges = 0, rangeEnd = -1;
+        
+        for (int c=0; c<numClusters; c++)
+        {
+            int i = c*6;
+            if (frustum.cull(bounds[i], bounds[i + 1], bounds[i + 2], bounds[i + 3], bounds[i + 4], bounds[i + 5]))
+            {
+                numFrustumCulled++;
+                continue;
+            }
+            
+            if (viewPos != null && clusters[c].isBackfacing(viewPos))
+            {
+                numBackfaceCulled++;
+                continue;
+            }
+            
+            numVisible++;
+            int first = firstIndices[c];
+            if (first == rangeEnd) counts.put(numRanges - 1, counts.get(numRanges - 1) + indexCounts[c]);
+            else
+            {
+                counts.put(numRanges, indexCounts[c]);
+                offsets.put(numRanges, (long)first*indexSize);
+                numRanges++;
+            }
+            rangeEnd = first + indexCounts[c];
+        }
+        
+        counts.limit(numRanges);
+        offsets.limit(numRanges);
+        return numVisible;
+    }
+    
+    /**
+     * Culls every cluster as seen by the given camera, for a mesh drawn with
+     * the given model matrix. The camera's matrices must be up to date.
+     * 
+     * @param camera The camera to cull against.
+     * @param modelMat The mesh's model matrix.
+     * @return The number of potentially visible clusters.
+     */
+    public int cull(Camera3D camera, Mat4 modelMat)
+    {
+        Mat4.mult(camera.projMat, camera.viewMat, matrix);
+        matrix.mult(modelMat);
+        cameraFrustum.set(matrix);
+        
+        Mat4.invert(modelMat, matrix);
+        Vec3.mult(camera.pos, matrix, viewPos);
+        return cull(cameraFrustum, viewPos);
+    }
+    
+    /**
+     * Draws the visible ranges from the last cull. The given vertex data must
+     * hold the culled mesh, at its full level of detail.
+     * 
+     * @param vData The vertex data to draw.
+     * @param mode An OpenGL primitive draw mode.
+     */
+    public void draw(VertexData vData, int mode)
+    {
+        ensureAlive();
+        DGL.drawRanges(vData, mode, counts, offsets);
+    }
+    
+    /**
+     * @return The number of clusters that passed the last cull.
+     */
+    public int getVisibleCount()
+    {
+        return numVisible;
+    }
+    
+    /**
+     * @return The number of clusters outside the frustum in the last cull.
+     */
+    public int getFrustumCulledCount()
+    {
+        return numFrustumCulled;
+    }
+    
+    /**
+     * @return The number of clusters facing away from the view position in the
+     *         last cull.
+     */
+    public int getBackfaceCulledCount()
+    {
+        return numBackfaceCulled;
+    }
+    
+    /**
+     * @return The number of index ranges to draw from the last cull.
+     */
+    public int getRangeCount()
+    {
+        return counts.limit();
+    }
+    
+    /**
+     * Returns the index counts of each visible range from the last cull. The
+     * buffer is overwritten by the next cull.
+     */
+    public IntBuffer getCounts()
+    {
+        return counts;
+    }
+    
+    /**
+     * Returns the byte offsets of each visible range from the last cull. The
+     * buffer is overwritten by the next cull.
+     */
+    public PointerBuffer getOffsets()
+    {
+        return offsets;
+    }
+    
+    /**
+     * Frees the native memory held by this culler.
+     */
+    public void destroy()
+    {
+        ensureAlive();
+        NativeMemory.free(counts);
+        NativeMemory.free(offsets);
+        destroyed = true;
+    }
+}
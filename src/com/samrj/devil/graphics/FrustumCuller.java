@@ -0,0 +1,385 @@
+package com.samrj.devil.graphics;
+
+import com.samrj.devil.geo3d.Box3;
+import com.samrj.devil.geo3d.Frustum;
+import com.samrj.devil.math.Mat4;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Culls a set of bounding boxes against a view frustum, producing a compact
+ * list of visible indices each frame. Bounds are stored in flat arrays rather
+ * than as objects, and large sets are culled in parallel chunks.
+ * 
+ * Boxes may be organized into a hierarchy of groups, much like nested GeoSets.
+ * Groups lying entirely outside or inside the frustum are resolved once, so
+ * their contents are never tested individually.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class FrustumCuller
+{
+    /**
+     * The group index of the root group, which is never culled as a whole.
+     */
+    public static final int ROOT = -1;
+    
+    private static final int CHUNK_SIZE = 1024;
+    private static final byte OUTSIDE = 0, INTERSECTING = 1, INSIDE = 2;
+    
+    private final Mat4 viewProjMat = new Mat4();
+    private final Frustum cameraFrustum = new Frustum(viewProjMat);
+    private Frustum frustum;
+    
+    //Six floats per box: min x, y, z, then max x, y, z.
+    private float[] bounds = new float[6*64];
+    private int[] boxGroups = new int[64];
+    private int size;
+    
+    private float[] groupBounds = new float[6*8];
+    private int[] groupParents = new int[8];
+    private byte[] groupStates = new byte[8];
+    private int numGroups;
+    private boolean groupsDirty;
+    
+    private int[] visible = new int[64];
+    private int[] chunkCounts = new int[1];
+    private int numVisible, numGroupsCulled, numGroupsAccepted;
+    
+    /**
+     * Adds a new group as a child of the given group, and returns its index.
+     * The bounds of a group are the union of everything it contains.
+     * 
+     * @param parent The parent group, or ROOT.
+     * @return The index of the new group.
+     */
+    public int addGroup(int parent)
+    {
+        if (parent < ROOT || parent >= numGroups) throw new ArrayIndexOutOfBoundsException(parent);
+        
+        if (numGroups == groupParents.length)
+        {
+            int capacity = numGroups*2;
+            groupBounds = Arrays.copyOf(groupBounds, capacity*6);
+            groupParents = Arrays.copyOf(groupParents, capacity);
+            groupStates = Arrays.copyOf(groupStates, capacity);
+        }
+        
+        groupParents[numGroups] = parent;
+        groupsDirty = true;
+        return numGroups++;
+    }
+    
+    /**
+     * Adds a new top-level group, and returns its index.
+     * 
+     * @return The index of the new group.
+     */
+    public int addGroup()
+    {
+        return addGroup(ROOT);
+    }
+    
+    /**
+     * Adds the given box to the given group, and returns its index. The box is
+     * copied, and so may be reused by the caller.
+     * 
+     * @param box The bounding box to add.
+     * @param group The group to add the box to, or ROOT.
+     * @return The index of the new box.
+     */
+    public int add(Box3 box, int group)
+    {
+        if (group < ROOT || group >= numGroups) throw new ArrayIndexOutOfBoundsException(group);
+        
+        if (size == boxGroups.length)
+        {
+            int capacity = size*2;
+            bounds = Arrays.copyOf(bounds, capacity*6);
+            boxGroups = Arrays.copyOf(boxGroups, capacity);
+        }
+        
+        boxGroups[size] = group;
+        set(size, box);
+        return size++;
+    }
+    
+    /**
+     * Adds the given box as a top-level box, and returns its index.
+     * 
+     * @param box The bounding box to add.
+     * @return The index of the new box.
+     */
+    public int add(Box3 box)
+    {
+        return add(box, ROOT);
+    }
+    
+    /**
+     * Updates the bounds of the box at the given index. Call this whenever the
+     * corresponding object moves.
+     * 
+     * @param index The index of the box to update.
+     * @param box The new bounds of the box.
+     */
+    public void set(int index, Box3 box)
+    {
+        int i = index*6;
+        bounds[i] = box.min.x;
+        bounds[i + 1] = box.min.y;
+        bounds[i + 2] = box.min.z;
+        bounds[i + 3] = box.max.x;
+        bounds[i + 4] = box.max.y;
+        bounds[i + 5] = box.max.z;
+        if (boxGroups[index] != ROOT) groupsDirty = true;
+    }
+    
+    /**
+     * Removes every box and group from this culler.
+     */
+    public void clear()
+    {
+        size = 0;
+        numGroups = 0;
+        numVisible = 0;
+        numGroupsCulled = 0;
+        numGroupsAccepted = 0;
+        groupsDirty = false;
+    }
+    
+    /**
+     * @return The number of boxes in this culler.
+     */
+    public int size()
+    {
+        return size;
+    }
+    
+    private void updateGroupBounds()
+    {
+        for (int g=0; g<numGroups; g++)
+        {
+            int i = g*6;
+            groupBounds[i] = Float.POSITIVE_INFINITY;
+            groupBounds[i + 1] = Float.POSITIVE_INFINITY;
+            groupBounds[i + 2] = Float.POSITIVE_INFINITY;
+            groupBounds[i + 3] = Float.NEGATIVE_INFINITY;
+            groupBounds[i + 4] = Float.NEGATIVE_INFINITY;
+            groupBounds[i + 5] = Float.NEGATIVE_INFINITY;
+        }
+        
+        for (int b=0; b<size; b++)
+        {
+            int group = boxGroups[b];
+            if (group != ROOT) expandGroup(group, bounds, b*6);
+        }
+        
+        //Children always have greater indices than their parents, so walking
+        //backwards propagates bounds all the way up the hierarchy.
+        for (int g=numGroups-1; g>=0; g--)
+        {
+            int parent = groupParents[g];
+            if (parent != ROOT) expandGroup(parent, groupBounds, g*6);
+        }
+        
+        groupsDirty = false;
+    }
+    
+    private void expandGroup(int group, float[] src, int s)
+    {
+        int i = group*6;
+        groupBounds[i] = Math.min(groupBounds[i], src[s]);
+        groupBounds[i + 1] = Math.min(groupBounds[i + 1], src[s + 1]);
+        groupBounds[i + 2] = Math.min(groupBounds[i + 2], src[s + 2]);
+        groupBounds[i + 3] = Math.max(groupBounds[i + 3], src[s + 3]);
+        groupBounds[i + 4] = Math.max(groupBounds[i + 4], src[s + 4]);
+        groupBounds[i + 5] = Math.max(groupBounds[i + 5], src[s + 5]);
+    }
+    
+    private void classifyGroups()
+    {
+        numGroupsCulled = 0;
+        numGroupsAccepted = 0;
+        
+        //Parents come before children, so their state is always known.
+        for (int g=0; g<numGroups; g++)
+        {
+            int parent = groupParents[g];
+            byte parentState = parent == ROOT ? INTERSECTING : groupStates[parent];
+            
+            if (parentState != INTERSECTING) groupStates[g] = parentState;
+            else
+            {
+                int i = g*6;
+                float x0 = groupBounds[i], y0 = groupBounds[i + 1], z0 = groupBounds[i + 2];
+                float x1 = groupBounds[i + 3], y1 = groupBounds[i + 4], z1 = groupBounds[i + 5];
+                
+                if (x0 > x1 || frustum.cull(x0, y0, z0, x1, y1, z1))
+                {
+                    groupStates[g] = OUTSIDE;
+                    numGroupsCulled++;
+                }
+                else if (frustum.encloses(x0, y0, z0, x1, y1, z1))
+                {
+                    groupStates[g] = INSIDE;
+                    numGroupsAccepted++;
+                }
+                else groupStates[g] = INTERSECTING;
+            }
+        }
+    }
+    
+    private void cullChunk(int chunk)
+    {
+        int start = chunk*CHUNK_SIZE;
+        int end = Math.min(start + CHUNK_SIZE, size);
+        int count = 0;
+        
+        for (int b=start; b<end; b++)
+        {
+            int group = boxGroups[b];
+            byte state = group == ROOT ? INTERSECTING : groupStates[group];
+            
+            if (state == INTERSECTING)
+            {
+                int i = b*6;
+                if (!frustum.cull(bounds[i], bounds[i + 1], bounds[i + 2],
+                                  bounds[i + 3], bounds[i + 4], bounds[i + 5]))
+                    visible[start + count++] = b;
+            }
+            else if (state == INSIDE) visible[start + count++] = b;
+        }
+        
+        chunkCounts[chunk] = count;
+    }
+    
+    /**
+     * Culls every box against the given frustum. Afterwards, the indices of
+     * each potentially visible box may be read, in ascending order.
+     * 
+     * @param frustum The frustum to cull against.
+     * @return The number of potentially visible boxes.
+     */
+    public int cull(Frustum frustum)
+    {
+        if (frustum == null) throw new NullPointerException();
+        this.frustum = frustum;
+        
+        if (groupsDirty) updateGroupBounds();
+        classifyGroups();
+        
+        if (visible.length < size) visible = new int[boxGroups.length];
+        int numChunks = (size + CHUNK_SIZE - 1)/CHUNK_SIZE;
+        if (chunkCounts.length < numChunks) chunkCounts = new int[numChunks];
+        
+        if (numChunks > 1) IntStream.range(0, numChunks).parallel().forEach(this::cullChunk);
+        else if (numChunks == 1) cullChunk(0);
+        
+        //Compact each chunk's results to the front of the array.
+        numVisible = 0;
+        for (int c=0; c<numChunks; c++)
+        {
+            int count = chunkCounts[c];
+            System.arraycopy(visible, c*CHUNK_SIZE, visible, numVisible, count);
+            numVisible += count;
+        }
+        
+        return numVisible;
+    }
+    
+    /**
+     * Culls every box against the frustum of the given view-projection matrix.
+     * 
+     * @param viewProjMat A combined projection and view matrix.
+     * @return The number of potentially visible boxes.
+     */
+    public int cull(Mat4 viewProjMat)
+    {
+        return cull(cameraFrustum.set(viewProjMat));
+    }
+    
+    /**
+     * Culls every box against the given camera's world-space frustum. The
+     * camera's matrices must be up to date.
+     * 
+     * @param camera The camera to cull against.
+     * @return The number of potentially visible boxes.
+     */
+    public int cull(Camera3D camera)
+    {
+        Mat4.mult(camera.projMat, camera.viewMat, viewProjMat);
+        return cull(viewProjMat);
+    }
+    
+    /**
+     * @return The number of boxes that passed the last cull.
+     */
+    public int getVisibleCount()
+    {
+        return numVisible;
+    }
+    
+    /**
+     * @return The number of boxes that were culled by the last cull.
+     */
+    public int getCulledCount()
+    {
+        return size - numVisible;
+    }
+    
+    /**
+     * @return The number of groups found to be entirely outside the frustum by
+     *         the last cull, not counting groups within those groups.
+     */
+    public int getGroupsCulledCount()
+    {
+        return numGroupsCulled;
+    }
+    
+    /**
+     * @return The number of groups found to be entirely inside the frustum by
+     *         the last cull, not counting groups within those groups.
+     */
+    public int getGroupsAcceptedCount()
+    {
+        return numGroupsAccepted;
+    }
+    
+    /**
+     * Returns the index of the nth visible box from the last cull.
+     * 
+     * @param n Which visible box to return, less than getVisibleCount().
+     * @return The index of a visible box.
+     */
+    public int getVisible(int n)
+    {
+        if (n < 0 || n >= numVisible) throw new ArrayIndexOutOfBoundsException(n);
+        return visible[n];
+    }
+    
+    /**
+     * Returns the backing array of visible indices from the last cull. Only the
+     * first getVisibleCount() entries are valid, and the array is overwritten
+     * by the next cull.
+     * 
+     * @return The backing array of visible indices.
+     */
+    public int[] getVisibleArray()
+    {
+        return visible;
+    }
+    
+    /**
+     * Performs the given action for the index of each box which passed the
+     * last cull, in ascending order.
+     * 
+     * @param action The action to perform.
+     */
+    public void forEachVisible(IntConsumer action)
+    {
+        for (int n=0; n<numVisible; n++) action.accept(visible[n]);
+    }
+}
@@ -7,6 +7,8 @@ import com.samrj.devil.model.ArmatureSolver.BoneSolver;
 import com.samrj.devil.model.Mesh;
 import com.samrj.devil.model.ModelObject;
 import com.samrj.devil.util.IOUtil;
+import com.samrj.devil.util.NativeMemory;
+import com.samrj.devil.util.NativeMemory.Category;
 import java.nio.FloatBuffer;
 import java.util.List;
 
@@ -24,6 +26,8 @@ public class MeshSkinner
 {
     public final int numGroups;
     
+    private static final Mat4 ZERO = new Mat4();
+    
     private final List<BoneSolver> bones;
     private final FloatBuffer matData;
     
@@ -34,7 +38,7 @@ public class MeshSkinner
     {
         numGroups = object.data.get().numGroups;
         bones = IOUtil.mapList(object.vertexGroups, solver::getBone);
-        matData = memAllocFloat(bones.size()*16);
+        matData = NativeMemory.mallocFloat(Category.GRAPHICS, bones.size()*16);
     }
     
     /**
@@ -47,11 +51,12 @@ public class MeshSkinner
             memCopy(matData, prevMatData);
         
         matData.clear();
-        bones.forEach(bone ->
+        for (int i=0, n=bones.size(); i<n; i++)
         {
-            if (bone == null) new Mat4().write(matData);
+            BoneSolver bone = bones.get(i);
+            if (bone == null) ZERO.write(matData);
             else bone.skinMatrix.write(matData);
-        });
+        }
         matData.flip();
         
         if (onFirstFrame && prevMatricesEnabled())
@@ -89,7 +94,7 @@ public class MeshSkinner
     {
         if (prevMatricesEnabled()) throw new IllegalStateException();
         
-        prevMatData = memAllocFloat(matData.capacity());
+        prevMatData = NativeMemory.mallocFloat(Category.GRAPHICS, matData.capacity());
     }
     
     public void uniformPrevMats(ShaderProgram shader, String arrayName)
@@ -105,7 +110,7 @@ public class MeshSkinner
      */
     public final void destroy()
     {
-        memFree(matData);
-        if (prevMatricesEnabled()) memFree(prevMatData);
+        NativeMemory.free(matData);
+        if (prevMatricesEnabled()) NativeMemory.free(prevMatData);
     }
 }
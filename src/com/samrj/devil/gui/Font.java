@@ -3,7 +3,10 @@ package com.samrj.devil.gui;
 import com.samrj.devil.gl.DGL;
 import com.samrj.devil.gl.Texture2D;
 import com.samrj.devil.math.Vec2;
+import com.samrj.devil.util.Arena;
 import com.samrj.devil.util.IOUtil;
+import com.samrj.devil.util.NativeMemory;
+import com.samrj.devil.util.NativeMemory.Category;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
@@ -58,7 +61,7 @@ public class Font
         //Read whole font to buffer.
         byte[] bytes = IOUtil.readAllBytes(in);
         in.close();
-        ttf = memAlloc(bytes.length);
+        ttf = NativeMemory.malloc(Category.GUI, bytes.length);
         ttf.put(bytes);
         ttf.flip();
         
@@ -66,36 +69,37 @@ public class Font
         
         scale = stbtt_ScaleForPixelHeight(fontInfo, props.height);
         
-        //Pack font into bitmap.
-        ByteBuffer bitmap = memAlloc(props.bitmapWidth*props.bitmapHeight);
+        //Pack font into bitmap. The bitmaps are only needed until uploaded.
         STBTTPackedchar.Buffer cdata = STBTTPackedchar.malloc(props.count);
-        try (MemoryStack stack = MemoryStack.stackPush())
+        try (Arena arena = Arena.push())
         {
-            IntBuffer d = stack.mallocInt(1);
-            stbtt_GetFontVMetrics(fontInfo, null, d, null);
-            descent = d.get(0)*scale;
+            ByteBuffer bitmap = arena.malloc(props.bitmapWidth*props.bitmapHeight);
+            try (MemoryStack stack = MemoryStack.stackPush())
+            {
+                IntBuffer d = stack.mallocInt(1);
+                stbtt_GetFontVMetrics(fontInfo, null, d, null);
+                descent = d.get(0)*scale;
+            
+                STBTTPackContext pc = STBTTPackContext.mallocStack(stack);
+                stbtt_PackBegin(pc, bitmap, props.bitmapWidth, props.bitmapHeight, 0, 1, NULL);
+                stbtt_PackSetOversampling(pc, props.supersampling, props.supersampling);
+                stbtt_PackFontRange(pc, ttf, 0, props.height, props.first, cdata);
+                stbtt_PackEnd(pc);
+            }
+            
+            //Convert bitmap from R8 to RGBA8.
+            ByteBuffer rgba8 = arena.malloc(props.bitmapWidth*props.bitmapHeight*4);
+            for (int i = 0; i < bitmap.capacity(); i++)
+                rgba8.putInt((bitmap.get(i) << 24) | 0x00FFFFFF);
+            rgba8.flip();
             
-            STBTTPackContext pc = STBTTPackContext.mallocStack(stack);
-            stbtt_PackBegin(pc, bitmap, props.bitmapWidth, props.bitmapHeight, 0, 1, NULL);
-            stbtt_PackSetOversampling(pc, props.supersampling, props.supersampling);
-            stbtt_PackFontRange(pc, ttf, 0, props.height, props.first, cdata);
-            stbtt_PackEnd(pc);
+            //Upload to GPU and clean up after ourselves.
+            texture = DGL.genTex2D();
+            texture.bind();
+            glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, props.bitmapWidth, props.bitmapHeight, 0, GL_RGBA, GL_UNSIGNED_INT_8_8_8_8_REV, rgba8);
+            texture.unbind();
         }
         
-        //Convert bitmap from R8 to RGBA8.
-        ByteBuffer rgba8 = memAlloc(props.bitmapWidth*props.bitmapHeight*4);
-        for (int i = 0; i < bitmap.capacity(); i++)
-            rgba8.putInt((bitmap.get(i) << 24) | 0x00FFFFFF);
-        rgba8.flip();
-        memFree(bitmap);
-
-        //Upload to GPU and clean up after ourselves.
-        texture = DGL.genTex2D();
-        texture.bind();
-        glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA8, props.bitmapWidth, props.bitmapHeight, 0, GL_RGBA, GL_UNSIGNED_INT_8_8_8_8_REV, rgba8);
-        texture.unbind();
-        memFree(rgba8);
-        
         //Bake character quads ahead of time so STB doesn't crash the JVM when something inevitably goes wrong.
         chars = new BakedChar[props.first + props.count];
         for (int codepoint=0; codepoint<chars.length; codepoint++)
@@ -240,7 +244,7 @@ public class Font
         {
             DGL.delete(texture);
             fontInfo.free();
-            memFree(ttf);
+            NativeMemory.free(ttf);
             isDestroyed = true;
         }
     }
@@ -92,6 +92,19 @@ public class Mat3 implements FloatBufferable, DataStreamable<Mat3>
         r.g = s.i; r.h = s.j; r.i = s.k;
     }
     
+    /**
+     * Casts the source double matrix into the target matrix.
+     * 
+     * @param s The matrix to copy from.
+     * @param r The matrix to copy into.
+     */
+    public static final void cast(Mat3d s, Mat3 r)
+    {
+        r.a = (float)s.a; r.b = (float)s.b; r.c = (float)s.c;
+        r.d = (float)s.d; r.e = (float)s.e; r.f = (float)s.f;
+        r.g = (float)s.g; r.h = (float)s.h; r.i = (float)s.i;
+    }
+    
     /**
      * Sets the given matrix to the transformation matrix equal to the given
      * transform.
@@ -281,8 +294,19 @@ public class Mat3 implements FloatBufferable, DataStreamable<Mat3>
      */
     public static final void rotate(Mat3 m, Vec3 axis, float angle, Mat3 r)
     {
-        Mat3 temp = rotation(axis, angle); //Could probably be improved.
-        mult(m, temp, r);
+        float cos = (float)Math.cos(angle);
+        float sin = (float)Math.sin(angle);
+        float omcos = 1.0f - cos;
+        
+        float xsq = axis.x*axis.x, ysq = axis.y*axis.y, zsq = axis.z*axis.z;
+        
+        float xyomcos = axis.x*axis.y*omcos, zsin = axis.z*sin;
+        float xzomcos = axis.x*axis.z*omcos, ysin = axis.y*sin;
+        float yzomcos = axis.y*axis.z*omcos, xsin = axis.x*sin;
+        
+        mult(m, xsq + (1.0f - xsq)*cos, xyomcos - zsin, xzomcos + ysin,
+                xyomcos + zsin, ysq + (1.0f - ysq)*cos, yzomcos - xsin,
+                xzomcos - ysin, yzomcos + xsin, zsq + (1.0f - zsq)*cos, r);
     }
     
     /**
@@ -294,8 +318,15 @@ public class Mat3 implements FloatBufferable, DataStreamable<Mat3>
      */
     public static final void rotate(Mat3 m, Quat q, Mat3 r)
     {
-        Mat3 temp = rotation(q); //Could probably be improved, as above
-        mult(m, temp, r);
+        float q0 = SQRT_2*q.w, q1 = SQRT_2*q.x, q2 = SQRT_2*q.y, q3 = SQRT_2*q.z;
+        
+        float qda = q0*q1, qdb = q0*q2, qdc = q0*q3;
+        float qaa = q1*q1, qab = q1*q2, qac = q1*q3;
+        float qbb = q2*q2, qbc = q2*q3, qcc = q3*q3;
+        
+        mult(m, 1.0f - qbb - qcc, -qdc + qab, qdb + qac,
+                qdc + qab, 1.0f - qaa - qcc, -qda + qbc,
+                -qdb + qac, qda + qbc, 1.0f - qaa - qbb, r);
     }
     
     /**
@@ -323,17 +354,26 @@ public class Mat3 implements FloatBufferable, DataStreamable<Mat3>
      */
     public static final void mult(Mat3 m0, Mat3 m1, Mat3 r)
     {
-        float a = m0.a*m1.a + m0.b*m1.d + m0.c*m1.g;
-        float b = m0.a*m1.b + m0.b*m1.e + m0.c*m1.h;
-        float c = m0.a*m1.c + m0.b*m1.f + m0.c*m1.i;
+        mult(m0, m1.a, m1.b, m1.c, m1.d, m1.e, m1.f, m1.g, m1.h, m1.i, r);
+    }
+    
+    /**
+     * Multiplies {@code m0} by the 3x3 matrix with the given entries, in
+     * row-major order, and stores the result in {@code r}.
+     */
+    static void mult(Mat3 m0, float a1, float b1, float c1, float d1, float e1, float f1, float g1, float h1, float i1, Mat3 r)
+    {
+        float a = m0.a*a1 + m0.b*d1 + m0.c*g1;
+        float b = m0.a*b1 + m0.b*e1 + m0.c*h1;
+        float c = m0.a*c1 + m0.b*f1 + m0.c*i1;
         
-        float d = m0.d*m1.a + m0.e*m1.d + m0.f*m1.g;
-        float e = m0.d*m1.b + m0.e*m1.e + m0.f*m1.h;
-        float f = m0.d*m1.c + m0.e*m1.f + m0.f*m1.i;
+        float d = m0.d*a1 + m0.e*d1 + m0.f*g1;
+        float e = m0.d*b1 + m0.e*e1 + m0.f*h1;
+        float f = m0.d*c1 + m0.e*f1 + m0.f*i1;
         
-        float g = m0.g*m1.a + m0.h*m1.d + m0.i*m1.g;
-        float h = m0.g*m1.b + m0.h*m1.e + m0.i*m1.h;
-        float i = m0.g*m1.c + m0.h*m1.f + m0.i*m1.i;
+        float g = m0.g*a1 + m0.h*d1 + m0.i*g1;
+        float h = m0.g*b1 + m0.h*e1 + m0.i*h1;
+        float i = m0.g*c1 + m0.h*f1 + m0.i*i1;
         
         r.a = a; r.b = b; r.c = c;
         r.d = d; r.e = e; r.f = f;
@@ -451,6 +491,19 @@ public class Mat3 implements FloatBufferable, DataStreamable<Mat3>
     }
     // </editor-fold>
     // <editor-fold defaultstate="collapsed" desc="Static factory methods">
+    /**
+     * Casts the given double matrix to a new float matrix.
+     * 
+     * @param mat The matrix to cast.
+     * @return A new matrix.
+     */
+    public static final Mat3 cast(Mat3d mat)
+    {
+        Mat3 result = new Mat3();
+        cast(mat, result);
+        return result;
+    }
+    
     /**
      * Returns a new 3x3 identity matrix.
      * 
@@ -838,6 +891,18 @@ public class Mat3 implements FloatBufferable, DataStreamable<Mat3>
         return this;
     }
     
+    /**
+     * Sets this to the given double matrix.
+     * 
+     * @param mat The matrix to set this to.
+     * @return This matrix.
+     */
+    public Mat3 setCast(Mat3d mat)
+    {
+        cast(mat, this);
+        return this;
+    }
+    
     /**
      * Sets this to the upper left corner of the given matrix.
      * 
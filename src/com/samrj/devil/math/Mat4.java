@@ -96,6 +96,43 @@ public class Mat4 implements FloatBufferable, DataStreamable<Mat4>
         r.m = s.m; r.n = s.n; r.o = s.o; r.p = s.p;
     }
     
+    /**
+     * Casts the source double matrix into the target matrix.
+     * 
+     * @param s The matrix to copy from.
+     * @param r The matrix to copy into.
+     */
+    public static final void cast(Mat4d s, Mat4 r)
+    {
+        r.a = (float)s.a; r.b = (float)s.b; r.c = (float)s.c; r.d = (float)s.d;
+        r.e = (float)s.e; r.f = (float)s.f; r.g = (float)s.g; r.h = (float)s.h;
+        r.i = (float)s.i; r.j = (float)s.j; r.k = (float)s.k; r.l = (float)s.l;
+        r.m = (float)s.m; r.n = (float)s.n; r.o = (float)s.o; r.p = (float)s.p;
+    }
+    
+    /**
+     * Translates the source double matrix by the negative of the given origin,
+     * then casts it into the target matrix. The translation is done in double
+     * precision, so that large world coordinates near the origin survive.
+     * 
+     * This is for camera-relative rendering. Positions far from the world
+     * origin lose precision as floats, so they are made relative to a nearby
+     * origin, usually the camera position, before being cast. The view matrix
+     * should then place the camera at the origin.
+     * 
+     * @param s The matrix to copy from.
+     * @param origin The origin to make the matrix relative to.
+     * @param r The matrix to copy into.
+     */
+    public static final void castRelative(Mat4d s, Vec3d origin, Mat4 r)
+    {
+        double x = origin.x, y = origin.y, z = origin.z;
+        r.a = (float)(s.a - x*s.m); r.b = (float)(s.b - x*s.n); r.c = (float)(s.c - x*s.o); r.d = (float)(s.d - x*s.p);
+        r.e = (float)(s.e - y*s.m); r.f = (float)(s.f - y*s.n); r.g = (float)(s.g - y*s.o); r.h = (float)(s.h - y*s.p);
+        r.i = (float)(s.i - z*s.m); r.j = (float)(s.j - z*s.n); r.k = (float)(s.k - z*s.o); r.l = (float)(s.l - z*s.p);
+        r.m = (float)s.m; r.n = (float)s.n; r.o = (float)s.o; r.p = (float)s.p;
+    }
+    
     /**
      * Sets the given matrix to the transformation matrix equal to the given
      * transform.
@@ -407,8 +444,19 @@ public class Mat4 implements FloatBufferable, DataStreamable<Mat4>
      */
     public static final void rotate(Mat4 x, Vec3 axis, float angle, Mat4 r)
     {
-        Mat4 temp = rotation(axis, angle); //Could probably be improved.
-        mult(x, temp, r);
+        float cos = (float)Math.cos(angle);
+        float sin = (float)Math.sin(angle);
+        float omcos = 1.0f - cos;
+        
+        float xsq = axis.x*axis.x, ysq = axis.y*axis.y, zsq = axis.z*axis.z;
+        
+        float xyomcos = axis.x*axis.y*omcos, zsin = axis.z*sin;
+        float xzomcos = axis.x*axis.z*omcos, ysin = axis.y*sin;
+        float yzomcos = axis.y*axis.z*omcos, xsin = axis.x*sin;
+        
+        mult(x, xsq + (1.0f - xsq)*cos, xyomcos - zsin, xzomcos + ysin,
+                xyomcos + zsin, ysq + (1.0f - ysq)*cos, yzomcos - xsin,
+                xzomcos - ysin, yzomcos + xsin, zsq + (1.0f - zsq)*cos, r);
     }
     
     /**
@@ -420,8 +468,15 @@ public class Mat4 implements FloatBufferable, DataStreamable<Mat4>
      */
     public static final void rotate(Mat4 x, Quat q, Mat4 r)
     {
-        Mat4 temp = rotation(q); //Could probably be improved, as above
-        mult(x, temp, r);
+        float q0 = SQRT_2*q.w, q1 = SQRT_2*q.x, q2 = SQRT_2*q.y, q3 = SQRT_2*q.z;
+        
+        float qda = q0*q1, qdb = q0*q2, qdc = q0*q3;
+        float qaa = q1*q1, qab = q1*q2, qac = q1*q3;
+        float qbb = q2*q2, qbc = q2*q3, qcc = q3*q3;
+        
+        mult(x, 1.0f - qbb - qcc, -qdc + qab, qdb + qac,
+                qdc + qab, 1.0f - qaa - qcc, -qda + qbc,
+                -qdb + qac, qda + qbc, 1.0f - qaa - qbb, r);
     }
     
     /**
@@ -476,6 +531,47 @@ public class Mat4 implements FloatBufferable, DataStreamable<Mat4>
         r.m = m; r.n = n; r.o = o; r.p = p;
     }
     
+    /**
+     * Multiplies {@code x} by the given 3x3 matrix, expanded to 4x4, and stores
+     * the result in {@code r}.
+     * 
+     * @param x The left-hand matrix to multiply.
+     * @param m The right-hand 3x3 matrix to multiply by.
+     * @param r The matrix in which to store the result.
+     */
+    public static final void mult(Mat4 x, Mat3 m, Mat4 r)
+    {
+        mult(x, m.a, m.b, m.c, m.d, m.e, m.f, m.g, m.h, m.i, r);
+    }
+    
+    /**
+     * Multiplies {@code x} by the 3x3 matrix with the given entries, in
+     * row-major order and expanded to 4x4, and stores the result in {@code r}.
+     */
+    static void mult(Mat4 x, float a1, float b1, float c1, float d1, float e1, float f1, float g1, float h1, float i1, Mat4 r)
+    {
+        float a = x.a*a1 + x.b*d1 + x.c*g1;
+        float b = x.a*b1 + x.b*e1 + x.c*h1;
+        float c = x.a*c1 + x.b*f1 + x.c*i1;
+        
+        float e = x.e*a1 + x.f*d1 + x.g*g1;
+        float f = x.e*b1 + x.f*e1 + x.g*h1;
+        float g = x.e*c1 + x.f*f1 + x.g*i1;
+        
+        float i = x.i*a1 + x.j*d1 + x.k*g1;
+        float j = x.i*b1 + x.j*e1 + x.k*h1;
+        float k = x.i*c1 + x.j*f1 + x.k*i1;
+        
+        float m = x.m*a1 + x.n*d1 + x.o*g1;
+        float n = x.m*b1 + x.n*e1 + x.o*h1;
+        float o = x.m*c1 + x.n*f1 + x.o*i1;
+        
+        r.a = a; r.b = b; r.c = c; r.d = x.d;
+        r.e = e; r.f = f; r.g = g; r.h = x.h;
+        r.i = i; r.j = j; r.k = k; r.l = x.l;
+        r.m = m; r.n = n; r.o = o; r.p = x.p;
+    }
+    
     /**
      * Multiplies the given matrix by the given transform, and stores the result
      * in {@code r}.
@@ -606,6 +702,34 @@ public class Mat4 implements FloatBufferable, DataStreamable<Mat4>
     }
     // </editor-fold>
     // <editor-fold defaultstate="collapsed" desc="Static factory methods">
+    /**
+     * Casts the given double matrix to a new float matrix.
+     * 
+     * @param mat The matrix to cast.
+     * @return A new matrix.
+     */
+    public static final Mat4 cast(Mat4d mat)
+    {
+        Mat4 result = new Mat4();
+        cast(mat, result);
+        return result;
+    }
+    
+    /**
+     * Casts the given double matrix to a new float matrix, relative to the
+     * given origin.
+     * 
+     * @param mat The matrix to cast.
+     * @param origin The origin to make the matrix relative to.
+     * @return A new matrix.
+     */
+    public static final Mat4 castRelative(Mat4d mat, Vec3d origin)
+    {
+        Mat4 result = new Mat4();
+        castRelative(mat, origin, result);
+        return result;
+    }
+    
     /**
      * Returns a new 4x4 identity matrix.
      * 
@@ -843,6 +967,21 @@ public class Mat4 implements FloatBufferable, DataStreamable<Mat4>
         return result;
     }
     
+    /**
+     * Multiplies {@code x} by the given 3x3 matrix, expanded to 4x4, and
+     * returns the result as a new matrix.
+     * 
+     * @param x The left-hand matrix to multiply.
+     * @param m The right-hand 3x3 matrix to multiply by.
+     * @return A new matrix containing the result.
+     */
+    public static final Mat4 mult(Mat4 x, Mat3 m)
+    {
+        Mat4 result = new Mat4();
+        mult(x, m, result);
+        return result;
+    }
+    
     /**
      * Multiplies {@code m} by {@code t} and returns the result as a new matrix.
      * 
@@ -1104,6 +1243,31 @@ public class Mat4 implements FloatBufferable, DataStreamable<Mat4>
         return this;
     }
     
+    /**
+     * Sets this to the given double matrix.
+     * 
+     * @param mat The matrix to set this to.
+     * @return This matrix.
+     */
+    public Mat4 setCast(Mat4d mat)
+    {
+        cast(mat, this);
+        return this;
+    }
+    
+    /**
+     * Sets this to the given double matrix, relative to the given origin.
+     * 
+     * @param mat The matrix to set this to.
+     * @param origin The origin to make the matrix relative to.
+     * @return This matrix.
+     */
+    public Mat4 setCastRelative(Mat4d mat, Vec3d origin)
+    {
+        castRelative(mat, origin, this);
+        return this;
+    }
+    
     /**
      * Sets the entries of this matrix.
      * 
@@ -1495,6 +1659,18 @@ public class Mat4 implements FloatBufferable, DataStreamable<Mat4>
         return this;
     }
     
+    /**
+     * Multiplies this matrix by the given 3x3 matrix, expanded to 4x4.
+     * 
+     * @param mat The 3x3 matrix to multiply by.
+     * @return This matrix.
+     */
+    public Mat4 mult(Mat3 mat)
+    {
+        mult(this, mat, this);
+        return this;
+    }
+    
     /**
      * Multiplies this matrix by the given transform.
      * 
@@ -0,0 +1,271 @@
+package com.samrj.devil.math;
+
+import com.samrj.devil.util.FloatBufferable;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import static com.samrj.devil.math.Vec3Array.checkSize;
+
+/**
+ * A fixed-size array of 4x4 matrices, packed into a single float array. Like
+ * buffered Mat4s, each matrix is stored in column-major order, so the array
+ * may be streamed straight into a buffer for OpenGL.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class Mat4Array implements FloatBufferable
+{
+    private static final ThreadLocal<float[]> PACKED = ThreadLocal.withInitial(() -> new float[16]);
+    
+    // <editor-fold defaultstate="collapsed" desc="Static mutator methods">
+    /**
+     * Copies the source array into the target array.
+     * 
+     * @param source The array to copy from.
+     * @param target The array to copy into.
+     */
+    public static void copy(Mat4Array source, Mat4Array target)
+    {
+        checkSize(source.size, target.size);
+        System.arraycopy(source.data, 0, target.data, 0, source.size*16);
+    }
+    
+    /**
+     * Sets every matrix in the given array to the identity matrix.
+     * 
+     * @param result The array to set.
+     */
+    public static void identity(Mat4Array result)
+    {
+        float[] rd = result.data;
+        for (int i=0; i<result.size*16; i+=16)
+            for (int j=0; j<16; j++) rd[i + j] = j%5 == 0 ? 1.0f : 0.0f;
+    }
+    
+    /**
+     * Multiplies each matrix in {@code a} by the matrix at the same index in
+     * {@code b}, and stores the results in {@code result}.
+     * 
+     * @param a The left-hand matrices to multiply.
+     * @param b The right-hand matrices to multiply by.
+     * @param result The array in which to store the results.
+     */
+    public static void mult(Mat4Array a, Mat4Array b, Mat4Array result)
+    {
+        checkSize(a.size, b.size);
+        checkSize(a.size, result.size);
+        MathKernels.get().mat4Mult(a.data, 16, b.data, 16, result.data, a.size);
+    }
+    
+    /**
+     * Multiplies the given matrix by each matrix in {@code b}, and stores the
+     * results in {@code result}. For example, a view-projection matrix may be
+     * applied to an array of model matrices.
+     * 
+     * @param m The left-hand matrix to multiply.
+     * @param b The right-hand matrices to multiply by.
+     * @param result The array in which to store the results.
+     */
+    public static void mult(Mat4 m, Mat4Array b, Mat4Array result)
+    {
+        checkSize(b.size, result.size);
+        MathKernels.get().mat4Mult(pack(m), 0, b.data, 16, result.data, b.size);
+    }
+    
+    /**
+     * Multiplies each matrix in {@code a} by the given matrix, and stores the
+     * results in {@code result}.
+     * 
+     * @param a The left-hand matrices to multiply.
+     * @param m The right-hand matrix to multiply by.
+     * @param result The array in which to store the results.
+     */
+    public static void mult(Mat4Array a, Mat4 m, Mat4Array result)
+    {
+        checkSize(a.size, result.size);
+        MathKernels.get().mat4Mult(a.data, 16, pack(m), 0, result.data, a.size);
+    }
+    
+    /**
+     * Sets each matrix in {@code result} to the transformation matrix of the
+     * transform at the same index, as with Mat4.transform(). Each matrix is
+     * translation*rotation*scale.
+     * 
+     * @param t The transforms to convert.
+     * @param result The array in which to store the results.
+     */
+    public static void transform(TransformArray t, Mat4Array result)
+    {
+        checkSize(t.size, result.size);
+        float[] pd = t.pos.data, qd = t.rot.data, sd = t.sca.data, rd = result.data;
+        for (int n=0; n<t.size; n++)
+        {
+            int p = n*3, q = n*4, r = n*16;
+            float x = qd[q], y = qd[q + 1], z = qd[q + 2], w = qd[q + 3];
+            float sx = sd[p], sy = sd[p + 1], sz = sd[p + 2];
+            
+            float xx = 2.0f*x*x, yy = 2.0f*y*y, zz = 2.0f*z*z;
+            float xy = 2.0f*x*y, xz = 2.0f*x*z, yz = 2.0f*y*z;
+            float wx = 2.0f*w*x, wy = 2.0f*w*y, wz = 2.0f*w*z;
+            
+            rd[r] = (1.0f - yy - zz)*sx;
+            rd[r + 1] = (xy + wz)*sx;
+            rd[r + 2] = (xz - wy)*sx;
+            rd[r + 3] = 0.0f;
+            
+            rd[r + 4] = (xy - wz)*sy;
+            rd[r + 5] = (1.0f - xx - zz)*sy;
+            rd[r + 6] = (yz + wx)*sy;
+            rd[r + 7] = 0.0f;
+            
+            rd[r + 8] = (xz + wy)*sz;
+            rd[r + 9] = (yz - wx)*sz;
+            rd[r + 10] = (1.0f - xx - yy)*sz;
+            rd[r + 11] = 0.0f;
+            
+            rd[r + 12] = pd[p];
+            rd[r + 13] = pd[p + 1];
+            rd[r + 14] = pd[p + 2];
+            rd[r + 15] = 1.0f;
+        }
+    }
+    
+    /**
+     * Packs the given matrix into the given array in column-major order.
+     */
+    static void put(Mat4 m, float[] d, int i)
+    {
+        d[i] = m.a; d[i + 1] = m.e; d[i + 2] = m.i; d[i + 3] = m.m;
+        d[i + 4] = m.b; d[i + 5] = m.f; d[i + 6] = m.j; d[i + 7] = m.n;
+        d[i + 8] = m.c; d[i + 9] = m.g; d[i + 10] = m.k; d[i + 11] = m.o;
+        d[i + 12] = m.d; d[i + 13] = m.h; d[i + 14] = m.l; d[i + 15] = m.p;
+    }
+    
+    /**
+     * Packs the given matrix into this thread's scratch array, so it may be
+     * passed to a kernel without allocating. The array is overwritten by the
+     * next call on the same thread.
+     */
+    static float[] pack(Mat4 m)
+    {
+        float[] d = PACKED.get();
+        put(m, d, 0);
+        return d;
+    }
+    // </editor-fold>
+    
+    /**
+     * The number of matrices in this array.
+     */
+    public final int size;
+    
+    /**
+     * The packed entries of each matrix, in column-major order. Matrix n
+     * starts at index n*16.
+     */
+    public final float[] data;
+    
+    /**
+     * Creates a new array of the given number of identity matrices.
+     * 
+     * @param size The number of matrices.
+     */
+    public Mat4Array(int size)
+    {
+        if (size < 0) throw new IllegalArgumentException();
+        this.size = size;
+        data = new float[size*16];
+        identity(this);
+    }
+    
+    // <editor-fold defaultstate="collapsed" desc="Instance accessor methods">
+    /**
+     * Copies the matrix at the given index into {@code result}.
+     * 
+     * @param index The index of the matrix to get.
+     * @param result The matrix in which to store the result.
+     * @return The given result matrix.
+     */
+    public Mat4 get(int index, Mat4 result)
+    {
+        int i = index*16;
+        result.a = data[i]; result.e = data[i + 1]; result.i = data[i + 2]; result.m = data[i + 3];
+        result.b = data[i + 4]; result.f = data[i + 5]; result.j = data[i + 6]; result.n = data[i + 7];
+        result.c = data[i + 8]; result.g = data[i + 9]; result.k = data[i + 10]; result.o = data[i + 11];
+        result.d = data[i + 12]; result.h = data[i + 13]; result.l = data[i + 14]; result.p = data[i + 15];
+        return result;
+    }
+    
+    /**
+     * Returns a new copy of the matrix at the given index.
+     * 
+     * @param index The index of the matrix to get.
+     * @return A new matrix.
+     */
+    public Mat4 get(int index)
+    {
+        return get(index, new Mat4());
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="Instance mutator methods">
+    /**
+     * Sets the matrix at the given index to the given matrix.
+     * 
+     * @param index The index of the matrix to set.
+     * @param m The matrix to copy.
+     * @return This array.
+     */
+    public Mat4Array set(int index, Mat4 m)
+    {
+        put(m, data, index*16);
+        return this;
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="Overriden/implemented methods">
+    @Override
+    public void read(ByteBuffer buffer)
+    {
+        buffer.asFloatBuffer().get(data);
+        buffer.position(buffer.position() + data.length*4);
+    }
+    
+    @Override
+    public void write(ByteBuffer buffer)
+    {
+        buffer.asFloatBuffer().put(data);
+        buffer.position(buffer.position() + data.length*4);
+    }
+    
+    @Override
+    public void read(FloatBuffer buffer)
+    {
+        buffer.get(data);
+    }
+    
+    @Override
+    public void write(FloatBuffer buffer)
+    {
+        buffer.put(data);
+    }
+    
+    /**
+     * Writes the given range of matrices into the given buffer.
+     * 
+     * @param buffer The buffer to write into.
+     * @param first The index of the first matrix to write.
+     * @param count The number of matrices to write.
+     */
+    public void write(FloatBuffer buffer, int first, int count)
+    {
+        buffer.put(data, first*16, count*16);
+    }
+    
+    @Override
+    public int bufferSize()
+    {
+        return size*16*4;
+    }
+    // </editor-fold>
+}
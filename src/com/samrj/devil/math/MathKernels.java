@@ -0,0 +1,94 @@
+package com.samrj.devil.math;
+
+/**
+ * Batch math kernels over packed float arrays, which back the bulk array
+ * types such as Vec3Array and Mat4Array. Matrices are packed in column-major
+ * order, quaternions as x, y, z, w, and vectors as x, y, z, as in each array
+ * type.
+ * 
+ * The kernels in use are selected once, at runtime. If the optional vector
+ * kernels are on the classpath and the jdk.incubator.vector module is present,
+ * they are used. Otherwise, scalar kernels are used. Both give identical
+ * results. Setting the system property devil.math.scalar to true forces the
+ * scalar kernels.
+ * 
+ * Any result array may be the same as an input array.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public interface MathKernels
+{
+    /**
+     * Returns the kernels selected for this runtime.
+     */
+    public static MathKernels get()
+    {
+        return ScalarKernels.SELECTED;
+    }
+    
+    /**
+     * Returns the scalar kernels, which are always available.
+     */
+    public static MathKernels scalar()
+    {
+        return ScalarKernels.INSTANCE;
+    }
+    
+    /**
+     * @return A short name for these kernels, for diagnostics.
+     */
+    public String getName();
+    
+    /**
+     * Multiplies count pairs of 4x4 matrices. A stride of zero uses the same
+     * matrix for every product, and a stride of 16 steps through an array.
+     * 
+     * @param a The left-hand matrices.
+     * @param aStride The stride of a, either 0 or 16.
+     * @param b The right-hand matrices.
+     * @param bStride The stride of b, either 0 or 16.
+     * @param r The array in which to store count matrices.
+     * @param count The number of products.
+     */
+    public void mat4Mult(float[] a, int aStride, float[] b, int bStride, float[] r, int count);
+    
+    /**
+     * Transforms count points by 4x4 matrices. A stride of zero uses the same
+     * matrix for every point, and a stride of 16 uses one matrix per point.
+     * 
+     * @param m The matrices.
+     * @param mStride The stride of m, either 0 or 16.
+     * @param v The packed points to transform.
+     * @param r The array in which to store the transformed points.
+     * @param count The number of points.
+     */
+    public void mat4MultPoints(float[] m, int mStride, float[] v, float[] r, int count);
+    
+    /**
+     * Normalizes count packed quaternions.
+     */
+    public void quatNormalize(float[] q, float[] r, int count);
+    
+    /**
+     * Performs a spherical linear interpolation between count pairs of packed
+     * quaternions, as with Quat.slerp(). Like Quat.slerp(), this uses the fast
+     * trigonometric approximations in Util if Util.FAST_MATH is set, in every
+     * implementation.
+     */
+    public void quatSlerp(float[] a, float[] b, float t, float[] r, int count);
+    
+    /**
+     * Finds the dot products of count pairs of vectors, given as separate
+     * arrays of x, y and z components.
+     */
+    public void dot(float[] ax, float[] ay, float[] az, float[] bx, float[] by, float[] bz, float[] r, int count);
+    
+    /**
+     * Finds the cross products of count pairs of vectors, given as separate
+     * arrays of x, y and z components.
+     */
+    public void cross(float[] ax, float[] ay, float[] az, float[] bx, float[] by, float[] bz,
+                      float[] rx, float[] ry, float[] rz, int count);
+}
@@ -90,6 +90,20 @@ public class Quat implements FloatBufferable, DataStreamable<Quat>
         target.z = source.z;
     }
     
+    /**
+     * Casts the double quaternion {@code source} into {@code target}.
+     * 
+     * @param source The quaternion to copy.
+     * @param target The quaternion to copy into.
+     */
+    public static final void cast(Quatd source, Quat target)
+    {
+        target.w = (float)source.w;
+        target.x = (float)source.x;
+        target.y = (float)source.y;
+        target.z = (float)source.z;
+    }
+    
     /**
      * Sets the given quaternion to the identity rotation.
      * 
@@ -114,9 +128,9 @@ public class Quat implements FloatBufferable, DataStreamable<Quat>
     public static final void rotation(Vec3 axis, float angle, Quat result)
     {
         float a = angle*.5f;
-        float sin = (float)Math.sin(a);
+        float sin = Util.FAST_MATH ? Util.fastSin(a) : (float)Math.sin(a);
         
-        result.w = (float)Math.cos(a);
+        result.w = Util.FAST_MATH ? Util.fastCos(a) : (float)Math.cos(a);
         result.x = axis.x*sin;
         result.y = axis.y*sin;
         result.z = axis.z*sin;
@@ -138,10 +152,11 @@ public class Quat implements FloatBufferable, DataStreamable<Quat>
             return;
         }
         
-        Vec3 v0 = Vec3.normalize(start);
-        Vec3 v1 = Vec3.normalize(end);
+        float len0 = start.length(), len1 = end.length();
+        float x0 = start.x/len0, y0 = start.y/len0, z0 = start.z/len0;
+        float x1 = end.x/len1, y1 = end.y/len1, z1 = end.z/len1;
 
-        float dot = v0.dot(v1);
+        float dot = x0*x1 + y0*y1 + z0*z1;
         if (Util.equals(dot, 1.0f, EPSILON)) //this and v have same direction.
         {
             result.setIdentity();
@@ -152,17 +167,25 @@ public class Quat implements FloatBufferable, DataStreamable<Quat>
         //arbitrary axis normal to this.
         if (Util.equals(dot, -1.0f, EPSILON))
         {
-            Vec3 axis = new Vec3(1.0f, 0.0f, 0.0f).cross(v0);
+            //The cross product of the X axis and v0.
+            float ay = -z0, az = y0;
             //this lies along X axis and v is our opposite, so we can optimize.
-            if (axis.x == 0.0f && axis.y == 0.0f && axis.z == 0.0f)
+            if (ay == 0.0f && az == 0.0f)
                 result.set(0.0f, 0.0f, 0.0f, -1.0f);
-            else result.setRotation(axis.normalize(), Util.PI);
+            else
+            {
+                float len = (float)Math.sqrt(ay*ay + az*az);
+                float sin = (float)Math.sin(Util.PI*.5f);
+                result.set((float)Math.cos(Util.PI*.5f), 0.0f, ay/len*sin, az/len*sin);
+            }
             return;
         }
         
-        v0.cross(v1);
+        float cx = y0*z1 - z0*y1;
+        float cy = z0*x1 - x0*z1;
+        float cz = x0*y1 - y0*x1;
         float s = (float)Math.sqrt(2f + dot*2f);
-        result.set(s*0.5f, v0.x/s, v0.y/s, v0.z/s).normalize();
+        result.set(s*0.5f, cx/s, cy/s, cz/s).normalize();
     }
     
     /**
@@ -173,34 +196,52 @@ public class Quat implements FloatBufferable, DataStreamable<Quat>
      */
     public static final void rotation(Mat3 m, Quat result)
     {
-        float[] tr = {m.a + m.e + m.i,
-                      m.a - m.e - m.i,
-                      m.e - m.a - m.i,
-                      m.i - m.a - m.e};
+        rotation(m.a, m.b, m.c, m.d, m.e, m.f, m.g, m.h, m.i, result);
+    }
+    
+    /**
+     * Sets the given quaternion to the rotation of the 3x3 matrix with the
+     * given entries, in row-major order.
+     */
+    static void rotation(float a, float b, float c, float d, float e, float f, float g, float h, float i, Quat result)
+    {
+        float t0 = a + e + i;
+        float t1 = a - e - i;
+        float t2 = e - a - i;
+        float t3 = i - a - e;
         
-        int i = Util.maxdex(tr);
-        float s = 2.0f*(float)Math.sqrt(1.0f + tr[i]);
-        switch(i)
+        //Use the largest trace, for stability.
+        if (t0 >= t1 && t0 >= t2 && t0 >= t3)
+        {
+            float s = 2.0f*(float)Math.sqrt(1.0f + t0);
+            result.w = 0.25f*s;
+            result.x = (h - f)/s;
+            result.y = (c - g)/s;
+            result.z = (d - b)/s;
+        }
+        else if (t1 >= t2 && t1 >= t3)
         {
-            case 0: result.w = 0.25f*s;
-                    result.x = (m.h - m.f)/s;
-                    result.y = (m.c - m.g)/s;
-                    result.z = (m.d - m.b)/s;
-                    return;
-            case 1: result.w = (m.h - m.f)/s;
-                    result.x = 0.25f*s;
-                    result.y = (m.b + m.d)/s;
-                    result.z = (m.c + m.g)/s;
-                    return;
-            case 2: result.w = (m.c - m.g)/s;
-                    result.x = (m.b + m.d)/s;
-                    result.y = 0.25f*s;
-                    result.z = (m.f + m.h)/s;
-                    return;
-            case 3: result.w = (m.d - m.b)/s;
-                    result.x = (m.c + m.g)/s;
-                    result.y = (m.f + m.h)/s;
-                    result.z = 0.25f*s;
+            float s = 2.0f*(float)Math.sqrt(1.0f + t1);
+            result.w = (h - f)/s;
+            result.x = 0.25f*s;
+            result.y = (b + d)/s;
+            result.z = (c + g)/s;
+        }
+        else if (t2 >= t3)
+        {
+            float s = 2.0f*(float)Math.sqrt(1.0f + t2);
+            result.w = (c - g)/s;
+            result.x = (b + d)/s;
+            result.y = 0.25f*s;
+            result.z = (f + h)/s;
+        }
+        else
+        {
+            float s = 2.0f*(float)Math.sqrt(1.0f + t3);
+            result.w = (d - b)/s;
+            result.x = (c + g)/s;
+            result.y = (f + h)/s;
+            result.z = 0.25f*s;
         }
     }
     
@@ -216,8 +257,16 @@ public class Quat implements FloatBufferable, DataStreamable<Quat>
      */
     public static final void rotate(Quat q, Vec3 axis, float angle, Quat result)
     {
-        Quat temp = rotation(axis, angle);
-        mult(q, temp, result);
+        float a = angle*.5f;
+        float sin = Util.FAST_MATH ? Util.fastSin(a) : (float)Math.sin(a);
+        float rw = Util.FAST_MATH ? Util.fastCos(a) : (float)Math.cos(a), rx = axis.x*sin, ry = axis.y*sin, rz = axis.z*sin;
+        
+        float w = q.w*rw - q.x*rx - q.y*ry - q.z*rz;
+        float x = q.w*rx + q.x*rw + q.y*rz - q.z*ry;
+        float y = q.w*ry - q.x*rz + q.y*rw + q.z*rx;
+        float z = q.w*rz + q.x*ry - q.y*rx + q.z*rw;
+        
+        result.w = w; result.x = x; result.y = y; result.z = z;
     }
     
     /**
@@ -387,9 +436,9 @@ public class Quat implements FloatBufferable, DataStreamable<Quat>
     
     /**
      * Performs a spherical linear interpolation between the two given
-     * quaternions and stores the result in {@code r}.
-     * 
-     * TODO: Actually fix this crap.
+     * quaternions and stores the result in {@code result}. Interpolates along
+     * the shorter of the two arcs, and falls back to a normalized linear
+     * interpolation when the quaternions are nearly equal.
      * 
      * @param q0 The 'start' quaternion to interpolate from.
      * @param q1 The 'end' quaternion to interpolate to.
@@ -398,21 +447,39 @@ public class Quat implements FloatBufferable, DataStreamable<Quat>
      */
     public static final void slerp(Quat q0, Quat q1, float t, Quat result)
     {
+        //Negate q0 if needed to take the shorter path, without allocating.
         float dot = dot(q0, q1);
-        if (dot < 0.0)
+        float sign = 1.0f;
+        if (dot < 0.0f)
         {
             dot = -dot;
-            q0 = negate(q0);
+            sign = -1.0f;
         }
         
-        if (dot > 0.9995f) lerp(q0, q1, t, result);
+        float s0, s1;
+        if (dot > 0.9995f)
+        {
+            s0 = 1.0f - t;
+            s1 = t;
+        }
+        else if (Util.FAST_MATH)
+        {
+            float ang = Util.fastAcos(dot);
+            s0 = Util.fastSin((1.0f - t)*ang);
+            s1 = Util.fastSin(t*ang);
+        }
         else
         {
             float ang = (float)Math.acos(dot);
-            mult(q0, (float)Math.sin((1.0f - t)*ang), result);
-            madd(result, q1, (float)Math.sin(t*ang), result);
+            s0 = (float)Math.sin((1.0f - t)*ang);
+            s1 = (float)Math.sin(t*ang);
         }
+        s0 *= sign;
         
+        result.set(q0.w*s0 + q1.w*s1,
+                   q0.x*s0 + q1.x*s1,
+                   q0.y*s0 + q1.y*s1,
+                   q0.z*s0 + q1.z*s1);
         normalize(result, result);
     }
     
@@ -425,8 +492,10 @@ public class Quat implements FloatBufferable, DataStreamable<Quat>
      */
     public static final void angles(Quat q, Vec3 result)
     {
-        result.x = (float)Math.atan2(2.0f*(q.w*q.x - q.y*q.z), 1.0f - 2.0f*(q.z*q.z + q.x*q.x));
-        result.y = (float)Math.atan2(2.0f*(q.w*q.y - q.z*q.x), 1.0f - 2.0f*(q.y*q.y + q.z*q.z));
+        float px = 2.0f*(q.w*q.x - q.y*q.z), py = 1.0f - 2.0f*(q.z*q.z + q.x*q.x);
+        float yx = 2.0f*(q.w*q.y - q.z*q.x), yy = 1.0f - 2.0f*(q.y*q.y + q.z*q.z);
+        result.x = Util.FAST_MATH ? Util.fastAtan2(px, py) : (float)Math.atan2(px, py);
+        result.y = Util.FAST_MATH ? Util.fastAtan2(yx, yy) : (float)Math.atan2(yx, yy);
         result.z = (float)Math.asin(2.0f*(q.x*q.y - q.w*q.z));
     }
     
@@ -445,11 +514,24 @@ public class Quat implements FloatBufferable, DataStreamable<Quat>
         }
         
         result.set(q.x, q.y, q.z);
-        float angle = (float)(2.0*Math.atan2(norm, q.w));
+        float angle = Util.FAST_MATH ? 2.0f*Util.fastAtan2(norm, q.w) : (float)(2.0*Math.atan2(norm, q.w));
         Vec3.mult(result, angle/norm, result);
     }
     // </editor-fold>
     // <editor-fold defaultstate="collapsed" desc="Static factory methods">
+    /**
+     * Casts the given double quaternion to a new float quaternion.
+     * 
+     * @param q The quaternion to cast.
+     * @return A new quaternion.
+     */
+    public static final Quat cast(Quatd q)
+    {
+        Quat result = new Quat();
+        cast(q, result);
+        return result;
+    }
+    
     /**
      * Returns a new instance of the identity quaternion.
      * 
@@ -797,6 +879,18 @@ public class Quat implements FloatBufferable, DataStreamable<Quat>
         return this;
     }
     
+    /**
+     * Sets this to the given double quaternion.
+     * 
+     * @param q The quaternion to set this to.
+     * @return This quaternion.
+     */
+    public Quat setCast(Quatd q)
+    {
+        cast(q, this);
+        return this;
+    }
+    
     /**
      * Sets the coordinates of this quaternion.
      * 
@@ -0,0 +1,299 @@
+package com.samrj.devil.math;
+
+import com.samrj.devil.util.FloatBufferable;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import static com.samrj.devil.math.Vec3Array.checkSize;
+
+/**
+ * A fixed-size array of quaternions, packed into a single float array. Like
+ * buffered Quats, each quaternion is stored as x, y, z, then w, so the array
+ * may be streamed straight into a buffer for GLSL.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class QuatArray implements FloatBufferable
+{
+    /**
+     * Rotates the vector at the given index of {@code src} by the given
+     * quaternion, storing it at the given index of {@code dst}.
+     */
+    static void rotate(float qx, float qy, float qz, float qw, float[] src, int s, float[] dst, int d)
+    {
+        float vx = src[s], vy = src[s + 1], vz = src[s + 2];
+        float tx = 2.0f*(qy*vz - qz*vy);
+        float ty = 2.0f*(qz*vx - qx*vz);
+        float tz = 2.0f*(qx*vy - qy*vx);
+        dst[d] = vx + qy*tz - qz*ty + qw*tx;
+        dst[d + 1] = vy + qz*tx - qx*tz + qw*ty;
+        dst[d + 2] = vz + qx*ty - qy*tx + qw*tz;
+    }
+    
+    // <editor-fold defaultstate="collapsed" desc="Static mutator methods">
+    /**
+     * Copies the source array into the target array.
+     * 
+     * @param source The array to copy from.
+     * @param target The array to copy into.
+     */
+    public static void copy(QuatArray source, QuatArray target)
+    {
+        checkSize(source.size, target.size);
+        System.arraycopy(source.data, 0, target.data, 0, source.size*4);
+    }
+    
+    /**
+     * Sets every quaternion in the given array to the identity.
+     * 
+     * @param result The array to set.
+     */
+    public static void identity(QuatArray result)
+    {
+        float[] rd = result.data;
+        for (int i=0; i<result.size*4; i+=4)
+        {
+            rd[i] = 0.0f;
+            rd[i + 1] = 0.0f;
+            rd[i + 2] = 0.0f;
+            rd[i + 3] = 1.0f;
+        }
+    }
+    
+    /**
+     * Multiplies each quaternion in {@code a} by the quaternion at the same
+     * index in {@code b}, and stores the results in {@code result}.
+     * 
+     * @param a The left-hand quaternions to multiply.
+     * @param b The right-hand quaternions to multiply by.
+     * @param result The array in which to store the results.
+     */
+    public static void mult(QuatArray a, QuatArray b, QuatArray result)
+    {
+        checkSize(a.size, b.size);
+        checkSize(a.size, result.size);
+        float[] ad = a.data, bd = b.data, rd = result.data;
+        for (int i=0; i<a.size*4; i+=4)
+        {
+            float x0 = ad[i], y0 = ad[i + 1], z0 = ad[i + 2], w0 = ad[i + 3];
+            float x1 = bd[i], y1 = bd[i + 1], z1 = bd[i + 2], w1 = bd[i + 3];
+            rd[i] = w0*x1 + x0*w1 + y0*z1 - z0*y1;
+            rd[i + 1] = w0*y1 - x0*z1 + y0*w1 + z0*x1;
+            rd[i + 2] = w0*z1 + x0*y1 - y0*x1 + z0*w1;
+            rd[i + 3] = w0*w1 - x0*x1 - y0*y1 - z0*z1;
+        }
+    }
+    
+    /**
+     * Multiplies the given quaternion by each quaternion in {@code b}, and
+     * stores the results in {@code result}.
+     * 
+     * @param q The left-hand quaternion to multiply.
+     * @param b The right-hand quaternions to multiply by.
+     * @param result The array in which to store the results.
+     */
+    public static void mult(Quat q, QuatArray b, QuatArray result)
+    {
+        checkSize(b.size, result.size);
+        float[] bd = b.data, rd = result.data;
+        float x0 = q.x, y0 = q.y, z0 = q.z, w0 = q.w;
+        for (int i=0; i<b.size*4; i+=4)
+        {
+            float x1 = bd[i], y1 = bd[i + 1], z1 = bd[i + 2], w1 = bd[i + 3];
+            rd[i] = w0*x1 + x0*w1 + y0*z1 - z0*y1;
+            rd[i + 1] = w0*y1 - x0*z1 + y0*w1 + z0*x1;
+            rd[i + 2] = w0*z1 + x0*y1 - y0*x1 + z0*w1;
+            rd[i + 3] = w0*w1 - x0*x1 - y0*y1 - z0*z1;
+        }
+    }
+    
+    /**
+     * Normalizes each quaternion in {@code a}, and stores the results in
+     * {@code result}.
+     * 
+     * @param a The quaternions to normalize.
+     * @param result The array in which to store the results.
+     */
+    public static void normalize(QuatArray a, QuatArray result)
+    {
+        checkSize(a.size, result.size);
+        MathKernels.get().quatNormalize(a.data, result.data, a.size);
+    }
+    
+    /**
+     * Linearly interpolates between each pair of quaternions in {@code a} and
+     * {@code b}, and stores the results in {@code result}. The results are
+     * not normalized.
+     * 
+     * @param a The 'start' quaternions to interpolate from.
+     * @param b The 'end' quaternions to interpolate to.
+     * @param t The scalar interpolant, between zero and one (inclusive).
+     * @param result The array in which to store the results.
+     */
+    public static void lerp(QuatArray a, QuatArray b, float t, QuatArray result)
+    {
+        checkSize(a.size, b.size);
+        checkSize(a.size, result.size);
+        float[] ad = a.data, bd = b.data, rd = result.data;
+        for (int i=0; i<a.size*4; i++) rd[i] = ad[i] + (bd[i] - ad[i])*t;
+    }
+    
+    /**
+     * Performs a spherical linear interpolation between each pair of
+     * quaternions in {@code a} and {@code b}, and stores the results in
+     * {@code result}. Matches Quat.slerp(), taking the shortest path.
+     * 
+     * @param a The 'start' quaternions to interpolate from.
+     * @param b The 'end' quaternions to interpolate to.
+     * @param t The scalar interpolant, between zero and one (inclusive).
+     * @param result The array in which to store the results.
+     */
+    public static void slerp(QuatArray a, QuatArray b, float t, QuatArray result)
+    {
+        checkSize(a.size, b.size);
+        checkSize(a.size, result.size);
+        MathKernels.get().quatSlerp(a.data, b.data, t, result.data, a.size);
+    }
+    // </editor-fold>
+    
+    /**
+     * The number of quaternions in this array.
+     */
+    public final int size;
+    
+    /**
+     * The packed components of each quaternion, in x, y, z, w order.
+     * Quaternion n starts at index n*4.
+     */
+    public final float[] data;
+    
+    /**
+     * Creates a new array of the given number of identity quaternions.
+     * 
+     * @param size The number of quaternions.
+     */
+    public QuatArray(int size)
+    {
+        if (size < 0) throw new IllegalArgumentException();
+        this.size = size;
+        data = new float[size*4];
+        identity(this);
+    }
+    
+    /**
+     * Creates a new array containing copies of the given quaternions.
+     * 
+     * @param quats The quaternions to copy.
+     */
+    public QuatArray(Quat... quats)
+    {
+        this(quats.length);
+        for (int i=0; i<size; i++) set(i, quats[i]);
+    }
+    
+    // <editor-fold defaultstate="collapsed" desc="Instance accessor methods">
+    /**
+     * Copies the quaternion at the given index into {@code result}.
+     * 
+     * @param index The index of the quaternion to get.
+     * @param result The quaternion in which to store the result.
+     * @return The given result quaternion.
+     */
+    public Quat get(int index, Quat result)
+    {
+        int i = index*4;
+        result.x = data[i];
+        result.y = data[i + 1];
+        result.z = data[i + 2];
+        result.w = data[i + 3];
+        return result;
+    }
+    
+    /**
+     * Returns a new copy of the quaternion at the given index.
+     * 
+     * @param index The index of the quaternion to get.
+     * @return A new quaternion.
+     */
+    public Quat get(int index)
+    {
+        return get(index, new Quat());
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="Instance mutator methods">
+    /**
+     * Sets the quaternion at the given index to the given quaternion.
+     * 
+     * @param index The index of the quaternion to set.
+     * @param q The quaternion to copy.
+     * @return This array.
+     */
+    public QuatArray set(int index, Quat q)
+    {
+        return set(index, q.w, q.x, q.y, q.z);
+    }
+    
+    /**
+     * Sets the quaternion at the given index to the given components, given
+     * in the same order as Quat's constructor.
+     * 
+     * @return This array.
+     */
+    public QuatArray set(int index, float w, float x, float y, float z)
+    {
+        int i = index*4;
+        data[i] = x;
+        data[i + 1] = y;
+        data[i + 2] = z;
+        data[i + 3] = w;
+        return this;
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="Overriden/implemented methods">
+    @Override
+    public void read(ByteBuffer buffer)
+    {
+        buffer.asFloatBuffer().get(data);
+        buffer.position(buffer.position() + data.length*4);
+    }
+    
+    @Override
+    public void write(ByteBuffer buffer)
+    {
+        buffer.asFloatBuffer().put(data);
+        buffer.position(buffer.position() + data.length*4);
+    }
+    
+    @Override
+    public void read(FloatBuffer buffer)
+    {
+        buffer.get(data);
+    }
+    
+    @Override
+    public void write(FloatBuffer buffer)
+    {
+        buffer.put(data);
+    }
+    
+    /**
+     * Writes the given range of quaternions into the given buffer.
+     * 
+     * @param buffer The buffer to write into.
+     * @param first The index of the first quaternion to write.
+     * @param count The number of quaternions to write.
+     */
+    public void write(FloatBuffer buffer, int first, int count)
+    {
+        buffer.put(data, first*4, count*4);
+    }
+    
+    @Override
+    public int bufferSize()
+    {
+        return size*4*4;
+    }
+    // </editor-fold>
+}
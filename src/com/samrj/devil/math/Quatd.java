@@ -0,0 +1,1199 @@
+/*
+ * Copyright (c) 2020 Sam Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.samrj.devil.math;
+
+import com.samrj.devil.util.DataStreamable;
+import com.samrj.devil.util.Bufferable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Double quaternion class.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ */
+public class Quatd implements Bufferable, DataStreamable<Quatd>
+{
+    private static final double EPSILON = 1.0/65536.0;
+    
+    // <editor-fold defaultstate="collapsed" desc="Static accessor methods">
+    /**
+     * Returns the dot product of the two given quaternions.
+     * 
+     * @param q0 The first quaternion to multiply.
+     * @param q1 The second quaternion to multiply.
+     * @return The dot product of the two given quaternions.
+     */
+    public static final double dot(Quatd q0, Quatd q1)
+    {
+        return q0.w*q1.w + q0.x*q1.x + q0.y*q1.y + q0.z*q1.z;
+    }
+    
+    /**
+     * Returns the square length of the given quaternion. May be alternately
+     * defined as the dot product of the quaternion with itself.
+     * 
+     * @param q A quaternion.
+     * @return The dot product of the given quaternion.
+     */
+    public static final double squareLength(Quatd q)
+    {
+        return q.w*q.w + q.x*q.x + q.y*q.y + q.z*q.z;
+    }
+    
+    /**
+     * Returns the length of the given quaternion.
+     * 
+     * @param q A quaternion.
+     * @return The length of the given quaternion.
+     */
+    public static final double length(Quatd q)
+    {
+        return Math.sqrt(squareLength(q));
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="Static mutator methods">
+    /**
+     *  Copies {@code source} into {@code target}.
+     * 
+     * @param source The quaternion to copy.
+     * @param target The quaternion to copy into.
+     */
+    public static final void copy(Quatd source, Quatd target)
+    {
+        target.w = source.w;
+        target.x = source.x;
+        target.y = source.y;
+        target.z = source.z;
+    }
+    
+    /**
+     * Copies the float quaternion {@code source} into {@code target}.
+     * 
+     * @param source The quaternion to copy.
+     * @param target The quaternion to copy into.
+     */
+    public static final void copy(Quat source, Quatd target)
+    {
+        target.w = source.w;
+        target.x = source.x;
+        target.y = source.y;
+        target.z = source.z;
+    }
+    
+    /**
+     * Sets the given quaternion to the identity rotation.
+     * 
+     * @param result The quaternion in which to store the result.
+     */
+    public static final void identity(Quatd result)
+    {
+        result.w = 1.0;
+        result.x = 0.0;
+        result.y = 0.0;
+        result.z = 0.0;
+    }
+    
+    /**
+     * Sets {@code result} to the rotation around the given axis, by the given
+     * angle. The axis must be normalized.
+     * 
+     * @param axis The axis around which to rotate.
+     * @param angle The angle to rotate by.
+     * @param result The quaternion in which to store the result.
+     */
+    public static final void rotation(Vec3d axis, double angle, Quatd result)
+    {
+        double a = angle*.5;
+        double sin = Math.sin(a);
+        
+        result.w = Math.cos(a);
+        result.x = axis.x*sin;
+        result.y = axis.y*sin;
+        result.z = axis.z*sin;
+    }
+    
+    /**
+     * Sets {@code result} to the shortest rotation from the starting direction
+     * vector to the end vector.
+     * 
+     * @param start The start direction.
+     * @param end The end direction.
+     * @param result The quaternion in which to store the result.
+     */
+    public static final void rotation(Vec3d start, Vec3d end, Quatd result)
+    {
+        if (start.isZero() || end.isZero())
+        {
+            result.setIdentity();
+            return;
+        }
+        
+        double len0 = start.length(), len1 = end.length();
+        double x0 = start.x/len0, y0 = start.y/len0, z0 = start.z/len0;
+        double x1 = end.x/len1, y1 = end.y/len1, z1 = end.z/len1;
+        
+        double dot = x0*x1 + y0*y1 + z0*z1;
+        if (Util.equals(dot, 1.0, EPSILON)) //this and v have same direction.
+        {
+            result.setIdentity();
+            return;
+        }
+        
+        //this and v have opposite direction. Rotate 180 degrees about an
+        //arbitrary axis normal to this.
+        if (Util.equals(dot, -1.0, EPSILON))
+        {
+            //The cross product of the X axis and v0.
+            double ay = -z0, az = y0;
+            //this lies along X axis and v is our opposite, so we can optimize.
+            if (ay == 0.0 && az == 0.0)
+                result.set(0.0, 0.0, 0.0, -1.0);
+            else
+            {
+                //Half of 180 degrees, so cos is zero and sin is one.
+                double len = Math.sqrt(ay*ay + az*az);
+                result.set(0.0, 0.0, ay/len, az/len);
+            }
+            return;
+        }
+        
+        double cx = y0*z1 - z0*y1;
+        double cy = z0*x1 - x0*z1;
+        double cz = x0*y1 - y0*x1;
+        double s = Math.sqrt(2.0 + dot*2.0);
+        result.set(s*0.5, cx/s, cy/s, cz/s).normalize();
+    }
+    
+    /**
+     * Sets {@code result} to the rotation represented by the given matrix.
+     * 
+     * @param m A rotation matrix.
+     * @param result The quaternion in which to store the result.
+     */
+    public static final void rotation(Mat3d m, Quatd result)
+    {
+        rotation(m.a, m.b, m.c, m.d, m.e, m.f, m.g, m.h, m.i, result);
+    }
+    
+    /**
+     * Sets the given quaternion to the rotation of the 3x3 matrix with the
+     * given entries, in row-major order.
+     */
+    static void rotation(double a, double b, double c, double d, double e, double f, double g, double h, double i, Quatd result)
+    {
+        double t0 = a + e + i;
+        double t1 = a - e - i;
+        double t2 = e - a - i;
+        double t3 = i - a - e;
+        
+        //Use the largest trace, for stability.
+        if (t0 >= t1 && t0 >= t2 && t0 >= t3)
+        {
+            double s = 2.0*Math.sqrt(1.0 + t0);
+            result.w = 0.25*s;
+            result.x = (h - f)/s;
+            result.y = (c - g)/s;
+            result.z = (d - b)/s;
+        }
+        else if (t1 >= t2 && t1 >= t3)
+        {
+            double s = 2.0*Math.sqrt(1.0 + t1);
+            result.w = (h - f)/s;
+            result.x = 0.25*s;
+            result.y = (b + d)/s;
+            result.z = (c + g)/s;
+        }
+        else if (t2 >= t3)
+        {
+            double s = 2.0*Math.sqrt(1.0 + t2);
+            result.w = (c - g)/s;
+            result.x = (b + d)/s;
+            result.y = 0.25*s;
+            result.z = (f + h)/s;
+        }
+        else
+        {
+            double s = 2.0*Math.sqrt(1.0 + t3);
+            result.w = (d - b)/s;
+            result.x = (c + g)/s;
+            result.y = (f + h)/s;
+            result.z = 0.25*s;
+        }
+    }
+    
+    /**
+     * Rotates {@code q} about the given {@code axis} by the given angle
+     * {@code angle} and stores the result in {@code result}. The axis must be
+     * normalized.
+     * 
+     * @param q The quaternion to rotate.
+     * @param axis The axis to rotate around.
+     * @param angle The angle to rotate by.
+     * @param result The matrix in which to store the result.
+     */
+    public static final void rotate(Quatd q, Vec3d axis, double angle, Quatd result)
+    {
+        double a = angle*.5;
+        double sin = Math.sin(a);
+        double rw = Math.cos(a), rx = axis.x*sin, ry = axis.y*sin, rz = axis.z*sin;
+        
+        double w = q.w*rw - q.x*rx - q.y*ry - q.z*rz;
+        double x = q.w*rx + q.x*rw + q.y*rz - q.z*ry;
+        double y = q.w*ry - q.x*rz + q.y*rw + q.z*rx;
+        double z = q.w*rz + q.x*ry - q.y*rx + q.z*rw;
+        
+        result.w = w; result.x = x; result.y = y; result.z = z;
+    }
+    
+    /**
+     * Adds the two given quaternions and stores the result in {@code result}.
+     * 
+     * @param q0 The first quaternion to add.
+     * @param q1 The second quaternion to add.
+     * @param result The quaternion in which to store the result.
+     */
+    public static final void add(Quatd q0, Quatd q1, Quatd result)
+    {
+        result.w = q0.w + q1.w;
+        result.x = q0.x + q1.x;
+        result.y = q0.y + q1.y;
+        result.z = q0.z + q1.z;
+    }
+    
+    /**
+     * Subtracts {@code q1} from {@code q0} and stores the result in {@code result}.
+     * 
+     * @param q0 The quaternion to subtract from.
+     * @param q1 The quaternion to subtract by.
+     * @param result The quaternion in which to store the result.
+     */
+    public static final void sub(Quatd q0, Quatd q1, Quatd result)
+    {
+        result.w = q0.w - q1.w;
+        result.x = q0.x - q1.x;
+        result.y = q0.y - q1.y;
+        result.z = q0.z - q1.z;
+    }
+    
+    /**
+     * Multiplies {@code q0} by {@code q1} and stores the result in {@code result}.
+     * 
+     * @param q0 The left-hand quaternion to multiply.
+     * @param q1 The right-hand quaternion to multiply by.
+     * @param result The quaternion in which to store the result.
+     */
+    public static final void mult(Quatd q0, Quatd q1, Quatd result)
+    {
+        double w = q0.w*q1.w - q0.x*q1.x - q0.y*q1.y - q0.z*q1.z;
+        double x = q0.w*q1.x + q0.x*q1.w + q0.y*q1.z - q0.z*q1.y;
+        double y = q0.w*q1.y - q0.x*q1.z + q0.y*q1.w + q0.z*q1.x;
+        double z = q0.w*q1.z + q0.x*q1.y - q0.y*q1.x + q0.z*q1.w;
+        
+        result.w = w; result.x = x; result.y = y; result.z = z;
+    }
+    
+    /**
+     * Multiplies {@code q1} by {@code s}, adds {@code q0}, and stores the
+     * result in {@code result}.
+     * 
+     * @param v0 The quaternion to add to.
+     * @param v1 The quaternion to multiply by {@code s} and then add to {@code q0}.
+     * @param s The scalar by which to multiply {@code q1}.
+     * @param result The quaternion in which to store the result.
+     */
+    public static final void madd(Quatd v0, Quatd v1, double s, Quatd result)
+    {
+        result.w = v0.w + v1.w*s;
+        result.x = v0.x + v1.x*s;
+        result.y = v0.y + v1.y*s;
+        result.z = v0.z + v1.z*s;
+    }
+    
+    /**
+     * Multiplies the given quaternion by the given scalar and stores the result
+     * in {@code result}.
+     * 
+     * @param q The quaternion to multiply.
+     * @param s The scalar to multiply by.
+     * @param result The quaternion in which to store the result.
+     */
+    public static final void mult(Quatd q, double s, Quatd result)
+    {
+        result.w = q.w*s;
+        result.x = q.x*s;
+        result.y = q.y*s;
+        result.z = q.z*s;
+    }
+    
+    /**
+     * Divides the given quaternion by the given scalar and stores the result
+     * in {@code result}.
+     * 
+     * @param q The quaternion to multiply.
+     * @param s The scalar to multiply by.
+     * @param result The quaternion in which to store the result.
+     */
+    public static final void div(Quatd q, double s, Quatd result)
+    {
+        result.w = q.w/s;
+        result.x = q.x/s;
+        result.y = q.y/s;
+        result.z = q.z/s;
+    }
+    
+    /**
+     * Negates the given quaternion and stores the result in {@code result}.
+     * 
+     * @param q The quaternion to negate.
+     * @param result The quaternion in which to store the result.
+     */
+    public static final void negate(Quatd q, Quatd result)
+    {
+        result.w = -q.w;
+        result.x = -q.x;
+        result.y = -q.y;
+        result.z = -q.z;
+    }
+    
+    /**
+     * Calculates the conjugate of the given quaternion and stores the result
+     * in {@code result}.
+     * 
+     * @param q The quaternion to conjugate.
+     * @param result The quaternion in which to store the result.
+     */
+    public static final void conjugate(Quatd q, Quatd result)
+    {
+        result.w = q.w;
+        result.x = -q.x;
+        result.y = -q.y;
+        result.z = -q.z;
+    }
+    
+    /**
+     * Normalizes the given quaternion and stores the result in {@code result}.
+     * 
+     * @param q The quaternion to normalize.
+     * @param result The quaternion in which to store the result.
+     */
+    public static final void normalize(Quatd q, Quatd result)
+    {
+        div(q, length(q), result);
+    }
+    
+    /**
+     * Inverts the given quaternion and stores the result in {@code result}.
+     * 
+     * @param q The quaternion to invert.
+     * @param result The quaternion in which to store the result.
+     */
+    public static final void invert(Quatd q, Quatd result)
+    {
+        conjugate(q, result);
+        div(result, squareLength(result), result);
+    }
+    
+    /**
+     * Linearly interpolates between the two given quaternions using the given
+     * scalar and stores the result in {@code result}.
+     * 
+     * @param q0 The 'start' quaternion to interpolate from.
+     * @param q1 The 'end' quaternion to interpolate to.
+     * @param t The scalar interpolant, between zero and one (inclusive).
+     * @param result The vector in which to store the result.
+     */
+    public static final void lerp(Quatd q0, Quatd q1, double t, Quatd result)
+    {
+        result.w = Util.lerp(q0.w, q1.w, t);
+        result.x = Util.lerp(q0.x, q1.x, t);
+        result.y = Util.lerp(q0.y, q1.y, t);
+        result.z = Util.lerp(q0.z, q1.z, t);
+    }
+    
+    /**
+     * Performs a spherical linear interpolation between the two given
+     * quaternions and stores the result in {@code result}. Interpolates along
+     * the shorter of the two arcs, and falls back to a normalized linear
+     * interpolation when the quaternions are nearly equal.
+     * 
+     * @param q0 The 'start' quaternion to interpolate from.
+     * @param q1 The 'end' quaternion to interpolate to.
+     * @param t The scalar interpolant, between zero and one (inclusive).
+     * @param result The quaternion in which to store the result.
+     */
+    public static final void slerp(Quatd q0, Quatd q1, double t, Quatd result)
+    {
+        //Negate q0 if needed to take the shorter path, without allocating.
+        double dot = dot(q0, q1);
+        double sign = 1.0;
+        if (dot < 0.0)
+        {
+            dot = -dot;
+            sign = -1.0;
+        }
+        
+        double s0, s1;
+        if (dot > 0.9995)
+        {
+            s0 = 1.0 - t;
+            s1 = t;
+        }
+        else
+        {
+            double ang = Math.acos(dot);
+            s0 = Math.sin((1.0 - t)*ang);
+            s1 = Math.sin(t*ang);
+        }
+        s0 *= sign;
+        
+        result.set(q0.w*s0 + q1.w*s1,
+                   q0.x*s0 + q1.x*s1,
+                   q0.y*s0 + q1.y*s1,
+                   q0.z*s0 + q1.z*s1);
+        normalize(result, result);
+    }
+    
+    /**
+     * Calculates the Tait–Bryan angles of this quaternion, and stores them in
+     * the given vector as pitch, yaw, and roll.
+     * 
+     * @param q The quaternion whose angles to calculate.
+     * @param result The vector in which to store the result.
+     */
+    public static final void angles(Quatd q, Vec3d result)
+    {
+        result.x = Math.atan2(2.0*(q.w*q.x - q.y*q.z), 1.0 - 2.0*(q.z*q.z + q.x*q.x));
+        result.y = Math.atan2(2.0*(q.w*q.y - q.z*q.x), 1.0 - 2.0*(q.y*q.y + q.z*q.z));
+        result.z = Math.asin(2.0*(q.x*q.y - q.w*q.z));
+    }
+    
+    /**
+     * Recovers the axis-angle representation of the given quaternion, and
+     * stores the result in the given vector. The axis is the direction of the
+     * vector, and the angle, in radians, is the length of the vector.
+     */
+    public static final void axisAngle(Quatd q, Vec3d result)
+    {
+        double norm = Math.sqrt(q.x*q.x + q.y*q.y + q.z*q.z);
+        if (norm < EPSILON)
+        {
+            result.set();
+            return;
+        }
+        
+        result.set(q.x, q.y, q.z);
+        double angle = (2.0*Math.atan2(norm, q.w));
+        Vec3d.mult(result, angle/norm, result);
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="Static factory methods">
+    /**
+     * Returns a new instance of the identity quaternion.
+     * 
+     * @return A new quaternion containing the result.
+     */
+    public static final Quatd identity()
+    {
+        Quatd result = new Quatd();
+        result.w = 1.0;
+        return result;
+    }
+    
+    /**
+     * The rotation around the given axis, by the given angle as a new quaternion.
+     * 
+     * @param axis The axis around which to rotate.
+     * @param angle The angle to rotate by.
+     * @return A new quaternion containing the result.
+     */
+    public static final Quatd rotation(Vec3d axis, double angle)
+    {
+        Quatd result = new Quatd();
+        rotation(axis, angle, result);
+        return result;
+    }
+    
+    /**
+     * Returns a new quaternion representing the shortest rotation from the
+     * starting direction vector to the end vector.
+     * 
+     * @param start The start direction.
+     * @param end The end direction.
+     * @return A new quaternion containing the result.
+     */
+    public static final Quatd rotation(Vec3d start, Vec3d end)
+    {
+        Quatd result = new Quatd();
+        rotation(start, end, result);
+        return result;
+    }
+    
+    /**
+     * Returns a new quaternion from the given rotation matrix.
+     * 
+     * @param m A rotation matrix.
+     * @return A new quaternion containing the result.
+     */
+    public static final Quatd rotation(Mat3d m)
+    {
+        Quatd result = new Quatd();
+        rotation(m, result);
+        return result;
+    }
+    
+    /**
+     * Rotates {@code q} about the given {@code axis} by the given angle
+     * {@code angle} and returns the result as a new quaternion. The axis must
+     * be  normalized.
+     * 
+     * @param q The quaternion to rotate.
+     * @param axis The axis to rotate around.
+     * @param angle The angle to rotate by.
+     * @return A new quaternion containing the result.
+     */
+    public static final Quatd rotate(Quatd q, Vec3d axis, double angle)
+    {
+        Quatd result = new Quatd();
+        rotate(q, axis, angle, result);
+        return result;
+    }
+    
+    /**
+     * Adds the two given quaternions and returns a new vector containing the
+     * result.
+     * 
+     * @param q0 The first quaternion to add.
+     * @param q1 The second quaternion to add.
+     * @return A new quaternion containing the result.
+     */
+    public static final Quatd add(Quatd q0, Quatd q1)
+    {
+        Quatd result = new Quatd();
+        add(q0, q1, result);
+        return result;
+    }
+    
+    /**
+     * Subtracts {@code q1} from {@code q0} and returns a new vector containing
+     * the result.
+     * 
+     * @param q0 The quaternion to subtract from.
+     * @param q1 The quaternion to subtract by.
+     * @return A new quaternion containing the result.
+     */
+    public static final Quatd sub(Quatd q0, Quatd q1)
+    {
+        Quatd result = new Quatd();
+        sub(q0, q1, result);
+        return result;
+    }
+    
+    /**
+     * Multiplies {@code q0} by {@code q1} and returns a new vector containing
+     * the result.
+     * 
+     * @param q0 The left-hand quaternion to multiply.
+     * @param q1 The right-hand quaternion to multiply by.
+     * @return A new quaternion containing the result.
+     */
+    public static final Quatd mult(Quatd q0, Quatd q1)
+    {
+        Quatd result = new Quatd();
+        mult(q0, q1, result);
+        return result;
+    }
+    
+    /**
+     * Multiplies {@code q1} by {@code s}, adds {@code q0}, and returns a new
+     * vector contain the result.
+     * 
+     * @param q0 The quaternion to add to.
+     * @param q1 The quaternion to multiply by {@code s} and then add to {@code q0}.
+     * @param s The scalar by which to multiply {@code q1}.
+     * @return A new quaternion containing the result.
+     */
+    public static final Quatd madd(Quatd q0, Quatd q1, double s)
+    {
+        Quatd result = new Quatd();
+        madd(q0, q1, s, result);
+        return result;
+    }
+    
+    /**
+     * Multiplies the given quaternion by the given scalar and returns a new
+     * vector containing the result.
+     * 
+     * @param q The quaternion to multiply.
+     * @param s The scalar to multiply by.
+     * @return A new quaternion containing the result.
+     */
+    public static final Quatd mult(Quatd q, double s)
+    {
+        Quatd result = new Quatd();
+        mult(q, s, result);
+        return result;
+    }
+    
+    /**
+     * Divides the given quaternion by the given scalar and returns a new vector
+     * containing the result.
+     * 
+     * @param q The quaternion to multiply.
+     * @param s The scalar to multiply by.
+     * @return A new quaternion containing the result.
+     */
+    public static final Quatd div(Quatd q, double s)
+    {
+        Quatd result = new Quatd();
+        div(q, s, result);
+        return result;
+    }
+    
+    /**
+     * Negates the given quaternion and returns a new vector containing the result.
+     * 
+     * @param q The quaternion to negate.
+     * @return A new quaternion containing the result.
+     */
+    public static final Quatd negate(Quatd q)
+    {
+        Quatd result = new Quatd();
+        negate(q, result);
+        return result;
+    }
+    
+    /**
+     * Calculates the conjugate of the given quaternion and returns a new vector
+     * containing the result.
+     * 
+     * @param q The quaternion to conjugate.
+     * @return A new quaternion containing the result.
+     */
+    public static final Quatd conjugate(Quatd q)
+    {
+        Quatd result = new Quatd();
+        conjugate(q, result);
+        return result;
+    }
+    
+    /**
+     * Normalizes the given quaternion and returns a new vector containing the result.
+     * 
+     * @param q The quaternion to normalize.
+     * @return A new quaternion containing the result.
+     */
+    public static final Quatd normalize(Quatd q)
+    {
+        Quatd result = new Quatd();
+        normalize(q, result);
+        return result;
+    }
+    
+    /**
+     * Inverts the given quaternion and returns a new vector containing the result.
+     * 
+     * @param q The quaternion to invert.
+     * @return A new quaternion containing the result.
+     */
+    public static final Quatd invert(Quatd q)
+    {
+        Quatd result = new Quatd();
+        invert(q, result);
+        return result;
+    }
+    
+    /**
+     * Linearly interpolates between the two given quaternions using the given
+     * scalar and returns a new vector containing the result.
+     * 
+     * @param q0 The 'start' quaternion to interpolate from.
+     * @param q1 The 'end' quaternion to interpolate to.
+     * @param t The scalar interpolant, between zero and one (inclusive).
+     * @return A new quaternion containing the result.
+     */
+    public static final Quatd lerp(Quatd q0, Quatd q1, double t)
+    {
+        Quatd result = new Quatd();
+        lerp(q0, q1, t, result);
+        return result;
+    }
+    
+    /**
+     * Performs a spherical linear interpolation between the two given
+     * quaternions and returns a new vector containing the result.
+     * 
+     * @param q0 The 'start' quaternion to interpolate from.
+     * @param q1 The 'end' quaternion to interpolate to.
+     * @param t The scalar interpolant, between zero and one (inclusive).
+     * @return A new quaternion containing the result.
+     */
+    public static final Quatd slerp(Quatd q0, Quatd q1, double t)
+    {
+        Quatd result = new Quatd();
+        slerp(q0, q1, t, result);
+        return result;
+    }
+    
+    /**
+     * Calculates the Tait–Bryan angles of this quaternion, and returns them in
+     * the a new vector as pitch, yaw, and roll.
+     * 
+     * @param q The quaternion whose angles to calculate.
+     * @return A new vector containing the result.
+     */
+    public static final Vec3d angles(Quatd q)
+    {
+        Vec3d result = new Vec3d();
+        angles(q, result);
+        return result;
+    }
+    // </editor-fold>
+    
+    public double w, x, y, z;
+    
+    /**
+     * Creates a zero quaternion. NOT the identity quaternion.
+     */
+    public Quatd()
+    {
+    }
+    
+    public Quatd(double w, double x, double y, double z)
+    {
+        this.w = w; this.x = x; this.y = y; this.z = z;
+    }
+    
+    public Quatd(Quatd q)
+    {
+        w = q.w; x = q.x; y = q.y; z = q.z;
+    }
+    
+    public Quatd(Quat q)
+    {
+        w = q.w; x = q.x; y = q.y; z = q.z;
+    }
+    
+    /**
+     * Loads a new quaternion from the given input stream.
+     * 
+     * @param in The input stream to read from.
+     * @throws IOException If an io error occurred.
+     */
+    public Quatd(DataInputStream in) throws IOException
+    {
+        Quatd.this.read(in);
+    }
+    
+    // <editor-fold defaultstate="collapsed" desc="Instance accessor methods">
+    /**
+     * Returns the dot product of this and the given quaternion.
+     * 
+     * @param q The quaternion with which to calculate the dot product.
+     * @return The dot product of this and the given quaternion.
+     */
+    public double dot(Quatd q)
+    {
+        return dot(this, q);
+    }
+    
+    /**
+     * Returns the square length of this quaternion.
+     * 
+     * @return The square length of this quaternion.
+     */
+    public double squareLength()
+    {
+        return squareLength(this);
+    }
+    
+    /**
+     * Returns the length of this quaternion.
+     * 
+     * @return The length of this quaternion.
+     */
+    public double length()
+    {
+        return length(this);
+    }
+    
+    /**
+     * Returns the Tait–Bryan angles of this quaternion as a new vector.
+     * 
+     * @return THe Tait-Bryan angles of this quaternion.
+     */
+    public Vec3d angles()
+    {
+        return angles(this);
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="Instance mutator methods">
+    /**
+     * Sets this to the given quaternion.
+     * 
+     * @param q The quaternion to set this to.
+     * @return This quaternion.
+     */
+    public Quatd set(Quatd q)
+    {
+        copy(q, this);
+        return this;
+    }
+    
+    /**
+     * Sets this to the given float quaternion.
+     * 
+     * @param q The quaternion to set this to.
+     * @return This quaternion.
+     */
+    public Quatd set(Quat q)
+    {
+        copy(q, this);
+        return this;
+    }
+    
+    /**
+     * Sets the coordinates of this quaternion.
+     * 
+     * @return This quaternion.
+     */
+    public Quatd set(double w, double x, double y, double z)
+    {
+        this.w = w; this.x = x; this.y = y; this.z = z;
+        return this;
+    }
+    
+    /**
+     * Sets this to the zero quaternion.
+     * 
+     * @return This quaternion.
+     */
+    public Quatd set()
+    {
+        x = 0.0; y = 0.0; z = 0.0;
+        return this;
+    }
+    
+    /**
+     * Sets the component specified by the given index to the given double.
+     * 
+     * @param i The index of the component to set.
+     * @param f The value to set the component to.
+     * @return This quaternion.
+     */
+    public Quatd setComponent(int i, double f)
+    {
+        switch (i)
+        {
+            case 0: w = f; return this;
+            case 1: x = f; return this;
+            case 2: y = f; return this;
+            case 3: z = f; return this;
+            default: throw new ArrayIndexOutOfBoundsException();
+        }
+    }
+    
+    /**
+     * Sets this to the identity quaternion.
+     * 
+     * @return This quaternion.
+     */
+    public Quatd setIdentity()
+    {
+        identity(this);
+        return this;
+    }
+    
+    /**
+     * Sets this to the identity quaternion.
+     * 
+     * @param axis The axis around which to rotate.
+     * @param angle The angle to rotate by.
+     * @return This quaternion.
+     */
+    public Quatd setRotation(Vec3d axis, double angle)
+    {
+        rotation(axis, angle, this);
+        return this;
+    }
+    
+    /**
+     * Sets this to the shortest rotation from the starting direction vector to
+     * the end vector.
+     * 
+     * @param start The starting direction vector.
+     * @param end The end direction vector.
+     * @return This quaternion.
+     */
+    public Quatd setRotation(Vec3d start, Vec3d end)
+    {
+        rotation(start, end, this);
+        return this;
+    }
+    
+    /**
+     * Sets this to the rotation of the given matrix.
+     * 
+     * @param mat A rotation matrix.
+     * @return This quaternion.
+     */
+    public Quatd setRotation(Mat3d mat)
+    {
+        rotation(mat, this);
+        return this;
+    }
+    
+    /**
+     * Rotates this quaternion around the given axis, by the given angle.
+     * 
+     * @param axis The axis around which to rotate.
+     * @param angle The angle to rotate by.
+     * @return This quaternion.
+     */
+    public Quatd rotate(Vec3d axis, double angle)
+    {
+        rotate(this, axis, angle, this);
+        return this;
+    }
+    
+    /**
+     * Adds the given quaternion to this.
+     * 
+     * @param q The quaternion to add.
+     * @return This quaternion.
+     */
+    public Quatd add(Quatd q)
+    {
+        add(this, q, this);
+        return this;
+    }
+    
+    /**
+     * Subtracts the given quaternion from this.
+     * 
+     * @param q The quaternion to subtract.
+     * @return This quaternion.
+     */
+    public Quatd sub(Quatd q)
+    {
+        sub(this, q, this);
+        return this;
+    }
+    
+    /**
+     * Multiplies this by the given quaternion.
+     * 
+     * @param q The right-hand quaternion to multiply by.
+     * @return This quaternion.
+     */
+    public Quatd mult(Quatd q)
+    {
+        mult(this, q, this);
+        return this;
+    }
+    
+    /**
+     * Multiplies the given quaternion by the given scalar, and adds the result
+     * to this.
+     * 
+     * @param v The quaternion to multiply-add.
+     * @param s The scalar to multiply {@code v} by.
+     * @return This quaternion.
+     */
+    public Quatd madd(Quatd v, double s)
+    {
+        madd(this, v, s, this);
+        return this;
+    }
+    
+    /**
+     * Multiplies this by the given scalar.
+     * 
+     * @param s The given scalar to multiply by.
+     * @return This quaternion.
+     */
+    public Quatd mult(double s)
+    {
+        mult(this, s, this);
+        return this;
+    }
+    
+    /**
+     * Divides this by the given scalar.
+     * 
+     * @param s The given scalar to divide by.
+     * @return This quaternion.
+     */
+    public Quatd div(double s)
+    {
+        div(this, s, this);
+        return this;
+    }
+    
+    /**
+     * Negates this quaternion.
+     * 
+     * @return This quaternion.
+     */
+    public Quatd negate()
+    {
+        negate(this, this);
+        return this;
+    }
+    
+    /**
+     * Conjugates this quaternion.
+     * 
+     * @return This quaternion.
+     */
+    public Quatd conjugate()
+    {
+        conjugate(this, this);
+        return this;
+    }
+    
+    /**
+     * Normalizes this quaternion.
+     * 
+     * @return This quaternion.
+     */
+    public Quatd normalize()
+    {
+        normalize(this, this);
+        return this;
+    }
+    
+    /**
+     * Inverts this quaternion.
+     * 
+     * @return This quaternion.
+     */
+    public Quatd invert()
+    {
+        invert(this, this);
+        return this;
+    }
+    
+    /**
+     * Linearly interpolates this towards the given quaternion using the given
+     * scalar interpolant.
+     * 
+     * @param q The 'end' quaternion to interpolate to.
+     * @param t The scalar interpolant, between zero and one (inclusive).
+     * @return This quaternion.
+     */
+    public Quatd lerp(Quatd q, double t)
+    {
+        lerp(this, q, t, this);
+        return this;
+    }
+    
+    /**
+     * Spherical-linearly interpolates this towards the given quaternion using
+     * the given scalar interpolant.
+     * 
+     * @param q The 'end' quaternion to interpolate to.
+     * @param t The scalar interpolant, between zero and one (inclusive).
+     * @return This quaternion.
+     */
+    public Quatd slerp(Quatd q, double t)
+    {
+        slerp(this, q, t, this);
+        return this;
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="Overriden/implemented methods">
+    /**
+     * WARNING: W buffered last instead of first, for GLSL.
+     */
+    @Override
+    public void read(ByteBuffer buffer)
+    {
+        x = buffer.getDouble();
+        y = buffer.getDouble();
+        z = buffer.getDouble();
+        w = buffer.getDouble();
+    }
+    
+    @Override
+    public void write(ByteBuffer buffer)
+    {
+        buffer.putDouble(x);
+        buffer.putDouble(y);
+        buffer.putDouble(z);
+        buffer.putDouble(w);
+    }
+    
+    @Override
+    public int bufferSize()
+    {
+        return 4*8;
+    }
+    
+    @Override
+    public Quatd read(DataInputStream in) throws IOException
+    {
+        w = in.readDouble();
+        x = in.readDouble();
+        y = in.readDouble();
+        z = in.readDouble();
+        return this;
+    }
+    
+    @Override
+    public Quatd write(DataOutputStream out) throws IOException
+    {
+        out.writeDouble(w);
+        out.writeDouble(x);
+        out.writeDouble(y);
+        out.writeDouble(z);
+        return this;
+    }
+    
+    @Override
+    public String toString()
+    {
+        return "(" + w + ": " + x + ", " + y + ", " + z + ")";
+    }
+    
+    @Override
+    public boolean equals(Object o)
+    {
+        if (o == null) return false;
+        if (o.getClass() != this.getClass()) return false;
+        final Quatd q = (Quatd)o;
+        return q.w == w && q.x == x && q.y == y && q.z == z;
+    }
+    
+    @Override
+    public int hashCode()
+    {
+        int hash = 177 + (int)(Double.doubleToLongBits(this.w) ^ (Double.doubleToLongBits(this.w) >>> 32));
+        hash = 59*hash + (int)(Double.doubleToLongBits(this.x) ^ (Double.doubleToLongBits(this.x) >>> 32));
+        hash = 59*hash + (int)(Double.doubleToLongBits(this.y) ^ (Double.doubleToLongBits(this.y) >>> 32));
+        return 59*hash + (int)(Double.doubleToLongBits(this.z) ^ (Double.doubleToLongBits(this.z) >>> 32));
+    }
+    // </editor-fold>
+}
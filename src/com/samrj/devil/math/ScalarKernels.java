@@ -0,0 +1,178 @@
+package com.samrj.devil.math;
+
+/**
+ * Plain Java implementations of each batch math kernel, which also select the
+ * kernels used at runtime. Other implementations must match these exactly, so
+ * they should perform the same float operations in the same order.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+final class ScalarKernels implements MathKernels
+{
+    static final ScalarKernels INSTANCE = new ScalarKernels();
+    static final MathKernels SELECTED = select();
+    
+    private static MathKernels select()
+    {
+        if (Boolean.getBoolean("devil.math.scalar")) return INSTANCE;
+        
+        try
+        {
+            //Fails to load if the vector kernels or the incubator module are absent.
+            Class<?> vectorClass = Class.forName("com.samrj.devil.math.VectorKernels");
+            return (MathKernels)vectorClass.getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError | SecurityException e)
+        {
+            return INSTANCE;
+        }
+    }
+    
+    /**
+     * Multiplies two packed column-major matrices. The result may overlap
+     * either input.
+     */
+    static void mat4MultAt(float[] x, int xo, float[] y, int yo, float[] r, int ro)
+    {
+        float x0 = x[xo], x1 = x[xo + 1], x2 = x[xo + 2], x3 = x[xo + 3];
+        float x4 = x[xo + 4], x5 = x[xo + 5], x6 = x[xo + 6], x7 = x[xo + 7];
+        float x8 = x[xo + 8], x9 = x[xo + 9], x10 = x[xo + 10], x11 = x[xo + 11];
+        float x12 = x[xo + 12], x13 = x[xo + 13], x14 = x[xo + 14], x15 = x[xo + 15];
+        
+        for (int c=0; c<16; c+=4)
+        {
+            float y0 = y[yo + c], y1 = y[yo + c + 1], y2 = y[yo + c + 2], y3 = y[yo + c + 3];
+            r[ro + c] = x0*y0 + x4*y1 + x8*y2 + x12*y3;
+            r[ro + c + 1] = x1*y0 + x5*y1 + x9*y2 + x13*y3;
+            r[ro + c + 2] = x2*y0 + x6*y1 + x10*y2 + x14*y3;
+            r[ro + c + 3] = x3*y0 + x7*y1 + x11*y2 + x15*y3;
+        }
+    }
+    
+    /**
+     * Transforms the packed point at index i of v by the matrix at index mo of
+     * m, storing it at index i of r.
+     */
+    static void mat4MultPointAt(float[] m, int mo, float[] v, float[] r, int i)
+    {
+        float x = v[i], y = v[i + 1], z = v[i + 2];
+        r[i] = m[mo]*x + m[mo + 4]*y + m[mo + 8]*z + m[mo + 12];
+        r[i + 1] = m[mo + 1]*x + m[mo + 5]*y + m[mo + 9]*z + m[mo + 13];
+        r[i + 2] = m[mo + 2]*x + m[mo + 6]*y + m[mo + 10]*z + m[mo + 14];
+    }
+    
+    /**
+     * Normalizes the packed quaternion at index i.
+     */
+    static void quatNormalizeAt(float[] q, float[] r, int i)
+    {
+        float x = q[i], y = q[i + 1], z = q[i + 2], w = q[i + 3];
+        float inv = 1.0f/(float)Math.sqrt(x*x + y*y + z*z + w*w);
+        r[i] = x*inv;
+        r[i + 1] = y*inv;
+        r[i + 2] = z*inv;
+        r[i + 3] = w*inv;
+    }
+    
+    /**
+     * Slerps between the packed quaternions at index i.
+     */
+    static void quatSlerpAt(float[] a, float[] b, float t, float[] r, int i)
+    {
+        float x0 = a[i], y0 = a[i + 1], z0 = a[i + 2], w0 = a[i + 3];
+        float x1 = b[i], y1 = b[i + 1], z1 = b[i + 2], w1 = b[i + 3];
+        
+        float dot = x0*x1 + y0*y1 + z0*z1 + w0*w1;
+        if (dot < 0.0f)
+        {
+            dot = -dot;
+            x0 = -x0; y0 = -y0; z0 = -z0; w0 = -w0;
+        }
+        
+        float s0 = slerpStart(dot, t), s1 = slerpEnd(dot, t);
+        float x = x0*s0 + x1*s1, y = y0*s0 + y1*s1, z = z0*s0 + z1*s1, w = w0*s0 + w1*s1;
+        float inv = 1.0f/(float)Math.sqrt(x*x + y*y + z*z + w*w);
+        r[i] = x*inv;
+        r[i + 1] = y*inv;
+        r[i + 2] = z*inv;
+        r[i + 3] = w*inv;
+    }
+    
+    /**
+     * Returns the weight of the start quaternion for a slerp with the given
+     * absolute dot product. Like Quat.slerp(), uses the fast approximations
+     * in Util if Util.FAST_MATH is set.
+     */
+    static float slerpStart(float dot, float t)
+    {
+        if (dot > 0.9995f) return 1.0f - t;
+        if (Util.FAST_MATH) return Util.fastSin((1.0f - t)*Util.fastAcos(dot));
+        return (float)Math.sin((1.0f - t)*(float)Math.acos(dot));
+    }
+    
+    /**
+     * Returns the weight of the end quaternion for a slerp with the given
+     * absolute dot product.
+     */
+    static float slerpEnd(float dot, float t)
+    {
+        if (dot > 0.9995f) return t;
+        if (Util.FAST_MATH) return Util.fastSin(t*Util.fastAcos(dot));
+        return (float)Math.sin(t*(float)Math.acos(dot));
+    }
+    
+    @Override
+    public String getName()
+    {
+        return "scalar";
+    }
+    
+    @Override
+    public void mat4Mult(float[] a, int aStride, float[] b, int bStride, float[] r, int count)
+    {
+        for (int n=0; n<count; n++) mat4MultAt(a, n*aStride, b, n*bStride, r, n*16);
+    }
+    
+    @Override
+    public void mat4MultPoints(float[] m, int mStride, float[] v, float[] r, int count)
+    {
+        for (int n=0; n<count; n++) mat4MultPointAt(m, n*mStride, v, r, n*3);
+    }
+    
+    @Override
+    public void quatNormalize(float[] q, float[] r, int count)
+    {
+        for (int i=0; i<count*4; i+=4) quatNormalizeAt(q, r, i);
+    }
+    
+    @Override
+    public void quatSlerp(float[] a, float[] b, float t, float[] r, int count)
+    {
+        for (int i=0; i<count*4; i+=4) quatSlerpAt(a, b, t, r, i);
+    }
+    
+    @Override
+    public void dot(float[] ax, float[] ay, float[] az, float[] bx, float[] by, float[] bz, float[] r, int count)
+    {
+        for (int i=0; i<count; i++) r[i] = ax[i]*bx[i] + ay[i]*by[i] + az[i]*bz[i];
+    }
+    
+    @Override
+    public void cross(float[] ax, float[] ay, float[] az, float[] bx, float[] by, float[] bz,
+                      float[] rx, float[] ry, float[] rz, int count)
+    {
+        for (int i=0; i<count; i++)
+        {
+            float x = ay[i]*bz[i] - az[i]*by[i];
+            float y = az[i]*bx[i] - ax[i]*bz[i];
+            float z = ax[i]*by[i] - ay[i]*bx[i];
+            rx[i] = x; ry[i] = y; rz[i] = z;
+        }
+    }
+    
+    private ScalarKernels()
+    {
+    }
+}
@@ -0,0 +1,162 @@
+package com.samrj.devil.math;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * A per-thread pool of temporary math objects, for hot code which would
+ * otherwise allocate them. Objects are taken from the pool within a frame, and
+ * are all returned to it when that frame is closed:
+ * 
+ * <pre>
+ * try (Scratch scratch = Scratch.push())
+ * {
+ *     Vec3 dir = scratch.vec3();
+ *     Vec3.sub(b, a, dir);
+ *     ...
+ * }
+ * </pre>
+ * 
+ * Frames nest, so code using a frame may call other code which uses one.
+ * Objects taken from the pool have unspecified contents, and must not be kept
+ * after their frame is closed. Each pool grows as needed and never shrinks, so
+ * once warmed up, taking objects does not allocate.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class Scratch implements AutoCloseable
+{
+    private static final ThreadLocal<Scratch> LOCAL = ThreadLocal.withInitial(Scratch::new);
+    
+    /**
+     * Opens a new frame in this thread's pool, and returns the pool. The frame
+     * must be closed by the same thread, before any frame opened before it.
+     * 
+     * @return This thread's pool.
+     */
+    public static Scratch push()
+    {
+        Scratch scratch = LOCAL.get();
+        scratch.pushFrame();
+        return scratch;
+    }
+    
+    private final Pool<Vec2> vec2s = new Pool<>(Vec2::new);
+    private final Pool<Vec3> vec3s = new Pool<>(Vec3::new);
+    private final Pool<Vec4> vec4s = new Pool<>(Vec4::new);
+    private final Pool<Quat> quats = new Pool<>(Quat::new);
+    private final Pool<Mat3> mat3s = new Pool<>(Mat3::new);
+    private final Pool<Mat4> mat4s = new Pool<>(Mat4::new);
+    private final Pool<Transform> transforms = new Pool<>(Transform::new);
+    private final Pool<?>[] pools = {vec2s, vec3s, vec4s, quats, mat3s, mat4s, transforms};
+    
+    private int[] frames = new int[pools.length*8];
+    private int depth;
+    
+    private Scratch()
+    {
+    }
+    
+    private void pushFrame()
+    {
+        int offset = depth*pools.length;
+        if (offset == frames.length) frames = Arrays.copyOf(frames, frames.length*2);
+        for (int i=0; i<pools.length; i++) frames[offset + i] = pools[i].used;
+        depth++;
+    }
+    
+    /**
+     * @return A temporary 2D vector.
+     */
+    public Vec2 vec2()
+    {
+        return vec2s.take(depth);
+    }
+    
+    /**
+     * @return A temporary 3D vector.
+     */
+    public Vec3 vec3()
+    {
+        return vec3s.take(depth);
+    }
+    
+    /**
+     * @return A temporary 4D vector.
+     */
+    public Vec4 vec4()
+    {
+        return vec4s.take(depth);
+    }
+    
+    /**
+     * @return A temporary quaternion.
+     */
+    public Quat quat()
+    {
+        return quats.take(depth);
+    }
+    
+    /**
+     * @return A temporary 3x3 matrix.
+     */
+    public Mat3 mat3()
+    {
+        return mat3s.take(depth);
+    }
+    
+    /**
+     * @return A temporary 4x4 matrix.
+     */
+    public Mat4 mat4()
+    {
+        return mat4s.take(depth);
+    }
+    
+    /**
+     * @return A temporary transform.
+     */
+    public Transform transform()
+    {
+        return transforms.take(depth);
+    }
+    
+    /**
+     * Closes the most recent frame, returning every object taken since it was
+     * opened.
+     */
+    @Override
+    public void close()
+    {
+        if (depth == 0) throw new IllegalStateException("No open scratch frame.");
+        depth--;
+        int offset = depth*pools.length;
+        for (int i=0; i<pools.length; i++) pools[i].used = frames[offset + i];
+    }
+    
+    private static final class Pool<T>
+    {
+        private final Supplier<T> factory;
+        private Object[] items = new Object[8];
+        private int used, created;
+        
+        private Pool(Supplier<T> factory)
+        {
+            this.factory = factory;
+        }
+        
+        @SuppressWarnings("unchecked")
+        private T take(int depth)
+        {
+            if (depth == 0) throw new IllegalStateException("No open scratch frame.");
+            if (used == created)
+            {
+                if (created == items.length) items = Arrays.copyOf(items, created*2);
+                items[created++] = factory.get();
+            }
+            return (T)items[used++];
+        }
+    }
+}
@@ -56,6 +56,36 @@ public class Transform implements FloatBufferable, DataStreamable<Transform>
         Vec3.copy(source.sca, target.sca);
     }
     
+    /**
+     * Casts the given double transform into the given transform.
+     * 
+     * @param source The transform to copy from.
+     * @param target The transform to copy to.
+     */
+    public static final void cast(Transformd source, Transform target)
+    {
+        Vec3.cast(source.pos, target.pos);
+        Quat.cast(source.rot, target.rot);
+        Vec3.cast(source.sca, target.sca);
+    }
+    
+    /**
+     * Casts the given double transform into the given transform, with its
+     * position made relative to the given origin.
+     * 
+     * See Mat4.castRelative().
+     * 
+     * @param source The transform to copy from.
+     * @param origin The origin to make the transform relative to.
+     * @param target The transform to copy to.
+     */
+    public static final void castRelative(Transformd source, Vec3d origin, Transform target)
+    {
+        Vec3.castRelative(source.pos, origin, target.pos);
+        Quat.cast(source.rot, target.rot);
+        Vec3.cast(source.sca, target.sca);
+    }
+    
     /**
      * Sets the given transform to the default, zero transform.
      * 
@@ -89,16 +119,14 @@ public class Transform implements FloatBufferable, DataStreamable<Transform>
      */
     public static final void decompose(Mat4 matrix, Transform r)
     {
-        Vec3 colx = new Vec3(matrix.a, matrix.b, matrix.c);
-        Vec3 coly = new Vec3(matrix.e, matrix.f, matrix.g);
-        Vec3 colz = new Vec3(matrix.i, matrix.j, matrix.k);
-        Vec3 sca = new Vec3(colx.length(), coly.length(), colz.length());
-        Mat3 rotMat = new Mat3(matrix.a/sca.x, matrix.b/sca.y, matrix.c/sca.z,
-                               matrix.e/sca.x, matrix.f/sca.y, matrix.g/sca.z,
-                               matrix.i/sca.x, matrix.j/sca.y, matrix.k/sca.z);
+        float sx = (float)Math.sqrt(matrix.a*matrix.a + matrix.b*matrix.b + matrix.c*matrix.c);
+        float sy = (float)Math.sqrt(matrix.e*matrix.e + matrix.f*matrix.f + matrix.g*matrix.g);
+        float sz = (float)Math.sqrt(matrix.i*matrix.i + matrix.j*matrix.j + matrix.k*matrix.k);
         
-        r.sca.set(sca);
-        r.rot.setRotation(rotMat);
+        Quat.rotation(matrix.a/sx, matrix.b/sy, matrix.c/sz,
+                      matrix.e/sx, matrix.f/sy, matrix.g/sz,
+                      matrix.i/sx, matrix.j/sy, matrix.k/sz, r.rot);
+        r.sca.set(sx, sy, sz);
         r.pos.set(matrix.d, matrix.h, matrix.l);
     }
     
@@ -112,7 +140,13 @@ public class Transform implements FloatBufferable, DataStreamable<Transform>
      */
     public static final void mult(Transform t0, Transform t1, Transform r)
     {
-        r.setDecomposition(Mat4.transform(t1).mult(t0));
+        try (Scratch scratch = Scratch.push())
+        {
+            Mat4 m = scratch.mat4();
+            Mat4.transform(t1, m);
+            Mat4.mult(m, t0, m);
+            decompose(m, r);
+        }
     }
     
     /**
@@ -126,7 +160,12 @@ public class Transform implements FloatBufferable, DataStreamable<Transform>
      */
     public static final void mult(Transform t, Mat4 m, Transform r)
     {
-        mult(t, decompose(m), r);
+        try (Scratch scratch = Scratch.push())
+        {
+            Transform temp = scratch.transform();
+            decompose(m, temp);
+            mult(t, temp, r);
+        }
     }
     
     /**
@@ -146,6 +185,34 @@ public class Transform implements FloatBufferable, DataStreamable<Transform>
     }
     // </editor-fold>
     // <editor-fold defaultstate="collapsed" desc="Static factory methods">
+    /**
+     * Casts the given double transform to a new float transform.
+     * 
+     * @param transform The transform to cast.
+     * @return A new transform.
+     */
+    public static final Transform cast(Transformd transform)
+    {
+        Transform result = new Transform();
+        cast(transform, result);
+        return result;
+    }
+    
+    /**
+     * Casts the given double transform to a new float transform, relative to
+     * the given origin.
+     * 
+     * @param transform The transform to cast.
+     * @param origin The origin to make the transform relative to.
+     * @return A new transform.
+     */
+    public static final Transform castRelative(Transformd transform, Vec3d origin)
+    {
+        Transform result = new Transform();
+        castRelative(transform, origin, result);
+        return result;
+    }
+    
     /**
      * Returns a new identity transform.
      * 
@@ -326,6 +393,31 @@ public class Transform implements FloatBufferable, DataStreamable<Transform>
         return this;
     }
     
+    /**
+     * Sets this to the given double transform.
+     * 
+     * @param transform The transform to set this to.
+     * @return This transform.
+     */
+    public Transform setCast(Transformd transform)
+    {
+        cast(transform, this);
+        return this;
+    }
+    
+    /**
+     * Sets this to the given double transform, relative to the given origin.
+     * 
+     * @param transform The transform to set this to.
+     * @param origin The origin to make the transform relative to.
+     * @return This transform.
+     */
+    public Transform setCastRelative(Transformd transform, Vec3d origin)
+    {
+        castRelative(transform, origin, this);
+        return this;
+    }
+    
     /**
      * Sets this to the decomposition of the given matrix. Will not be valid if
      * the matrix has any shearing or projection.
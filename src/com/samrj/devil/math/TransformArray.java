@@ -0,0 +1,185 @@
+package com.samrj.devil.math;
+
+import com.samrj.devil.util.FloatBufferable;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import static com.samrj.devil.math.Vec3Array.checkSize;
+
+/**
+ * A fixed-size array of transforms, stored as a structure of arrays: one array
+ * each of positions, rotations and scales. Each component array may be
+ * operated on or uploaded on its own.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class TransformArray implements FloatBufferable
+{
+    // <editor-fold defaultstate="collapsed" desc="Static mutator methods">
+    /**
+     * Copies the source array into the target array.
+     * 
+     * @param source The array to copy from.
+     * @param target The array to copy into.
+     */
+    public static void copy(TransformArray source, TransformArray target)
+    {
+        Vec3Array.copy(source.pos, target.pos);
+        QuatArray.copy(source.rot, target.rot);
+        Vec3Array.copy(source.sca, target.sca);
+    }
+    
+    /**
+     * Sets every transform in the given array to the identity transform.
+     * 
+     * @param result The array to set.
+     */
+    public static void identity(TransformArray result)
+    {
+        Arrays.fill(result.pos.data, 0.0f);
+        QuatArray.identity(result.rot);
+        Arrays.fill(result.sca.data, 1.0f);
+    }
+    
+    /**
+     * Interpolates between each pair of transforms in {@code a} and {@code b},
+     * and stores the results in {@code result}, as with Transform.lerp().
+     * 
+     * @param a The 'start' transforms to interpolate from.
+     * @param b The 'end' transforms to interpolate to.
+     * @param t The scalar interpolant, between zero and one (inclusive).
+     * @param result The array in which to store the results.
+     */
+    public static void lerp(TransformArray a, TransformArray b, float t, TransformArray result)
+    {
+        Vec3Array.lerp(a.pos, b.pos, t, result.pos);
+        QuatArray.slerp(a.rot, b.rot, t, result.rot);
+        Vec3Array.lerp(a.sca, b.sca, t, result.sca);
+    }
+    // </editor-fold>
+    
+    /**
+     * The number of transforms in this array.
+     */
+    public final int size;
+    
+    public final Vec3Array pos;
+    public final QuatArray rot;
+    public final Vec3Array sca;
+    
+    /**
+     * Creates a new array of the given number of identity transforms.
+     * 
+     * @param size The number of transforms.
+     */
+    public TransformArray(int size)
+    {
+        this.size = size;
+        pos = new Vec3Array(size);
+        rot = new QuatArray(size);
+        sca = new Vec3Array(size);
+        identity(this);
+    }
+    
+    // <editor-fold defaultstate="collapsed" desc="Instance accessor methods">
+    /**
+     * Copies the transform at the given index into {@code result}.
+     * 
+     * @param index The index of the transform to get.
+     * @param result The transform in which to store the result.
+     * @return The given result transform.
+     */
+    public Transform get(int index, Transform result)
+    {
+        pos.get(index, result.pos);
+        rot.get(index, result.rot);
+        sca.get(index, result.sca);
+        return result;
+    }
+    
+    /**
+     * Returns a new copy of the transform at the given index.
+     * 
+     * @param index The index of the transform to get.
+     * @return A new transform.
+     */
+    public Transform get(int index)
+    {
+        return get(index, new Transform());
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="Instance mutator methods">
+    /**
+     * Sets the transform at the given index to the given transform.
+     * 
+     * @param index The index of the transform to set.
+     * @param t The transform to copy.
+     * @return This array.
+     */
+    public TransformArray set(int index, Transform t)
+    {
+        pos.set(index, t.pos);
+        rot.set(index, t.rot);
+        sca.set(index, t.sca);
+        return this;
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="Overriden/implemented methods">
+    /**
+     * Buffers each transform in turn, in the same layout as Transform.
+     */
+    @Override
+    public void read(ByteBuffer buffer)
+    {
+        for (int i=0; i<size; i++)
+        {
+            pos.set(i, buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+            float x = buffer.getFloat(), y = buffer.getFloat(), z = buffer.getFloat();
+            rot.set(i, buffer.getFloat(), x, y, z);
+            sca.set(i, buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+        }
+    }
+    
+    @Override
+    public void write(ByteBuffer buffer)
+    {
+        for (int i=0; i<size; i++)
+        {
+            buffer.putFloat(pos.data[i*3]).putFloat(pos.data[i*3 + 1]).putFloat(pos.data[i*3 + 2]);
+            buffer.putFloat(rot.data[i*4]).putFloat(rot.data[i*4 + 1]).putFloat(rot.data[i*4 + 2]).putFloat(rot.data[i*4 + 3]);
+            buffer.putFloat(sca.data[i*3]).putFloat(sca.data[i*3 + 1]).putFloat(sca.data[i*3 + 2]);
+        }
+    }
+    
+    @Override
+    public void read(FloatBuffer buffer)
+    {
+        for (int i=0; i<size; i++)
+        {
+            buffer.get(pos.data, i*3, 3);
+            buffer.get(rot.data, i*4, 4);
+            buffer.get(sca.data, i*3, 3);
+        }
+    }
+    
+    @Override
+    public void write(FloatBuffer buffer)
+    {
+        for (int i=0; i<size; i++)
+        {
+            buffer.put(pos.data, i*3, 3);
+            buffer.put(rot.data, i*4, 4);
+            buffer.put(sca.data, i*3, 3);
+        }
+    }
+    
+    @Override
+    public int bufferSize()
+    {
+        return size*10*4;
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,469 @@
+/*
+ * Copyright (c) 2020 Sam Johnson
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.samrj.devil.math;
+
+import com.samrj.devil.util.DataStreamable;
+import com.samrj.devil.util.Bufferable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Class which represents transformations in 3D space, in double precision.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ */
+public class Transformd implements Bufferable, DataStreamable<Transformd>
+{
+    // <editor-fold defaultstate="collapsed" desc="Static mutator methods">
+    /**
+     * Copies the first given transform into the second.
+     * 
+     * @param source The transform to copy from.
+     * @param target The transform to copy to.
+     */
+    public static final void copy(Transformd source, Transformd target)
+    {
+        Vec3d.copy(source.pos, target.pos);
+        Quatd.copy(source.rot, target.rot);
+        Vec3d.copy(source.sca, target.sca);
+    }
+    
+    /**
+     * Copies the given float transform into the given transform.
+     * 
+     * @param source The transform to copy from.
+     * @param target The transform to copy to.
+     */
+    public static final void copy(Transform source, Transformd target)
+    {
+        Vec3d.copy(source.pos, target.pos);
+        Quatd.copy(source.rot, target.rot);
+        Vec3d.copy(source.sca, target.sca);
+    }
+    
+    /**
+     * Sets the given transform to the default, zero transform.
+     * 
+     * @param result The transform in which to store the result.
+     */
+    public static final void zero(Transformd result)
+    {
+        result.pos.set();
+        result.rot.set();
+        result.sca.set();
+    }
+    
+    /**
+     * Sets the given transform to the identity transform.
+     * 
+     * @param result The transform in which to store the result.
+     */
+    public static final void identity(Transformd result)
+    {
+        result.pos.set();
+        result.rot.setIdentity();
+        result.sca.set(1.0);
+    }
+    
+    /**
+     * Decomposes the given matrix into a transform. Will not have valid results
+     * for matrices that have any shearing or projection.
+     * 
+     * @param matrix The matrix to decompose.
+     * @param r The transform in which to store the result.
+     */
+    public static final void decompose(Mat4d matrix, Transformd r)
+    {
+        double sx = Math.sqrt(matrix.a*matrix.a + matrix.b*matrix.b + matrix.c*matrix.c);
+        double sy = Math.sqrt(matrix.e*matrix.e + matrix.f*matrix.f + matrix.g*matrix.g);
+        double sz = Math.sqrt(matrix.i*matrix.i + matrix.j*matrix.j + matrix.k*matrix.k);
+        
+        Quatd.rotation(matrix.a/sx, matrix.b/sy, matrix.c/sz,
+                      matrix.e/sx, matrix.f/sy, matrix.g/sz,
+                      matrix.i/sx, matrix.j/sy, matrix.k/sz, r.rot);
+        r.sca.set(sx, sy, sz);
+        r.pos.set(matrix.d, matrix.h, matrix.l);
+    }
+    
+    /**
+     * Performs a transform composition on {@code t0} and {@code t1}, and stores
+     * the result in {@code r}.
+     * 
+     * @param t0 The left-hand transform to multiply.
+     * @param t1 The right-hand transform to multiply by.
+     * @param r The transform in which to store the result.
+     */
+    public static final void mult(Transformd t0, Transformd t1, Transformd r)
+    {
+        r.setDecomposition(Mat4d.transform(t1).mult(t0));
+    }
+    
+    /**
+     * Multiplies the given transform by the given matrix, and stores the result
+     * in {@code r}. This is expensive, and will not be valid for matrices that
+     * have any shearing or projection.
+     * 
+     * @param t The left-hand transform to multiply.
+     * @param m The right-hand matrix to multiply by.
+     * @param r The transform in which to store the result.
+     */
+    public static final void mult(Transformd t, Mat4d m, Transformd r)
+    {
+        mult(t, decompose(m), r);
+    }
+    
+    /**
+     * Interpolates between the two given transform using the given scalar, and
+     * stores the result in {@code r}.
+     * 
+     * @param t0 The 'start' transform to interpolate from.
+     * @param t1 The 'end' transform to interpolate to.
+     * @param t The scalar interpolant, between zero and one (inclusive).
+     * @param result The transform in which to store the result.
+     */
+    public static final void lerp(Transformd t0, Transformd t1, double t, Transformd result)
+    {
+        Vec3d.lerp(t0.pos, t1.pos, t, result.pos);
+        Quatd.slerp(t0.rot, t1.rot, t, result.rot);
+        Vec3d.lerp(t0.sca, t1.sca, t, result.sca);
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="Static factory methods">
+    /**
+     * Returns a new identity transform.
+     * 
+     * @return A new identity transform.
+     */
+    public static final Transformd identity()
+    {
+        Transformd result = new Transformd();
+        identity(result);
+        return result;
+    }
+    
+    /**
+     * Returns a transform representation of the given matrix. Will not have
+     * valid results for matrices that have any shearing or projection.
+     * 
+     * @param matrix The matrix to decompose.
+     * @return A new transform.
+     */
+    public static final Transformd decompose(Mat4d matrix)
+    {
+        Transformd result = new Transformd();
+        decompose(matrix, result);
+        return result;
+    }
+    
+    /**
+     * Composes the two given transforms, and returns the result in a new
+     * transform.
+     * 
+     * @param t0 The left-hand transform to multiply.
+     * @param t1 The right-hand transform to multiply by.
+     * @return A new transform.
+     */
+    public static final Transformd mult(Transformd t0, Transformd t1)
+    {
+        Transformd result = new Transformd();
+        mult(t0, t1, result);
+        return result;
+    }
+    
+    /**
+     * Multiplies the given transform by the given matrix, and returns the
+     * result in a new transform. This is expensive, and will not be valid for
+     * matrices that have any shearing or projection.
+     * 
+     * @param t The left-hand transform to multiply.
+     * @param m The right-hand matrix to multiply by.
+     * @return A new transform.
+     */
+    public static final Transformd mult(Transformd t, Mat4d m)
+    {
+        Transformd result = new Transformd();
+        mult(t, m, result);
+        return result;
+    }
+    
+    /**
+     * Interpolates between the two given transforms by the given scalar, and
+     * returns the result in a new transform.
+     * 
+     * @param t0 The 'start' transform to interpolate from.
+     * @param t1 The 'end' transform to interpolate to.
+     * @param t The scalar interpolant, between zero and one (inclusive).
+     * @return A new transform.
+     */
+    public static final Transformd lerp(Transformd t0, Transformd t1, double t)
+    {
+        Transformd result = new Transformd();
+        lerp(t0, t1, t, result);
+        return result;
+    }
+    // </editor-fold>
+    
+    public final Vec3d pos;
+    public final Quatd rot;
+    public final Vec3d sca;
+    
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
+    /**
+     * Creates a new zero transform, NOT an identity transform. Use identity()
+     * to create an identity transform.
+     */
+    public Transformd()
+    {
+        pos = new Vec3d();
+        rot = new Quatd();
+        sca = new Vec3d();
+    }
+    
+    /**
+     * Creates a new transform using the given position, rotation, and scale.
+     * 
+     * @param pos A position.
+     * @param rot A rotation.
+     * @param sca A scale.
+     */
+    public Transformd(Vec3d pos, Quatd rot, Vec3d sca)
+    {
+        this.pos = new Vec3d(pos);
+        this.rot = new Quatd(rot);
+        this.sca = new Vec3d(sca);
+    }
+    
+    /**
+     * Copies the given transform.
+     * 
+     * @param transform The transform to copy.
+     */
+    public Transformd(Transformd transform)
+    {
+        pos = new Vec3d(transform.pos);
+        rot = new Quatd(transform.rot);
+        sca = new Vec3d(transform.sca);
+    }
+    
+    /**
+     * Copies the given float transform.
+     * 
+     * @param transform The transform to copy.
+     */
+    public Transformd(Transform transform)
+    {
+        pos = new Vec3d(transform.pos);
+        rot = new Quatd(transform.rot);
+        sca = new Vec3d(transform.sca);
+    }
+    
+    /**
+     * Loads a new transform from the given input stream.
+     * 
+     * @param in The input stream to read from.
+     * @throws IOException If an io error occurred.
+     */
+    public Transformd(DataInputStream in) throws IOException
+    {
+        pos = new Vec3d(in);
+        rot = new Quatd(in);
+        sca = new Vec3d(in);
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="Instance mutator methods">
+    /**
+     * Sets this transform to zero.
+     * 
+     * @return This transform.
+     */
+    public Transformd set()
+    {
+        zero(this);
+        return this;
+    }
+    
+    /**
+     * Sets this to the identity transform.
+     * 
+     * @return This transform.
+     */
+    public Transformd setIdentity()
+    {
+        identity(this);
+        return this;
+    }
+    
+    /**
+     * Sets this transform to the given position, rotation, and scale.
+     * 
+     * @param pos A position.
+     * @param rot A rotation.
+     * @param sca A scale.
+     * @return This transform.
+     */
+    public Transformd set(Vec3d pos, Quatd rot, Vec3d sca)
+    {
+        Vec3d.copy(pos, this.pos);
+        Quatd.copy(rot, this.rot);
+        Vec3d.copy(sca, this.sca);
+        return this;
+    }
+    
+    /**
+     * Sets this to the given transform.
+     * 
+     * @param transform The transform to set to.
+     * @return This transform.
+     */
+    public Transformd set(Transformd transform)
+    {
+        copy(transform, this);
+        return this;
+    }
+    
+    /**
+     * Sets this to the given float transform.
+     * 
+     * @param transform The transform to set this to.
+     * @return This transform.
+     */
+    public Transformd set(Transform transform)
+    {
+        copy(transform, this);
+        return this;
+    }
+    
+    /**
+     * Sets this to the decomposition of the given matrix. Will not be valid if
+     * the matrix has any shearing or projection.
+     * 
+     * @param matrix The matrix to decompose.
+     * @return This transform.
+     */
+    public Transformd setDecomposition(Mat4d matrix)
+    {
+        decompose(matrix, this);
+        return this;
+    }
+    
+    /**
+     * Multiplies this by the given transform.
+     * 
+     * @param transform The transform to multiply by.
+     * @return This transform.
+     */
+    public Transformd mult(Transformd transform)
+    {
+        mult(this, transform, this);
+        return this;
+    }
+    
+    /**
+     * Multiplies this by the given matrix. This is expensive, and will not be
+     * valid for matrices that have any shearing or projection.
+     * 
+     * @param matrix The matrix to multiply by.
+     * @return This transform.
+     */
+    public Transformd mult(Mat4d matrix)
+    {
+        mult(this, matrix, this);
+        return this;
+    }
+    
+    /**
+     * Interpolates this towards the given transform with the given scalar
+     * interpolant.
+     * 
+     * @param transform The 'end' transform to interpolate to.
+     * @param t The scalar interpolant, between zero and one (inclusive).
+     * @return This transform.
+     */
+    public Transformd lerp(Transformd transform, double t)
+    {
+        lerp(this, transform, t, this);
+        return this;
+    }
+    // </editor-fold>
+    
+    public void setProperty(Transform.Property property, int index, double value)
+    {
+        switch (property)
+        {
+            case POSITION: pos.setComponent(index, value); break;
+            case ROTATION: rot.setComponent(index, value); break;
+            case SCALE:    sca.setComponent(index, value); break;
+            default: throw new IllegalArgumentException();
+        }
+    }
+    
+    // <editor-fold defaultstate="collapsed" desc="Overriden/implemented methods">
+    @Override
+    public void read(ByteBuffer buffer)
+    {
+        pos.read(buffer);
+        rot.read(buffer);
+        sca.read(buffer);
+    }
+    
+    @Override
+    public void write(ByteBuffer buffer)
+    {
+        pos.write(buffer);
+        rot.write(buffer);
+        sca.write(buffer);
+    }
+    
+    @Override
+    public int bufferSize()
+    {
+        return 10*8;
+    }
+    
+    @Override
+    public Transformd read(DataInputStream in) throws IOException
+    {
+        pos.read(in);
+        rot.read(in);
+        sca.read(in);
+        return this;
+    }
+    
+    @Override
+    public Transformd write(DataOutputStream out) throws IOException
+    {
+        pos.write(out);
+        rot.write(out);
+        sca.write(out);
+        return this;
+    }
+    
+    @Override
+    public String toString()
+    {
+        return "{ " + pos + " " + rot + " " + sca + " }";
+    }
+    // </editor-fold>
+}
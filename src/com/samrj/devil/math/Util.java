@@ -336,6 +336,30 @@ public final class Util
         return index;
     }
     
+    /**
+     * Returns the index of the largest value in the given array. 
+     * 
+     * @param values An array of doubles.
+     * @return The index of the largest value in the given array. 
+     */
+    public static int maxdex(double... values)
+    {
+        int index = 0;
+        double max = values[0];
+        
+        for (int i=1; i<values.length; i++)
+        {
+            double value = values[i];
+            if (value > max)
+            {
+                max = value;
+                index = i;
+            }
+        }
+        
+        return index;
+    }
+    
     
     /**
      * Loops the given value into the given range.
@@ -654,6 +678,235 @@ public final class Util
         }
     }
     
+    // <editor-fold defaultstate="collapsed" desc="Fast approximations">
+    /**
+     * Whether classes with heavy use of transcendental functions, like Quat,
+     * FCurve and Ellipsoid, use the fast approximations below instead of Math.
+     * Set by the system property devil.math.fast, and false by default.
+     */
+    public static final boolean FAST_MATH = Boolean.getBoolean("devil.math.fast");
+    
+    private static final float FAST_TRIG_LIMIT = 8192.0f;
+    private static final float FOUR_OVER_PI = (float)(4.0/Math.PI);
+    
+    //Pi/4, split so that multiples of it may be subtracted without losing bits.
+    private static final float PId4_1 = 0.78515625f;
+    private static final float PId4_2 = 2.4187564849853515625e-4f;
+    private static final float PId4_3 = 3.77489497744594108e-8f;
+    
+    private static final float LOG2E = (float)(1.0/Math.log(2.0));
+    private static final float LN2_1 = 0.693359375f;
+    private static final float LN2_2 = -2.12194440e-4f;
+    
+    /**
+     * Minimax polynomial for the sine of r, between -pi/4 and pi/4.
+     */
+    private static float sinPoly(float r, float r2)
+    {
+        return ((-1.9515295891e-4f*r2 + 8.3321608736e-3f)*r2 - 1.6666654611e-1f)*r2*r + r;
+    }
+    
+    /**
+     * Minimax polynomial for the cosine of r, between -pi/4 and pi/4.
+     */
+    private static float cosPoly(float r2)
+    {
+        return ((2.443315711809948e-5f*r2 - 1.388731625493765e-3f)*r2 + 4.166664568298827e-2f)*r2*r2 - 0.5f*r2 + 1.0f;
+    }
+    
+    /**
+     * Minimax polynomial for the arcsine of a, between -0.5 and 0.5.
+     */
+    private static float asinPoly(float a, float a2)
+    {
+        return ((((4.2163199048e-2f*a2 + 2.4181311049e-2f)*a2 + 4.5470025998e-2f)*a2 + 7.4953002686e-2f)*a2 + 1.6666752422e-1f)*a2*a + a;
+    }
+    
+    /**
+     * Approximates the sine of the given angle. The absolute error is at most
+     * 8.0e-8 for angles between -8192 and 8192. Larger angles, infinities and
+     * NaN are passed on to Math.sin().
+     * 
+     * @param angle An angle, in radians.
+     * @return The approximate sine of the angle.
+     */
+    public static float fastSin(float angle)
+    {
+        float a = Math.abs(angle);
+        if (!(a <= FAST_TRIG_LIMIT)) return (float)Math.sin(angle);
+        
+        int j = ((int)(a*FOUR_OVER_PI) + 1) & ~1; //Nearest even multiple of pi/4.
+        float y = j;
+        float r = ((a - y*PId4_1) - y*PId4_2) - y*PId4_3;
+        float r2 = r*r;
+        float out = (j & 2) == 0 ? sinPoly(r, r2) : cosPoly(r2);
+        return ((j & 4) != 0) != (angle < 0.0f) ? -out : out;
+    }
+    
+    /**
+     * Approximates the cosine of the given angle. The absolute error is at
+     * most 8.0e-8 for angles between -8192 and 8192. Larger angles, infinities
+     * and NaN are passed on to Math.cos().
+     * 
+     * @param angle An angle, in radians.
+     * @return The approximate cosine of the angle.
+     */
+    public static float fastCos(float angle)
+    {
+        float a = Math.abs(angle);
+        if (!(a <= FAST_TRIG_LIMIT)) return (float)Math.cos(angle);
+        
+        int j = ((int)(a*FOUR_OVER_PI) + 1) & ~1;
+        float y = j;
+        float r = ((a - y*PId4_1) - y*PId4_2) - y*PId4_3;
+        float r2 = r*r;
+        float out = (j & 2) == 0 ? cosPoly(r2) : sinPoly(r, r2);
+        return ((j + 2) & 4) != 0 ? -out : out;
+    }
+    
+    /**
+     * Approximates both the cosine and sine of the given angle, sharing their
+     * range reduction, and stores them in the x and y components of the given
+     * vector respectively. Has the same error bounds as fastSin() and
+     * fastCos().
+     * 
+     * @param angle An angle, in radians.
+     * @param result The vector in which to store the result.
+     */
+    public static void fastSinCos(float angle, Vec2 result)
+    {
+        float a = Math.abs(angle);
+        if (!(a <= FAST_TRIG_LIMIT))
+        {
+            result.x = (float)Math.cos(angle);
+            result.y = (float)Math.sin(angle);
+            return;
+        }
+        
+        int j = ((int)(a*FOUR_OVER_PI) + 1) & ~1;
+        float y = j;
+        float r = ((a - y*PId4_1) - y*PId4_2) - y*PId4_3;
+        float r2 = r*r;
+        float sin = sinPoly(r, r2), cos = cosPoly(r2);
+        
+        boolean swap = (j & 2) != 0;
+        float s = swap ? cos : sin, c = swap ? sin : cos;
+        result.x = ((j + 2) & 4) != 0 ? -c : c;
+        result.y = ((j & 4) != 0) != (angle < 0.0f) ? -s : s;
+    }
+    
+    /**
+     * Approximates the angle of the given direction, like Math.atan2(). The
+     * absolute error is at most 3.0e-7 radians. Zeroes, infinities and NaN
+     * are passed on to Math.atan2().
+     * 
+     * @param y The y coordinate of the direction.
+     * @param x The x coordinate of the direction.
+     * @return The approximate angle, between -pi and pi.
+     */
+    public static float fastAtan2(float y, float x)
+    {
+        float ax = Math.abs(x), ay = Math.abs(y);
+        float max = Math.max(ax, ay);
+        if (!(max > 0.0f && max < Float.POSITIVE_INFINITY)) return (float)Math.atan2(y, x);
+        
+        float a = Math.min(ax, ay)/max;
+        float offset = 0.0f;
+        if (a > 0.41421356f) //Reduce to within tan(pi/8) of zero.
+        {
+            a = (a - 1.0f)/(a + 1.0f);
+            offset = PI*0.25f;
+        }
+        
+        float a2 = a*a;
+        float out = (((8.05374449538e-2f*a2 - 1.38776856032e-1f)*a2 + 1.99777106478e-1f)*a2 - 3.33329491539e-1f)*a2*a + a + offset;
+        if (ay > ax) out = PId2 - out;
+        if (x < 0.0f) out = PI - out;
+        return Math.copySign(out, y);
+    }
+    
+    /**
+     * Approximates the arccosine of the given value. The absolute error is at
+     * most 3.1e-7 radians. Returns NaN for values outside of -1 and 1.
+     * 
+     * @param f A value between -1 and 1.
+     * @return The approximate arccosine, between 0 and pi.
+     */
+    public static float fastAcos(float f)
+    {
+        float a = Math.abs(f);
+        if (!(a <= 1.0f)) return Float.NaN;
+        
+        if (a > 0.5f)
+        {
+            float z = 0.5f*(1.0f - a);
+            float out = 2.0f*asinPoly((float)Math.sqrt(z), z);
+            return f < 0.0f ? PI - out : out;
+        }
+        else return PId2 - asinPoly(f, f*f);
+    }
+    
+    /**
+     * Approximates e raised to the given power. The relative error is at most
+     * 1.0e-7. Powers below -87 or above 88, infinities and NaN are passed on
+     * to Math.exp().
+     * 
+     * @param f The power to raise e to.
+     * @return The approximate exponential of the given value.
+     */
+    public static float fastExp(float f)
+    {
+        if (!(f >= -87.0f && f <= 88.0f)) return (float)Math.exp(f);
+        
+        float n = (float)Math.floor(f*LOG2E + 0.5f);
+        float r = (f - n*LN2_1) - n*LN2_2;
+        float r2 = r*r;
+        float out = (((((1.9875691500e-4f*r + 1.3981999507e-3f)*r + 8.3334519073e-3f)*r
+                + 4.1665795894e-2f)*r + 1.6666665459e-1f)*r + 5.0000001201e-1f)*r2 + r + 1.0f;
+        return out*Float.intBitsToFloat(((int)n + 127) << 23);
+    }
+    
+    /**
+     * Approximates the reciprocal square root of the given value, using an
+     * initial guess from its bits and two Newton-Raphson steps. The relative
+     * error is at most 5.0e-6. The value must be positive and normal.
+     * 
+     * @param f A positive, normal value.
+     * @return The approximate reciprocal square root of the given value.
+     */
+    public static float fastRsqrt(float f)
+    {
+        float half = 0.5f*f;
+        float y = Float.intBitsToFloat(0x5f375a86 - (Float.floatToRawIntBits(f) >> 1));
+        y *= 1.5f - half*y*y;
+        y *= 1.5f - half*y*y;
+        return y;
+    }
+    
+    /**
+     * Approximates the cube root of the given value, using an initial guess
+     * from its bits and two Halley steps. The relative error is at most
+     * 1.0e-7. Zeroes, subnormals, infinities and NaN are passed on to
+     * Math.cbrt().
+     * 
+     * @param f Any value.
+     * @return The approximate cube root of the given value.
+     */
+    public static float fastCbrt(float f)
+    {
+        float a = Math.abs(f);
+        if (!(a >= Float.MIN_NORMAL && a < Float.POSITIVE_INFINITY)) return (float)Math.cbrt(f);
+        
+        //Steps are taken in double precision, which cannot overflow here.
+        double y = Float.intBitsToFloat(Float.floatToRawIntBits(a)/3 + 0x2a5137a0);
+        double y3 = y*y*y;
+        y *= (y3 + 2.0*a)/(2.0*y3 + a);
+        y3 = y*y*y;
+        y *= (y3 + 2.0*a)/(2.0*y3 + a);
+        return Math.copySign((float)y, f);
+    }
+    // </editor-fold>
+    
     /**
      * The significand of a normal number has an implicit MSB (most significant
      * bit) of one. All other numbers, including zero, are subnormal.
@@ -666,6 +919,66 @@ public final class Util
         return Math.abs(f) < Float.MIN_NORMAL;
     }
     
+    /**
+     * Converts the given float to the nearest IEEE 754 half-precision float,
+     * rounding ties to even. Values too large to represent become infinite.
+     * 
+     * @param f The float to convert.
+     * @return The bits of the nearest half-precision float.
+     */
+    public static short toHalf(float f)
+    {
+        int bits = Float.floatToRawIntBits(f);
+        int sign = (bits >>> 16) & 0x8000;
+        int exp = (bits >>> 23) & 0xFF;
+        int mant = bits & 0x7FFFFF;
+        
+        if (exp == 0xFF) return (short)(sign | 0x7C00 | (mant != 0 ? 0x200 : 0)); //Infinity or NaN
+        
+        int e = exp - 112;
+        if (e >= 0x1F) return (short)(sign | 0x7C00);
+        if (e <= 0) //Subnormal result
+        {
+            if (e < -10) return (short)sign;
+            
+            mant |= 0x800000;
+            int shift = 14 - e;
+            int half = mant >> shift;
+            int rem = mant & ((1 << shift) - 1);
+            int mid = 1 << (shift - 1);
+            if (rem > mid || (rem == mid && (half & 1) != 0)) half++;
+            return (short)(sign | half);
+        }
+        
+        //Rounding may carry into the exponent, which correctly rounds up to infinity.
+        int half = (e << 10) | (mant >> 13);
+        int rem = mant & 0x1FFF;
+        if (rem > 0x1000 || (rem == 0x1000 && (half & 1) != 0)) half++;
+        return (short)(sign | half);
+    }
+    
+    /**
+     * Converts the given IEEE 754 half-precision float to a float. This
+     * conversion is exact.
+     * 
+     * @param h The bits of a half-precision float.
+     * @return The equivalent float.
+     */
+    public static float fromHalf(short h)
+    {
+        int sign = (h & 0x8000) << 16;
+        int exp = (h >>> 10) & 0x1F;
+        int mant = h & 0x3FF;
+        
+        if (exp == 0x1F) return Float.intBitsToFloat(sign | 0x7F800000 | (mant << 13));
+        if (exp == 0)
+        {
+            float f = mant*0x1.0p-24f;
+            return sign != 0 ? -f : f;
+        }
+        return Float.intBitsToFloat(sign | ((exp + 112) << 23) | (mant << 13));
+    }
+    
     /**
      * Returns whether the two given values are close together.
      * 
@@ -679,6 +992,19 @@ public final class Util
         return Math.abs(f0 - f1) <= threshold;
     }
     
+    /**
+     * Returns whether the two given values are close together.
+     * 
+     * @param f0 The first number to check.
+     * @param f1 The second number to check.
+     * @param threshold The greatest distance at which the values are equal.
+     * @return Whether the two values are close together.
+     */
+    public static boolean equals(double f0, double f1, double threshold)
+    {
+        return Math.abs(f0 - f1) <= threshold;
+    }
+    
     /**
      * Checks if {@code f} is close to zero. Threshold needs to be managed by
      * the user, because floats are arbitrarily precise near zero and there's no
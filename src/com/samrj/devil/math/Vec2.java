@@ -404,8 +404,9 @@ public class Vec2 implements FloatBufferable, DataStreamable<Vec2>
      */
     public static final void reject(Vec2 v0, Vec2 v1, Vec2 result)
     {
-        Vec2 temp = project(v0, v1);
-        sub(v0, temp, result);
+        float s = dot(v0, v1)/squareLength(v1);
+        result.x = v0.x - v1.x*s;
+        result.y = v0.y - v1.y*s;
     }
     
     /**
@@ -436,10 +437,15 @@ public class Vec2 implements FloatBufferable, DataStreamable<Vec2>
      */
     public static final void move(Vec2 v, Vec2 dest, float dist, Vec2 result)
     {
-        Vec2 dp = sub(dest, v);
-        float d0 = length(dp);
+        float dx = dest.x - v.x, dy = dest.y - v.y;
+        float d0 = (float)Math.sqrt(dx*dx + dy*dy);
         if (d0 <= dist) copy(dest, result);
-        else madd(v, dp, dist/d0, result);
+        else
+        {
+            float s = dist/d0;
+            result.x = v.x + dx*s;
+            result.y = v.y + dy*s;
+        }
     }
     
     /**
@@ -216,6 +216,23 @@ public class Vec3 implements FloatBufferable, DataStreamable<Vec3>
         target.z = (float)source.z;
     }
     
+    /**
+     * Subtracts {@code origin} from {@code source} in double precision, then
+     * casts the result into {@code target}.
+     * 
+     * Used for camera-relative rendering; see Mat4.castRelative().
+     * 
+     * @param source The vector to copy.
+     * @param origin The origin to make the vector relative to.
+     * @param target The vector in which to store the result.
+     */
+    public static final void castRelative(Vec3d source, Vec3d origin, Vec3 target)
+    {
+        target.x = (float)(source.x - origin.x);
+        target.y = (float)(source.y - origin.y);
+        target.z = (float)(source.z - origin.z);
+    }
+    
     /**
      * Sets a vector to the given row of a matrix.
      * 
@@ -391,15 +408,15 @@ public class Vec3 implements FloatBufferable, DataStreamable<Vec3>
      */
     public static final void mult(Vec3 v, Quat q, Vec3 result)
     {
-        Vec3 temp1 = new Vec3(q.x, q.y, q.z);
-        Vec3 temp2 = cross(temp1, v);
-        mult(temp2, 2.0f, temp2);
+        //t = 2*cross(q.xyz, v), then v + cross(q.xyz, t) + t*q.w
+        float tx = (q.y*v.z - q.z*v.y)*2.0f;
+        float ty = (q.z*v.x - q.x*v.z)*2.0f;
+        float tz = (q.x*v.y - q.y*v.x)*2.0f;
         
-        copy(v, result);
-        cross(temp1, temp2, temp1);
-        add(result, temp1, result);
-        mult(temp2, q.w, temp2);
-        add(result, temp2, result);
+        float x = v.x + (q.y*tz - q.z*ty) + tx*q.w;
+        float y = v.y + (q.z*tx - q.x*tz) + ty*q.w;
+        float z = v.z + (q.x*ty - q.y*tx) + tz*q.w;
+        result.x = x; result.y = y; result.z = z;
     }
     
     /**
@@ -512,8 +529,10 @@ public class Vec3 implements FloatBufferable, DataStreamable<Vec3>
      */
     public static final void reject(Vec3 v0, Vec3 v1, Vec3 result)
     {
-        Vec3 temp = project(v0, v1);
-        sub(v0, temp, result);
+        float s = dot(v0, v1)/squareLength(v1);
+        result.x = v0.x - v1.x*s;
+        result.y = v0.y - v1.y*s;
+        result.z = v0.z - v1.z*s;
     }
     
     /**
@@ -545,10 +564,16 @@ public class Vec3 implements FloatBufferable, DataStreamable<Vec3>
      */
     public static final void move(Vec3 v, Vec3 dest, float dist, Vec3 result)
     {
-        Vec3 dp = sub(dest, v);
-        float d0 = length(dp);
+        float dx = dest.x - v.x, dy = dest.y - v.y, dz = dest.z - v.z;
+        float d0 = (float)Math.sqrt(dx*dx + dy*dy + dz*dz);
         if (d0 <= dist) copy(dest, result);
-        else madd(v, dp, dist/d0, result);
+        else
+        {
+            float s = dist/d0;
+            result.x = v.x + dx*s;
+            result.y = v.y + dy*s;
+            result.z = v.z + dz*s;
+        }
     }
     
     /**
@@ -565,9 +590,15 @@ public class Vec3 implements FloatBufferable, DataStreamable<Vec3>
         float cos = (float)Math.cos(angle);
         float sin = (float)Math.sin(angle);
         
-        Vec3 temp = mult(v, cos);
-        madd(temp, cross(axis, v), sin, temp);
-        madd(temp, axis, dot(axis, v)*(1.0f - cos), result);
+        float cx = axis.y*v.z - axis.z*v.y;
+        float cy = axis.z*v.x - axis.x*v.z;
+        float cz = axis.x*v.y - axis.y*v.x;
+        float d = dot(axis, v)*(1.0f - cos);
+        
+        float x = (v.x*cos + cx*sin) + axis.x*d;
+        float y = (v.y*cos + cy*sin) + axis.y*d;
+        float z = (v.z*cos + cz*sin) + axis.z*d;
+        result.x = x; result.y = y; result.z = z;
     }
     // </editor-fold>
     // <editor-fold defaultstate="collapsed" desc="Static factory methods">
@@ -578,6 +609,21 @@ public class Vec3 implements FloatBufferable, DataStreamable<Vec3>
         return result;
     }
     
+    /**
+     * Casts the given double vector to a new float vector, relative to the
+     * given origin.
+     * 
+     * @param v The vector to cast.
+     * @param origin The origin to make the vector relative to.
+     * @return A new vector.
+     */
+    public static final Vec3 castRelative(Vec3d v, Vec3d origin)
+    {
+        Vec3 result = new Vec3();
+        castRelative(v, origin, result);
+        return result;
+    }
+    
     /**
      * Returns the given row of a matrix in a new vector.
      * 
@@ -1100,6 +1146,19 @@ public class Vec3 implements FloatBufferable, DataStreamable<Vec3>
         return this;
     }
     
+    /**
+     * Sets this to the given vector, relative to the given origin.
+     * 
+     * @param v The vector to set this to.
+     * @param origin The origin to make the vector relative to.
+     * @return This vector.
+     */
+    public Vec3 setCastRelative(Vec3d v, Vec3d origin)
+    {
+        castRelative(v, origin, this);
+        return this;
+    }
+    
     /**
      * Sets this to the given vector.
      * 
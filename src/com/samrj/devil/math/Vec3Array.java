@@ -0,0 +1,424 @@
+package com.samrj.devil.math;
+
+import com.samrj.devil.util.FloatBufferable;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * A fixed-size array of three-dimensional vectors, packed into a single float
+ * array as x, y, z triplets. Batched operations work on every element at once,
+ * and the whole array may be streamed into a buffer with a single copy.
+ * 
+ * As with Vec3, the static methods should be preferred where performance is
+ * desired. Any result array may be the same as an input array.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class Vec3Array implements FloatBufferable
+{
+    static void checkSize(int size, int other)
+    {
+        if (size != other) throw new IllegalArgumentException("Array sizes differ: " + size + " and " + other);
+    }
+    
+    // <editor-fold defaultstate="collapsed" desc="Static mutator methods">
+    /**
+     * Copies the source array into the target array.
+     * 
+     * @param source The array to copy from.
+     * @param target The array to copy into.
+     */
+    public static void copy(Vec3Array source, Vec3Array target)
+    {
+        checkSize(source.size, target.size);
+        System.arraycopy(source.data, 0, target.data, 0, source.size*3);
+    }
+    
+    /**
+     * Adds each vector in {@code a} to the same vector in {@code b}, and stores
+     * the results in {@code result}.
+     * 
+     * @param a The vectors to add.
+     * @param b The vectors to add by.
+     * @param result The array in which to store the results.
+     */
+    public static void add(Vec3Array a, Vec3Array b, Vec3Array result)
+    {
+        checkSize(a.size, b.size);
+        checkSize(a.size, result.size);
+        float[] ad = a.data, bd = b.data, rd = result.data;
+        for (int i=0; i<a.size*3; i++) rd[i] = ad[i] + bd[i];
+    }
+    
+    /**
+     * Adds the given vector to each vector in {@code a}, and stores the results
+     * in {@code result}.
+     * 
+     * @param a The vectors to add.
+     * @param v The vector to add by.
+     * @param result The array in which to store the results.
+     */
+    public static void add(Vec3Array a, Vec3 v, Vec3Array result)
+    {
+        checkSize(a.size, result.size);
+        float[] ad = a.data, rd = result.data;
+        for (int i=0; i<a.size*3; i+=3)
+        {
+            rd[i] = ad[i] + v.x;
+            rd[i + 1] = ad[i + 1] + v.y;
+            rd[i + 2] = ad[i + 2] + v.z;
+        }
+    }
+    
+    /**
+     * Subtracts each vector in {@code b} from the same vector in {@code a},
+     * and stores the results in {@code result}.
+     * 
+     * @param a The vectors to subtract from.
+     * @param b The vectors to subtract.
+     * @param result The array in which to store the results.
+     */
+    public static void sub(Vec3Array a, Vec3Array b, Vec3Array result)
+    {
+        checkSize(a.size, b.size);
+        checkSize(a.size, result.size);
+        float[] ad = a.data, bd = b.data, rd = result.data;
+        for (int i=0; i<a.size*3; i++) rd[i] = ad[i] - bd[i];
+    }
+    
+    /**
+     * Multiplies each vector in {@code a} by the given scalar, and stores the
+     * results in {@code result}.
+     * 
+     * @param a The vectors to multiply.
+     * @param s The scalar to multiply by.
+     * @param result The array in which to store the results.
+     */
+    public static void mult(Vec3Array a, float s, Vec3Array result)
+    {
+        checkSize(a.size, result.size);
+        float[] ad = a.data, rd = result.data;
+        for (int i=0; i<a.size*3; i++) rd[i] = ad[i]*s;
+    }
+    
+    /**
+     * Multiplies each vector in {@code a} by {@code b} times the given scalar,
+     * adds the result to {@code a}, and stores the results in {@code result}.
+     * 
+     * @param a The vectors to add to.
+     * @param b The vectors to multiply and add.
+     * @param s The scalar to multiply {@code b} by.
+     * @param result The array in which to store the results.
+     */
+    public static void madd(Vec3Array a, Vec3Array b, float s, Vec3Array result)
+    {
+        checkSize(a.size, b.size);
+        checkSize(a.size, result.size);
+        float[] ad = a.data, bd = b.data, rd = result.data;
+        for (int i=0; i<a.size*3; i++) rd[i] = ad[i] + bd[i]*s;
+    }
+    
+    /**
+     * Transforms each point in {@code a} by the given matrix, and stores the
+     * results in {@code result}.
+     * 
+     * @param a The points to transform.
+     * @param m The matrix to transform by.
+     * @param result The array in which to store the results.
+     */
+    public static void mult(Vec3Array a, Mat4 m, Vec3Array result)
+    {
+        checkSize(a.size, result.size);
+        MathKernels.get().mat4MultPoints(Mat4Array.pack(m), 0, a.data, result.data, a.size);
+    }
+    
+    /**
+     * Multiplies each vector in {@code a} by the given 3x3 matrix, and stores
+     * the results in {@code result}. Use this for directions and normals.
+     * 
+     * @param a The vectors to multiply.
+     * @param m The matrix to multiply by.
+     * @param result The array in which to store the results.
+     */
+    public static void mult(Vec3Array a, Mat3 m, Vec3Array result)
+    {
+        checkSize(a.size, result.size);
+        float[] ad = a.data, rd = result.data;
+        for (int i=0; i<a.size*3; i+=3)
+        {
+            float x = ad[i], y = ad[i + 1], z = ad[i + 2];
+            rd[i] = m.a*x + m.b*y + m.c*z;
+            rd[i + 1] = m.d*x + m.e*y + m.f*z;
+            rd[i + 2] = m.g*x + m.h*y + m.i*z;
+        }
+    }
+    
+    /**
+     * Transforms each point in {@code a} by the matrix at the same index, and
+     * stores the results in {@code result}.
+     * 
+     * @param a The points to transform.
+     * @param m The matrices to transform by.
+     * @param result The array in which to store the results.
+     */
+    public static void mult(Vec3Array a, Mat4Array m, Vec3Array result)
+    {
+        checkSize(a.size, m.size);
+        checkSize(a.size, result.size);
+        MathKernels.get().mat4MultPoints(m.data, 16, a.data, result.data, a.size);
+    }
+    
+    /**
+     * Rotates each vector in {@code a} by the quaternion at the same index,
+     * and stores the results in {@code result}.
+     * 
+     * @param a The vectors to rotate.
+     * @param q The quaternions to rotate by.
+     * @param result The array in which to store the results.
+     */
+    public static void mult(Vec3Array a, QuatArray q, Vec3Array result)
+    {
+        checkSize(a.size, q.size);
+        checkSize(a.size, result.size);
+        float[] ad = a.data, qd = q.data, rd = result.data;
+        for (int n=0; n<a.size; n++)
+        {
+            int i = n*3, j = n*4;
+            QuatArray.rotate(qd[j], qd[j + 1], qd[j + 2], qd[j + 3], ad, i, rd, i);
+        }
+    }
+    
+    /**
+     * Transforms each point in {@code a} by the transform at the same index,
+     * and stores the results in {@code result}.
+     * 
+     * @param a The points to transform.
+     * @param t The transforms to transform by.
+     * @param result The array in which to store the results.
+     */
+    public static void mult(Vec3Array a, TransformArray t, Vec3Array result)
+    {
+        checkSize(a.size, t.size);
+        mult(a, t.sca, result);
+        mult(result, t.rot, result);
+        add(result, t.pos, result);
+    }
+    
+    /**
+     * Multiplies each vector in {@code a} component-wise by the vector at the
+     * same index in {@code b}, and stores the results in {@code result}.
+     * 
+     * @param a The vectors to multiply.
+     * @param b The vectors to multiply by.
+     * @param result The array in which to store the results.
+     */
+    public static void mult(Vec3Array a, Vec3Array b, Vec3Array result)
+    {
+        checkSize(a.size, b.size);
+        checkSize(a.size, result.size);
+        float[] ad = a.data, bd = b.data, rd = result.data;
+        for (int i=0; i<a.size*3; i++) rd[i] = ad[i]*bd[i];
+    }
+    
+    /**
+     * Normalizes each vector in {@code a}, and stores the results in
+     * {@code result}. Zero vectors become NaN, as with Vec3.
+     * 
+     * @param a The vectors to normalize.
+     * @param result The array in which to store the results.
+     */
+    public static void normalize(Vec3Array a, Vec3Array result)
+    {
+        checkSize(a.size, result.size);
+        float[] ad = a.data, rd = result.data;
+        for (int i=0; i<a.size*3; i+=3)
+        {
+            float x = ad[i], y = ad[i + 1], z = ad[i + 2];
+            float inv = 1.0f/(float)Math.sqrt(x*x + y*y + z*z);
+            rd[i] = x*inv;
+            rd[i + 1] = y*inv;
+            rd[i + 2] = z*inv;
+        }
+    }
+    
+    /**
+     * Linearly interpolates between each pair of vectors in {@code a} and
+     * {@code b}, and stores the results in {@code result}.
+     * 
+     * @param a The 'start' vectors to interpolate from.
+     * @param b The 'end' vectors to interpolate to.
+     * @param t The scalar interpolant, between zero and one (inclusive).
+     * @param result The array in which to store the results.
+     */
+    public static void lerp(Vec3Array a, Vec3Array b, float t, Vec3Array result)
+    {
+        checkSize(a.size, b.size);
+        checkSize(a.size, result.size);
+        float[] ad = a.data, bd = b.data, rd = result.data;
+        for (int i=0; i<a.size*3; i++) rd[i] = ad[i] + (bd[i] - ad[i])*t;
+    }
+    // </editor-fold>
+    
+    /**
+     * The number of vectors in this array.
+     */
+    public final int size;
+    
+    /**
+     * The packed components of each vector. Vector n starts at index n*3.
+     */
+    public final float[] data;
+    
+    /**
+     * Creates a new array of the given number of zero vectors.
+     * 
+     * @param size The number of vectors.
+     */
+    public Vec3Array(int size)
+    {
+        if (size < 0) throw new IllegalArgumentException();
+        this.size = size;
+        data = new float[size*3];
+    }
+    
+    /**
+     * Creates a new array containing copies of the given vectors.
+     * 
+     * @param vecs The vectors to copy.
+     */
+    public Vec3Array(Vec3... vecs)
+    {
+        this(vecs.length);
+        for (int i=0; i<size; i++) set(i, vecs[i]);
+    }
+    
+    // <editor-fold defaultstate="collapsed" desc="Instance accessor methods">
+    /**
+     * Copies the vector at the given index into {@code result}.
+     * 
+     * @param index The index of the vector to get.
+     * @param result The vector in which to store the result.
+     * @return The given result vector.
+     */
+    public Vec3 get(int index, Vec3 result)
+    {
+        int i = index*3;
+        result.x = data[i];
+        result.y = data[i + 1];
+        result.z = data[i + 2];
+        return result;
+    }
+    
+    /**
+     * Returns a new copy of the vector at the given index.
+     * 
+     * @param index The index of the vector to get.
+     * @return A new vector.
+     */
+    public Vec3 get(int index)
+    {
+        return get(index, new Vec3());
+    }
+    
+    public float x(int index)
+    {
+        return data[index*3];
+    }
+    
+    public float y(int index)
+    {
+        return data[index*3 + 1];
+    }
+    
+    public float z(int index)
+    {
+        return data[index*3 + 2];
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="Instance mutator methods">
+    /**
+     * Sets the vector at the given index to the given vector.
+     * 
+     * @param index The index of the vector to set.
+     * @param v The vector to copy.
+     * @return This array.
+     */
+    public Vec3Array set(int index, Vec3 v)
+    {
+        return set(index, v.x, v.y, v.z);
+    }
+    
+    /**
+     * Sets the vector at the given index to the given components.
+     * 
+     * @return This array.
+     */
+    public Vec3Array set(int index, float x, float y, float z)
+    {
+        int i = index*3;
+        data[i] = x;
+        data[i + 1] = y;
+        data[i + 2] = z;
+        return this;
+    }
+    
+    /**
+     * Sets every vector in this array to the given vector.
+     * 
+     * @param v The vector to copy.
+     * @return This array.
+     */
+    public Vec3Array fill(Vec3 v)
+    {
+        for (int i=0; i<size; i++) set(i, v.x, v.y, v.z);
+        return this;
+    }
+    // </editor-fold>
+    // <editor-fold defaultstate="collapsed" desc="Overriden/implemented methods">
+    @Override
+    public void read(ByteBuffer buffer)
+    {
+        buffer.asFloatBuffer().get(data);
+        buffer.position(buffer.position() + data.length*4);
+    }
+    
+    @Override
+    public void write(ByteBuffer buffer)
+    {
+        buffer.asFloatBuffer().put(data);
+        buffer.position(buffer.position() + data.length*4);
+    }
+    
+    @Override
+    public void read(FloatBuffer buffer)
+    {
+        buffer.get(data);
+    }
+    
+    @Override
+    public void write(FloatBuffer buffer)
+    {
+        buffer.put(data);
+    }
+    
+    /**
+     * Writes the given range of vectors into the given buffer.
+     * 
+     * @param buffer The buffer to write into.
+     * @param first The index of the first vector to write.
+     * @param count The number of vectors to write.
+     */
+    public void write(FloatBuffer buffer, int first, int count)
+    {
+        buffer.put(data, first*3, count*3);
+    }
+    
+    @Override
+    public int bufferSize()
+    {
+        return size*3*4;
+    }
+    // </editor-fold>
+}
@@ -308,9 +308,9 @@ public class Vec3d implements Bufferable, DataStreamable<Vec3d>
      */
     public static final void mult(Vec3d v, Transform t, Vec3d result)
     {
-        mult(v, new Vec3d(t.sca), result);
+        result.x = v.x*t.sca.x; result.y = v.y*t.sca.y; result.z = v.z*t.sca.z;
         mult(result, t.rot, result);
-        add(result, new Vec3d(t.pos), result);
+        result.x += t.pos.x; result.y += t.pos.y; result.z += t.pos.z;
     }
     
     /**
@@ -323,15 +323,80 @@ public class Vec3d implements Bufferable, DataStreamable<Vec3d>
      */
     public static final void mult(Vec3d v, Quat q, Vec3d result)
     {
-        Vec3d temp1 = new Vec3d(q.x, q.y, q.z);
-        Vec3d temp2 = cross(temp1, v);
-        mult(temp2, 2.0, temp2);
+        //t = 2*cross(q.xyz, v), then v + cross(q.xyz, t) + t*q.w
+        double tx = (q.y*v.z - q.z*v.y)*2.0;
+        double ty = (q.z*v.x - q.x*v.z)*2.0;
+        double tz = (q.x*v.y - q.y*v.x)*2.0;
         
-        copy(v, result);
-        cross(temp1, temp2, temp1);
-        add(result, temp1, result);
-        mult(temp2, q.w, temp2);
-        add(result, temp2, result);
+        double x = v.x + (q.y*tz - q.z*ty) + tx*q.w;
+        double y = v.y + (q.z*tx - q.x*tz) + ty*q.w;
+        double z = v.z + (q.x*ty - q.y*tx) + tz*q.w;
+        result.x = x; result.y = y; result.z = z;
+    }
+    
+    /**
+     * Multiplies {@code v} by {@code m} and stores the result in {@code result}.
+     * 
+     * @param v The vector to multiply.
+     * @param m The 3x3 matrix to multiply the vector by.
+     * @param result The vector in which to store the result.
+     */
+    public static final void mult(Vec3d v, Mat3d m, Vec3d result)
+    {
+        double x = m.a*v.x + m.b*v.y + m.c*v.z;
+        double y = m.d*v.x + m.e*v.y + m.f*v.z;
+        double z = m.g*v.x + m.h*v.y + m.i*v.z;
+        result.x = x; result.y = y; result.z = z;
+    }
+    
+    /**
+     * Multiplies {@code v} by {@code m} and stores the result in {@code result}.
+     * 
+     * @param v The vector to multiply.
+     * @param m The 4x4 matrix to multiply the vector by.
+     * @param result The vector in which to store the result.
+     */
+    public static final void mult(Vec3d v, Mat4d m, Vec3d result)
+    {
+        double x = m.a*v.x + m.b*v.y + m.c*v.z + m.d;
+        double y = m.e*v.x + m.f*v.y + m.g*v.z + m.h;
+        double z = m.i*v.x + m.j*v.y + m.k*v.z + m.l;
+        result.x = x; result.y = y; result.z = z;
+    }
+    
+    /**
+     * Multiplies {@code v} by {@code t} and stores the result in {@code result}.
+     * 
+     * @param v The vector to multiply.
+     * @param t A transform to multiply by.
+     * @param result The vector in which to store the result.
+     */
+    public static final void mult(Vec3d v, Transformd t, Vec3d result)
+    {
+        mult(v, t.sca, result);
+        mult(result, t.rot, result);
+        add(result, t.pos, result);
+    }
+    
+    /**
+     * Rotates the given vector by the given quaternion, and stores the result
+     * in {@code result}.
+     * 
+     * @param v The vector to rotate.
+     * @param q The quaternion to rotate by.
+     * @param result The vector in which to store the result.
+     */
+    public static final void mult(Vec3d v, Quatd q, Vec3d result)
+    {
+        //t = 2*cross(q.xyz, v), then v + cross(q.xyz, t) + t*q.w
+        double tx = (q.y*v.z - q.z*v.y)*2.0;
+        double ty = (q.z*v.x - q.x*v.z)*2.0;
+        double tz = (q.x*v.y - q.y*v.x)*2.0;
+        
+        double x = v.x + (q.y*tz - q.z*ty) + tx*q.w;
+        double y = v.y + (q.z*tx - q.x*tz) + ty*q.w;
+        double z = v.z + (q.x*ty - q.y*tx) + tz*q.w;
+        result.x = x; result.y = y; result.z = z;
     }
     
     /**
@@ -444,8 +509,10 @@ public class Vec3d implements Bufferable, DataStreamable<Vec3d>
      */
     public static final void reject(Vec3d v0, Vec3d v1, Vec3d result)
     {
-        Vec3d temp = project(v0, v1);
-        sub(v0, temp, result);
+        double s = dot(v0, v1)/squareLength(v1);
+        result.x = v0.x - v1.x*s;
+        result.y = v0.y - v1.y*s;
+        result.z = v0.z - v1.z*s;
     }
     
     
@@ -478,10 +545,16 @@ public class Vec3d implements Bufferable, DataStreamable<Vec3d>
      */
     public static final void move(Vec3d v, Vec3d dest, double dist, Vec3d result)
     {
-        Vec3d dp = sub(dest, v);
-        double d0 = length(dp);
+        double dx = dest.x - v.x, dy = dest.y - v.y, dz = dest.z - v.z;
+        double d0 = Math.sqrt(dx*dx + dy*dy + dz*dz);
         if (d0 <= dist) copy(dest, result);
-        else madd(v, dp, dist/d0, result);
+        else
+        {
+            double s = dist/d0;
+            result.x = v.x + dx*s;
+            result.y = v.y + dy*s;
+            result.z = v.z + dz*s;
+        }
     }
     
     /**
@@ -498,9 +571,15 @@ public class Vec3d implements Bufferable, DataStreamable<Vec3d>
         double cos = Math.cos(angle);
         double sin = Math.sin(angle);
         
-        Vec3d temp = mult(v, cos);
-        madd(temp, cross(axis, v), sin, temp);
-        madd(temp, axis, dot(axis, v)*(1.0 - cos), result);
+        double cx = axis.y*v.z - axis.z*v.y;
+        double cy = axis.z*v.x - axis.x*v.z;
+        double cz = axis.x*v.y - axis.y*v.x;
+        double d = dot(axis, v)*(1.0 - cos);
+        
+        double x = (v.x*cos + cx*sin) + axis.x*d;
+        double y = (v.y*cos + cy*sin) + axis.y*d;
+        double z = (v.z*cos + cz*sin) + axis.z*d;
+        result.x = x; result.y = y; result.z = z;
     }
     // </editor-fold>
     // <editor-fold defaultstate="collapsed" desc="Static factory methods">
@@ -634,6 +713,63 @@ public class Vec3d implements Bufferable, DataStreamable<Vec3d>
         return result;
     }
     
+    /**
+     * Multiplies {@code v} by {@code m} and returns the result in a new vector.
+     * 
+     * @param v The vector to multiply.
+     * @param m The 3x3 matrix to multiply by.
+     * @return A new vector containing the result.
+     */
+    public static final Vec3d mult(Vec3d v, Mat3d m)
+    {
+        Vec3d result = new Vec3d();
+        mult(v, m, result);
+        return result;
+    }
+    
+    /**
+     * Multiplies {@code v} by {@code m} and returns the result in a new vector.
+     * 
+     * @param v The vector to multiply.
+     * @param m The 4x4 matrix to multiply by.
+     * @return A new vector containing the result.
+     */
+    public static final Vec3d mult(Vec3d v, Mat4d m)
+    {
+        Vec3d result = new Vec3d();
+        mult(v, m, result);
+        return result;
+    }
+    
+    /**
+     * Multiplies {@code v} by {@code t} and returns the result in a new vector.
+     * 
+     * @param v The vector to multiply.
+     * @param t The transform to multiply by.
+     * @return A new vector containing the result.
+     */
+    public static final Vec3d mult(Vec3d v, Transformd t)
+    {
+        Vec3d result = new Vec3d();
+        mult(v, t, result);
+        return result;
+    }
+    
+    /**
+     * Rotates the given vector by the given quaternion and returns the result
+     * in a new vector.
+     * 
+     * @param v The vector to rotate.
+     * @param q The quaternion to rotate by.
+     * @return A new vector containing the result.
+     */
+    public static final Vec3d mult(Vec3d v, Quatd q)
+    {
+        Vec3d result = new Vec3d();
+        mult(v, q, result);
+        return result;
+    }
+    
     /**
      * Calculates the cross product between {@code v0} and {@code v1} and returns
      * the result in a new vector.
@@ -1120,6 +1256,54 @@ public class Vec3d implements Bufferable, DataStreamable<Vec3d>
         return this;
     }
     
+    /**
+     * Multiplies this by the given 3x3 matrix.
+     * 
+     * @param m The 3x3 matrix to multiply this by.
+     * @return This vector.
+     */
+    public Vec3d mult(Mat3d m)
+    {
+        mult(this, m, this);
+        return this;
+    }
+    
+    /**
+     * Multiplies this by the given 4x4 matrix.
+     * 
+     * @param m The 4x4 matrix to multiply this by.
+     * @return This vector.
+     */
+    public Vec3d mult(Mat4d m)
+    {
+        mult(this, m, this);
+        return this;
+    }
+    
+    /**
+     * Multiplies this by the given transform.
+     * 
+     * @param t The transform to multiply this by.
+     * @return This vector.
+     */
+    public Vec3d mult(Transformd t)
+    {
+        mult(this, t, this);
+        return this;
+    }
+    
+    /**
+     * Rotates this vector by the given quaternion.
+     * 
+     * @param q The quaternion to rotate by.
+     * @return This vector.
+     */
+    public Vec3d mult(Quatd q)
+    {
+        mult(this, q, this);
+        return this;
+    }
+    
     /**
      * Sets this to the cross product between this and the given vector.
      * 
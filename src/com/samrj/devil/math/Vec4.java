@@ -429,8 +429,11 @@ public class Vec4 implements FloatBufferable, DataStreamable<Vec4>
      */
     public static final void reject(Vec4 v0, Vec4 v1, Vec4 result)
     {
-        Vec4 temp = project(v0, v1);
-        sub(v0, temp, result);
+        float s = dot(v0, v1)/squareLength(v1);
+        result.x = v0.x - v1.x*s;
+        result.y = v0.y - v1.y*s;
+        result.z = v0.z - v1.z*s;
+        result.w = v0.w - v1.w*s;
     }
     
     /**
@@ -463,10 +466,17 @@ public class Vec4 implements FloatBufferable, DataStreamable<Vec4>
      */
     public static final void move(Vec4 v, Vec4 dest, float dist, Vec4 result)
     {
-        Vec4 dp = sub(dest, v);
-        float d0 = length(dp);
+        float dx = dest.x - v.x, dy = dest.y - v.y, dz = dest.z - v.z, dw = dest.w - v.w;
+        float d0 = (float)Math.sqrt(dx*dx + dy*dy + dz*dz + dw*dw);
         if (d0 <= dist) copy(dest, result);
-        else madd(v, dp, dist/d0, result);
+        else
+        {
+            float s = dist/d0;
+            result.x = v.x + dx*s;
+            result.y = v.y + dy*s;
+            result.z = v.z + dz*s;
+            result.w = v.w + dw*s;
+        }
     }
     // </editor-fold>
     // <editor-fold defaultstate="collapsed" desc="Static factory methods">
@@ -22,12 +22,21 @@
 
 package com.samrj.devil.math.topo;
 
+import com.samrj.devil.util.IntList;
 import java.util.*;
 import java.util.stream.Stream;
 
 /**
- * Hash-map based directed acyclic graph. To be used mainly for topological
- * sorting.
+ * Directed acyclic graph which keeps its vertices in topological order as
+ * edges are added and removed. Adding an edge which contradicts the current
+ * order only reorders the vertices between its ends, using the dynamic
+ * algorithm of Pearce and Kelly, so the order never has to be rebuilt from
+ * scratch.
+ * 
+ * Vertices are stored by index, in flat arrays of adjacency lists. The graph
+ * also provides a partition of its vertices into levels, such that no vertex
+ * depends on another in the same level, for callers which wish to process
+ * each level in parallel.
  * 
  * @author Samuel Johnson (SmashMaster)
  * @param <TYPE> The kind of data to store in the node.
@@ -39,57 +48,26 @@ public class DAG<TYPE>
         return Collections.newSetFromMap(new IdentityHashMap<>());
     }
     
-    private final Map<TYPE, Vertex> vertices = new IdentityHashMap<>();
-    private final List<Vertex> order = new ArrayList<>();
+    private final Map<TYPE, Integer> ids = new IdentityHashMap<>();
+    private final IntList freeIds = new IntList();
+    private int idCount;
     
-    /**
-     * Hash-map based directed graph vertex class.
-     */
-    private class Vertex implements Comparable<Vertex>
-    {
-        private final TYPE data;
-        
-        //Set of vertices that have an outgoing edge whose end is this.
-        private final Set<Vertex> in = newSet();
-        
-        //Set of vertices that have an incoming edge whose start is this.
-        private final Set<Vertex> out = newSet();
-        
-        //Index of this vertex in the order list.
-        private int index;
-        
-        private Vertex(TYPE data)
-        {
-            this.data = data;
-        }
-        
-        @Override
-        public int hashCode()
-        {
-            return data.hashCode();
-        }
-
-        @Override
-        public boolean equals(Object obj)
-        {
-            if (obj == null) return false;
-            if (getClass() != obj.getClass()) return false;
-            
-            return data.equals(((Vertex)obj).data);
-        }
-        
-        @Override
-        public String toString()
-        {
-            return data.toString();
-        }
-
-        @Override
-        public int compareTo(Vertex v)
-        {
-            return index < v.index ? -1 : 1;
-        }
-    }
+    //Per vertex, indexed by id.
+    private Object[] data = new Object[8];
+    private IntList[] in = new IntList[8], out = new IntList[8];
+    private int[] position = new int[8], level = new int[8], mark = new int[8];
+    
+    //Vertex ids, in topological order.
+    private int[] order = new int[8];
+    private int size;
+    
+    //Scratch space for reordering.
+    private final IntList stack = new IntList(), forward = new IntList(), backward = new IntList();
+    private final IntList positions = new IntList();
+    private int epoch;
+    
+    private List<TYPE> sorted;
+    private List<List<TYPE>> levels;
     
     /**
      * Publicly exported edge.
@@ -110,6 +88,46 @@ public class DAG<TYPE>
         }
     }
     
+    private int id(TYPE vertex)
+    {
+        Integer id = ids.get(vertex);
+        return id != null ? id : -1;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private TYPE data(int id)
+    {
+        return (TYPE)data[id];
+    }
+    
+    private void changed()
+    {
+        sorted = null;
+        levels = null;
+    }
+    
+    //Starts a new traversal, so that previous marks no longer count.
+    private void newEpoch()
+    {
+        if (++epoch == 0)
+        {
+            Arrays.fill(mark, 0);
+            epoch = 1;
+        }
+    }
+    
+    private void grow()
+    {
+        int capacity = data.length*2;
+        data = Arrays.copyOf(data, capacity);
+        in = Arrays.copyOf(in, capacity);
+        out = Arrays.copyOf(out, capacity);
+        position = Arrays.copyOf(position, capacity);
+        level = Arrays.copyOf(level, capacity);
+        mark = Arrays.copyOf(mark, capacity);
+        order = Arrays.copyOf(order, capacity);
+    }
+    
     /**
      * Adds vertex to DAG as an orphan. Does nothing if DAG already contains
      * vertex.
@@ -119,15 +137,24 @@ public class DAG<TYPE>
     public boolean add(TYPE vertex)
     {
         if (vertex == null) throw new NullPointerException();
-        if (vertices.containsKey(vertex)) return false;
+        if (ids.containsKey(vertex)) return false;
         
-        Vertex v = new Vertex(vertex);
-        v.index = order.size();
-        
-        vertices.put(vertex, v);
-        order.add(v);
+        int id;
+        if (freeIds.size() > 0) id = freeIds.remove(freeIds.size() - 1);
+        else
+        {
+            if (idCount == data.length) grow();
+            id = idCount++;
+            in[id] = new IntList(4);
+            out[id] = new IntList(4);
+        }
         
-        return false;
+        ids.put(vertex, id);
+        data[id] = vertex;
+        position[id] = size;
+        order[size++] = id;
+        changed();
+        return true;
     }
     
     /**
@@ -139,95 +166,155 @@ public class DAG<TYPE>
     {
         if (vertex == null) throw new NullPointerException();
         
-        Vertex v = vertices.remove(vertex);
-        
-        if (v == null) return false;
+        Integer boxedId = ids.remove(vertex);
+        if (boxedId == null) return false;
+        int id = boxedId;
         
-        order.remove(v.index);
-        int size = order.size();
-        for (int i=v.index; i<size; i++) order.get(i).index = i;
+        IntList vIn = in[id], vOut = out[id];
+        for (int i=0; i<vOut.size(); i++)
+        {
+            IntList list = in[vOut.get(i)];
+            list.remove(list.indexOf(id));
+        }
+        for (int i=0; i<vIn.size(); i++)
+        {
+            IntList list = out[vIn.get(i)];
+            list.remove(list.indexOf(id));
+        }
+        vIn.clear();
+        vOut.clear();
         
-        for (Vertex cn : v.out) cn.in.remove(v);
-        for (Vertex pn : v.in) pn.out.remove(v);
+        //Removing a vertex never invalidates the order of the others.
+        size--;
+        for (int p=position[id]; p<size; p++)
+        {
+            order[p] = order[p + 1];
+            position[order[p]] = p;
+        }
         
+        data[id] = null;
+        freeIds.add(id);
+        changed();
         return true;
     }
     
-    private void dfsForward(Vertex current, int rightBound, Set<Vertex> result)
+    //Collects every vertex reachable from the given one, with a position no
+    //greater than the bound. Returns false if it reaches the given target.
+    private boolean dfsForward(int start, int rightBound, int target)
     {
-        result.add(current);
-        for (Vertex neighbor : current.out)
-            if (neighbor.index <= rightBound && !result.contains(neighbor))
-                dfsForward(neighbor, rightBound, result);
+        stack.clear();
+        stack.add(start);
+        mark[start] = epoch;
+        while (stack.size() > 0)
+        {
+            int v = stack.remove(stack.size() - 1);
+            if (v == target) return false;
+            forward.add(v);
+            IntList list = out[v];
+            for (int i=0; i<list.size(); i++)
+            {
+                int w = list.get(i);
+                if (mark[w] != epoch && position[w] <= rightBound)
+                {
+                    mark[w] = epoch;
+                    stack.add(w);
+                }
+            }
+        }
+        return true;
     }
     
-    private void dfsBackward(Vertex current, int leftBound, Set<Vertex> result)
+    //Collects every vertex which reaches the given one, with a position no
+    //less than the bound.
+    private void dfsBackward(int start, int leftBound)
     {
-        result.add(current);
-        for (Vertex neighbor : current.in)
-            if (neighbor.index >= leftBound && !result.contains(neighbor))
-                dfsBackward(neighbor, leftBound, result);
+        stack.clear();
+        stack.add(start);
+        mark[start] = epoch;
+        while (stack.size() > 0)
+        {
+            int v = stack.remove(stack.size() - 1);
+            backward.add(v);
+            IntList list = in[v];
+            for (int i=0; i<list.size(); i++)
+            {
+                int w = list.get(i);
+                if (mark[w] != epoch && position[w] >= leftBound)
+                {
+                    mark[w] = epoch;
+                    stack.add(w);
+                }
+            }
+        }
     }
     
-    private boolean edge(Vertex start, Vertex end, boolean safe)
+    //Replaces each id in the given list with its position, then sorts them.
+    private void toSortedPositions(IntList list)
     {
-        if (start == null || end == null) throw new IllegalArgumentException();
-        if (start.out.contains(end)) return false;
+        for (int i=0; i<list.size(); i++)
+        {
+            int p = position[list.get(i)];
+            list.set(i, p);
+            positions.add(p);
+        }
+        list.sort();
+    }
+    
+    private boolean edge(int start, int end, boolean safe)
+    {
+        if (start < 0 || end < 0) throw new IllegalArgumentException();
+        if (out[start].indexOf(end) >= 0) return false;
         
         //Check if order is not invalidated.
-        if (start.index < end.index)
+        if (position[start] < position[end])
         {
-            start.out.add(end);
-            end.in.add(start);
+            out[start].add(end);
+            in[end].add(start);
+            changed();
             return true;
         }
         
-        //Populate left group. Considered using TreeMap for this--but only need
-        //to sort once. IdentityHashMaps are deadly fast anyway.
-        Set<Vertex> leftGroup = newSet();
-        dfsForward(end, start.index, leftGroup);
-        
-        //Ensure no cycle would be created by adding this edge.
-        if (leftGroup.contains(start))
+        //Find the vertices after end which must now come after start. If start
+        //is among them, the edge would create a cycle.
+        newEpoch();
+        forward.clear();
+        if (!dfsForward(end, position[start], start))
         {
             if (safe) throw new CyclicGraphException();
             else return false;
         }
         
-        //Populate right group.
-        Set<Vertex> rightGroup = newSet();
-        dfsBackward(start, end.index, rightGroup);
-        
-        //Now the fun begins: We need to reassign indices to each vertex in
-        //leftGroup and rightGroup, such that:
-        // * order is maintained within each group
-        // * rightGroup is now entirely to the left of leftGroup
-        
-        //First, sort our groups by index.
-        List<Vertex> leftSorted = new ArrayList<>(leftGroup);
-        Collections.sort(leftSorted);
-        List<Vertex> rightSorted = new ArrayList<>(rightGroup);
-        Collections.sort(rightSorted);
-        
-        //Then, pool together all indices.
-        int[] indices = new int[leftSorted.size() + rightSorted.size()];
-        
-        int i = 0;
-        for (Vertex v : leftSorted) indices[i++] = v.index;
-        for (Vertex v : rightSorted) indices[i++] = v.index;
-        Arrays.sort(indices);
-        
-        //Now swap the right with the left.
-        i = 0;
-        for (Vertex v : rightSorted) order.set(v.index = indices[i++], v);
-        for (Vertex v : leftSorted) order.set(v.index = indices[i++], v);
-        
-        //Finally, add the edge and we're done!
-        start.out.add(end);
-        end.in.add(start);
+        //Find the vertices before start which must now come before end. The
+        //two groups are disjoint, since the graph is acyclic.
+        backward.clear();
+        dfsBackward(start, position[end]);
+        
+        //Pool together the positions of both groups, then give the lowest of
+        //them to the backward group and the rest to the forward group, keeping
+        //the order within each.
+        positions.clear();
+        toSortedPositions(backward);
+        toSortedPositions(forward);
+        positions.sort();
+        
+        int numBackward = backward.size();
+        for (int i=0; i<numBackward; i++) backward.set(i, order[backward.get(i)]);
+        for (int i=0; i<forward.size(); i++) forward.set(i, order[forward.get(i)]);
+        for (int i=0; i<numBackward; i++) place(backward.get(i), positions.get(i));
+        for (int i=0; i<forward.size(); i++) place(forward.get(i), positions.get(numBackward + i));
+        
+        out[start].add(end);
+        in[end].add(start);
+        changed();
         return true;
     }
     
+    private void place(int id, int p)
+    {
+        order[p] = id;
+        position[id] = p;
+    }
+    
     /**
      * Adds an edge to the DAG.
      * 
@@ -239,7 +326,7 @@ public class DAG<TYPE>
     {
         if (start == null || end == null) throw new NullPointerException();
         
-        return edge(vertices.get(start), vertices.get(end), true);
+        return edge(id(start), id(end), true);
     }
     
     /**
@@ -252,7 +339,7 @@ public class DAG<TYPE>
     {
         if (start == null || end == null) throw new NullPointerException();
         
-        return edge(vertices.get(start), vertices.get(end), false);
+        return edge(id(start), id(end), false);
     }
     
     /**
@@ -265,29 +352,84 @@ public class DAG<TYPE>
     {
         if (start == null || end == null) throw new NullPointerException();
         
-        Vertex sv = vertices.get(start);
-        Vertex ev = vertices.get(end);
-        
-        if (sv == null || ev == null) return false;
-        if (!sv.out.contains(ev)) return false;
+        int sv = id(start), ev = id(end);
+        if (sv < 0 || ev < 0) return false;
         
-        sv.out.remove(ev);
-        ev.in.remove(sv);
+        int index = out[sv].indexOf(ev);
+        if (index < 0) return false;
         
+        //Removing an edge never invalidates the order, so only the levels change.
+        out[sv].remove(index);
+        in[ev].remove(in[ev].indexOf(sv));
+        levels = null;
         return true;
     }
     
     /**
-     * Performs a topological sort on this DAG and returns the result in a list,
-     * in ascending order of depth.
+     * Returns the vertices of this DAG in topological order, in ascending order
+     * of depth. The order is maintained as the graph changes, so this does not
+     * sort anything. The returned list is unmodifiable, and is cached until
+     * this graph next changes.
      */
     public List<TYPE> sort()
     {
-        int size = order.size();
-        Object[] array = new Object[order.size()];
-        for (int i=0; i<size; i++) array[i] = order.get(i).data;
-        List<TYPE> out = (List<TYPE>)Arrays.asList(array);
-        return out;
+        if (sorted == null)
+        {
+            Object[] array = new Object[size];
+            for (int i=0; i<size; i++) array[i] = data[order[i]];
+            @SuppressWarnings("unchecked")
+            List<TYPE> list = (List<TYPE>)Arrays.asList(array);
+            sorted = Collections.unmodifiableList(list);
+        }
+        return sorted;
+    }
+    
+    private void computeLevels()
+    {
+        int numLevels = 0;
+        for (int i=0; i<size; i++)
+        {
+            int v = order[i];
+            IntList list = in[v];
+            int l = 0;
+            for (int j=0; j<list.size(); j++) l = Math.max(l, level[list.get(j)] + 1);
+            level[v] = l;
+            numLevels = Math.max(numLevels, l + 1);
+        }
+        
+        List<List<TYPE>> result = new ArrayList<>(numLevels);
+        for (int l=0; l<numLevels; l++) result.add(new ArrayList<>());
+        for (int i=0; i<size; i++) result.get(level[order[i]]).add(data(order[i]));
+        for (int l=0; l<numLevels; l++) result.set(l, Collections.unmodifiableList(result.get(l)));
+        levels = Collections.unmodifiableList(result);
+    }
+    
+    /**
+     * Partitions the vertices of this DAG into levels. Sources are in the first
+     * level, and every other vertex is one level after the last of the
+     * vertices it depends on. No two vertices in the same level have a path
+     * between them, so each level may be processed in parallel, once every
+     * level before it is done. Each level is in topological order.
+     * 
+     * The returned lists are unmodifiable, and are cached until this graph next
+     * changes.
+     */
+    public List<List<TYPE>> getLevels()
+    {
+        if (levels == null) computeLevels();
+        return levels;
+    }
+    
+    /**
+     * Returns the level of the given vertex, as partitioned by getLevels(), or
+     * -1 if this graph does not contain it.
+     */
+    public int getLevel(TYPE vertex)
+    {
+        int id = id(vertex);
+        if (id < 0) return -1;
+        if (levels == null) computeLevels();
+        return level[id];
     }
     
     /**
@@ -295,9 +437,9 @@ public class DAG<TYPE>
      */
     public Set<TYPE> getSinks()
     {
-        Set<TYPE> out = newSet();
-        for (Vertex v : vertices.values()) if (v.out.isEmpty()) out.add(v.data);
-        return out;
+        Set<TYPE> result = newSet();
+        for (int i=0; i<size; i++) if (out[order[i]].size() == 0) result.add(data(order[i]));
+        return result;
     }
     
     /**
@@ -306,9 +448,9 @@ public class DAG<TYPE>
      */
     public Set<TYPE> getSources()
     {
-        Set<TYPE> out = newSet();
-        for (Vertex v : vertices.values()) if (v.in.isEmpty()) out.add(v.data);
-        return out;
+        Set<TYPE> result = newSet();
+        for (int i=0; i<size; i++) if (in[order[i]].size() == 0) result.add(data(order[i]));
+        return result;
     }
     
     /**
@@ -318,10 +460,7 @@ public class DAG<TYPE>
      */
     public List<Edge<TYPE>> getEdges()
     {
-        List<Edge<TYPE>> out = new ArrayList<>();
-        for (Vertex st : vertices.values()) for (Vertex en : st.out)
-            out.add(new Edge<>(st.data, en.data));
-        return out;
+        return getSortedEdges();
     }
     
     /**
@@ -329,69 +468,66 @@ public class DAG<TYPE>
      */
     public List<Edge<TYPE>> getSortedEdges()
     {
-        List<TYPE> order = sort();
-        List<Edge<TYPE>> out = new ArrayList<>();
-        for (TYPE stData : order)
+        List<Edge<TYPE>> result = new ArrayList<>();
+        for (int i=0; i<size; i++)
         {
-            Vertex st = vertices.get(stData);
-            for (Vertex en : st.out) out.add(new Edge<>(stData, en.data));
+            int st = order[i];
+            IntList list = out[st];
+            for (int j=0; j<list.size(); j++) result.add(new Edge<>(data(st), data(list.get(j))));
         }
-        return out;
+        return result;
     }
     
     public boolean contains(TYPE vertex)
     {
-        return vertices.containsKey(vertex);
+        return ids.containsKey(vertex);
     }
     
     public boolean hasEdge(TYPE start, TYPE end)
     {
-        Vertex pv = vertices.get(start);
-        if (pv == null) return false;
-        Vertex cv = vertices.get(end);
-        if (cv == null) return false;
+        int pv = id(start);
+        if (pv < 0) return false;
+        int cv = id(end);
+        if (cv < 0) return false;
         
-        return pv.out.contains(cv);
+        return out[pv].indexOf(cv) >= 0;
     }
     
     public Set<TYPE> getIn(TYPE vertex)
     {
-        Vertex v = vertices.get(vertex);
-        if (v == null) return null;
+        int v = id(vertex);
+        if (v < 0) return null;
         
-        Set<TYPE> out = newSet();
-        for (Vertex pv : v.in) out.add(pv.data);
-        return out;
+        Set<TYPE> result = newSet();
+        in[v].forEach(pv -> result.add(data(pv)));
+        return result;
     }
     
     public Set<TYPE> getOut(TYPE vertex)
     {
-        Vertex v = vertices.get(vertex);
-        if (v == null) return null;
+        int v = id(vertex);
+        if (v < 0) return null;
         
-        Set<TYPE> out = newSet();
-        for (Vertex cv : v.out) out.add(cv.data);
-        return out;
+        Set<TYPE> result = newSet();
+        out[v].forEach(cv -> result.add(data(cv)));
+        return result;
     }
     
     public Set<TYPE> getAll()
     {
-        Set<TYPE> out = newSet();
-        for (TYPE data : vertices.keySet()) out.add(data);
-        return out;
+        Set<TYPE> result = newSet();
+        result.addAll(ids.keySet());
+        return result;
     }
     
     public Stream<TYPE> stream()
     {
-        return vertices.keySet().stream();
+        return ids.keySet().stream();
     }
     
     public Stream<Edge<TYPE>> edgeStream()
     {
-        return vertices.entrySet().stream()
-                .map(e -> e.getValue())
-                .flatMap(start -> start.out.stream()
-                        .map(end -> new Edge<>(start.data, end.data)));
+        return getSortedEdges().stream();
     }
     
     /**
@@ -401,34 +537,65 @@ public class DAG<TYPE>
     public DAG<TYPE> subgraph(TYPE sink)
     {
         DAG<TYPE> graph = new DAG<>();
-        trimVisit(vertices.get(sink), graph);
+        int id = id(sink);
+        if (id < 0) throw new IllegalArgumentException();
+        
+        //Collect the sink and everything it depends on.
+        newEpoch();
+        stack.clear();
+        stack.add(id);
+        mark[id] = epoch;
+        while (stack.size() > 0)
+        {
+            int v = stack.remove(stack.size() - 1);
+            IntList list = in[v];
+            for (int i=0; i<list.size(); i++)
+            {
+                int w = list.get(i);
+                if (mark[w] != epoch)
+                {
+                    mark[w] = epoch;
+                    stack.add(w);
+                }
+            }
+        }
         
-        for (TYPE vert : graph.getAll())
-            for (TYPE in : getIn(vert))
-                if (graph.contains(in)) graph.addEdge(in, vert);
+        //Adding vertices and edges in topological order never reorders.
+        for (int i=0; i<size; i++) if (mark[order[i]] == epoch) graph.add(data(order[i]));
+        for (int i=0; i<size; i++)
+        {
+            int v = order[i];
+            if (mark[v] != epoch) continue;
+            IntList list = out[v];
+            for (int j=0; j<list.size(); j++)
+                if (mark[list.get(j)] == epoch) graph.addEdge(data(v), data(list.get(j)));
+        }
         
         return graph;
     }
     
-    private void trimVisit(Vertex v, DAG<TYPE> graph)
-    {
-        graph.add(v.data);
-        for (Vertex in : v.in) trimVisit(in, graph);
-    }
-    
     public void clear()
     {
-        vertices.clear();
-        order.clear();
+        ids.clear();
+        freeIds.clear();
+        for (int id=0; id<idCount; id++)
+        {
+            data[id] = null;
+            in[id].clear();
+            out[id].clear();
+            freeIds.add(idCount - 1 - id);
+        }
+        size = 0;
+        changed();
     }
     
     public int size()
     {
-        return order.size();
+        return size;
     }
     
     public boolean isEmpty()
     {
-        return order.isEmpty();
+        return size == 0;
     }
 }
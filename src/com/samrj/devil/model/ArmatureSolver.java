@@ -32,6 +32,7 @@ import com.samrj.devil.model.Pose.PoseBone;
 import com.samrj.devil.model.constraint.CopyRotationConstraint;
 import com.samrj.devil.model.constraint.CopyRotationConstraint.CopyRotDef;
 import com.samrj.devil.model.constraint.IKConstraint;
+import com.samrj.devil.util.AllocationCheck;
 import com.samrj.devil.util.IOUtil;
 import java.util.*;
 import java.util.stream.Stream;
@@ -43,12 +44,16 @@ import java.util.stream.Stream;
  */
 public final class ArmatureSolver
 {
+    private static final AllocationCheck.Path SOLVE_PATH = AllocationCheck.path("ArmatureSolver.solve()");
+    
     private final List<BoneSolver> bones;
     private final Map<String, BoneSolver> nameMap;
     
     private final List<Constraint> constraints;
     private final List<IKConstraint> ikConstraints;
     private final Set<BoneSolver> nonconstrained;
+    private BoneSolver[] nonconstrainedArray;
+    private final DAG<Constraint> solveGraph = new DAG<>();
     private List<Constraint> solveOrder;
     
     /**
@@ -101,8 +106,11 @@ public final class ArmatureSolver
      */
     public void addConstraint(Constraint c)
     {
-        solveOrder = null;
         constraints.add(c);
+        c.populateSolveGraph(solveGraph);
+        c.removeSolved(nonconstrained);
+        nonconstrainedArray = nonconstrained.toArray(new BoneSolver[nonconstrained.size()]);
+        solveOrder = solveGraph.sort();
     }
     
     /**
@@ -111,22 +119,32 @@ public final class ArmatureSolver
      */
     public void clearConstraints()
     {
-        solveOrder = null;
+        for (Constraint s : constraints) solveGraph.remove(s);
         constraints.clear();
+        findNonconstrained();
+        solveOrder = solveGraph.sort();
     }
     
-    /**
-     * Generates a solve order by performing a topological sort on the set of
-     * bones and constraints belonging to this solver.
-     */
-    public void sortSolvables()
+    private void findNonconstrained()
     {
         nonconstrained.clear();
         nonconstrained.addAll(bones);
         for (IKConstraint ik : ikConstraints) ik.removeSolved(nonconstrained);
         for (Constraint s : constraints) s.removeSolved(nonconstrained);
+        nonconstrainedArray = nonconstrained.toArray(new BoneSolver[nonconstrained.size()]);
+    }
+    
+    /**
+     * Rebuilds the solve order from scratch, by performing a topological sort
+     * on the set of bones and constraints belonging to this solver. The solve
+     * graph keeps its order as constraints are added and cleared, so this is
+     * only needed if the bones an existing constraint depends on have changed.
+     */
+    public void sortSolvables()
+    {
+        findNonconstrained();
         
-        DAG<Constraint> solveGraph = new DAG<>();
+        solveGraph.clear();
         for (BoneSolver bone : bones) bone.populateSolveGraph(solveGraph);
         for (IKConstraint ik : ikConstraints) ik.populateSolveGraph(solveGraph);
         for (Constraint s : constraints) s.populateSolveGraph(solveGraph);
@@ -150,15 +168,19 @@ public final class ArmatureSolver
      */
     public void solve()
     {
-        if (solveOrder == null) throw new IllegalStateException("Unsorted. Call sortSolvables() first.");
+        long mark = SOLVE_PATH.begin();
         
-        for (BoneSolver bone : nonconstrained)
+        //Indexed loops, so as not to allocate iterators.
+        for (int i=0; i<nonconstrainedArray.length; i++)
         {
+            BoneSolver bone = nonconstrainedArray[i];
             bone.finalTransform.set(bone.poseTransform);
             bone.finalTransform.rot.normalize();
         }
         
-        for (Constraint s : solveOrder) s.solve();
+        for (int i=0, n=solveOrder.size(); i<n; i++) solveOrder.get(i).solve();
+        
+        SOLVE_PATH.end(mark);
     }
     
     /**
@@ -203,20 +225,40 @@ public final class ArmatureSolver
             return parent;
         }
         
+        /**
+         * Computes the object-space matrix of this bone, and stores it in
+         * {@code result}.
+         */
+        public void getModelMatrix(Mat4 result)
+        {
+            Mat4.copy(skinMatrix, result);
+            result.mult(bone.tail);
+            result.mult(bone.matrix);
+        }
+        
         public Mat4 getModelMatrix()
         {
-            Mat4 out = new Mat4(skinMatrix);
-            out.mult(bone.tail);
-            out.mult(new Mat4(bone.matrix));
+            Mat4 out = new Mat4();
+            getModelMatrix(out);
             return out;
         }
         
+        /**
+         * Computes the object-space position of this bone's head, and stores
+         * it in {@code result}.
+         */
+        public void getHeadPos(Vec3 result)
+        {
+            Vec3.copy(finalTransform.pos, result);
+            result.mult(bone.matrix);
+            result.add(bone.head);
+            if (parent != null) result.mult(parent.skinMatrix);
+        }
+        
         public Vec3 getHeadPos()
         {
-            Vec3 out = new Vec3(finalTransform.pos);
-            out.mult(bone.matrix);
-            out.add(bone.head);
-            if (parent != null) out.mult(parent.skinMatrix);
+            Vec3 out = new Vec3();
+            getHeadPos(out);
             return out;
         }
         
@@ -238,11 +280,15 @@ public final class ArmatureSolver
             skinMatrix.setIdentity();
             if (parent != null) skinMatrix.mult(parent.skinMatrix);
             skinMatrix.translate(bone.head);
-            if (parent != null && !bone.inheritRotation) skinMatrix.mult(new Mat4(parent.invRotMat));
-            skinMatrix.mult(new Mat4(bone.matrix));
+            if (parent != null && !bone.inheritRotation) skinMatrix.mult(parent.invRotMat);
+            skinMatrix.mult(bone.matrix);
             skinMatrix.mult(finalTransform);
-            skinMatrix.mult(new Mat4(bone.invMat));
-            skinMatrix.translate(Vec3.negate(bone.head));
+            skinMatrix.mult(bone.invMat);
+            Vec3 head = bone.head;
+            skinMatrix.d -= skinMatrix.a*head.x + skinMatrix.b*head.y + skinMatrix.c*head.z;
+            skinMatrix.h -= skinMatrix.e*head.x + skinMatrix.f*head.y + skinMatrix.g*head.z;
+            skinMatrix.l -= skinMatrix.i*head.x + skinMatrix.j*head.y + skinMatrix.k*head.z;
+            skinMatrix.p -= skinMatrix.m*head.x + skinMatrix.n*head.y + skinMatrix.o*head.z;
 
             rotMatrix.setIdentity();
             if (parent != null && bone.inheritRotation) rotMatrix.mult(parent.rotMatrix);
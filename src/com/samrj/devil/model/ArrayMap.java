@@ -1,26 +1,88 @@
 package com.samrj.devil.model;
 
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 /**
+ * An ordered list of data blocks, which may also be found by name. In lazy
+ * models, each block is only built when first accessed.
+ * 
  * @author Samuel Johnson (SmashMaster)
  * @copyright 2019 Samuel Johnson
  * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
  */
 public final class ArrayMap<T extends DataBlock> extends AbstractList<T>
 {
-    private final List<T> list = new ArrayList<>();
-    private final Map<String, T> map = new HashMap<>();
+    private final List<Handle<T>> list = new ArrayList<>();
+    private final Map<String, Handle<T>> map = new HashMap<>();
+    private final Object lock;
     
     ArrayMap()
     {
+        lock = this;
+    }
+    
+    /**
+     * Creates a map whose blocks are built while holding the given lock. Lazy
+     * blocks may build each other, and read from the same file, so every map
+     * in a model must share the same lock.
+     */
+    ArrayMap(Object lock)
+    {
+        this.lock = lock;
     }
     
     void put(T data)
     {
-        list.add(data);
-        map.put(data.name, data);
+        Handle<T> handle = new Handle<>(lock, data.name, null);
+        handle.data = data;
+        put(handle);
+    }
+    
+    void put(String name, Supplier<T> builder)
+    {
+        put(new Handle<>(lock, name, builder));
+    }
+    
+    private void put(Handle<T> handle)
+    {
+        list.add(handle);
+        map.put(handle.name, handle);
+    }
+    
+    /**
+     * Replaces the block with the given name, returning the old block if it had
+     * been built. The old block is not destroyed.
+     */
+    T replace(String name, T data)
+    {
+        return map.get(name).replace(data);
+    }
+    
+    /**
+     * Replaces the builder of the lazy block with the given name. If it has
+     * been built, the new builder is only used once it is released.
+     */
+    void rebind(String name, Supplier<T> builder)
+    {
+        map.get(name).builder = builder;
+    }
+    
+    /**
+     * Removes the block with the given name, returning it if it had been built.
+     * The old block is not destroyed.
+     */
+    T remove(String name)
+    {
+        Handle<T> handle = map.remove(name);
+        list.remove(handle);
+        return handle.remove();
+    }
+    
+    Handle<T> getHandle(String name)
+    {
+        return map.get(name);
     }
     
     public boolean contains(String name)
@@ -28,51 +90,217 @@ public final class ArrayMap<T extends DataBlock> extends AbstractList<T>
         return map.containsKey(name);
     }
 
+    /**
+     * Returns the block with the given name, building it if necessary, or
+     * null if there is no such block.
+     */
     public T get(String name)
     {
-        return map.get(name);
+        Handle<T> handle = map.get(name);
+        return handle != null ? handle.get() : null;
     }
     
     public Optional<T> optional(String name)
     {
-        return Optional.ofNullable(map.get(name));
+        return Optional.ofNullable(get(name));
     }
     
     public T require(String name)
     {
-        T out = map.get(name);
+        T out = get(name);
         if (out == null) throw new NoSuchElementException(name);
         return out;
     }
 
-    @Override
-    public T get(int i)
+    /**
+     * Returns whether the block with the given name has been built. Blocks of
+     * models which are not lazy are always built.
+     */
+    public boolean isLoaded(String name)
     {
-        return list.get(i);
+        Handle<T> handle = map.get(name);
+        return handle != null && handle.isLoaded();
     }
-
+    
+    /**
+     * Returns the number of blocks in this map which have been built.
+     */
+    public int getLoadedCount()
+    {
+        int count = 0;
+        for (Handle<T> handle : list) if (handle.isLoaded()) count++;
+        return count;
+    }
+    
+    /**
+     * Returns the total native memory held by the blocks in this map which have
+     * been built, in bytes.
+     */
+    public long getNativeSize()
+    {
+        long size = 0L;
+        for (Handle<T> handle : list) size += handle.getNativeSize();
+        return size;
+    }
+    
+    /**
+     * Adds a reference to the block with the given name, building it if
+     * necessary. Each call should be matched by a call to release().
+     * 
+     * @param name The name of the block to acquire.
+     * @return The block, or null if there is no such block.
+     */
+    public T acquire(String name)
+    {
+        Handle<T> handle = map.get(name);
+        return handle != null ? handle.acquire() : null;
+    }
+    
+    /**
+     * Removes a reference to the block with the given name. In lazy models,
+     * releasing the last reference frees the block and its native memory, and
+     * it will be built again if accessed later. Blocks returned by get() and
+     * not acquired do not count as references.
+     * 
+     * @param name The name of the block to release.
+     */
+    public void release(String name)
+    {
+        Handle<T> handle = map.get(name);
+        if (handle == null) throw new NoSuchElementException(name);
+        handle.release();
+    }
+    
+    /**
+     * Returns the block at the given index, building it if necessary.
+     */
     @Override
-    public int size()
+    public T get(int i)
     {
-        return list.size();
+        return list.get(i).get();
     }
     
     @Override
-    public Iterator<T> iterator()
+    public int size()
     {
-        return Collections.unmodifiableList(list).iterator();
+        return list.size();
     }
     
     @Override
     public Stream<T> stream()
     {
-        return list.stream();
+        return list.stream().map(Handle::get);
     }
     
     void destroy()
     {
-        list.forEach(DataBlock::destroy);
+        list.forEach(Handle::destroy);
         list.clear();
         map.clear();
     }
+    
+    /**
+     * A named entry which may or may not have been built yet. Built blocks are
+     * published through a volatile field, so reading one that has already been
+     * built, as in every model which is not lazy, does not take the lock.
+     */
+    static final class Handle<T extends DataBlock>
+    {
+        final String name;
+        
+        private final Object lock;
+        private Supplier<T> builder;
+        private volatile T data;
+        private int references;
+        private boolean removed, destroyed;
+        
+        private Handle(Object lock, String name, Supplier<T> builder)
+        {
+            this.lock = lock;
+            this.name = name;
+            this.builder = builder;
+        }
+        
+        boolean isLoaded()
+        {
+            return data != null;
+        }
+        
+        long getNativeSize()
+        {
+            T out = data;
+            return out != null ? out.getNativeSize() : 0L;
+        }
+        
+        T get()
+        {
+            T out = data;
+            if (out != null) return out;
+            
+            synchronized (lock)
+            {
+                if (destroyed) throw new IllegalStateException("Model destroyed.");
+                if (removed) return null;
+                if (data == null) data = builder.get();
+                return data;
+            }
+        }
+        
+        T acquire()
+        {
+            synchronized (lock)
+            {
+                T out = get();
+                if (out != null) references++;
+                return out;
+            }
+        }
+        
+        void release()
+        {
+            synchronized (lock)
+            {
+                if (references == 0) throw new IllegalStateException(name + " has no references to release.");
+                references--;
+                
+                //Only lazy blocks can be built again.
+                if (references == 0 && builder != null && data != null)
+                {
+                    data.destroy();
+                    data = null;
+                }
+            }
+        }
+        
+        T replace(T newData)
+        {
+            synchronized (lock)
+            {
+                T old = data;
+                data = newData;
+                return old;
+            }
+        }
+        
+        T remove()
+        {
+            synchronized (lock)
+            {
+                T old = data;
+                data = null;
+                removed = true;
+                return old;
+            }
+        }
+        
+        void destroy()
+        {
+            synchronized (lock)
+            {
+                if (data != null) data.destroy();
+                data = null;
+                destroyed = true;
+            }
+        }
+    }
 }
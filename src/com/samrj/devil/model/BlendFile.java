@@ -27,6 +27,9 @@ import com.samrj.devil.math.Mat4;
 import com.samrj.devil.math.Quat;
 import com.samrj.devil.math.Vec3;
 import com.samrj.devil.util.IOUtil;
+import com.samrj.devil.util.IntIntHashMap;
+import com.samrj.devil.util.NativeMemory;
+import com.samrj.devil.util.NativeMemory.Category;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -37,8 +40,6 @@ import java.nio.channels.FileChannel;
 import java.util.Map.Entry;
 import java.util.*;
 
-import static org.lwjgl.system.MemoryUtil.*;
-
 /**
  * Blender model loader. Capable of parsing the basic structure of a blend file,
  * but has no detailed knowledge about its inner workings.
@@ -79,7 +80,7 @@ public final class BlendFile
             long size = channel.size();
             if (size > Integer.MAX_VALUE) throw new IOException("Blend file sizes >2.15GB not supported.");
             
-            buffer = memAlloc((int)size);
+            buffer = NativeMemory.malloc(Category.MODEL, (int)size);
             channel.read(buffer);
             buffer.flip();
         }
@@ -224,12 +225,57 @@ public final class BlendFile
         return result;
     }
     
+    /**
+     * Returns an accessor for the given field path of the given struct type.
+     * 
+     * @param typeName The name of the struct type, such as "MVert".
+     * @param path The name of the field, or a dot-separated path of nested
+     *             struct fields.
+     * @return A new accessor.
+     */
+    public Accessor getAccessor(String typeName, String path)
+    {
+        Integer type = sdnaNamesToTypes.get(typeName);
+        StructDNA struct = type != null ? sdnaTypesToStructs[type] : null;
+        if (struct == null) throw new IllegalArgumentException("No struct type named " + typeName);
+        return struct.getAccessor(path);
+    }
+    
+    /**
+     * Returns the size of this file in bytes, all of which is held in native
+     * memory until this is destroyed.
+     */
+    public int getSize()
+    {
+        return buffer.capacity();
+    }
+    
+    /**
+     * Returns a hash of the contents of the given library struct, such as a
+     * Mesh, and all of the data it points to. Addresses are not hashed, and
+     * pointers to other library structs are hashed by name, so a struct's hash
+     * stays the same between saves unless its contents have changed.
+     * 
+     * @param pointer A pointer to a library struct in this file.
+     * @return A 64-bit hash.
+     */
+    public long hash(Pointer pointer)
+    {
+        if (pointer.structDNA == null || !pointer.structDNA.isLibraryStruct)
+            throw new IllegalArgumentException("Not a library struct.");
+        
+        Hasher hasher = new Hasher();
+        hasher.struct(pointer.position, pointer.structDNA);
+        hasher.run();
+        return hasher.hash;
+    }
+    
     /**
      * Frees the native memory allocated for this file.
      */
     public void destroy()
     {
-        memFree(buffer);
+        NativeMemory.free(buffer);
     }
     
     /**
@@ -252,6 +298,14 @@ public final class BlendFile
             this.count = count;
         }
         
+        /**
+         * Returns the blend file this pointer points into.
+         */
+        public BlendFile getBlendFile()
+        {
+            return BlendFile.this;
+        }
+        
         /**
          * Increments this pointer's position by the number of given bytes, and
          * returns the result as a new pointer with the same type.
@@ -614,6 +668,161 @@ public final class BlendFile
         }
     }
     
+    /**
+     * A field of a struct type, resolved once to a fixed byte offset. Reading a
+     * field through an accessor requires no lookups or allocation, and whole
+     * columns of a struct array may be read at once.
+     * 
+     * Array pointers given to an accessor must point to structs of the type
+     * the accessor was created for; this is not checked.
+     */
+    public final class Accessor
+    {
+        public final StructDNA struct;
+        public final FieldDNA field;
+        
+        /**
+         * The offset of the field from the start of the struct, in bytes.
+         */
+        public final int offset;
+        
+        private final int stride;
+        private final int elementSize;
+        
+        private Accessor(StructDNA struct, FieldDNA field, int offset)
+        {
+            this.struct = struct;
+            this.field = field;
+            this.offset = offset;
+            stride = struct.getLength();
+            elementSize = field.length/field.count;
+        }
+        
+        private int position(Pointer array, int index)
+        {
+            return array.position + stride*index + offset;
+        }
+        
+        private void checkSize(int size)
+        {
+            if (field.isPointer || elementSize != size)
+                throw new IllegalStateException("Field " + field + " is not " + size + " bytes wide.");
+        }
+        
+        /**
+         * Returns a pointer to this field of the struct at the given index of
+         * the given array.
+         */
+        public Pointer get(Pointer array, int index)
+        {
+            return new Pointer(position(array, index), field.type, sdnaTypesToStructs[field.type], field.count);
+        }
+        
+        public byte getByte(Pointer array, int index)
+        {
+            return buffer.get(position(array, index));
+        }
+        
+        public short getShort(Pointer array, int index)
+        {
+            return buffer.getShort(position(array, index));
+        }
+        
+        public int getInt(Pointer array, int index)
+        {
+            return buffer.getInt(position(array, index));
+        }
+        
+        public float getFloat(Pointer array, int index)
+        {
+            return buffer.getFloat(position(array, index));
+        }
+        
+        /**
+         * Dereferences this pointer field of the struct at the given index of
+         * the given array.
+         */
+        public Pointer dereference(Pointer array, int index)
+        {
+            if (!field.isPointer) throw new IllegalStateException("Field " + field + " is not a pointer.");
+            return get(array, index).dereference();
+        }
+        
+        /**
+         * Reads this field from each of the given number of structs in the
+         * given array. Array fields are read in full, so the result contains
+         * count*field.count values.
+         */
+        public byte[] readBytes(Pointer array, int count)
+        {
+            checkSize(1);
+            byte[] result = new byte[count*field.count];
+            for (int i=0, k=0; i<count; i++)
+            {
+                int pos = position(array, i);
+                for (int c=0; c<field.count; c++) result[k++] = buffer.get(pos + c);
+            }
+            return result;
+        }
+        
+        /**
+         * Reads this field from each of the given number of structs in the
+         * given array. Array fields are read in full, so the result contains
+         * count*field.count values.
+         */
+        public short[] readShorts(Pointer array, int count)
+        {
+            checkSize(2);
+            short[] result = new short[count*field.count];
+            for (int i=0, k=0; i<count; i++)
+            {
+                int pos = position(array, i);
+                for (int c=0; c<field.count; c++) result[k++] = buffer.getShort(pos + c*2);
+            }
+            return result;
+        }
+        
+        /**
+         * Reads this field from each of the given number of structs in the
+         * given array. Array fields are read in full, so the result contains
+         * count*field.count values.
+         */
+        public int[] readInts(Pointer array, int count)
+        {
+            checkSize(4);
+            int[] result = new int[count*field.count];
+            for (int i=0, k=0; i<count; i++)
+            {
+                int pos = position(array, i);
+                for (int c=0; c<field.count; c++) result[k++] = buffer.getInt(pos + c*4);
+            }
+            return result;
+        }
+        
+        /**
+         * Reads this field from each of the given number of structs in the
+         * given array. Array fields are read in full, so the result contains
+         * count*field.count values.
+         */
+        public float[] readFloats(Pointer array, int count)
+        {
+            checkSize(4);
+            float[] result = new float[count*field.count];
+            for (int i=0, k=0; i<count; i++)
+            {
+                int pos = position(array, i);
+                for (int c=0; c<field.count; c++) result[k++] = buffer.getFloat(pos + c*4);
+            }
+            return result;
+        }
+        
+        @Override
+        public String toString()
+        {
+            return "[accessor " + struct.getTypeName() + " +" + offset + ": " + field + "]";
+        }
+    }
+    
     /**
      * Represents the header of a Blender file block. A block may contain any
      * number of C structs, each of the same type.
@@ -758,6 +967,29 @@ public final class BlendFile
             return fieldArray[index];
         }
 
+        /**
+         * Returns an accessor for the given field of this struct type.
+         * 
+         * @param path The name of the field, or a dot-separated path of nested
+         *             struct fields.
+         * @return A new accessor.
+         */
+        public Accessor getAccessor(String path)
+        {
+            StructDNA parent = this;
+            FieldDNA field = null;
+            int offset = 0;
+            for (String name : path.split("\\."))
+            {
+                if (parent == null) throw new IllegalArgumentException(field + " is not a struct.");
+                field = parent.fields.get(name);
+                if (field == null) throw new IllegalArgumentException("No field named " + name + " in " + parent.getTypeName());
+                offset += field.offset;
+                parent = field.isPointer ? null : field.getStructDNA();
+            }
+            return new Accessor(this, field, offset);
+        }
+        
         @Override
         public Iterator<FieldDNA> iterator()
         {
@@ -845,4 +1077,130 @@ public final class BlendFile
             return getTypeName() + " " + rawName + ";";
         }
     }
+    
+    /**
+     * Hashes a graph of structs in breadth-first order. Pointed-to data is
+     * hashed by the order in which it was first reached, rather than by
+     * address.
+     */
+    private final class Hasher
+    {
+        private final IntIntHashMap visited = new IntIntHashMap();
+        private final ArrayDeque<int[]> queue = new ArrayDeque<>();
+        private long hash = 0xCBF29CE484222325L;
+        
+        private void mix(long value)
+        {
+            for (int i=0; i<8; i++)
+            {
+                hash = (hash ^ (value & 0xFF))*0x100000001B3L;
+                value >>>= 8;
+            }
+        }
+        
+        private void bytes(int position, int length)
+        {
+            for (int i=0; i<length; i++) hash = (hash ^ (buffer.get(position + i) & 0xFF))*0x100000001B3L;
+        }
+        
+        private void struct(int position, StructDNA struct)
+        {
+            //Only the name and properties of an ID are part of its contents.
+            boolean isID = struct.getTypeName().equals("ID");
+            
+            for (FieldDNA field : struct.fieldArray)
+            {
+                if (isID && !field.name.equals("name") && !field.name.equals("properties")) continue;
+                
+                int fieldPos = position + field.offset;
+                if (field.isPointer)
+                {
+                    if (field.rawName.startsWith("(*")) continue; //Function pointer.
+                    
+                    boolean isDouble = field.rawName.startsWith("**");
+                    int addressSize = pointer64Bit ? 8 : 4;
+                    for (int i=0; i<field.count; i++) pointer(fieldPos + i*addressSize, field.type, isDouble);
+                    continue;
+                }
+                
+                StructDNA fieldStruct = field.getStructDNA();
+                if (fieldStruct != null)
+                {
+                    int length = fieldStruct.getLength();
+                    for (int i=0; i<field.count; i++) struct(fieldPos + i*length, fieldStruct);
+                }
+                else bytes(fieldPos, field.length);
+            }
+        }
+        
+        private void pointer(int position, int type, boolean isDouble)
+        {
+            long address = pointer64Bit ? buffer.getLong(position) : Integer.toUnsignedLong(buffer.getInt(position));
+            if (address == 0)
+            {
+                mix(0L);
+                return;
+            }
+            
+            Entry<Long, Block> floor = blockAddressMap.floorEntry(address);
+            Block block = floor != null ? floor.getValue() : null;
+            long offset = block != null ? address - block.address : -1L;
+            if (offset < 0 || offset >= block.size)
+            {
+                mix(1L); //Dangling pointer to runtime data.
+                return;
+            }
+            
+            StructDNA blockStruct = block.getStructDNA();
+            if (!block.identifier.equals("DATA") && blockStruct.isLibraryStruct)
+            {
+                //Library structs are hashed by name, and separately.
+                int element = block.start + (int)(offset - offset%blockStruct.getLength());
+                mix(2L);
+                mix(new Pointer(element, blockStruct.type, blockStruct, 1).getField(0).getField("name").asString().hashCode());
+                return;
+            }
+            
+            int start = block.start + (int)offset;
+            int order = visited.get(start, -1);
+            if (order >= 0)
+            {
+                mix(3L);
+                mix(order);
+                return;
+            }
+            
+            visited.put(start, visited.size());
+            mix(4L);
+            
+            //Untyped pointers use the type of the block they point into.
+            int targetType = type;
+            if (sdnaTypeNames[type].equals("void")) targetType = block.sdnaIndex != 0 ? blockStruct.type : -1;
+            queue.add(new int[] {start, block.start + block.size, targetType, isDouble ? 1 : 0});
+        }
+        
+        private void run()
+        {
+            int addressSize = pointer64Bit ? 8 : 4;
+            while (!queue.isEmpty())
+            {
+                int[] span = queue.poll();
+                int start = span[0], end = span[1], type = span[2];
+                
+                if (span[3] != 0)
+                {
+                    for (int p=start; p + addressSize <= end; p += addressSize) pointer(p, type, false);
+                    continue;
+                }
+                
+                StructDNA struct = type >= 0 ? sdnaTypesToStructs[type] : null;
+                if (struct != null && struct.getLength() > 0)
+                {
+                    int length = struct.getLength();
+                    for (int p=start; p + length <= end; p += length) struct(p, struct);
+                }
+                else bytes(start, end - start);
+            }
+        }
+    }
 }
@@ -31,6 +31,14 @@ public abstract class DataBlock
         return index >= 0 ? Type.values()[index] : null;
     }
     
+    /**
+     * Returns the name of the given ID block, without its type prefix.
+     */
+    static String getName(BlendFile.Pointer pointer) throws IOException
+    {
+        return pointer.getField(0).getField("name").asString().substring(2);
+    }
+    
     public final Model model;
     public final String name;
     public final List<Property> properties;
@@ -41,7 +49,7 @@ public abstract class DataBlock
         this.model = model;
         
         Pointer id = pointer.getField(0);
-        name = id.getField("name").asString().substring(2);
+        name = getName(pointer);
         
         BlendFile.Pointer bProp = id.getField("properties").dereference();
         properties = bProp != null ? new Property(bProp).properties : Collections.emptyList();
@@ -61,6 +69,14 @@ public abstract class DataBlock
         return prop != null ? prop.properties : Collections.emptyList();
     }
     
+    /**
+     * Returns the number of bytes of native memory held by this block.
+     */
+    public long getNativeSize()
+    {
+        return 0L;
+    }
+    
     void destroy()
     {
     }
@@ -15,8 +15,8 @@ public final class DataPointer<T extends DataBlock>
     private final Model model;
     private final String name;
     
-    private T data;
-    private boolean dirty = true;
+    private ArrayMap.Handle<T> handle;
+    private int revision = -1;
     
     DataPointer(Model model, DataBlock.Type type, String name)
     {
@@ -25,22 +25,62 @@ public final class DataPointer<T extends DataBlock>
         this.type = type;
     }
     
-    /**
-     * Returns the model data this pointer points to, or null if none is found.
-     */
-    public T get()
-    {   
-        if (dirty)
+    private ArrayMap.Handle<T> getHandle()
+    {
+        if (revision != model.revision)
         {
             ArrayMap<T> array = model.get(type);
             
-            if (array != null && name != null) data = array.get(name);
-            else data = null;
+            if (array != null && name != null) handle = array.getHandle(name);
+            else handle = null;
             
-            dirty = false;
+            revision = model.revision;
         }
         
-        return data;
+        return handle;
+    }
+    
+    /**
+     * Returns the model data this pointer points to, or null if none is found.
+     * In lazy models, the data is built if it has not been already.
+     */
+    public T get()
+    {   
+        ArrayMap.Handle<T> h = getHandle();
+        return h != null ? h.get() : null;
+    }
+    
+    /**
+     * Returns whether the model data this pointer points to exists and has
+     * been built.
+     */
+    public boolean isLoaded()
+    {
+        ArrayMap.Handle<T> h = getHandle();
+        return h != null && h.isLoaded();
+    }
+    
+    /**
+     * Adds a reference to the model data this pointer points to, building it
+     * if necessary. Each call should be matched by a call to release().
+     * 
+     * @return The model data, or null if none is found.
+     */
+    public T acquire()
+    {
+        ArrayMap.Handle<T> h = getHandle();
+        return h != null ? h.acquire() : null;
+    }
+    
+    /**
+     * Removes a reference to the model data this pointer points to. In lazy
+     * models, releasing the last reference frees the data.
+     */
+    public void release()
+    {
+        ArrayMap.Handle<T> h = getHandle();
+        if (h == null) throw new IllegalStateException(this + " not found.");
+        h.release();
     }
     
     /**
@@ -87,7 +127,7 @@ public final class DataPointer<T extends DataBlock>
     {
         return get() == null;
     }
-
+    
     @Override
     public String toString()
     {
@@ -23,13 +23,13 @@
 package com.samrj.devil.model;
 
 import com.samrj.devil.math.Transform;
+import com.samrj.devil.math.Util;
 import com.samrj.devil.math.Vec2;
+import com.samrj.devil.util.SortedFloatIntMap;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map.Entry;
-import java.util.TreeMap;
 
 /**
  * @author Samuel Johnson (SmashMaster)
@@ -67,15 +67,29 @@ public class FCurve
         }
     }
     
-    private static List<Float> bezierT(float x0, float x1, float x2, float x3, float x)
+    private static float cbrt(float f)
+    {
+        return Util.FAST_MATH ? Util.fastCbrt(f) : (float)Math.cbrt(f);
+    }
+    
+    private static float acos(float f)
+    {
+        return Util.FAST_MATH ? Util.fastAcos(f) : (float)Math.acos(f);
+    }
+    
+    private static float cos(float f)
+    {
+        return Util.FAST_MATH ? Util.fastCos(f) : (float)Math.cos(f);
+    }
+    
+    //Returns the first solution for t in [0, 1], or NaN if there is none.
+    private static float bezierT(float x0, float x1, float x2, float x3, float x)
     {
         float c3 = -x0 + 3.0f*(x1 - x2) + x3;
         float c2 = 3.0f*(x0 - 2.0f*x1 + x2);
         float c1 = 3.0f*(-x0 + x1);
         float c0 = x0 - x;
 
-        List<Float> out = new ArrayList<>(3);
-
         if (c3 != 0.0f)
         {
             float a = c2/c3;
@@ -90,33 +104,33 @@ public class FCurve
             if (d > 0.0f)
             {
                 float t = (float)Math.sqrt(d);
-                float o = (float)Math.cbrt(-q + t) + (float)Math.cbrt(-q - t) - a;
-                if (o >= 0.0f && o <= 1.0f) out.add(o);
+                float o = cbrt(-q + t) + cbrt(-q - t) - a;
+                if (o >= 0.0f && o <= 1.0f) return o;
             }
             else if (d == 0.0f)
             {
-                float t = (float)Math.cbrt(-q);
+                float t = cbrt(-q);
                 float o = 2*t - a;
-                if (o >= 0.0f && o <= 1.0f) out.add(o);
+                if (o >= 0.0f && o <= 1.0f) return o;
 
                 o = -t - a;
-                if (o >= 0.0f && o <= 1.0f) out.add(o);
+                if (o >= 0.0f && o <= 1.0f) return o;
             }
             else
             {
                 //Oh god please why
-                float phi = (float)Math.acos(-q / (float)Math.sqrt(-(p*p*p)));
+                float phi = acos(-q / (float)Math.sqrt(-(p*p*p)));
                 float t = (float)Math.sqrt(-p);
-                p = (float)Math.cos(phi/3.0f);
+                p = cos(phi/3.0f);
                 q = (float)Math.sqrt(3.0f - 3.0f*p*p);
                 float o = 2.0f*t*p - a;
-                if (o >= 0.0f && o <= 1.0f) out.add(o);
+                if (o >= 0.0f && o <= 1.0f) return o;
 
                 o = -t*(p + q) - a;
-                if (o >= 0.0f && o <= 1.0f) out.add(o);
+                if (o >= 0.0f && o <= 1.0f) return o;
 
                 o = -t*(p - q) - a;
-                if (o >= 0.0f && o <= 1.0f) out.add(o);
+                if (o >= 0.0f && o <= 1.0f) return o;
             }
         }
         else
@@ -133,26 +147,26 @@ public class FCurve
                 {
                     p = (float)Math.sqrt(p);
                     float o = (-b - p)/(2.0f*a);
-                    if (o >= 0.0f && o <= 1.0f) out.add(o);
+                    if (o >= 0.0f && o <= 1.0f) return o;
 
                     o = (-b + p)/(2.0f*a);
-                    if (o >= 0.0f && o <= 1.0f) out.add(o);
+                    if (o >= 0.0f && o <= 1.0f) return o;
                 }
                 else if (p == 0.0f)
                 {
                     float o = -b/(2.0f*a);
-                    if (o >= 0.0f && o <= 1.0f) out.add(o);
+                    if (o >= 0.0f && o <= 1.0f) return o;
                 }
             }
             else if (b != 0.0f)
             {
                 float o = -c/b;
-                if (o >= 0.0f && o <= 1.0f) out.add(o);
+                if (o >= 0.0f && o <= 1.0f) return o;
             }
-            else if (c == 0.0f) out.add(0.0f);
+            else if (c == 0.0f) return 0.0f;
         }
 
-        return out;
+        return Float.NaN;
     }
     
     private static float bezierY(float y0, float y1, float y2, float y3, float t)
@@ -163,10 +177,8 @@ public class FCurve
     
     private static float bezier(Vec2 p0, Vec2 p1, Vec2 p2, Vec2 p3, float x)
     {
-        List<Float> tSolutions = bezierT(p0.x, p1.x, p2.x, p3.x, x);
-        float t;
-        if (tSolutions.isEmpty()) t = (x - p0.x)/(p3.x - p0.x); //Revert to lerp
-        else t = tSolutions.get(0);
+        float t = bezierT(p0.x, p1.x, p2.x, p3.x, x);
+        if (Float.isNaN(t)) t = (x - p0.x)/(p3.x - p0.x); //Revert to lerp
         
         return bezierY(p0.y, p1.y, p2.y, p3.y, t);
     }
@@ -199,7 +211,7 @@ public class FCurve
     public final List<Keyframe> keyframes;
     public final float minX, maxX;
     
-    private final TreeMap<Float, Integer> keyInds;
+    private final SortedFloatIntMap keyInds;
     
     FCurve(BlendFile.Pointer pointer) throws IOException
     {
@@ -249,7 +261,7 @@ public class FCurve
         }
         
         float min = Float.POSITIVE_INFINITY, max = Float.NEGATIVE_INFINITY;
-        keyInds = new TreeMap<>();
+        keyInds = new SortedFloatIntMap(totvert);
         for (int i=0; i<keyframes.size(); i++)
         {
             float x = keyframes.get(i).co.x;
@@ -265,10 +277,9 @@ public class FCurve
     
     public float evaluate(float time)
     {
-        Entry<Float, Integer> e0 = keyInds.floorEntry(time);
-        if (e0 == null) return keyframes.get(0).co.y; //Before first
+        int i0 = keyInds.floor(time, -1);
+        if (i0 < 0) return keyframes.get(0).co.y; //Before first
         
-        int i0 = e0.getValue();
         Keyframe k0 = keyframes.get(i0);
         if (i0 == keyframes.size() - 1) return k0.co.y; //After last
         
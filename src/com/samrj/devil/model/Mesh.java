@@ -24,21 +24,23 @@ package com.samrj.devil.model;
 
 import com.samrj.devil.geo2d.Earcut;
 import com.samrj.devil.geo3d.Geo3DUtil;
+import com.samrj.devil.graphics.Camera3D;
 import com.samrj.devil.math.Mat3;
 import com.samrj.devil.math.Vec2;
 import com.samrj.devil.math.Vec3;
+import com.samrj.devil.math.Vec4;
+import com.samrj.devil.util.IntList;
+import com.samrj.devil.util.LongList;
+import com.samrj.devil.util.NativeMemory;
+import com.samrj.devil.util.NativeMemory.Category;
 import com.samrj.devil.util.TriConsumer;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.IntFunction;
 
-import static org.lwjgl.system.MemoryUtil.*;
-
 /**
  * Blender mesh object.
  * 
@@ -58,31 +60,114 @@ public final class Mesh extends DataBlock
         }
     }
     
-    private static class LoopEdge
+    //Packs an edge into a single long, with the lesser index first, so that an
+    //edge has the same key in either direction.
+    private static long edgeKey(int a, int b)
     {
-        private final int va, vb;
-        
-        private LoopEdge(int va, int vb)
+        return a < b ? ((long)a << 32) | b : ((long)b << 32) | a;
+    }
+    
+    //Sorts the given edge keys, and returns each unique edge as a pair of indices.
+    private static int[] uniqueEdges(LongList edges)
+    {
+        edges.sort();
+        int count = 0;
+        for (int i=0; i<edges.size(); i++)
+            if (i == 0 || edges.get(i) != edges.get(i - 1)) count++;
+        
+        int[] indices = new int[count*2];
+        int ei = 0;
+        for (int i=0; i<edges.size(); i++)
         {
-            this.va = va;
-            this.vb = vb;
+            long edge = edges.get(i);
+            if (i > 0 && edge == edges.get(i - 1)) continue;
+            indices[ei++] = (int)(edge >>> 32);
+            indices[ei++] = (int)edge;
         }
+        return indices;
+    }
+    
+    /**
+     * Byte offsets of each planar block of vertex data, for a given number of
+     * vertices.
+     */
+    private static class Layout
+    {
+        private final int numVertices;
+        private final int position, normal, tangent, groupIndex, groupWeight, material;
+        private final int[] uvs, colors;
+        private final int size;
+        private final int[] blockOffsets, blockStrides;
         
-        @Override
-        public int hashCode()
+        private Layout(int numVertices, int numUVs, boolean hasTangents, int numColors, int numGroups, boolean hasMaterials)
         {
-            return va^vb;
-        }
-
-        @Override
-        public boolean equals(Object obj)
-        {
-            if (!(obj instanceof LoopEdge)) return false;
-            LoopEdge edge = (LoopEdge)obj;
-            return (va == edge.va && vb == edge.vb) || (va == edge.vb && vb == edge.va);
+            this.numVertices = numVertices;
+            List<int[]> blocks = new ArrayList<>();
+            int offset = 0;
+            
+            position = offset;
+            blocks.add(new int[] {offset, 12});
+            offset += numVertices*12;
+            
+            normal = offset;
+            blocks.add(new int[] {offset, 12});
+            offset += numVertices*12;
+            
+            uvs = new int[numUVs];
+            for (int i=0; i<numUVs; i++)
+            {
+                uvs[i] = offset;
+                blocks.add(new int[] {offset, 8});
+                offset += numVertices*8;
+            }
+            
+            tangent = offset;
+            if (hasTangents)
+            {
+                blocks.add(new int[] {offset, 16});
+                offset += numVertices*16;
+            }
+            
+            colors = new int[numColors];
+            for (int i=0; i<numColors; i++)
+            {
+                colors[i] = offset;
+                blocks.add(new int[] {offset, 12});
+                offset += numVertices*12;
+            }
+            
+            groupIndex = offset;
+            groupWeight = offset + numVertices*numGroups*4;
+            if (numGroups > 0)
+            {
+                blocks.add(new int[] {groupIndex, numGroups*4});
+                blocks.add(new int[] {groupWeight, numGroups*4});
+            }
+            offset += numVertices*numGroups*8;
+            
+            material = offset;
+            if (hasMaterials)
+            {
+                blocks.add(new int[] {offset, 4});
+                offset += numVertices*4;
+            }
+            
+            size = offset;
+            blockOffsets = new int[blocks.size()];
+            blockStrides = new int[blocks.size()];
+            for (int i=0; i<blocks.size(); i++)
+            {
+                blockOffsets[i] = blocks.get(i)[0];
+                blockStrides[i] = blocks.get(i)[1];
+            }
         }
     }
     
+    /**
+     * Whether this mesh has tangents, generated from its first UV layer when
+     * requested by the model's options. Each tangent is four floats: a unit
+     * tangent, and the sign of the bitangent, which is w*cross(normal, tangent).
+     */
     public final boolean hasTangents;
     public final int numGroups;
     public final boolean hasMaterials;
@@ -94,9 +179,34 @@ public final class Mesh extends DataBlock
     public final int numTriangles;
     public final ByteBuffer indexData;
     
+    /**
+     * Whether indexData and edgeIndexData contain unsigned shorts rather than
+     * ints. Only optimized meshes with few enough vertices use short indices.
+     */
+    public final boolean shortIndices;
+    
+    /**
+     * The average cache miss ratio of this mesh's triangles, as loaded and
+     * after optimization, for a FIFO vertex cache of 16 entries. These are
+     * equal if this mesh was not optimized.
+     */
+    public final float acmrBefore, acmrAfter;
+    
     public final int numEdges;
     public final ByteBuffer edgeIndexData;
     
+    /**
+     * Simplified levels of detail for this mesh, in order of decreasing
+     * detail. Empty unless requested by the model's options.
+     */
+    public final MeshLOD[] lods;
+    
+    /**
+     * Spatially coherent clusters of this mesh's triangles, in index order.
+     * Empty unless requested by the model's options.
+     */
+    public final MeshCluster[] clusters;
+    
     public final int positionOffset, normalOffset;
     public final int[] uvOffsets;
     public final int tangentOffset;
@@ -126,34 +236,42 @@ public final class Mesh extends DataBlock
             materials[i] = new DataPointer<>(model, Type.MATERIAL, matName);
         }
         
-        //Vertex copy could probably be sped up massively by grabbing the whole array with asBuffer().
+        //Read whole columns of each struct array at once.
+        BlendFile file = bMesh.getBlendFile();
+        
         int totvert = bMesh.getField("totvert").asInt();
-        BlendFile.Pointer[] mVerts = bMesh.getField("mvert").dereference().asArray(totvert);
+        BlendFile.Pointer mVerts = bMesh.getField("mvert").dereference();
+        float[] vertCos = file.getAccessor("MVert", "co").readFloats(mVerts, totvert);
+        short[] vertNos = file.getAccessor("MVert", "no").readShorts(mVerts, totvert);
         Vec3[] verts = new Vec3[totvert];
         Vec3[] normals = new Vec3[totvert];
         for (int i=0; i<totvert; i++)
         {
-            BlendFile.Pointer mVert = mVerts[i];
-            verts[i] = mVert.getField("co").asVec3();
-            normals[i] = mVert.getField("no").asNormalVec3();
+            //Blender uses a different coordinate system, so rearrange components.
+            verts[i] = new Vec3(vertCos[i*3 + 1], vertCos[i*3 + 2], vertCos[i*3]);
+            normals[i] = new Vec3(vertNos[i*3 + 1], vertNos[i*3 + 2], vertNos[i*3]).div(32768.0f);
         }
         
         int totloop = bMesh.getField("totloop").asInt();
-        BlendFile.Pointer[] mLoops = bMesh.getField("mloop").dereference().asArray(totloop);
+        BlendFile.Pointer mLoops = bMesh.getField("mloop").dereference();
+        int[] loopVerts = file.getAccessor("MLoop", "v").readInts(mLoops, totloop);
         Vec3[] loopNormals = new Vec3[totloop];
         int[] loopMats = materials.length == 0 ? null : new int[totloop];
         
         int totpoly = bMesh.getField("totpoly").asInt();
-        BlendFile.Pointer[] mPolys = bMesh.getField("mpoly").dereference().asArray(totpoly);
+        BlendFile.Pointer mPolys = bMesh.getField("mpoly").dereference();
+        int[] polyStarts = file.getAccessor("MPoly", "loopstart").readInts(mPolys, totpoly);
+        int[] polyCounts = file.getAccessor("MPoly", "totloop").readInts(mPolys, totpoly);
+        short[] polyMats = file.getAccessor("MPoly", "mat_nr").readShorts(mPolys, totpoly);
+        byte[] polyFlags = file.getAccessor("MPoly", "flag").readBytes(mPolys, totpoly);
         List<LoopTri> loopTris = new ArrayList<>();
-        Set<LoopEdge> loopEdges = new HashSet<>();
+        IntList triangulated = new IntList();
+        LongList loopEdges = new LongList();
         
         for (int iPoly=0; iPoly<totpoly; iPoly++)
         {
-            BlendFile.Pointer mPoly = mPolys[iPoly];
-            
-            int start = mPoly.getField("loopstart").asInt();
-            int count = mPoly.getField("totloop").asInt();
+            int start = polyStarts[iPoly];
+            int count = polyCounts[iPoly];
             int end = start + count;
             
             //Calculate normal by Newell's method
@@ -163,9 +281,9 @@ public final class Mesh extends DataBlock
                 int i1 = i0 + 1;
                 if (i1 == end) i1 = start;
                 
-                Vec3 v0 = verts[mLoops[i0].getField("v").asInt()];
-                Vec3 v1 = verts[mLoops[i1].getField("v").asInt()];
-
+                Vec3 v0 = verts[loopVerts[i0]];
+                Vec3 v1 = verts[loopVerts[i1]];
+                
                 normal.x += (v0.y - v1.y)*(v0.z + v1.z);
                 normal.y += (v0.z - v1.z)*(v0.x + v1.x);
                 normal.z += (v0.x - v1.x)*(v0.y + v1.y);
@@ -183,10 +301,10 @@ public final class Mesh extends DataBlock
             }
             else if (count == 4) //Quad; can be split into two tris, but might be concave.
             {
-                Vec3 v0 = verts[mLoops[start].getField("v").asInt()];
-                Vec3 v1 = verts[mLoops[start + 1].getField("v").asInt()];
-                Vec3 v2 = verts[mLoops[start + 2].getField("v").asInt()];
-                Vec3 v3 = verts[mLoops[start + 3].getField("v").asInt()];
+                Vec3 v0 = verts[loopVerts[start]];
+                Vec3 v1 = verts[loopVerts[start + 1]];
+                Vec3 v2 = verts[loopVerts[start + 2]];
+                Vec3 v3 = verts[loopVerts[start + 3]];
                 
                 Vec3 e01 = Vec3.sub(v1, v0);
                 Vec3 e02 = Vec3.sub(v2, v0);
@@ -216,7 +334,7 @@ public final class Mesh extends DataBlock
                 double[] projData = new double[count*2];
                 for (int i=0; i<count; i++)
                 {
-                    Vec3 v = verts[mLoops[start + i].getField("v").asInt()];
+                    Vec3 v = verts[loopVerts[start + i]];
                     Vec3 projected = Vec3.mult(v, basis);
                     
                     projData[i*2] = projected.x;
@@ -224,7 +342,8 @@ public final class Mesh extends DataBlock
                 }
                 
                 //Compute the triangulation
-                List<Integer> triangulated = Earcut.earcut(projData);
+                triangulated.clear();
+                Earcut.earcut(projData, null, 2, triangulated);
                 for (int i=0; i<triangulated.size();)
                 {
                     int a = triangulated.get(i++);
@@ -239,22 +358,22 @@ public final class Mesh extends DataBlock
             int eiLast = end - 1;
             for (int ei=start; ei<end; ei++)
             {
-                loopEdges.add(new LoopEdge(eiLast, ei));
+                loopEdges.add(edgeKey(eiLast, ei));
                 eiLast = ei;
             }
             
             //Store normals
-            boolean isSmooth = (mPoly.getField("flag").asByte() & 1) != 0;
+            boolean isSmooth = (polyFlags[iPoly] & 1) != 0;
             if (isSmooth)
                 for (int i=start; i<end; i++)
-                    loopNormals[i] = normals[mLoops[i].getField("v").asInt()];
+                    loopNormals[i] = normals[loopVerts[i]];
             else for (int i=start; i<end; i++)
                     loopNormals[i] = normal;
             
             //Store face material
             if (loopMats != null)
             {
-                int polyMat = materials[mPoly.getField("mat_nr").asShort()].get().modelIndex;
+                int polyMat = materials[polyMats[iPoly]].get().modelIndex;
                 for (int i=start; i<end; i++)
                     loopMats[i] = polyMat;
             }
@@ -262,34 +381,42 @@ public final class Mesh extends DataBlock
         
         //Prepare vertex group data
         int maxGroup = -1;
-        BlendFile.Pointer dVertArr = bMesh.getField("dvert").dereference();
-        BlendFile.Pointer[] dVerts = dVertArr == null ? null : dVertArr.asArray(totvert);
+        BlendFile.Pointer dVerts = bMesh.getField("dvert").dereference();
+        int[] dVertWeightCounts = null;
         if (dVerts != null)
-            for (int i=0; i<mVerts.length; i++)
-                maxGroup = Math.max(maxGroup, dVerts[i].getField("totweight").asInt());
+        {
+            dVertWeightCounts = file.getAccessor("MDeformVert", "totweight").readInts(dVerts, totvert);
+            for (int i=0; i<totvert; i++) maxGroup = Math.max(maxGroup, dVertWeightCounts[i]);
+        }
         
-        int[][] groupIndices = new int[mVerts.length][maxGroup + 1];
-        float[][] groupWeights = new float[mVerts.length][maxGroup + 1];
+        int[][] groupIndices = new int[totvert][maxGroup + 1];
+        float[][] groupWeights = new float[totvert][maxGroup + 1];
         
-        if (dVerts != null && maxGroup >= 0) for (int vi=0; vi<totvert; vi++)
+        if (dVerts != null && maxGroup >= 0)
         {
-            BlendFile.Pointer dVert = dVerts[vi];
-            int totweight = dVert.getField("totweight").asInt();
-            BlendFile.Pointer[] weights = dVert.getField("dw").dereference().asArray(totweight);
+            BlendFile.Accessor dw = file.getAccessor("MDeformVert", "dw");
+            BlendFile.Accessor defNr = file.getAccessor("MDeformWeight", "def_nr");
+            BlendFile.Accessor weight = file.getAccessor("MDeformWeight", "weight");
             
-            for (int wi=0; wi<weights.length; wi++)
+            for (int vi=0; vi<totvert; vi++)
             {
-                BlendFile.Pointer weight = weights[wi];
-                groupIndices[vi][wi] = weight.getField("def_nr").asInt();
-                groupWeights[vi][wi] = weight.getField("weight").asFloat();
+                int totweight = dVertWeightCounts[vi];
+                if (totweight == 0) continue;
+                
+                BlendFile.Pointer weights = dw.dereference(dVerts, vi);
+                for (int wi=0; wi<totweight; wi++)
+                {
+                    groupIndices[vi][wi] = defNr.getInt(weights, wi);
+                    groupWeights[vi][wi] = weight.getFloat(weights, wi);
+                }
             }
         }
         
         //Loop data: uv and colors
         List<String> uvLayerNames = new ArrayList<>();
-        List<BlendFile.Pointer[]> uvLayerData = new ArrayList<>();
+        List<float[]> uvLayerData = new ArrayList<>();
         List<String> colorLayerNames = new ArrayList<>();
-        List<BlendFile.Pointer[]> colorLayerData = new ArrayList<>();
+        List<byte[][]> colorLayerData = new ArrayList<>();
         BlendFile.Pointer ldata = bMesh.getField("ldata");
         int totlayer = ldata.getField("totlayer").asInt();
         BlendFile.Pointer layersPtr = ldata.getField("layers").dereference();
@@ -302,19 +429,22 @@ public final class Mesh extends DataBlock
                 switch (layer.getField("type").asInt())
                 {
                     case 16: //uv
-                        BlendFile.Pointer[] uvData = layer.getField("data").dereference().cast("MLoopUV").asArray(totloop);
+                        BlendFile.Pointer uvData = layer.getField("data").dereference();
                         if (uvData != null)
                         {
                             uvLayerNames.add(layerName);
-                            uvLayerData.add(uvData);
+                            uvLayerData.add(file.getAccessor("MLoopUV", "uv").readFloats(uvData, totloop));
                         }
                         break;
                     case 17: //colors
-                        BlendFile.Pointer[] colData = layer.getField("data").dereference().cast("MLoopCol").asArray(totloop);
+                        BlendFile.Pointer colData = layer.getField("data").dereference();
                         if (colData != null)
                         {
                             colorLayerNames.add(layerName);
-                            colorLayerData.add(colData);
+                            colorLayerData.add(new byte[][] {
+                                file.getAccessor("MLoopCol", "r").readBytes(colData, totloop),
+                                file.getAccessor("MLoopCol", "g").readBytes(colData, totloop),
+                                file.getAccessor("MLoopCol", "b").readBytes(colData, totloop)});
                         }
                         break;
                 }
@@ -325,180 +455,215 @@ public final class Mesh extends DataBlock
          * CALCULATE BUFFER POINTERS
          */
         
-        numVertices = mLoops.length;
-        numTriangles = loopTris.size();
-        numEdges = loopEdges.size();
+        int numLoops = totloop;
         
-        hasTangents = false;
+        hasTangents = model.options.generateTangents && !uvLayerNames.isEmpty();
         numGroups = maxGroup + 1;
         hasMaterials = loopMats != null;
         
         uvLayers = uvLayerNames.toArray(new String[uvLayerNames.size()]);
         colorLayers = colorLayerNames.toArray(new String[colorLayerNames.size()]);
         
-        //Positions
-        positionOffset = 0;
-        int intOffset = numVertices*3;
-        
-        //Normals
-        normalOffset = intOffset*4;
-        intOffset += numVertices*3;
-        
-        //UVs
-        uvOffsets = new int[uvLayers.length];
-        for (int i=0; i<uvLayers.length; i++)
-        {
-            uvOffsets[i] = intOffset*4;
-            intOffset += numVertices*2;
-        }
-        
-        //Tangents
-        tangentOffset = intOffset*4;
-        if (hasTangents) intOffset += numVertices*3; 
-        
-        //Colors
-        colorOffsets = new int[colorLayers.length];
-        for (int i=0; i<colorLayers.length; i++)
-        {
-            colorOffsets[i] = intOffset*4;
-            intOffset += numVertices*3;
-        }
-        
-        //Group indices
-        groupIndexOffset = intOffset*4;
-        intOffset += numVertices*numGroups;
-        
-        //Group weights
-        groupWeightOffset = intOffset*4;
-        intOffset += numVertices*numGroups;
-        
-        //Material indices
-        materialOffset = intOffset*4;
-        if (hasMaterials) intOffset += numVertices;
+        Layout loopLayout = new Layout(numLoops, uvLayers.length, hasTangents, colorLayers.length, numGroups, hasMaterials);
         
         /**
          * ALLOCATE AND FILL BUFFERS
          */
         
-        vertexData = numVertices != 0 ? memAlloc(intOffset*4) : null;
-        if (vertexData != null)
+        ByteBuffer loopData = numLoops != 0 ? NativeMemory.malloc(Category.MODEL, loopLayout.size) : null;
+        if (loopData != null)
         {
-            vertexData.position(positionOffset);
-            for (int i=0; i<numVertices; i++)
+            loopData.position(loopLayout.position);
+            for (int i=0; i<numLoops; i++)
             {
-                Vec3 vert = verts[mLoops[i].getField("v").asInt()];
+                Vec3 vert = verts[loopVerts[i]];
                 
-                vertexData.putFloat(vert.x);
-                vertexData.putFloat(vert.y);
-                vertexData.putFloat(vert.z);
+                loopData.putFloat(vert.x);
+                loopData.putFloat(vert.y);
+                loopData.putFloat(vert.z);
             }
             
-            vertexData.position(normalOffset);
-            for (int i=0; i<numVertices; i++)
+            loopData.position(loopLayout.normal);
+            for (int i=0; i<numLoops; i++)
             {
                 Vec3 normal = loopNormals[i];
                 if (normal != null)
                 {
-                    vertexData.putFloat(normal.x);
-                    vertexData.putFloat(normal.y);
-                    vertexData.putFloat(normal.z);
+                    loopData.putFloat(normal.x);
+                    loopData.putFloat(normal.y);
+                    loopData.putFloat(normal.z);
                 }
                 else
                 {
-                    vertexData.putFloat(0.0f);
-                    vertexData.putFloat(0.0f);
-                    vertexData.putFloat(0.0f);
+                    loopData.putFloat(0.0f);
+                    loopData.putFloat(0.0f);
+                    loopData.putFloat(0.0f);
                 }
             }
             
             for (int layer=0; layer<uvLayers.length; layer++)
             {
-                vertexData.position(uvOffsets[layer]);
+                loopData.position(loopLayout.uvs[layer]);
                 
-                BlendFile.Pointer[] uvs = uvLayerData.get(layer);
-                for (int i=0; i<numVertices; i++)
-                {
-                    float[] uv = uvs[i].getField("uv").asFloats(2);
-                    vertexData.putFloat(uv[0]);
-                    vertexData.putFloat(uv[1]);
-                }
-            }
-            
-            if (hasTangents)
-            {
-                vertexData.position(tangentOffset);
-                //tangents need to be calculated from normals and uvs.
+                float[] uvs = uvLayerData.get(layer);
+                for (int i=0; i<numLoops*2; i++) loopData.putFloat(uvs[i]);
             }
             
             for (int layer=0; layer<colorLayers.length; layer++)
             {
-                vertexData.position(colorOffsets[layer]);
+                loopData.position(loopLayout.colors[layer]);
                 
-                BlendFile.Pointer[] colors = colorLayerData.get(layer);
-                for (int i=0; i<numVertices; i++)
+                byte[][] colors = colorLayerData.get(layer);
+                for (int i=0; i<numLoops; i++)
                 {
-                    BlendFile.Pointer color = colors[i];
-                    vertexData.putFloat((color.getField("r").asByte() & 0xFF)/255.0f);
-                    vertexData.putFloat((color.getField("g").asByte() & 0xFF)/255.0f);
-                    vertexData.putFloat((color.getField("b").asByte() & 0xFF)/255.0f);
+                    loopData.putFloat((colors[0][i] & 0xFF)/255.0f);
+                    loopData.putFloat((colors[1][i] & 0xFF)/255.0f);
+                    loopData.putFloat((colors[2][i] & 0xFF)/255.0f);
                 }
             }
             
             if (numGroups > 0)
             {
-                vertexData.position(groupIndexOffset);
-                for (int lvi=0; lvi<numVertices; lvi++)
+                loopData.position(loopLayout.groupIndex);
+                for (int lvi=0; lvi<numLoops; lvi++)
                 {
-                    int vi = mLoops[lvi].getField("v").asInt();
+                    int vi = loopVerts[lvi];
                     for (int gi=0; gi<numGroups; gi++)
-                        vertexData.putInt(groupIndices[vi][gi]);
+                        loopData.putInt(groupIndices[vi][gi]);
                 }
                 
-                vertexData.position(groupWeightOffset);
-                for (int lvi=0; lvi<numVertices; lvi++)
+                loopData.position(loopLayout.groupWeight);
+                for (int lvi=0; lvi<numLoops; lvi++)
                 {
-                    int vi = mLoops[lvi].getField("v").asInt();
+                    int vi = loopVerts[lvi];
                     for (int gi=0; gi<numGroups; gi++)
-                        vertexData.putFloat(groupWeights[vi][gi]);
+                        loopData.putFloat(groupWeights[vi][gi]);
                 }
             }
             
             if (loopMats != null)
             {
-                vertexData.position(materialOffset);
-                for (int i=0; i<numVertices; i++)
-                    vertexData.putInt(loopMats[i]);
+                loopData.position(loopLayout.material);
+                for (int i=0; i<numLoops; i++)
+                    loopData.putInt(loopMats[i]);
             }
             
-            vertexData.flip();
+            loopData.rewind();
         }
         
-        int triangleIndexInts = numTriangles*3;
-        indexData = numTriangles != 0 ? memAlloc(triangleIndexInts*4) : null;
-        if (indexData != null)
+        int[] triIndices = new int[loopTris.size()*3];
+        int ti = 0;
+        for (LoopTri loopTri : loopTris)
+        {
+            triIndices[ti++] = loopTri.va;
+            triIndices[ti++] = loopTri.vb;
+            triIndices[ti++] = loopTri.vc;
+        }
+        
+        //Tangents are generated before welding, so that loops only weld if their tangents match.
+        if (hasTangents && loopData != null) TangentGenerator.generate(loopData, numLoops,
+                loopLayout.position, loopLayout.normal, loopLayout.uvs[0], loopLayout.tangent, triIndices);
+        
+        int[] edgeIndices = uniqueEdges(loopEdges);
+        
+        acmrBefore = MeshOptimizer.acmr(triIndices, numLoops, MeshOptimizer.CACHE_SIZE);
+        
+        /**
+         * OPTIMIZE
+         */
+        
+        Layout layout = loopLayout;
+        ByteBuffer data = loopData;
+        if (model.options.optimizeMeshes && loopData != null)
         {
-            for (LoopTri loopTri : loopTris)
+            int[] weld = MeshOptimizer.weld(loopData, numLoops, loopLayout.blockOffsets, loopLayout.blockStrides);
+            int numWelded = 0;
+            for (int w : weld) numWelded = Math.max(numWelded, w + 1);
+            for (int i=0; i<triIndices.length; i++) triIndices[i] = weld[triIndices[i]];
+            
+            triIndices = MeshOptimizer.tipsify(triIndices, numWelded, MeshOptimizer.CACHE_SIZE);
+            int[] order = MeshOptimizer.fetchOrder(triIndices, numWelded);
+            for (int i=0; i<triIndices.length; i++) triIndices[i] = order[triIndices[i]];
+            
+            //Welding can merge edges, so find the unique ones again.
+            loopEdges.clear();
+            for (int i=0; i<edgeIndices.length; i+=2)
             {
-                indexData.putInt(loopTri.va);
-                indexData.putInt(loopTri.vb);
-                indexData.putInt(loopTri.vc);
+                int va = order[weld[edgeIndices[i]]], vb = order[weld[edgeIndices[i + 1]]];
+                if (va != vb) loopEdges.add(edgeKey(va, vb));
             }
-            indexData.flip();
+            edgeIndices = uniqueEdges(loopEdges);
+            
+            int[] sourceOf = new int[numWelded];
+            for (int loop=numLoops-1; loop>=0; loop--) sourceOf[order[weld[loop]]] = loop;
+            
+            layout = new Layout(numWelded, uvLayers.length, hasTangents, colorLayers.length, numGroups, hasMaterials);
+            data = NativeMemory.malloc(Category.MODEL, layout.size);
+            MeshOptimizer.gather(loopData, loopLayout.blockOffsets, data, layout.blockOffsets, layout.blockStrides, sourceOf);
+            NativeMemory.free(loopData);
         }
         
-        int edgeIndexInts = numEdges*2;
-        edgeIndexData = numEdges != 0 ? memAlloc(edgeIndexInts*4) : null;
-        if (edgeIndexData != null)
+        int clusterSize = model.options.clusterSize;
+        clusters = clusterSize > 0 && data != null ? MeshClusterizer.build(data, layout.numVertices,
+                layout.position, triIndices, clusterSize) : new MeshCluster[0];
+        
+        numVertices = layout.numVertices;
+        numTriangles = triIndices.length/3;
+        numEdges = edgeIndices.length/2;
+        vertexData = data;
+        acmrAfter = MeshOptimizer.acmr(triIndices, numVertices, MeshOptimizer.CACHE_SIZE);
+        
+        positionOffset = layout.position;
+        normalOffset = layout.normal;
+        uvOffsets = layout.uvs;
+        tangentOffset = layout.tangent;
+        colorOffsets = layout.colors;
+        groupIndexOffset = layout.groupIndex;
+        groupWeightOffset = layout.groupWeight;
+        materialOffset = layout.material;
+        
+        shortIndices = model.options.optimizeMeshes && numVertices <= 65536;
+        indexData = triIndices.length != 0 ? writeIndices(triIndices, shortIndices) : null;
+        edgeIndexData = edgeIndices.length != 0 ? writeIndices(edgeIndices, shortIndices) : null;
+        
+        /**
+         * GENERATE LEVELS OF DETAIL
+         */
+        
+        float[] lodRatios = model.options.lodRatios;
+        lods = new MeshLOD[lodRatios.length];
+        MeshSimplifier simplifier = lods.length > 0 && data != null ? new MeshSimplifier(data, numVertices,
+                layout.blockOffsets, layout.blockStrides, layout.position, triIndices) : null;
+        for (int i=0; i<lods.length; i++)
         {
-            for (LoopEdge loopEdge : loopEdges)
+            int[] lodIndices = new int[0];
+            if (simplifier != null)
             {
-                edgeIndexData.putInt(loopEdge.va);
-                edgeIndexData.putInt(loopEdge.vb);
+                simplifier.simplify(Math.round(numTriangles*lodRatios[i]));
+                lodIndices = simplifier.getIndices();
+                if (model.options.optimizeMeshes)
+                    lodIndices = MeshOptimizer.tipsify(lodIndices, numVertices, MeshOptimizer.CACHE_SIZE);
             }
-            edgeIndexData.flip();
+            
+            ByteBuffer lodData = lodIndices.length != 0 ? writeIndices(lodIndices, shortIndices) : null;
+            lods[i] = new MeshLOD(lodRatios[i], lodIndices.length/3, lodData, simplifier != null ? simplifier.getError() : 0.0f);
         }
     }
     
+    private static ByteBuffer writeIndices(int[] indices, boolean shortIndices)
+    {
+        ByteBuffer buffer = NativeMemory.malloc(Category.MODEL, indices.length*(shortIndices ? 2 : 4));
+        if (shortIndices) for (int index : indices) buffer.putShort((short)index);
+        else for (int index : indices) buffer.putInt(index);
+        buffer.flip();
+        return buffer;
+    }
+    
+    private static int getIndex(ByteBuffer buffer, boolean shortIndices)
+    {
+        return shortIndices ? Short.toUnsignedInt(buffer.getShort()) : buffer.getInt();
+    }
+    
     /**
      * Returns the first material found in this mesh, or null if this mesh has
      * no materials. This mesh may have more than one material.
@@ -553,9 +718,9 @@ public final class Mesh extends DataBlock
         indexData.rewind();
         for (int i=0; i<numTriangles; i++)
         {
-            V a = vertexFunction.apply(indexData.getInt());
-            V b = vertexFunction.apply(indexData.getInt());
-            V c = vertexFunction.apply(indexData.getInt());
+            V a = vertexFunction.apply(getIndex(indexData, shortIndices));
+            V b = vertexFunction.apply(getIndex(indexData, shortIndices));
+            V c = vertexFunction.apply(getIndex(indexData, shortIndices));
             consumer.accept(a, b, c);
         }
         indexData.rewind();
@@ -581,10 +746,10 @@ public final class Mesh extends DataBlock
         if (edgeIndexData == null) return;
         
         edgeIndexData.rewind();
-        for (int i=0; i<numTriangles; i++)
+        for (int i=0; i<numEdges; i++)
         {
-            V a = vertexFunction.apply(edgeIndexData.getInt());
-            V b = vertexFunction.apply(edgeIndexData.getInt());
+            V a = vertexFunction.apply(getIndex(edgeIndexData, shortIndices));
+            V b = vertexFunction.apply(getIndex(edgeIndexData, shortIndices));
             consumer.accept(a, b);
         }
         edgeIndexData.rewind();
@@ -599,12 +764,48 @@ public final class Mesh extends DataBlock
         forEachEdge(i -> vertices[i], consumer);
     }
     
+    /**
+     * Selects the coarsest level of detail whose error would appear no larger
+     * than the given fraction of the screen's height, for an instance of this
+     * mesh drawn at the given position and scale.
+     * 
+     * @param camera The camera the mesh will be viewed from.
+     * @param position The world position of the mesh.
+     * @param scale The greatest scale factor of the mesh's transform.
+     * @param maxError The greatest acceptable error, as a fraction of the
+     *                 screen's height.
+     * @return Zero for the full mesh, or one more than the index of the
+     *         selected level in lods.
+     */
+    public int selectLOD(Camera3D camera, Vec3 position, float scale, float maxError)
+    {
+        int level = 0;
+        for (int i=0; i<lods.length; i++)
+        {
+            if (camera.getScreenSize(position, lods[i].error*scale) > maxError) break;
+            level = i + 1;
+        }
+        return level;
+    }
+    
+    @Override
+    public long getNativeSize()
+    {
+        long size = 0L;
+        if (vertexData != null) size += vertexData.capacity();
+        if (indexData != null) size += indexData.capacity();
+        if (edgeIndexData != null) size += edgeIndexData.capacity();
+        for (MeshLOD lod : lods) if (lod.indexData != null) size += lod.indexData.capacity();
+        return size;
+    }
+    
     @Override
     void destroy()
     {
-        if (vertexData != null) memFree(vertexData);
-        if (indexData != null) memFree(indexData);
-        if (edgeIndexData != null) memFree(edgeIndexData);
+        if (vertexData != null) NativeMemory.free(vertexData);
+        if (indexData != null) NativeMemory.free(indexData);
+        if (edgeIndexData != null) NativeMemory.free(edgeIndexData);
+        for (MeshLOD lod : lods) if (lod.indexData != null) NativeMemory.free(lod.indexData);
     }
     
     public class MeshVertex
@@ -612,17 +813,17 @@ public final class Mesh extends DataBlock
         public final Vec3 position = new Vec3();
         public final Vec3 normal = new Vec3();
         public final Vec2[] uvs;
-        public final Vec3 tangent;
+        public final Vec4 tangent;
         public final Vec3[] colors;
         public int[] groupIndex;
         public float[] groupWeight;
         public int material = -1;
-
+        
         private MeshVertex()
         {
             uvs = new Vec2[uvLayers.length];
             for (int i=0; i<uvs.length; i++) uvs[i] = new Vec2();
-            tangent = hasTangents ? new Vec3() : null;
+            tangent = hasTangents ? new Vec4() : null;
             colors = new Vec3[colorLayers.length];
             for (int i=0; i<colors.length; i++) colors[i] = new Vec3();
             groupIndex = new int[numGroups];
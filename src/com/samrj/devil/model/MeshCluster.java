@@ -0,0 +1,69 @@
+package com.samrj.devil.model;
+
+import com.samrj.devil.geo3d.Box3;
+import com.samrj.devil.math.Vec3;
+import com.samrj.devil.math.Vec4;
+
+/**
+ * A spatially coherent group of a mesh's triangles, which may be culled on its
+ * own. Each cluster's triangles are contiguous in the mesh's index data.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class MeshCluster
+{
+    /**
+     * The index of this cluster's first triangle in the mesh's index data.
+     */
+    public final int firstTriangle;
+    
+    public final int numTriangles;
+    
+    /**
+     * The bounding box of this cluster's vertices, in the mesh's local space.
+     */
+    public final Box3 bounds;
+    
+    /**
+     * A bounding sphere of this cluster's vertices, in the mesh's local space.
+     * The last component is the sphere's radius.
+     */
+    public final Vec4 sphere;
+    
+    /**
+     * The average direction of this cluster's face normals.
+     */
+    public final Vec3 coneAxis;
+    
+    /**
+     * The sine of the angle between the cone axis and the furthest face
+     * normal, or 1 if this cluster's normals are too spread out to be culled.
+     */
+    public final float coneCutoff;
+    
+    MeshCluster(int firstTriangle, int numTriangles, Box3 bounds, Vec4 sphere, Vec3 coneAxis, float coneCutoff)
+    {
+        this.firstTriangle = firstTriangle;
+        this.numTriangles = numTriangles;
+        this.bounds = bounds;
+        this.sphere = sphere;
+        this.coneAxis = coneAxis;
+        this.coneCutoff = coneCutoff;
+    }
+    
+    /**
+     * Returns true if every triangle in this cluster faces away from the given
+     * position, in the mesh's local space.
+     * 
+     * @param viewPos The position the mesh is viewed from.
+     * @return Whether this cluster is entirely back-facing.
+     */
+    public boolean isBackfacing(Vec3 viewPos)
+    {
+        float dx = sphere.x - viewPos.x, dy = sphere.y - viewPos.y, dz = sphere.z - viewPos.z;
+        float dist = (float)Math.sqrt(dx*dx + dy*dy + dz*dz);
+        return dx*coneAxis.x + dy*coneAxis.y + dz*coneAxis.z >= coneCutoff*dist + sphere.w;
+    }
+}
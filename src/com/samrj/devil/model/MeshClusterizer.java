@@ -0,0 +1,241 @@
+package com.samrj.devil.model;
+
+import com.samrj.devil.geo3d.Box3;
+import com.samrj.devil.geo3d.Geo3DUtil;
+import com.samrj.devil.math.Vec3;
+import com.samrj.devil.math.Vec4;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits a mesh's triangles into spatially coherent clusters, for culling.
+ * Clusters are grown greedily across shared positions from seed triangles
+ * taken in Morton order, preferring triangles which are near the cluster's
+ * center, add few new vertices, and face the same way as the cluster.
+ * 
+ * Within each cluster, triangles keep their original relative order, so any
+ * vertex cache optimization is mostly preserved.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+final class MeshClusterizer
+{
+    /**
+     * Clusters whose normals deviate further than this from their axis can
+     * be seen from any direction, so are never back-face culled.
+     */
+    private static final float MIN_CONE_DOT = 0.1f;
+    
+    /**
+     * Reorders the given triangles into clusters of at most the given number
+     * of triangles, and returns the clusters.
+     */
+    static MeshCluster[] build(ByteBuffer data, int numVertices, int positionOffset, int[] indices, int maxTriangles)
+    {
+        int numTriangles = indices.length/3;
+        if (numTriangles == 0) return new MeshCluster[0];
+        
+        float[] pos = new float[numVertices*3];
+        for (int i=0; i<numVertices*3; i++) pos[i] = data.getFloat(positionOffset + i*4);
+        
+        //Triangles are adjacent if they share a position, even across seams.
+        int[] posID = MeshOptimizer.weld(data, numVertices, new int[] {positionOffset}, new int[] {12});
+        int numPositions = 0;
+        for (int p : posID) numPositions = Math.max(numPositions, p + 1);
+        
+        int[] adjStart = new int[numPositions + 1];
+        for (int index : indices) adjStart[posID[index] + 1]++;
+        for (int p=0; p<numPositions; p++) adjStart[p + 1] += adjStart[p];
+        int[] adjFill = Arrays.copyOf(adjStart, numPositions);
+        int[] adjacency = new int[indices.length];
+        for (int i=0; i<indices.length; i++) adjacency[adjFill[posID[indices[i]]]++] = i/3;
+        
+        float[] centroids = new float[numTriangles*3];
+        float[] normals = new float[numTriangles*3];
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        for (int t=0; t<numTriangles; t++)
+        {
+            int a = indices[t*3]*3, b = indices[t*3 + 1]*3, c = indices[t*3 + 2]*3;
+            float cx = (pos[a] + pos[b] + pos[c])/3.0f;
+            float cy = (pos[a + 1] + pos[b + 1] + pos[c + 1])/3.0f;
+            float cz = (pos[a + 2] + pos[b + 2] + pos[c + 2])/3.0f;
+            centroids[t*3] = cx; centroids[t*3 + 1] = cy; centroids[t*3 + 2] = cz;
+            minX = Math.min(minX, cx); minY = Math.min(minY, cy); minZ = Math.min(minZ, cz);
+            maxX = Math.max(maxX, cx); maxY = Math.max(maxY, cy); maxZ = Math.max(maxZ, cz);
+            
+            float e1x = pos[b] - pos[a], e1y = pos[b + 1] - pos[a + 1], e1z = pos[b + 2] - pos[a + 2];
+            float e2x = pos[c] - pos[a], e2y = pos[c + 1] - pos[a + 1], e2z = pos[c + 2] - pos[a + 2];
+            float nx = e1y*e2z - e1z*e2y, ny = e1z*e2x - e1x*e2z, nz = e1x*e2y - e1y*e2x;
+            float len = (float)Math.sqrt(nx*nx + ny*ny + nz*nz);
+            if (len > 0.0f)
+            {
+                normals[t*3] = nx/len; normals[t*3 + 1] = ny/len; normals[t*3 + 2] = nz/len;
+            }
+        }
+        
+        //Sort triangles along a Morton curve, to find spatially coherent seeds.
+        float scale = 1023.0f/Math.max(Math.max(maxX - minX, maxY - minY), Math.max(maxZ - minZ, Float.MIN_NORMAL));
+        long[] keys = new long[numTriangles];
+        for (int t=0; t<numTriangles; t++)
+        {
+            int x = (int)((centroids[t*3] - minX)*scale);
+            int y = (int)((centroids[t*3 + 1] - minY)*scale);
+            int z = (int)((centroids[t*3 + 2] - minZ)*scale);
+            keys[t] = ((long)(spread(x) | (spread(y) << 1) | (spread(z) << 2)) << 32) | t;
+        }
+        Arrays.sort(keys);
+        
+        boolean[] assigned = new boolean[numTriangles];
+        int[] frontierMark = new int[numTriangles];
+        int[] positionMark = new int[numPositions];
+        Arrays.fill(frontierMark, -1);
+        Arrays.fill(positionMark, -1);
+        int[] frontier = new int[64];
+        int[] clusterTris = new int[maxTriangles];
+        
+        int[] result = new int[indices.length];
+        List<MeshCluster> clusters = new ArrayList<>();
+        int seedCursor = 0, written = 0;
+        
+        while (written < numTriangles)
+        {
+            int cluster = clusters.size();
+            int size = 0, frontierSize = 0;
+            float sumX = 0.0f, sumY = 0.0f, sumZ = 0.0f;
+            float axisX = 0.0f, axisY = 0.0f, axisZ = 0.0f;
+            
+            while (size < maxTriangles)
+            {
+                int next = -1;
+                
+                //Pick the best triangle bordering the cluster.
+                float bestScore = Float.POSITIVE_INFINITY;
+                int bestSlot = -1;
+                float axisLen = (float)Math.sqrt(axisX*axisX + axisY*axisY + axisZ*axisZ);
+                for (int f=0; f<frontierSize; f++)
+                {
+                    int t = frontier[f];
+                    float dx = centroids[t*3] - sumX/size;
+                    float dy = centroids[t*3 + 1] - sumY/size;
+                    float dz = centroids[t*3 + 2] - sumZ/size;
+                    
+                    int newPositions = 0;
+                    for (int c=t*3; c<t*3 + 3; c++) if (positionMark[posID[indices[c]]] != cluster) newPositions++;
+                    
+                    float dot = axisLen > 0.0f ? (normals[t*3]*axisX + normals[t*3 + 1]*axisY + normals[t*3 + 2]*axisZ)/axisLen : 1.0f;
+                    float score = (dx*dx + dy*dy + dz*dz + Float.MIN_NORMAL)*(1 + newPositions)*(2.0f - dot);
+                    if (score < bestScore)
+                    {
+                        bestScore = score;
+                        bestSlot = f;
+                    }
+                }
+                
+                if (bestSlot >= 0)
+                {
+                    next = frontier[bestSlot];
+                    frontier[bestSlot] = frontier[--frontierSize];
+                }
+                else if (size == 0 || size < maxTriangles/2)
+                {
+                    //Nothing borders the cluster, so continue from the next seed.
+                    while (seedCursor < numTriangles && assigned[(int)keys[seedCursor]]) seedCursor++;
+                    if (seedCursor < numTriangles) next = (int)keys[seedCursor];
+                }
+                
+                if (next < 0) break;
+                
+                assigned[next] = true;
+                clusterTris[size++] = next;
+                sumX += centroids[next*3]; sumY += centroids[next*3 + 1]; sumZ += centroids[next*3 + 2];
+                axisX += normals[next*3]; axisY += normals[next*3 + 1]; axisZ += normals[next*3 + 2];
+                
+                for (int c=next*3; c<next*3 + 3; c++)
+                {
+                    int p = posID[indices[c]];
+                    if (positionMark[p] == cluster) continue;
+                    positionMark[p] = cluster;
+                    
+                    for (int i=adjStart[p]; i<adjStart[p + 1]; i++)
+                    {
+                        int t = adjacency[i];
+                        if (assigned[t] || frontierMark[t] == cluster) continue;
+                        frontierMark[t] = cluster;
+                        if (frontierSize == frontier.length) frontier = Arrays.copyOf(frontier, frontierSize*2);
+                        frontier[frontierSize++] = t;
+                    }
+                }
+            }
+            
+            Arrays.sort(clusterTris, 0, size);
+            for (int i=0; i<size; i++)
+                System.arraycopy(indices, clusterTris[i]*3, result, (written + i)*3, 3);
+            
+            clusters.add(cluster(written, size, result, pos, normals, clusterTris));
+            written += size;
+        }
+        
+        System.arraycopy(result, 0, indices, 0, indices.length);
+        return clusters.toArray(new MeshCluster[clusters.size()]);
+    }
+    
+    /**
+     * Spreads the lowest ten bits of the given int out to every third bit.
+     */
+    private static int spread(int x)
+    {
+        x &= 0x3FF;
+        x = (x | (x << 16)) & 0x030000FF;
+        x = (x | (x << 8)) & 0x0300F00F;
+        x = (x | (x << 4)) & 0x030C30C3;
+        x = (x | (x << 2)) & 0x09249249;
+        return x;
+    }
+    
+    private static MeshCluster cluster(int first, int size, int[] indices, float[] pos, float[] normals, int[] triangles)
+    {
+        Box3 bounds = Box3.empty();
+        List<Vec3> vertices = new ArrayList<>(size*3);
+        for (int i=first*3; i<(first + size)*3; i++)
+        {
+            int v = indices[i]*3;
+            Vec3 vertex = new Vec3(pos[v], pos[v + 1], pos[v + 2]);
+            Box3.expand(bounds, vertex, bounds);
+            vertices.add(vertex);
+        }
+        Vec4 sphere = Geo3DUtil.boundingSphere(vertices);
+        
+        Vec3 axis = new Vec3();
+        for (int i=0; i<size; i++)
+        {
+            int t = triangles[i]*3;
+            axis.x += normals[t]; axis.y += normals[t + 1]; axis.z += normals[t + 2];
+        }
+        
+        float cutoff = 1.0f;
+        if (axis.squareLength() > 0.0f)
+        {
+            axis.normalize();
+            float minDot = 1.0f;
+            for (int i=0; i<size; i++)
+            {
+                int t = triangles[i]*3;
+                float nx = normals[t], ny = normals[t + 1], nz = normals[t + 2];
+                if (nx == 0.0f && ny == 0.0f && nz == 0.0f) continue;
+                minDot = Math.min(minDot, nx*axis.x + ny*axis.y + nz*axis.z);
+            }
+            if (minDot > MIN_CONE_DOT) cutoff = (float)Math.sqrt(1.0f - minDot*minDot);
+        }
+        
+        return new MeshCluster(first, size, bounds, sphere, axis, cutoff);
+    }
+    
+    private MeshClusterizer()
+    {
+    }
+}
@@ -0,0 +1,40 @@
+package com.samrj.devil.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A simplified level of detail for a mesh. Its triangles index the same vertex
+ * data as the full mesh, using the same index type.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class MeshLOD
+{
+    /**
+     * The fraction of the full mesh's triangles this level was generated for.
+     */
+    public final float ratio;
+    
+    public final int numTriangles;
+    
+    /**
+     * The triangle indices of this level, or null if it has no triangles.
+     */
+    public final ByteBuffer indexData;
+    
+    /**
+     * The approximate greatest distance between this level's surface and the
+     * full mesh's surface, in the mesh's local space.
+     */
+    public final float error;
+    
+    MeshLOD(float ratio, int numTriangles, ByteBuffer indexData, float error)
+    {
+        this.ratio = ratio;
+        this.numTriangles = numTriangles;
+        this.indexData = indexData;
+        this.error = error;
+    }
+}
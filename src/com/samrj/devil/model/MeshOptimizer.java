@@ -0,0 +1,231 @@
+package com.samrj.devil.model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Vertex welding and cache optimization routines used while loading meshes.
+ * Triangles are reordered using Tipsify (Sander, Nehab and Barczak, 2007),
+ * which runs in linear time.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+final class MeshOptimizer
+{
+    /**
+     * The post-transform cache size to optimize for, and to measure ACMR with.
+     */
+    static final int CACHE_SIZE = 16;
+    
+    /**
+     * Finds vertices with identical bytes in every attribute block of the given
+     * planar vertex data. Returns an array mapping each vertex to a unique
+     * vertex index, numbered in order of first appearance.
+     */
+    static int[] weld(ByteBuffer data, int numVertices, int[] blockOffsets, int[] blockStrides)
+    {
+        int vertexSize = 0;
+        for (int stride : blockStrides) vertexSize += stride;
+        
+        //Interleave the vertices, so each one can be hashed and compared at once.
+        byte[] keys = new byte[numVertices*vertexSize];
+        for (int v=0; v<numVertices; v++)
+        {
+            int k = v*vertexSize;
+            for (int b=0; b<blockOffsets.length; b++)
+            {
+                int stride = blockStrides[b];
+                int src = blockOffsets[b] + v*stride;
+                for (int j=0; j<stride; j++) keys[k++] = data.get(src + j);
+            }
+        }
+        
+        int capacity = Integer.highestOneBit(Math.max(numVertices, 1)*2 - 1) << 1;
+        int[] table = new int[capacity];
+        Arrays.fill(table, -1);
+        int[] remap = new int[numVertices];
+        int unique = 0;
+        
+        for (int v=0; v<numVertices; v++)
+        {
+            int start = v*vertexSize;
+            int hash = 0x811C9DC5;
+            for (int j=0; j<vertexSize; j++) hash = (hash ^ keys[start + j])*0x01000193;
+            
+            int slot = hash & (capacity - 1);
+            while (true)
+            {
+                int other = table[slot];
+                if (other == -1)
+                {
+                    table[slot] = v;
+                    remap[v] = unique++;
+                    break;
+                }
+                
+                if (equal(keys, start, other*vertexSize, vertexSize))
+                {
+                    remap[v] = remap[other];
+                    break;
+                }
+                
+                slot = (slot + 1) & (capacity - 1);
+            }
+        }
+        
+        return remap;
+    }
+    
+    private static boolean equal(byte[] keys, int a, int b, int length)
+    {
+        for (int i=0; i<length; i++) if (keys[a + i] != keys[b + i]) return false;
+        return true;
+    }
+    
+    /**
+     * Reorders the given triangle indices for the post-transform vertex cache,
+     * preserving winding order. Returns a new array.
+     */
+    static int[] tipsify(int[] indices, int numVertices, int cacheSize)
+    {
+        int numTriangles = indices.length/3;
+        
+        //Triangle adjacency per vertex, stored in compressed rows.
+        int[] live = new int[numVertices];
+        for (int index : indices) live[index]++;
+        int[] adjStart = new int[numVertices + 1];
+        for (int v=0; v<numVertices; v++) adjStart[v + 1] = adjStart[v] + live[v];
+        int[] adjacency = new int[indices.length];
+        int[] fill = Arrays.copyOf(adjStart, numVertices);
+        for (int i=0; i<indices.length; i++) adjacency[fill[indices[i]]++] = i/3;
+        
+        int[] cacheTime = new int[numVertices];
+        boolean[] emitted = new boolean[numTriangles];
+        int[] deadEnd = new int[indices.length];
+        int deadEndSize = 0;
+        int[] candidates = new int[indices.length];
+        int[] out = new int[indices.length];
+        int outSize = 0;
+        
+        int time = cacheSize + 1;
+        int cursor = 0;
+        int fan = 0;
+        while (fan < numVertices && live[fan] == 0) fan++;
+        if (fan == numVertices) return out;
+        
+        while (fan >= 0)
+        {
+            int numCandidates = 0;
+            for (int a=adjStart[fan]; a<adjStart[fan + 1]; a++)
+            {
+                int t = adjacency[a];
+                if (emitted[t]) continue;
+                
+                for (int c=0; c<3; c++)
+                {
+                    int v = indices[t*3 + c];
+                    out[outSize++] = v;
+                    deadEnd[deadEndSize++] = v;
+                    candidates[numCandidates++] = v;
+                    live[v]--;
+                    if (time - cacheTime[v] > cacheSize) cacheTime[v] = time++;
+                }
+                emitted[t] = true;
+            }
+            
+            //Prefer the candidate which will stay in the cache the longest.
+            int next = -1, best = -1;
+            for (int i=0; i<numCandidates; i++)
+            {
+                int v = candidates[i];
+                if (live[v] <= 0) continue;
+                
+                int priority = 0;
+                if (time - cacheTime[v] + 2*live[v] <= cacheSize) priority = time - cacheTime[v];
+                if (priority > best)
+                {
+                    best = priority;
+                    next = v;
+                }
+            }
+            
+            if (next == -1)
+            {
+                while (deadEndSize > 0)
+                {
+                    int v = deadEnd[--deadEndSize];
+                    if (live[v] > 0)
+                    {
+                        next = v;
+                        break;
+                    }
+                }
+            }
+            
+            if (next == -1)
+            {
+                while (cursor < numVertices && live[cursor] <= 0) cursor++;
+                if (cursor < numVertices) next = cursor;
+            }
+            
+            fan = next;
+        }
+        
+        return out;
+    }
+    
+    /**
+     * Returns an array mapping each vertex to its new index, in order of first
+     * use by the given indices. Unused vertices are placed at the end.
+     */
+    static int[] fetchOrder(int[] indices, int numVertices)
+    {
+        int[] order = new int[numVertices];
+        Arrays.fill(order, -1);
+        int next = 0;
+        for (int index : indices) if (order[index] == -1) order[index] = next++;
+        for (int v=0; v<numVertices; v++) if (order[v] == -1) order[v] = next++;
+        return order;
+    }
+    
+    /**
+     * Returns the average cache miss ratio of the given triangle indices: the
+     * number of vertices transformed per triangle, using a FIFO cache of the
+     * given size. Lower is better, with a minimum of about 0.5.
+     */
+    static float acmr(int[] indices, int numVertices, int cacheSize)
+    {
+        if (indices.length == 0) return 0.0f;
+        
+        //A vertex stays in a FIFO cache until cacheSize more misses have occurred.
+        int[] missTime = new int[numVertices];
+        Arrays.fill(missTime, Integer.MIN_VALUE/2);
+        int misses = 0;
+        for (int index : indices) if (misses - missTime[index] >= cacheSize) missTime[index] = misses++;
+        return misses/(indices.length/3.0f);
+    }
+    
+    /**
+     * Copies each attribute block of the source vertices into the destination,
+     * such that destination vertex i is a copy of source vertex sourceOf[i].
+     */
+    static void gather(ByteBuffer src, int[] srcOffsets, ByteBuffer dst, int[] dstOffsets, int[] blockStrides, int[] sourceOf)
+    {
+        long srcAddress = memAddress0(src), dstAddress = memAddress0(dst);
+        for (int b=0; b<blockStrides.length; b++)
+        {
+            int stride = blockStrides[b];
+            for (int v=0; v<sourceOf.length; v++)
+                memCopy(srcAddress + srcOffsets[b] + (long)sourceOf[v]*stride,
+                        dstAddress + dstOffsets[b] + (long)v*stride, stride);
+        }
+    }
+    
+    private MeshOptimizer()
+    {
+    }
+}
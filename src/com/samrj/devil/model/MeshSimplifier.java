@@ -0,0 +1,377 @@
+package com.samrj.devil.model;
+
+import com.samrj.devil.util.LongHashSet;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Quadric error mesh simplifier (Garland and Heckbert, 1997). Collapses edges
+ * onto one of their existing vertices, so simplified triangles can index the
+ * original vertex data.
+ * 
+ * Vertices which share a position but differ in any other attribute lie on a
+ * seam, such as a UV, material or hard normal boundary, and are never moved.
+ * Vertices on open borders may only slide along the border. Simplification may
+ * be continued to produce successively coarser levels of detail.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+final class MeshSimplifier
+{
+    private static final byte MANIFOLD = 0, BORDER = 1, LOCKED = 2;
+    
+    /**
+     * How strongly to penalize moving border vertices away from the border.
+     */
+    private static final double BORDER_WEIGHT = 10.0;
+    
+    private static long edgeKey(int a, int b)
+    {
+        return a < b ? ((long)a << 32) | b : ((long)b << 32) | a;
+    }
+    
+    //Returns how many times the given key occurs in the given sorted array.
+    private static int count(long[] sorted, long key)
+    {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        int end = lo;
+        while (end < sorted.length && sorted[end] == key) end++;
+        return end - lo;
+    }
+    
+    private final int numVertices;
+    private final int[] original;
+    private final float[] positions;
+    private final byte[] kind;
+    private final double[] quadrics;
+    private final double[] weights;
+    private final LongHashSet borderEdges = new LongHashSet();
+    
+    private int[] indices;
+    private int numTriangles;
+    private float error;
+    
+    /**
+     * Prepares to simplify the given triangles, which index the given planar
+     * vertex data. Positions must be stored as three floats per vertex.
+     */
+    MeshSimplifier(ByteBuffer data, int meshVertices, int[] blockOffsets, int[] blockStrides, int positionOffset, int[] triangles)
+    {
+        //Vertices with identical attributes must move together.
+        int[] weld = MeshOptimizer.weld(data, meshVertices, blockOffsets, blockStrides);
+        int count = 0;
+        for (int w : weld) count = Math.max(count, w + 1);
+        numVertices = count;
+        
+        original = new int[numVertices];
+        for (int v=meshVertices-1; v>=0; v--) original[weld[v]] = v;
+        
+        positions = new float[numVertices*3];
+        for (int w=0; w<numVertices; w++)
+        {
+            int p = positionOffset + original[w]*12;
+            positions[w*3] = data.getFloat(p);
+            positions[w*3 + 1] = data.getFloat(p + 4);
+            positions[w*3 + 2] = data.getFloat(p + 8);
+        }
+        
+        indices = new int[triangles.length];
+        for (int i=0; i<triangles.length; i+=3)
+        {
+            int a = weld[triangles[i]], b = weld[triangles[i + 1]], c = weld[triangles[i + 2]];
+            if (a == b || b == c || c == a) continue;
+            indices[numTriangles*3] = a;
+            indices[numTriangles*3 + 1] = b;
+            indices[numTriangles*3 + 2] = c;
+            numTriangles++;
+        }
+        
+        //Vertices sharing a position with another vertex lie on a seam.
+        int[] positionWeld = MeshOptimizer.weld(data, meshVertices, new int[] {positionOffset}, new int[] {12});
+        int[] positionOf = new int[numVertices];
+        int[] positionCount = new int[meshVertices];
+        for (int w=0; w<numVertices; w++)
+        {
+            positionOf[w] = positionWeld[original[w]];
+            positionCount[positionOf[w]]++;
+        }
+        
+        kind = new byte[numVertices];
+        for (int w=0; w<numVertices; w++) if (positionCount[positionOf[w]] > 1) kind[w] = LOCKED;
+        
+        //Count how many triangles share each edge, ignoring seams, by sorting
+        //every edge so that shared edges form runs.
+        long[] edges = new long[numTriangles*3];
+        for (int t=0; t<numTriangles; t++) for (int c=0; c<3; c++)
+        {
+            int a = positionOf[indices[t*3 + c]], b = positionOf[indices[t*3 + (c + 1)%3]];
+            edges[t*3 + c] = edgeKey(a, b);
+        }
+        Arrays.sort(edges);
+        
+        quadrics = new double[numVertices*10];
+        weights = new double[numVertices];
+        for (int t=0; t<numTriangles; t++)
+        {
+            int i0 = indices[t*3], i1 = indices[t*3 + 1], i2 = indices[t*3 + 2];
+            double[] n = normal(i0, i1, i2);
+            double area = Math.sqrt(n[0]*n[0] + n[1]*n[1] + n[2]*n[2]);
+            if (area == 0.0) continue;
+            for (int j=0; j<3; j++) n[j] /= area;
+            area *= 0.5;
+            
+            double d = -(n[0]*positions[i0*3] + n[1]*positions[i0*3 + 1] + n[2]*positions[i0*3 + 2]);
+            for (int c=0; c<3; c++)
+            {
+                int v = indices[t*3 + c];
+                addPlane(v, n[0], n[1], n[2], d, area);
+                weights[v] += area;
+            }
+            
+            for (int c=0; c<3; c++)
+            {
+                int a = indices[t*3 + c], b = indices[t*3 + (c + 1)%3];
+                int shared = count(edges, edgeKey(positionOf[a], positionOf[b]));
+                if (shared > 2)
+                {
+                    kind[a] = LOCKED;
+                    kind[b] = LOCKED;
+                }
+                else if (shared == 1)
+                {
+                    borderEdges.add(edgeKey(a, b));
+                    if (kind[a] == MANIFOLD) kind[a] = BORDER;
+                    if (kind[b] == MANIFOLD) kind[b] = BORDER;
+                    
+                    //Constrain border vertices with a plane perpendicular to the triangle.
+                    double ex = positions[b*3] - positions[a*3];
+                    double ey = positions[b*3 + 1] - positions[a*3 + 1];
+                    double ez = positions[b*3 + 2] - positions[a*3 + 2];
+                    double px = ey*n[2] - ez*n[1], py = ez*n[0] - ex*n[2], pz = ex*n[1] - ey*n[0];
+                    double length = Math.sqrt(px*px + py*py + pz*pz);
+                    if (length == 0.0) continue;
+                    px /= length;
+                    py /= length;
+                    pz /= length;
+                    double pd = -(px*positions[a*3] + py*positions[a*3 + 1] + pz*positions[a*3 + 2]);
+                    double weight = (ex*ex + ey*ey + ez*ez)*BORDER_WEIGHT;
+                    addPlane(a, px, py, pz, pd, weight);
+                    addPlane(b, px, py, pz, pd, weight);
+                }
+            }
+        }
+    }
+    
+    private double[] normal(int i0, int i1, int i2)
+    {
+        double ax = positions[i1*3] - positions[i0*3];
+        double ay = positions[i1*3 + 1] - positions[i0*3 + 1];
+        double az = positions[i1*3 + 2] - positions[i0*3 + 2];
+        double bx = positions[i2*3] - positions[i0*3];
+        double by = positions[i2*3 + 1] - positions[i0*3 + 1];
+        double bz = positions[i2*3 + 2] - positions[i0*3 + 2];
+        return new double[] {ay*bz - az*by, az*bx - ax*bz, ax*by - ay*bx};
+    }
+    
+    private void addPlane(int v, double a, double b, double c, double d, double weight)
+    {
+        int q = v*10;
+        quadrics[q] += a*a*weight;
+        quadrics[q + 1] += a*b*weight;
+        quadrics[q + 2] += a*c*weight;
+        quadrics[q + 3] += a*d*weight;
+        quadrics[q + 4] += b*b*weight;
+        quadrics[q + 5] += b*c*weight;
+        quadrics[q + 6] += b*d*weight;
+        quadrics[q + 7] += c*c*weight;
+        quadrics[q + 8] += c*d*weight;
+        quadrics[q + 9] += d*d*weight;
+    }
+    
+    private double evaluate(int v, double x, double y, double z)
+    {
+        int q = v*10;
+        return quadrics[q]*x*x + 2.0*quadrics[q + 1]*x*y + 2.0*quadrics[q + 2]*x*z + 2.0*quadrics[q + 3]*x
+             + quadrics[q + 4]*y*y + 2.0*quadrics[q + 5]*y*z + 2.0*quadrics[q + 6]*y
+             + quadrics[q + 7]*z*z + 2.0*quadrics[q + 8]*z + quadrics[q + 9];
+    }
+    
+    /**
+     * Returns the mean squared distance from the given vertices' planes to the
+     * position of vertex b.
+     */
+    private double collapseCost(int a, int b)
+    {
+        double x = positions[b*3], y = positions[b*3 + 1], z = positions[b*3 + 2];
+        double sum = evaluate(a, x, y, z) + evaluate(b, x, y, z);
+        double weight = weights[a] + weights[b];
+        return Math.max(sum, 0.0)/(weight > 0.0 ? weight : 1.0);
+    }
+    
+    private boolean canCollapse(int a, int b)
+    {
+        switch (kind[a])
+        {
+            case MANIFOLD: return true;
+            case BORDER: return borderEdges.contains(edgeKey(a, b));
+            default: return false;
+        }
+    }
+    
+    /**
+     * Returns whether moving vertex a onto vertex b would flip any of the
+     * triangles around a which will remain afterwards.
+     */
+    private boolean flips(int a, int b, int[] adjStart, int[] adjacency, int[] collapse)
+    {
+        for (int i=adjStart[a]; i<adjStart[a + 1]; i++)
+        {
+            int t = adjacency[i];
+            int i0 = collapse[indices[t*3]], i1 = collapse[indices[t*3 + 1]], i2 = collapse[indices[t*3 + 2]];
+            if (i0 == b || i1 == b || i2 == b) continue;
+            if (i0 == i1 || i1 == i2 || i2 == i0) continue;
+            
+            double[] before = normal(i0, i1, i2);
+            double[] after = normal(i0 == a ? b : i0, i1 == a ? b : i1, i2 == a ? b : i2);
+            if (before[0]*after[0] + before[1]*after[1] + before[2]*after[2] <= 0.0) return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Collapses edges until at most the given number of triangles remain, or
+     * until no more edges may be collapsed.
+     */
+    void simplify(int targetTriangles)
+    {
+        boolean relaxed = false;
+        while (numTriangles > targetTriangles)
+        {
+            //Triangle adjacency per vertex, stored in compressed rows.
+            int[] adjStart = new int[numVertices + 1];
+            for (int i=0; i<numTriangles*3; i++) adjStart[indices[i] + 1]++;
+            for (int v=0; v<numVertices; v++) adjStart[v + 1] += adjStart[v];
+            int[] adjacency = new int[numTriangles*3];
+            int[] fill = Arrays.copyOf(adjStart, numVertices);
+            for (int i=0; i<numTriangles*3; i++) adjacency[fill[indices[i]]++] = i/3;
+            
+            //Find the cheapest collapse for each vertex.
+            int[] target = new int[numVertices];
+            double[] cost = new double[numVertices];
+            Arrays.fill(target, -1);
+            for (int t=0; t<numTriangles; t++) for (int c=0; c<3; c++)
+            {
+                int a = indices[t*3 + c];
+                for (int o=1; o<3; o++)
+                {
+                    int b = indices[t*3 + (c + o)%3];
+                    if (!canCollapse(a, b)) continue;
+                    double abCost = collapseCost(a, b);
+                    if (target[a] == -1 || abCost < cost[a])
+                    {
+                        target[a] = b;
+                        cost[a] = abCost;
+                    }
+                }
+            }
+            
+            //Costs are non-negative, so their bits sort in the same order.
+            int numCandidates = 0;
+            long[] candidates = new long[numVertices];
+            for (int v=0; v<numVertices; v++) if (target[v] != -1)
+                candidates[numCandidates++] = ((long)Float.floatToIntBits((float)cost[v]) << 32) | v;
+            Arrays.sort(candidates, 0, numCandidates);
+            if (numCandidates == 0) break;
+            
+            //Collapses made this pass lock their neighbors, so don't let expensive collapses make up the difference.
+            int goal = relaxed ? numCandidates - 1 : Math.min((numTriangles - targetTriangles)/2, numCandidates - 1);
+            long limit = candidates[goal] >>> 32;
+            
+            int[] collapse = new int[numVertices];
+            for (int v=0; v<numVertices; v++) collapse[v] = v;
+            boolean[] locked = new boolean[numVertices];
+            int remaining = numTriangles, collapses = 0;
+            
+            for (int i=0; i<numCandidates && remaining > targetTriangles; i++)
+            {
+                if ((candidates[i] >>> 32) > limit) break;
+                int a = (int)candidates[i], b = target[a];
+                if (locked[a] || locked[b]) continue;
+                if (flips(a, b, adjStart, adjacency, collapse)) continue;
+                
+                for (int j=adjStart[a]; j<adjStart[a + 1]; j++)
+                {
+                    int t = adjacency[j];
+                    int i0 = collapse[indices[t*3]], i1 = collapse[indices[t*3 + 1]], i2 = collapse[indices[t*3 + 2]];
+                    if (i0 == i1 || i1 == i2 || i2 == i0) continue;
+                    if (i0 == b || i1 == b || i2 == b) remaining--;
+                    
+                    //Borders of a are now borders of b.
+                    for (int c=0; c<3; c++)
+                    {
+                        int other = collapse[indices[t*3 + c]];
+                        if (other == a || other == b) continue;
+                        if (borderEdges.remove(edgeKey(a, other))) borderEdges.add(edgeKey(b, other));
+                    }
+                }
+                borderEdges.remove(edgeKey(a, b));
+                
+                collapse[a] = b;
+                locked[a] = true;
+                locked[b] = true;
+                for (int q=0; q<10; q++) quadrics[b*10 + q] += quadrics[a*10 + q];
+                weights[b] += weights[a];
+                error = Math.max(error, (float)Math.sqrt(cost[a]));
+                collapses++;
+            }
+            
+            if (collapses == 0)
+            {
+                //Every cheap collapse would flip a triangle. Try the rest before giving up.
+                if (relaxed) break;
+                relaxed = true;
+                continue;
+            }
+            relaxed = false;
+            
+            int newTriangles = 0;
+            for (int t=0; t<numTriangles; t++)
+            {
+                int i0 = collapse[indices[t*3]], i1 = collapse[indices[t*3 + 1]], i2 = collapse[indices[t*3 + 2]];
+                if (i0 == i1 || i1 == i2 || i2 == i0) continue;
+                indices[newTriangles*3] = i0;
+                indices[newTriangles*3 + 1] = i1;
+                indices[newTriangles*3 + 2] = i2;
+                newTriangles++;
+            }
+            numTriangles = newTriangles;
+        }
+    }
+    
+    /**
+     * Returns the current triangles, indexing the original vertex data.
+     */
+    int[] getIndices()
+    {
+        int[] out = new int[numTriangles*3];
+        for (int i=0; i<out.length; i++) out[i] = original[indices[i]];
+        return out;
+    }
+    
+    /**
+     * Returns the greatest approximate distance by which any collapse so far
+     * has moved the surface.
+     */
+    float getError()
+    {
+        return error;
+    }
+}
@@ -3,9 +3,13 @@ package com.samrj.devil.model;
 import com.samrj.devil.model.DataBlock.Type;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.EnumMap;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 /**
  * Loads and parses Blender .blend files.
@@ -19,6 +23,7 @@ public final class Model
     private final EnumMap<DataBlock.Type, ArrayMap<?>> arraymaps = new EnumMap<>(DataBlock.Type.class);
     
     public final Path path;
+    public final ModelOptions options;
     
     public final ArrayMap<Library> libraries;
     public final ArrayMap<Action> actions;
@@ -31,91 +36,208 @@ public final class Model
     public final ArrayMap<Scene> scenes;
     public final ArrayMap<Texture> textures;
     
+    /**
+     * Incremented whenever blocks are added to or removed from this model, so
+     * data pointers know to find their block again.
+     */
+    int revision;
+    
+    /**
+     * Called with each lazy block just after it is built, while holding this
+     * model's lock. ModelCache uses this to find blocks built as dependencies.
+     */
+    volatile BiConsumer<Type, DataBlock> buildListener;
+    
+    private BlendFile blend;
     private boolean destroyed;
     
     public Model(String path) throws IOException
+    {
+        this(path, new ModelOptions());
+    }
+    
+    /**
+     * Loads the .blend file at the given path, using the given options. The
+     * options are copied, and so may be reused.
+     * 
+     * @param path The path of the file to load.
+     * @param options The options to load with.
+     * @throws IOException If an io exception occurs.
+     */
+    public Model(String path, ModelOptions options) throws IOException
     {
         this.path = Paths.get(path);
+        this.options = new ModelOptions(options);
+        
+        float prevRatio = 1.0f;
+        for (float ratio : this.options.lodRatios)
+        {
+            if (!(ratio > 0.0f && ratio < prevRatio))
+                throw new IllegalArgumentException("LOD ratios must be decreasing, between zero and one.");
+            prevRatio = ratio;
+        }
         
         try
         {
-            BlendFile blend = new BlendFile(new File(path));
-            
-            libraries = new ArrayMap<>();
-            for (BlendFile.Pointer bLib : blend.getLibrary("Library"))
-                libraries.put(new Library(this, bLib));
-            arraymaps.put(Type.LIBRARY, libraries);
-            
-            actions = new ArrayMap<>();
-           for (BlendFile.Pointer bAction : blend.getLibrary("bAction"))
-                actions.put(new Action(this, bAction));
-            arraymaps.put(Type.ACTION, actions);
+            blend = new BlendFile(new File(path));
             
-            armatures = new ArrayMap<>();
-            for (BlendFile.Pointer bArm : blend.getLibrary("bArmature"))
-                armatures.put(new Armature(this, bArm));
-            arraymaps.put(Type.ARMATURE, armatures);
+            libraries = load(Type.LIBRARY);
+            actions = load(Type.ACTION);
+            armatures = load(Type.ARMATURE);
+            curves = load(Type.CURVE);
+            lamps = load(Type.LAMP);
+            materials = load(Type.MATERIAL);
+            meshes = load(Type.MESH);
+            objects = load(Type.OBJECT);
+            scenes = load(Type.SCENE);
+            textures = load(Type.TEXTURE);
             
-            curves = new ArrayMap<>();
-            for (BlendFile.Pointer bCurve : blend.getLibrary("Curve"))
-                curves.put(new Curve(this, bCurve));
-            arraymaps.put(Type.CURVE, curves);
-            
-            lamps = new ArrayMap<>();
-            for (BlendFile.Pointer bLamp : blend.getLibrary("Lamp"))
-                lamps.put(new Lamp(this, bLamp));
-            arraymaps.put(Type.LAMP, lamps);
-            
-            materials = new ArrayMap<>();
-            int i = 0;
-            for (BlendFile.Pointer bMat : blend.getLibrary("Material"))
-                materials.put(new Material(this, i++, bMat));
-            arraymaps.put(Type.MATERIAL, materials);
-            
-            meshes = new ArrayMap<>();
-            for (BlendFile.Pointer bMesh : blend.getLibrary("Mesh"))
-                meshes.put(new Mesh(this, bMesh));
-            arraymaps.put(Type.MESH, meshes);
-            
-            objects = new ArrayMap<>();
-            for (BlendFile.Pointer bObject : blend.getLibrary("Object"))
-                objects.put(new ModelObject(this, bObject));
-            arraymaps.put(Type.OBJECT, objects);
-            
-            scenes = new ArrayMap<>();
-            for (BlendFile.Pointer bScene : blend.getLibrary("Scene"))
-                scenes.put(new Scene(this, bScene));
-            arraymaps.put(Type.SCENE, scenes);
-            
-            textures = new ArrayMap<>();
-            for (BlendFile.Pointer bTex : blend.getLibrary("Tex"))
-                textures.put(new Texture(this, bTex));
-            arraymaps.put(Type.TEXTURE, textures);
-            
-            blend.destroy();
+            if (!this.options.lazy)
+            {
+                blend.destroy();
+                blend = null;
+            }
         }
         catch (IOException e)
         {
+            if (blend != null) blend.destroy();
             throw new IOException("in " + path, e);
         }
         catch (RuntimeException e)
         {
+            if (blend != null) blend.destroy();
             throw new RuntimeException("in " + path, e);
         }
     }
     
+    private <T extends DataBlock> ArrayMap<T> load(Type type) throws IOException
+    {
+        ArrayMap<T> map = new ArrayMap<>(this);
+        List<BlendFile.Pointer> library = blend.getLibrary(getLibraryName(type));
+        for (int i=0; i<library.size(); i++)
+        {
+            BlendFile.Pointer pointer = library.get(i);
+            if (options.lazy) map.put(DataBlock.getName(pointer), builder(type, i, pointer));
+            else map.put(build(type, i, pointer));
+        }
+        arraymaps.put(type, map);
+        return map;
+    }
+    
+    /**
+     * Returns the name of the library struct which stores the given type of
+     * data block.
+     */
+    static String getLibraryName(Type type)
+    {
+        switch (type)
+        {
+            case LIBRARY: return "Library";
+            case ACTION: return "bAction";
+            case ARMATURE: return "bArmature";
+            case CURVE: return "Curve";
+            case LAMP: return "Lamp";
+            case MATERIAL: return "Material";
+            case MESH: return "Mesh";
+            case OBJECT: return "Object";
+            case SCENE: return "Scene";
+            case TEXTURE: return "Tex";
+            default: throw new IllegalArgumentException();
+        }
+    }
+    
+    /**
+     * Builds a data block of the given type for this model, from the given
+     * library struct. The index is the struct's position in its library. The
+     * caller must expect the class of block which the given type builds.
+     */
+    @SuppressWarnings("unchecked") //Each type always builds the same class of block.
+    <T extends DataBlock> T build(Type type, int index, BlendFile.Pointer pointer) throws IOException
+    {
+        DataBlock block;
+        switch (type)
+        {
+            case LIBRARY: block = new Library(this, pointer); break;
+            case ACTION: block = new Action(this, pointer); break;
+            case ARMATURE: block = new Armature(this, pointer); break;
+            case CURVE: block = new Curve(this, pointer); break;
+            case LAMP: block = new Lamp(this, pointer); break;
+            case MATERIAL: block = new Material(this, index, pointer); break;
+            case MESH: block = new Mesh(this, pointer); break;
+            case OBJECT: block = new ModelObject<>(this, pointer); break;
+            case SCENE: block = new Scene(this, pointer); break;
+            case TEXTURE: block = new Texture(this, pointer); break;
+            default: throw new IllegalArgumentException();
+        }
+        return (T)block;
+    }
+    
+    /**
+     * Returns a builder for a lazy data block, which wraps any exceptions.
+     */
+    <T extends DataBlock> Supplier<T> builder(Type type, int index, BlendFile.Pointer pointer)
+    {
+        return () ->
+        {
+            try
+            {
+                T block = build(type, index, pointer);
+                BiConsumer<Type, DataBlock> listener = buildListener;
+                if (listener != null) listener.accept(type, block);
+                return block;
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException("in " + path, e);
+            }
+            catch (RuntimeException e)
+            {
+                throw new RuntimeException("in " + path, e);
+            }
+        };
+    }
+    
+    /**
+     * Replaces the .blend file held by this lazy model, returning the old one.
+     */
+    BlendFile setBlendFile(BlendFile blend)
+    {
+        BlendFile old = this.blend;
+        this.blend = blend;
+        return old;
+    }
+    
+    boolean isDestroyed()
+    {
+        return destroyed;
+    }
+    
     public <T extends DataBlock> ArrayMap<T> get(DataBlock.Type dataType)
     {
         return (ArrayMap<T>)arraymaps.get(dataType);
     }
     
     /**
-     * Releases any system resources (native memory) associated with this model.
+     * Returns the total native memory held by this model in bytes, including
+     * every loaded block, and the .blend file of a lazy model.
+     */
+    public long getNativeSize()
+    {
+        long size = blend != null ? blend.getSize() : 0L;
+        for (ArrayMap<?> map : arraymaps.values()) size += map.getNativeSize();
+        return size;
+    }
+    
+    /**
+     * Releases any system resources (native memory) associated with this model,
+     * including every loaded block, and the .blend file of a lazy model.
      */
     public void destroy()
     {
         if (destroyed) throw new IllegalStateException("Already destroyed.");
         arraymaps.forEach((t, m) -> m.destroy());
+        if (blend != null) blend.destroy();
+        blend = null;
         destroyed = true;
     }
 }
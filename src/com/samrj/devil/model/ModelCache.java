@@ -0,0 +1,392 @@
+package com.samrj.devil.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Shares models and their data blocks between users, so that a .blend file
+ * referenced by many others is only loaded once. Models are identified by
+ * their canonical path, and blocks by their type and name.
+ * 
+ * Blocks are reference counted. Once the native memory held by built blocks
+ * exceeds the cache's cap, blocks which are no longer referenced are freed in
+ * least recently used order. A model, along with its .blend file, is destroyed
+ * once none of its blocks remain in the cache. The .blend files themselves do
+ * not count against the cap.
+ * 
+ * Models are always loaded lazily, so only acquired blocks, and the blocks
+ * they depend on, are ever built. Blocks built as dependencies, such as the
+ * mesh of an object, are cached as unused blocks, and may be evicted and built
+ * again later. Acquire them to keep them.
+ * 
+ * Blocks are shared by path and name only; identical blocks in different
+ * files are not merged.
+ * 
+ * Each block may also have one derived resource, such as a MeshBuffer, which
+ * is shared and freed along with it. Resources are created and destroyed on
+ * whichever thread calls getDerived(), release() or destroy().
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class ModelCache
+{
+    private final ModelOptions options;
+    private final long memoryCap;
+    
+    private final Map<Path, CachedModel> models = new HashMap<>();
+    private final Map<DataBlock, Entry> entries = new IdentityHashMap<>();
+    private final LinkedHashSet<Entry> unused = new LinkedHashSet<>();
+    private final Queue<Built> built = new ConcurrentLinkedQueue<>();
+    
+    private long usage, hits, misses, evictions;
+    private boolean destroyed;
+    
+    /**
+     * Creates a new cache which loads models with the given options, and
+     * frees unused blocks once its native memory exceeds the given cap. The
+     * options are copied, and are always lazy.
+     * 
+     * @param options The options to load models with.
+     * @param memoryCap The native memory cap, in bytes.
+     */
+    public ModelCache(ModelOptions options, long memoryCap)
+    {
+        if (memoryCap < 0L) throw new IllegalArgumentException();
+        this.options = new ModelOptions(options);
+        this.options.lazy = true;
+        this.memoryCap = memoryCap;
+    }
+    
+    public ModelCache(long memoryCap)
+    {
+        this(new ModelOptions(), memoryCap);
+    }
+    
+    private void ensureAlive()
+    {
+        if (destroyed) throw new IllegalStateException("Cache destroyed.");
+    }
+    
+    /**
+     * Adds a reference to the given data block of the .blend file at the
+     * given path, loading the file and building the block if necessary. Each
+     * call should be matched by a call to release().
+     * 
+     * @param path The path of the .blend file.
+     * @param type The type of data block to acquire.
+     * @param name The name of the block.
+     * @return The block, or null if the file has no such block.
+     * @throws IOException If an io exception occurs while loading the file.
+     */
+    public synchronized <T extends DataBlock> T acquire(String path, DataBlock.Type type, String name) throws IOException
+    {
+        ensureAlive();
+        trackBuilt();
+        
+        Path canonical = new File(path).getCanonicalFile().toPath();
+        CachedModel cached = models.get(canonical);
+        if (cached == null)
+        {
+            Model model = new Model(canonical.toString(), options);
+            model.buildListener = (t, b) -> built.add(new Built(t, b));
+            cached = new CachedModel(model);
+            models.put(canonical, cached);
+        }
+        
+        Map<String, Entry> typeEntries = cached.entries.get(type);
+        ArrayMap<T> map = cached.model.get(type);
+        Entry entry = typeEntries.get(name);
+        if (entry != null)
+        {
+            hits++;
+            if (entry.references++ == 0) unused.remove(entry);
+            return map.get(name); //Already built, so this does not lock.
+        }
+        
+        misses++;
+        T block = map.acquire(name);
+        if (block == null)
+        {
+            if (cached.isEmpty()) destroy(canonical, cached);
+            return null;
+        }
+        
+        add(new Entry(cached, type, block, 1));
+        trackBuilt();
+        evict();
+        return block;
+    }
+    
+    /**
+     * Removes a reference to the given block, which must have been acquired
+     * from this cache. The block stays in the cache until it is evicted.
+     * 
+     * @param block The block to release.
+     */
+    public synchronized void release(DataBlock block)
+    {
+        ensureAlive();
+        trackBuilt();
+        
+        Entry entry = entries.get(block);
+        if (entry == null) throw new IllegalArgumentException("Block not acquired from this cache.");
+        if (entry.references == 0) throw new IllegalStateException(block.name + " has no references to release.");
+        
+        if (--entry.references == 0)
+        {
+            unused.add(entry);
+            evict();
+        }
+    }
+    
+    /**
+     * Returns the resource derived from the given block, creating it with the
+     * given function if this is the first request for it. The resource is
+     * destroyed with the given consumer when the block is evicted, or when
+     * this cache is destroyed.
+     * 
+     * @param block A block acquired from this cache.
+     * @param create Creates the resource from the block.
+     * @param destroy Destroys the resource.
+     * @return The derived resource.
+     */
+    public synchronized <T extends DataBlock, R> R getDerived(T block, Function<T, R> create, Consumer<R> destroy)
+    {
+        ensureAlive();
+        
+        Entry entry = entries.get(block);
+        if (entry == null) throw new IllegalArgumentException("Block not acquired from this cache.");
+        
+        if (entry.derived == null)
+        {
+            R derived = create.apply(block);
+            if (derived == null) throw new NullPointerException();
+            entry.derived = derived;
+            entry.derivedDestroyer = () -> destroy.accept(derived);
+            return derived;
+        }
+        
+        @SuppressWarnings("unchecked") //Callers must ask for the same type of resource each time.
+        R derived = (R)entry.derived;
+        return derived;
+    }
+    
+    /**
+     * Returns whether the given block is in this cache.
+     */
+    public synchronized boolean contains(DataBlock block)
+    {
+        trackBuilt();
+        return entries.containsKey(block);
+    }
+    
+    /**
+     * Returns the number of times a block was acquired while already in this
+     * cache.
+     */
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+    
+    /**
+     * Returns the number of times a block was acquired while not in this
+     * cache.
+     */
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+    
+    /**
+     * Returns the number of unused blocks freed to stay under the memory cap.
+     */
+    public synchronized long getEvictions()
+    {
+        return evictions;
+    }
+    
+    /**
+     * Returns the number of blocks in this cache, including unused blocks.
+     */
+    public synchronized int size()
+    {
+        trackBuilt();
+        return entries.size();
+    }
+    
+    /**
+     * Returns the number of models open in this cache.
+     */
+    public synchronized int getModelCount()
+    {
+        return models.size();
+    }
+    
+    /**
+     * Returns the native memory held by the blocks in this cache, in bytes.
+     * This does not include the .blend files they were built from.
+     */
+    public synchronized long getMemoryUsage()
+    {
+        trackBuilt();
+        return usage;
+    }
+    
+    public long getMemoryCap()
+    {
+        return memoryCap;
+    }
+    
+    public synchronized void resetStats()
+    {
+        hits = 0L;
+        misses = 0L;
+        evictions = 0L;
+    }
+    
+    private void add(Entry entry)
+    {
+        entries.put(entry.block, entry);
+        entry.cached.entries.get(entry.type).put(entry.block.name, entry);
+        usage += entry.size;
+    }
+    
+    /**
+     * Adds an unused entry for each block which was built as a dependency of
+     * another since this was last called. Each entry holds a reference to its
+     * block, so that evicting it frees the block.
+     */
+    private void trackBuilt()
+    {
+        Built next;
+        while ((next = built.poll()) != null)
+        {
+            DataBlock block = next.block;
+            if (entries.containsKey(block)) continue;
+            
+            CachedModel cached = models.get(block.model.path);
+            if (cached == null || cached.model != block.model) continue;
+            
+            ArrayMap<DataBlock> map = cached.model.get(next.type);
+            DataBlock current = map.acquire(block.name);
+            if (current != block)
+            {
+                if (current != null) map.release(block.name);
+                continue;
+            }
+            
+            Entry entry = new Entry(cached, next.type, block, 0);
+            add(entry);
+            unused.add(entry);
+        }
+    }
+    
+    private void evict()
+    {
+        Iterator<Entry> it = unused.iterator();
+        while (usage > memoryCap && it.hasNext())
+        {
+            Entry entry = it.next();
+            it.remove();
+            free(entry);
+            evictions++;
+        }
+    }
+    
+    private void free(Entry entry)
+    {
+        CachedModel cached = entry.cached;
+        
+        if (entry.derived != null) entry.derivedDestroyer.run();
+        entries.remove(entry.block);
+        cached.entries.get(entry.type).remove(entry.block.name);
+        cached.model.get(entry.type).release(entry.block.name);
+        usage -= entry.size;
+        
+        if (cached.isEmpty()) destroy(cached.model.path, cached);
+    }
+    
+    private void destroy(Path path, CachedModel cached)
+    {
+        models.remove(path);
+        cached.model.destroy();
+    }
+    
+    /**
+     * Destroys every resource, block and model in this cache, whether or not
+     * they are still referenced.
+     */
+    public synchronized void destroy()
+    {
+        ensureAlive();
+        
+        for (Entry entry : entries.values())
+            if (entry.derived != null) entry.derivedDestroyer.run();
+        for (CachedModel cached : models.values()) cached.model.destroy();
+        
+        entries.clear();
+        unused.clear();
+        models.clear();
+        built.clear();
+        usage = 0L;
+        destroyed = true;
+    }
+    
+    private static final class CachedModel
+    {
+        private final Model model;
+        private final EnumMap<DataBlock.Type, Map<String, Entry>> entries = new EnumMap<>(DataBlock.Type.class);
+        
+        private CachedModel(Model model)
+        {
+            this.model = model;
+            for (DataBlock.Type type : DataBlock.Type.values()) entries.put(type, new HashMap<>());
+        }
+        
+        private boolean isEmpty()
+        {
+            for (Map<String, Entry> map : entries.values()) if (!map.isEmpty()) return false;
+            return true;
+        }
+    }
+    
+    private static final class Entry
+    {
+        private final CachedModel cached;
+        private final DataBlock.Type type;
+        private final DataBlock block;
+        private final long size;
+        private int references;
+        private Object derived;
+        private Runnable derivedDestroyer;
+        
+        private Entry(CachedModel cached, DataBlock.Type type, DataBlock block, int references)
+        {
+            this.cached = cached;
+            this.type = type;
+            this.block = block;
+            this.references = references;
+            size = block.getNativeSize();
+        }
+    }
+    
+    private static final class Built
+    {
+        private final DataBlock.Type type;
+        private final DataBlock block;
+        
+        private Built(DataBlock.Type type, DataBlock block)
+        {
+            this.type = type;
+            this.block = block;
+        }
+    }
+}
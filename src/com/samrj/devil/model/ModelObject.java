@@ -227,14 +227,16 @@ public final class ModelObject<DATA_TYPE extends DataBlock> extends DataBlock
         return Optional.ofNullable(asType(typeClass));
     }
     
+    /**
+     * Multiplies the given transform by the transform of each of this object's
+     * ancestors in turn. Walks the whole parent chain on each call, and ignores
+     * bone parents and parent inverse matrices. To find the world transforms of
+     * many objects, use a TransformGraph instead.
+     */
     public void applyParentTransform(Transform result)
     {
-        ModelObject<?> parentObj = parent.get();
-        if (parentObj != null)
-        {
-            result.mult(parentObj.transform);
-            parentObj.applyParentTransform(result);
-        }
+        for (ModelObject<?> obj = parent.get(); obj != null; obj = obj.parent.get())
+            result.mult(obj.transform);
     }
     
     public void getParentedTransform(Transform result)
@@ -0,0 +1,71 @@
+package com.samrj.devil.model;
+
+/**
+ * Options controlling how a Model is loaded. Options are read while loading,
+ * and so should not be modified afterwards.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class ModelOptions
+{
+    /**
+     * Whether to optimize meshes after loading them. Identical vertices are
+     * welded together, triangles are reordered for the post-transform vertex
+     * cache, and vertices are reordered by first use. Meshes with few enough
+     * vertices will use 16-bit indices.
+     */
+    public boolean optimizeMeshes;
+    
+    /**
+     * The target triangle ratios of each level of detail to generate for each
+     * mesh, in decreasing order. For example, {0.5f, 0.25f} would generate two
+     * levels with roughly half and a quarter of the mesh's triangles. Levels
+     * may have more triangles than their target, as seams are preserved.
+     */
+    public float[] lodRatios = {};
+    
+    /**
+     * Whether to only build each data block the first time it is accessed,
+     * rather than while loading. The contents of the .blend file stay in
+     * memory until the model is destroyed. Blocks may then be freed by
+     * releasing them, and will be built again if accessed later.
+     */
+    public boolean lazy;
+    
+    /**
+     * Whether to generate tangents for meshes with at least one UV layer,
+     * using the first layer. Tangents are compatible with MikkTSpace, and so
+     * with normal maps baked by Blender.
+     */
+    public boolean generateTangents;
+    
+    /**
+     * The greatest number of triangles in each cluster of each mesh, or zero
+     * or less to not build clusters. Clusters may be culled individually, so large
+     * meshes can be partially drawn. Between 64 and 128 is a good size.
+     */
+    public int clusterSize;
+    
+    /**
+     * Creates a new set of options, with everything disabled.
+     */
+    public ModelOptions()
+    {
+    }
+    
+    /**
+     * Copies the given options.
+     * 
+     * @param options The options to copy.
+     */
+    public ModelOptions(ModelOptions options)
+    {
+        optimizeMeshes = options.optimizeMeshes;
+        lodRatios = options.lodRatios.clone();
+        lazy = options.lazy;
+        generateTangents = options.generateTangents;
+        clusterSize = options.clusterSize;
+    }
+}
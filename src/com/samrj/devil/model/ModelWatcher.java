@@ -0,0 +1,487 @@
+package com.samrj.devil.model;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the .blend files of models for changes, and reloads them on a
+ * background thread. Each reloaded file is compared with the loaded one by data
+ * block name and content hash, and only blocks which were added or changed are
+ * rebuilt. Changes are applied by calling update(), usually once per frame from
+ * the thread which uses the models, so models never change while in use.
+ * 
+ * Blocks which did not change keep their identity, so resources made from
+ * them, such as MeshBuffers, stay valid. Data pointers always resolve to the
+ * newest version of a block, but direct references to changed blocks must be
+ * replaced by listeners.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class ModelWatcher
+{
+    /**
+     * How long a file must go unmodified before it is reloaded, so that files
+     * are not read while they are still being written.
+     */
+    private static final long DEBOUNCE_MILLIS = 100L;
+    
+    private static EnumMap<DataBlock.Type, Map<String, Long>> hash(BlendFile blend) throws IOException
+    {
+        EnumMap<DataBlock.Type, Map<String, Long>> hashes = new EnumMap<>(DataBlock.Type.class);
+        for (DataBlock.Type type : DataBlock.Type.values())
+        {
+            Map<String, Long> typeHashes = new HashMap<>();
+            for (BlendFile.Pointer pointer : blend.getLibrary(Model.getLibraryName(type)))
+                typeHashes.put(DataBlock.getName(pointer), blend.hash(pointer));
+            hashes.put(type, typeHashes);
+        }
+        return hashes;
+    }
+    
+    private final WatchService service;
+    private final Thread thread;
+    private final Map<Path, WatchKey> directories = new HashMap<>();
+    private final Map<Path, List<Watched>> files = new HashMap<>();
+    private final Map<Model, Watched> models = new IdentityHashMap<>();
+    private final Map<Path, Long> modified = new HashMap<>();
+    
+    private volatile boolean running = true;
+    
+    /**
+     * Creates a new watcher, and starts its background thread.
+     * 
+     * @throws IOException If the file system cannot be watched.
+     */
+    public ModelWatcher() throws IOException
+    {
+        service = FileSystems.getDefault().newWatchService();
+        thread = new Thread(this::run, "ModelWatcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Starts watching the file of the given model, notifying the given listener
+     * whenever changes to it are applied.
+     * 
+     * @param model The model to watch.
+     * @param listener The listener to notify, or null.
+     * @throws IOException If the model's file cannot be read or watched.
+     */
+    public synchronized void watch(Model model, Listener listener) throws IOException
+    {
+        if (!running) throw new IllegalStateException("Watcher destroyed.");
+        if (models.containsKey(model)) throw new IllegalArgumentException("Model already watched.");
+        
+        Path path = model.path.toAbsolutePath().normalize();
+        Path directory = path.getParent();
+        
+        Watched watched = new Watched(model, listener, path);
+        BlendFile blend = new BlendFile(path.toFile());
+        try
+        {
+            watched.hashes = hash(blend);
+        }
+        finally
+        {
+            blend.destroy();
+        }
+        
+        if (!directories.containsKey(directory))
+            directories.put(directory, directory.register(service, ENTRY_CREATE, ENTRY_MODIFY));
+        
+        files.computeIfAbsent(path, p -> new ArrayList<>()).add(watched);
+        models.put(model, watched);
+    }
+    
+    /**
+     * Stops watching the given model, discarding any changes not yet applied.
+     */
+    public synchronized void unwatch(Model model)
+    {
+        Watched watched = models.remove(model);
+        if (watched == null) return;
+        
+        if (watched.pending != null) watched.pending.discard();
+        watched.pending = null;
+        
+        List<Watched> list = files.get(watched.path);
+        list.remove(watched);
+        if (list.isEmpty())
+        {
+            files.remove(watched.path);
+            Path directory = watched.path.getParent();
+            boolean used = false;
+            for (Path file : files.keySet()) if (file.getParent().equals(directory)) used = true;
+            if (!used) directories.remove(directory).cancel();
+        }
+    }
+    
+    /**
+     * Applies every reload which has finished since the last update, and
+     * notifies listeners. Blocks which were replaced or removed are destroyed
+     * once their listeners return.
+     * 
+     * @return The number of models which were changed.
+     */
+    public int update()
+    {
+        List<Reload> ready = new ArrayList<>();
+        synchronized (this)
+        {
+            for (Watched watched : models.values()) if (watched.pending != null)
+            {
+                ready.add(watched.pending);
+                watched.pending = null;
+            }
+        }
+        
+        int count = 0;
+        for (Reload reload : ready) if (reload.apply()) count++;
+        return count;
+    }
+    
+    private void run()
+    {
+        while (running)
+        {
+            WatchKey key;
+            try
+            {
+                key = service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException | ClosedWatchServiceException e)
+            {
+                break;
+            }
+            
+            long now = System.currentTimeMillis();
+            List<Watched> toReload = new ArrayList<>();
+            synchronized (this)
+            {
+                if (key != null)
+                {
+                    Path directory = (Path)key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents())
+                    {
+                        if (event.kind() == OVERFLOW)
+                        {
+                            for (Path file : files.keySet())
+                                if (file.getParent().equals(directory)) modified.put(file, now);
+                            continue;
+                        }
+                        
+                        Path file = directory.resolve((Path)event.context());
+                        if (files.containsKey(file)) modified.put(file, now);
+                    }
+                    key.reset();
+                }
+                
+                Iterator<Map.Entry<Path, Long>> it = modified.entrySet().iterator();
+                while (it.hasNext())
+                {
+                    Map.Entry<Path, Long> entry = it.next();
+                    if (now - entry.getValue() < DEBOUNCE_MILLIS) continue;
+                    it.remove();
+                    List<Watched> list = files.get(entry.getKey());
+                    if (list != null) toReload.addAll(list);
+                }
+            }
+            
+            for (Watched watched : toReload)
+            {
+                Reload reload = new Reload(watched);
+                reload.build();
+                
+                synchronized (this)
+                {
+                    if (models.get(watched.model) != watched) reload.discard();
+                    else
+                    {
+                        //A newer reload always replaces one which was never applied.
+                        if (watched.pending != null) watched.pending.discard();
+                        watched.pending = reload;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Stops watching every model and stops the background thread. Changes not
+     * yet applied are discarded.
+     */
+    public void destroy()
+    {
+        running = false;
+        thread.interrupt();
+        try
+        {
+            thread.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        
+        synchronized (this)
+        {
+            for (Watched watched : models.values())
+                if (watched.pending != null) watched.pending.discard();
+            models.clear();
+            files.clear();
+            directories.clear();
+            modified.clear();
+        }
+        
+        try
+        {
+            service.close();
+        }
+        catch (IOException e)
+        {
+        }
+    }
+    
+    /**
+     * Receives the changes made to a model when it is reloaded.
+     */
+    public interface Listener
+    {
+        /**
+         * Called by update() after the given changes have been applied to the
+         * given model. Old blocks are destroyed after this returns.
+         */
+        void reloaded(Model model, List<Change> changes);
+        
+        /**
+         * Called by update() if reloading the given model failed, in which
+         * case the model is left unchanged.
+         */
+        default void failed(Model model, Exception exception)
+        {
+        }
+    }
+    
+    /**
+     * A data block which was added, changed or removed by a reload.
+     */
+    public static final class Change
+    {
+        public final DataBlock.Type type;
+        public final String name;
+        
+        /**
+         * The block before the reload, or null if it was added, or had not been
+         * built.
+         */
+        public final DataBlock oldBlock;
+        
+        /**
+         * The block after the reload, or null if it was removed, or will be
+         * built when first accessed.
+         */
+        public final DataBlock newBlock;
+        
+        private Change(DataBlock.Type type, String name, DataBlock oldBlock, DataBlock newBlock)
+        {
+            this.type = type;
+            this.name = name;
+            this.oldBlock = oldBlock;
+            this.newBlock = newBlock;
+        }
+        
+        @Override
+        public String toString()
+        {
+            String kind = oldBlock == null ? "added" : newBlock == null ? "removed" : "changed";
+            return type + ":" + name + " " + kind;
+        }
+    }
+    
+    private static final class Watched
+    {
+        private final Model model;
+        private final Listener listener;
+        private final Path path;
+        
+        /**
+         * Hashes of the last version applied. Only replaced by update().
+         */
+        private volatile EnumMap<DataBlock.Type, Map<String, Long>> hashes;
+        private Reload pending;
+        
+        private Watched(Model model, Listener listener, Path path)
+        {
+            this.model = model;
+            this.listener = listener;
+            this.path = path;
+        }
+    }
+    
+    /**
+     * A block in the new version of a file which must be added to or updated
+     * in the model, or a block which must be removed if pointer is null.
+     */
+    private static final class Job
+    {
+        private final DataBlock.Type type;
+        private final String name;
+        private final int index;
+        private final BlendFile.Pointer pointer;
+        private final boolean changed;
+        private DataBlock block;
+        
+        private Job(DataBlock.Type type, String name, int index, BlendFile.Pointer pointer, boolean changed)
+        {
+            this.type = type;
+            this.name = name;
+            this.index = index;
+            this.pointer = pointer;
+            this.changed = changed;
+        }
+    }
+    
+    private static final class Reload
+    {
+        private final Watched watched;
+        private final List<Job> jobs = new ArrayList<>();
+        private BlendFile blend;
+        private EnumMap<DataBlock.Type, Map<String, Long>> hashes;
+        private Exception exception;
+        
+        private Reload(Watched watched)
+        {
+            this.watched = watched;
+        }
+        
+        private void build()
+        {
+            Model model = watched.model;
+            boolean lazy = model.options.lazy;
+            try
+            {
+                blend = new BlendFile(watched.path.toFile());
+                hashes = hash(blend);
+                EnumMap<DataBlock.Type, Map<String, Long>> oldHashes = watched.hashes;
+                
+                for (DataBlock.Type type : DataBlock.Type.values())
+                {
+                    Map<String, Long> oldTypeHashes = oldHashes.get(type);
+                    Map<String, Long> newTypeHashes = hashes.get(type);
+                    
+                    List<BlendFile.Pointer> library = blend.getLibrary(Model.getLibraryName(type));
+                    for (int i=0; i<library.size(); i++)
+                    {
+                        BlendFile.Pointer pointer = library.get(i);
+                        String name = DataBlock.getName(pointer);
+                        boolean changed = !newTypeHashes.get(name).equals(oldTypeHashes.get(name));
+                        
+                        //Lazy blocks must all point into the new file, even if unchanged.
+                        if (changed || lazy) jobs.add(new Job(type, name, i, pointer, changed));
+                    }
+                    
+                    for (String name : oldTypeHashes.keySet()) if (!newTypeHashes.containsKey(name))
+                        jobs.add(new Job(type, name, -1, null, true));
+                }
+                
+                //Lazy blocks which were never built will only be built when accessed.
+                for (Job job : jobs) if (job.changed && job.pointer != null)
+                    if (!lazy || model.get(job.type).isLoaded(job.name))
+                        job.block = model.build(job.type, job.index, job.pointer);
+                
+                if (!lazy)
+                {
+                    blend.destroy();
+                    blend = null;
+                }
+            }
+            catch (IOException | RuntimeException e)
+            {
+                discard();
+                exception = e;
+            }
+        }
+        
+        private void discard()
+        {
+            for (Job job : jobs) if (job.block != null) job.block.destroy();
+            jobs.clear();
+            if (blend != null) blend.destroy();
+            blend = null;
+        }
+        
+        private boolean apply()
+        {
+            Model model = watched.model;
+            Listener listener = watched.listener;
+            
+            if (exception != null)
+            {
+                if (listener != null) listener.failed(model, exception);
+                return false;
+            }
+            
+            if (model.isDestroyed())
+            {
+                discard();
+                return false;
+            }
+            
+            boolean lazy = model.options.lazy;
+            List<Change> changes = new ArrayList<>();
+            List<DataBlock> old = new ArrayList<>();
+            BlendFile oldBlend = null;
+            
+            //Maps hold the model as their lock.
+            synchronized (model)
+            {
+                for (Job job : jobs)
+                {
+                    ArrayMap<DataBlock> map = model.get(job.type);
+                    DataBlock oldBlock = null;
+                    
+                    //Decide by what the model contains, in case an earlier reload was applied after this one began.
+                    if (job.pointer == null)
+                    {
+                        if (!map.contains(job.name)) continue;
+                        oldBlock = map.remove(job.name);
+                        model.revision++;
+                    }
+                    else if (!map.contains(job.name))
+                    {
+                        if (job.block != null) map.put(job.block);
+                        else if (lazy) map.put(job.name, model.builder(job.type, job.index, job.pointer));
+                        else continue;
+                        model.revision++;
+                    }
+                    else
+                    {
+                        if (lazy) map.rebind(job.name, model.builder(job.type, job.index, job.pointer));
+                        if (job.changed) oldBlock = map.replace(job.name, job.block);
+                    }
+                    
+                    if (oldBlock != null) old.add(oldBlock);
+                    if (job.changed) changes.add(new Change(job.type, job.name, oldBlock, job.block));
+                }
+                
+                if (lazy) oldBlend = model.setBlendFile(blend);
+            }
+            
+            watched.hashes = hashes;
+            blend = null;
+            jobs.clear();
+            
+            if (listener != null && !changes.isEmpty()) listener.reloaded(model, changes);
+            for (DataBlock block : old) block.destroy();
+            if (oldBlend != null) oldBlend.destroy();
+            return !changes.isEmpty();
+        }
+    }
+}
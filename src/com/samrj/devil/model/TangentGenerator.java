@@ -0,0 +1,212 @@
+package com.samrj.devil.model;
+
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+
+/**
+ * Generates per-vertex tangents following the MikkTSpace conventions used by
+ * Blender and most normal map bakers. Each triangle's tangent is found from its
+ * positions and UVs, projected onto the tangent plane of each corner's normal,
+ * and weighted by the corner's angle. Corners are accumulated per vertex, with
+ * separate groups for triangles of opposite UV winding, so mirrored UVs keep
+ * their own tangents. Triangles with degenerate UVs take the tangent of their
+ * vertex's group instead of contributing to it.
+ * 
+ * Tangents are written as four floats: a unit tangent, and the sign of the
+ * bitangent, which is sign*cross(normal, tangent).
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+final class TangentGenerator
+{
+    /**
+     * The number of triangles processed by each parallel task.
+     */
+    private static final int CHUNK_SIZE = 4096;
+    
+    private static final float EPSILON = 1.0e-20f;
+    
+    /**
+     * Generates tangents for the given planar vertex data and triangles,
+     * writing them at the given tangent offset.
+     */
+    static void generate(ByteBuffer data, int numVertices, int positionOffset, int normalOffset, int uvOffset, int tangentOffset, int[] indices)
+    {
+        float[] pos = new float[numVertices*3];
+        float[] nrm = new float[numVertices*3];
+        float[] uv = new float[numVertices*2];
+        for (int i=0; i<numVertices*3; i++)
+        {
+            pos[i] = data.getFloat(positionOffset + i*4);
+            nrm[i] = data.getFloat(normalOffset + i*4);
+        }
+        for (int i=0; i<numVertices*2; i++) uv[i] = data.getFloat(uvOffset + i*4);
+        
+        //Corners which share a position, normal and UV share a tangent.
+        int[] vertex = MeshOptimizer.weld(data, numVertices, new int[] {positionOffset, normalOffset, uvOffset}, new int[] {12, 12, 8});
+        
+        int numTriangles = indices.length/3;
+        float[] cornerTangents = new float[indices.length*3];
+        float[] cornerWeights = new float[indices.length];
+        byte[] orientation = new byte[numTriangles]; //1 preserving, -1 reversing, 0 degenerate.
+        
+        int numChunks = (numTriangles + CHUNK_SIZE - 1)/CHUNK_SIZE;
+        IntStream.range(0, numChunks).parallel().forEach(chunk ->
+        {
+            int end = Math.min((chunk + 1)*CHUNK_SIZE, numTriangles);
+            for (int t=chunk*CHUNK_SIZE; t<end; t++)
+                triangle(t, indices, pos, nrm, uv, cornerTangents, cornerWeights, orientation);
+        });
+        
+        //Accumulate each group in triangle order, so the result is deterministic.
+        int numGroups = 0;
+        for (int v : vertex) numGroups = Math.max(numGroups, v + 1);
+        float[] groups = new float[numGroups*2*3];
+        for (int t=0; t<numTriangles; t++)
+        {
+            if (orientation[t] == 0) continue;
+            int side = orientation[t] > 0 ? 1 : 0;
+            for (int c=t*3; c<t*3 + 3; c++)
+            {
+                int g = (vertex[indices[c]]*2 + side)*3;
+                float w = cornerWeights[c];
+                groups[g] += cornerTangents[c*3]*w;
+                groups[g + 1] += cornerTangents[c*3 + 1]*w;
+                groups[g + 2] += cornerTangents[c*3 + 2]*w;
+            }
+        }
+        
+        //Each vertex takes the group of the first non-degenerate triangle using it.
+        byte[] vertexSide = new byte[numVertices];
+        for (int t=0; t<numTriangles; t++) if (orientation[t] != 0)
+            for (int c=t*3; c<t*3 + 3; c++)
+                if (vertexSide[indices[c]] == 0) vertexSide[indices[c]] = orientation[t];
+        
+        IntStream.range(0, (numVertices + CHUNK_SIZE - 1)/CHUNK_SIZE).parallel().forEach(chunk ->
+        {
+            int end = Math.min((chunk + 1)*CHUNK_SIZE, numVertices);
+            for (int v=chunk*CHUNK_SIZE; v<end; v++)
+            {
+                int side = vertexSide[v];
+                
+                //Degenerate corners prefer the orientation-preserving group, as MikkTSpace does.
+                if (side == 0) side = length(groups, (vertex[v]*2 + 1)*3) > EPSILON ? 1 : -1;
+                
+                int g = (vertex[v]*2 + (side > 0 ? 1 : 0))*3;
+                float tx = groups[g], ty = groups[g + 1], tz = groups[g + 2];
+                float nx = nrm[v*3], ny = nrm[v*3 + 1], nz = nrm[v*3 + 2];
+                
+                //Re-orthogonalize, since the group may mix corners of different normals.
+                float d = tx*nx + ty*ny + tz*nz;
+                tx -= nx*d; ty -= ny*d; tz -= nz*d;
+                float len = (float)Math.sqrt(tx*tx + ty*ty + tz*tz);
+                
+                if (len > EPSILON)
+                {
+                    tx /= len; ty /= len; tz /= len;
+                }
+                else
+                {
+                    //No usable UVs, so pick any direction perpendicular to the normal.
+                    if (Math.abs(nx) < 0.9f)
+                    {
+                        tx = 0.0f; ty = nz; tz = -ny;
+                    }
+                    else
+                    {
+                        tx = -nz; ty = 0.0f; tz = nx;
+                    }
+                    len = (float)Math.sqrt(tx*tx + ty*ty + tz*tz);
+                    if (len > EPSILON)
+                    {
+                        tx /= len; ty /= len; tz /= len;
+                    }
+                    else tx = 1.0f;
+                }
+                
+                int p = tangentOffset + v*16;
+                data.putFloat(p, tx);
+                data.putFloat(p + 4, ty);
+                data.putFloat(p + 8, tz);
+                data.putFloat(p + 12, side > 0 ? 1.0f : -1.0f);
+            }
+        });
+    }
+    
+    private static float length(float[] a, int i)
+    {
+        return (float)Math.sqrt(a[i]*a[i] + a[i + 1]*a[i + 1] + a[i + 2]*a[i + 2]);
+    }
+    
+    /**
+     * Finds the tangent of the given triangle, then projects it onto each
+     * corner's tangent plane and weights it by the corner's angle.
+     */
+    private static void triangle(int t, int[] indices, float[] pos, float[] nrm, float[] uv,
+            float[] cornerTangents, float[] cornerWeights, byte[] orientation)
+    {
+        int i0 = indices[t*3], i1 = indices[t*3 + 1], i2 = indices[t*3 + 2];
+        
+        float d1x = pos[i1*3] - pos[i0*3], d1y = pos[i1*3 + 1] - pos[i0*3 + 1], d1z = pos[i1*3 + 2] - pos[i0*3 + 2];
+        float d2x = pos[i2*3] - pos[i0*3], d2y = pos[i2*3 + 1] - pos[i0*3 + 1], d2z = pos[i2*3 + 2] - pos[i0*3 + 2];
+        float t21x = uv[i1*2] - uv[i0*2], t21y = uv[i1*2 + 1] - uv[i0*2 + 1];
+        float t31x = uv[i2*2] - uv[i0*2], t31y = uv[i2*2 + 1] - uv[i0*2 + 1];
+        
+        float signedAreaSTx2 = t21x*t31y - t21y*t31x;
+        float osx = t31y*d1x - t21y*d2x, osy = t31y*d1y - t21y*d2y, osz = t31y*d1z - t21y*d2z;
+        float osLen = (float)Math.sqrt(osx*osx + osy*osy + osz*osz);
+        
+        if (Math.abs(signedAreaSTx2) <= EPSILON || osLen <= EPSILON)
+        {
+            orientation[t] = 0;
+            return;
+        }
+        
+        //Like MikkTSpace, flip the tangent of orientation-reversing triangles.
+        float s = signedAreaSTx2 > 0.0f ? 1.0f : -1.0f;
+        orientation[t] = (byte)(signedAreaSTx2 > 0.0f ? 1 : -1);
+        osx *= s/osLen; osy *= s/osLen; osz *= s/osLen;
+        
+        for (int c=0; c<3; c++)
+        {
+            int v = indices[t*3 + c];
+            int vn = indices[t*3 + (c + 1)%3], vp = indices[t*3 + (c + 2)%3];
+            float nx = nrm[v*3], ny = nrm[v*3 + 1], nz = nrm[v*3 + 2];
+            
+            float d = osx*nx + osy*ny + osz*nz;
+            float tx = osx - nx*d, ty = osy - ny*d, tz = osz - nz*d;
+            float tLen = (float)Math.sqrt(tx*tx + ty*ty + tz*tz);
+            if (tLen > EPSILON)
+            {
+                tx /= tLen; ty /= tLen; tz /= tLen;
+            }
+            
+            //Corner angle, measured in the tangent plane.
+            float e1x = pos[vn*3] - pos[v*3], e1y = pos[vn*3 + 1] - pos[v*3 + 1], e1z = pos[vn*3 + 2] - pos[v*3 + 2];
+            float e2x = pos[vp*3] - pos[v*3], e2y = pos[vp*3 + 1] - pos[v*3 + 1], e2z = pos[vp*3 + 2] - pos[v*3 + 2];
+            float d1 = e1x*nx + e1y*ny + e1z*nz, d2 = e2x*nx + e2y*ny + e2z*nz;
+            e1x -= nx*d1; e1y -= ny*d1; e1z -= nz*d1;
+            e2x -= nx*d2; e2y -= ny*d2; e2z -= nz*d2;
+            float l1 = (float)Math.sqrt(e1x*e1x + e1y*e1y + e1z*e1z);
+            float l2 = (float)Math.sqrt(e2x*e2x + e2y*e2y + e2z*e2z);
+            float angle = 0.0f;
+            if (l1 > EPSILON && l2 > EPSILON)
+            {
+                float cos = (e1x*e2x + e1y*e2y + e1z*e2z)/(l1*l2);
+                angle = (float)Math.acos(Math.max(-1.0f, Math.min(1.0f, cos)));
+            }
+            
+            int ci = t*3 + c;
+            cornerTangents[ci*3] = tx;
+            cornerTangents[ci*3 + 1] = ty;
+            cornerTangents[ci*3 + 2] = tz;
+            cornerWeights[ci] = angle;
+        }
+    }
+    
+    private TangentGenerator()
+    {
+    }
+}
@@ -0,0 +1,663 @@
+package com.samrj.devil.model;
+
+import com.samrj.devil.math.Mat4;
+import com.samrj.devil.math.Scratch;
+import com.samrj.devil.math.Transform;
+import com.samrj.devil.math.Vec3;
+import com.samrj.devil.model.ArmatureSolver.BoneSolver;
+import com.samrj.devil.util.IntList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A hierarchy of transforms whose world matrices are updated together, in one
+ * pass. Local transforms are stored in flat arrays, sorted so that each node
+ * comes after its parent. Each node's world matrix is its parent's world matrix,
+ * times its offset matrix, if it has one, times its local transform. Only nodes
+ * whose local transform or offset has changed since the last update, and their
+ * descendants, are recomputed.
+ * 
+ * Nodes are referred to by handles, which stay valid until the node is removed.
+ * ModelObjects may be added directly, in which case their nodes follow their
+ * transform, parent, and parent inverse matrix. Objects parented to a bone
+ * follow that bone's pose, as last solved by the ArmatureSolver given for their
+ * armature. Unlike ModelObject.getParentedTransform(), which walks each
+ * object's parent chain, ancestors shared by many objects are computed once.
+ * 
+ * Transform graphs are not thread safe.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class TransformGraph
+{
+    /**
+     * The parent handle of root nodes.
+     */
+    public static final int NONE = -1;
+    
+    //Packs the given matrix into the given array in column-major order.
+    private static void put(Mat4 m, float[] d, int i)
+    {
+        d[i] = m.a; d[i + 1] = m.e; d[i + 2] = m.i; d[i + 3] = m.m;
+        d[i + 4] = m.b; d[i + 5] = m.f; d[i + 6] = m.j; d[i + 7] = m.n;
+        d[i + 8] = m.c; d[i + 9] = m.g; d[i + 10] = m.k; d[i + 11] = m.o;
+        d[i + 12] = m.d; d[i + 13] = m.h; d[i + 14] = m.l; d[i + 15] = m.p;
+    }
+    
+    //Returns true if the given matrix differs from the one packed at i.
+    private static boolean differs(Mat4 m, float[] d, int i)
+    {
+        return d[i] != m.a || d[i + 1] != m.e || d[i + 2] != m.i || d[i + 3] != m.m ||
+               d[i + 4] != m.b || d[i + 5] != m.f || d[i + 6] != m.j || d[i + 7] != m.n ||
+               d[i + 8] != m.c || d[i + 9] != m.g || d[i + 10] != m.k || d[i + 11] != m.o ||
+               d[i + 12] != m.d || d[i + 13] != m.h || d[i + 14] != m.l || d[i + 15] != m.p;
+    }
+    
+    //Multiplies two packed column-major matrices. The result may not alias either.
+    private static void mult(float[] a, int ai, float[] b, int bi, float[] r, int ri)
+    {
+        for (int c=0; c<16; c+=4)
+        {
+            float b0 = b[bi + c], b1 = b[bi + c + 1], b2 = b[bi + c + 2], b3 = b[bi + c + 3];
+            for (int row=0; row<4; row++)
+                r[ri + c + row] = a[ai + row]*b0 + a[ai + 4 + row]*b1 + a[ai + 8 + row]*b2 + a[ai + 12 + row]*b3;
+        }
+    }
+    
+    //Per slot, in parent-before-child order unless unsorted is set.
+    private float[] pos, rot, sca;
+    private float[] offsets, worlds;
+    private boolean[] hasOffset, dirty;
+    private int[] parentSlot, handleOf;
+    private Object[] sources; //The ModelObject or BoneSolver a node follows, if any.
+    private int numSlots;
+    
+    //Per handle.
+    private int[] slotOf, childCount;
+    private final IntList freeHandles = new IntList();
+    private int numHandles, size;
+    
+    private int firstDirty;
+    private boolean unsorted;
+    
+    private final Map<ModelObject<?>, Integer> objectNodes = new IdentityHashMap<>();
+    private final Map<BoneSolver, Integer> boneNodes = new IdentityHashMap<>();
+    private final Map<ModelObject<?>, ArmatureSolver> solvers = new IdentityHashMap<>();
+    
+    private final float[] local = new float[16], offsetLocal = new float[16];
+    private final Mat4 boneMatrix = new Mat4();
+    
+    /**
+     * Creates a new, empty transform graph with room for the given number of
+     * nodes.
+     * 
+     * @param initialCapacity The number of nodes to allocate space for.
+     */
+    public TransformGraph(int initialCapacity)
+    {
+        if (initialCapacity < 1) throw new IllegalArgumentException();
+        allocate(initialCapacity);
+        slotOf = new int[initialCapacity];
+        childCount = new int[initialCapacity];
+    }
+    
+    /**
+     * Creates a new, empty transform graph.
+     */
+    public TransformGraph()
+    {
+        this(16);
+    }
+    
+    private void allocate(int capacity)
+    {
+        pos = new float[capacity*3];
+        rot = new float[capacity*4];
+        sca = new float[capacity*3];
+        offsets = new float[capacity*16];
+        worlds = new float[capacity*16];
+        hasOffset = new boolean[capacity];
+        dirty = new boolean[capacity];
+        parentSlot = new int[capacity];
+        handleOf = new int[capacity];
+        sources = new Object[capacity];
+    }
+    
+    private void ensureSlotCapacity()
+    {
+        int capacity = handleOf.length;
+        if (numSlots < capacity) return;
+        
+        capacity *= 2;
+        pos = Arrays.copyOf(pos, capacity*3);
+        rot = Arrays.copyOf(rot, capacity*4);
+        sca = Arrays.copyOf(sca, capacity*3);
+        offsets = Arrays.copyOf(offsets, capacity*16);
+        worlds = Arrays.copyOf(worlds, capacity*16);
+        hasOffset = Arrays.copyOf(hasOffset, capacity);
+        dirty = Arrays.copyOf(dirty, capacity);
+        parentSlot = Arrays.copyOf(parentSlot, capacity);
+        handleOf = Arrays.copyOf(handleOf, capacity);
+        sources = Arrays.copyOf(sources, capacity);
+    }
+    
+    private int slot(int node)
+    {
+        if (node < 0 || node >= numHandles || slotOf[node] < 0) throw new IllegalArgumentException("No such node: " + node);
+        return slotOf[node];
+    }
+    
+    private void markDirty(int s)
+    {
+        dirty[s] = true;
+        if (s < firstDirty) firstDirty = s;
+    }
+    
+    /**
+     * Adds a new node with an identity local transform.
+     * 
+     * @param parent The parent node, or NONE.
+     * @return The handle of the new node.
+     */
+    public int add(int parent)
+    {
+        int p = parent == NONE ? -1 : slot(parent);
+        
+        int node;
+        if (freeHandles.size() > 0) node = freeHandles.remove(freeHandles.size() - 1);
+        else
+        {
+            if (numHandles == slotOf.length)
+            {
+                slotOf = Arrays.copyOf(slotOf, numHandles*2);
+                childCount = Arrays.copyOf(childCount, numHandles*2);
+            }
+            node = numHandles++;
+        }
+        
+        //New nodes go at the end, which is always after their parent.
+        ensureSlotCapacity();
+        int s = numSlots++;
+        Arrays.fill(pos, s*3, s*3 + 3, 0.0f);
+        Arrays.fill(rot, s*4, s*4 + 3, 0.0f);
+        rot[s*4 + 3] = 1.0f;
+        Arrays.fill(sca, s*3, s*3 + 3, 1.0f);
+        hasOffset[s] = false;
+        parentSlot[s] = p;
+        handleOf[s] = node;
+        sources[s] = null;
+        markDirty(s);
+        
+        slotOf[node] = s;
+        childCount[node] = 0;
+        if (parent != NONE) childCount[parent]++;
+        size++;
+        return node;
+    }
+    
+    /**
+     * Adds a new node with the given local transform.
+     * 
+     * @param parent The parent node, or NONE.
+     * @param transform The local transform of the new node.
+     * @return The handle of the new node.
+     */
+    public int add(int parent, Transform transform)
+    {
+        int node = add(parent);
+        setLocal(node, transform);
+        return node;
+    }
+    
+    /**
+     * Adds a new node which follows the given bone. Its offset matrix is the
+     * bone's object-space matrix, as returned by getModelMatrix(), and is read
+     * from the bone on each update. The parent should be the node of the
+     * bone's armature object.
+     * 
+     * @param parent The parent node, or NONE.
+     * @param bone The bone to follow.
+     * @return The handle of the new node.
+     */
+    public int addBone(int parent, BoneSolver bone)
+    {
+        if (bone == null) throw new NullPointerException();
+        int node = add(parent);
+        int s = slotOf[node];
+        sources[s] = bone;
+        hasOffset[s] = true;
+        bone.getModelMatrix(boneMatrix);
+        put(boneMatrix, offsets, s*16);
+        return node;
+    }
+    
+    /**
+     * Adds a node for the given object, unless it already has one, and does the
+     * same for each of its ancestors. The node follows the object's transform,
+     * and has the object's parent inverse matrix as its offset.
+     * 
+     * If the object is parented to a bone, its armature must have been added
+     * with addArmature() first, and the object follows that armature's solver.
+     * 
+     * @param object The object to add.
+     * @return The handle of the object's node.
+     * @throws IllegalStateException If the object is parented to a bone of an
+     *         armature which has no solver.
+     */
+    public int addObject(ModelObject<?> object)
+    {
+        Integer existing = objectNodes.get(object);
+        if (existing != null) return existing;
+        
+        int parent = NONE;
+        ModelObject<?> parentObj = object.parent.get();
+        if (parentObj != null)
+        {
+            parent = addObject(parentObj);
+            if (object.parentBoneName != null) parent = getBoneNode(parentObj, parent, object.parentBoneName);
+        }
+        
+        int node = add(parent);
+        int s = slotOf[node];
+        sources[s] = object;
+        putLocal(s, object.transform);
+        if (object.parentMatrix != null)
+        {
+            hasOffset[s] = true;
+            put(object.parentMatrix, offsets, s*16);
+        }
+        objectNodes.put(object, node);
+        return node;
+    }
+    
+    private int getBoneNode(ModelObject<?> armature, int armatureNode, String boneName)
+    {
+        ArmatureSolver solver = solvers.get(armature);
+        if (solver == null) throw new IllegalStateException("No solver given for armature " + armature.name);
+        BoneSolver bone = solver.getBone(boneName);
+        if (bone == null) throw new IllegalArgumentException("No bone named " + boneName + " in armature " + armature.name);
+        
+        Integer existing = boneNodes.get(bone);
+        if (existing != null) return existing;
+        
+        int node = addBone(armatureNode, bone);
+        boneNodes.put(bone, node);
+        return node;
+    }
+    
+    /**
+     * Adds a node for the given armature object, as with addObject(), and sets
+     * the solver which objects parented to its bones will follow.
+     * 
+     * @param object The armature object to add.
+     * @param solver The solver for the armature's pose.
+     * @return The handle of the armature's node.
+     */
+    public int addArmature(ModelObject<Armature> object, ArmatureSolver solver)
+    {
+        if (solver == null) throw new NullPointerException();
+        ArmatureSolver old = solvers.putIfAbsent(object, solver);
+        if (old != null && old != solver) throw new IllegalArgumentException("Armature " + object.name + " already has a solver.");
+        return addObject(object);
+    }
+    
+    /**
+     * Returns the node of the given object, or NONE if it has not been added.
+     * 
+     * @param object An object.
+     * @return The handle of the object's node, or NONE.
+     */
+    public int getNode(ModelObject<?> object)
+    {
+        Integer node = objectNodes.get(object);
+        return node != null ? node : NONE;
+    }
+    
+    /**
+     * Removes the given node, which must have no children. Its handle may be
+     * reused by nodes added later.
+     * 
+     * @param node The node to remove.
+     * @throws IllegalStateException If the node has children.
+     */
+    public void remove(int node)
+    {
+        int s = slot(node);
+        if (childCount[node] > 0) throw new IllegalStateException("Node " + node + " has children.");
+        
+        Object source = sources[s];
+        if (source instanceof ModelObject)
+        {
+            objectNodes.remove(source);
+            solvers.remove(source);
+        }
+        else if (source instanceof BoneSolver) boneNodes.remove(source);
+        
+        int p = parentSlot[s];
+        if (p >= 0) childCount[handleOf[p]]--;
+        
+        handleOf[s] = NONE;
+        sources[s] = null;
+        slotOf[node] = NONE;
+        freeHandles.add(node);
+        size--;
+        
+        //The empty slot is compacted away on the next update.
+        unsorted = true;
+    }
+    
+    /**
+     * Removes every node from this graph.
+     */
+    public void clear()
+    {
+        Arrays.fill(sources, 0, numSlots, null);
+        objectNodes.clear();
+        boneNodes.clear();
+        solvers.clear();
+        freeHandles.clear();
+        numSlots = 0;
+        numHandles = 0;
+        size = 0;
+        firstDirty = 0;
+        unsorted = false;
+    }
+    
+    /**
+     * Returns the parent of the given node.
+     * 
+     * @param node A node.
+     * @return The handle of the node's parent, or NONE.
+     */
+    public int getParent(int node)
+    {
+        int p = parentSlot[slot(node)];
+        return p >= 0 ? handleOf[p] : NONE;
+    }
+    
+    /**
+     * Sets the parent of the given node.
+     * 
+     * @param node The node to reparent.
+     * @param parent The new parent, or NONE.
+     * @throws IllegalArgumentException If the parent is the node itself, or one
+     *         of its descendants.
+     */
+    public void setParent(int node, int parent)
+    {
+        int s = slot(node);
+        int p = parent == NONE ? -1 : slot(parent);
+        for (int a=p; a>=0; a=parentSlot[a])
+            if (a == s) throw new IllegalArgumentException("Cannot parent a node to itself or its descendants.");
+        
+        int old = parentSlot[s];
+        if (old >= 0) childCount[handleOf[old]]--;
+        if (p >= 0) childCount[parent]++;
+        parentSlot[s] = p;
+        
+        if (p > s) unsorted = true;
+        markDirty(s);
+    }
+    
+    private void putLocal(int s, Transform transform)
+    {
+        int p = s*3, q = s*4;
+        pos[p] = transform.pos.x; pos[p + 1] = transform.pos.y; pos[p + 2] = transform.pos.z;
+        rot[q] = transform.rot.x; rot[q + 1] = transform.rot.y; rot[q + 2] = transform.rot.z; rot[q + 3] = transform.rot.w;
+        sca[p] = transform.sca.x; sca[p + 1] = transform.sca.y; sca[p + 2] = transform.sca.z;
+        markDirty(s);
+    }
+    
+    /**
+     * Sets the local transform of the given node. Nodes which follow an object
+     * take their object's transform on each update instead.
+     * 
+     * @param node The node to set.
+     * @param transform The new local transform.
+     */
+    public void setLocal(int node, Transform transform)
+    {
+        putLocal(slot(node), transform);
+    }
+    
+    /**
+     * Copies the local transform of the given node into {@code result}.
+     * 
+     * @param node A node.
+     * @param result The transform in which to store the result.
+     */
+    public void getLocal(int node, Transform result)
+    {
+        int s = slot(node), p = s*3, q = s*4;
+        result.pos.set(pos[p], pos[p + 1], pos[p + 2]);
+        result.rot.set(rot[q + 3], rot[q], rot[q + 1], rot[q + 2]);
+        result.sca.set(sca[p], sca[p + 1], sca[p + 2]);
+    }
+    
+    /**
+     * Sets the offset matrix of the given node, which is applied between its
+     * parent's world matrix and its local transform. Nodes which follow a bone
+     * take the bone's matrix on each update instead.
+     * 
+     * @param node The node to set.
+     * @param matrix The new offset matrix, or null for none.
+     */
+    public void setOffset(int node, Mat4 matrix)
+    {
+        int s = slot(node);
+        hasOffset[s] = matrix != null;
+        if (matrix != null) put(matrix, offsets, s*16);
+        markDirty(s);
+    }
+    
+    //Sorts slots by depth, so parents come first, and compacts removed slots away.
+    private void sort()
+    {
+        int[] depth = new int[numSlots];
+        Arrays.fill(depth, -1);
+        int maxDepth = 0;
+        for (int s=0; s<numSlots; s++)
+        {
+            if (handleOf[s] < 0 || depth[s] >= 0) continue;
+            
+            int steps = 0, a = s;
+            while (a >= 0 && depth[a] < 0)
+            {
+                a = parentSlot[a];
+                steps++;
+            }
+            int d = (a >= 0 ? depth[a] : -1) + steps;
+            if (d > maxDepth) maxDepth = d;
+            for (a=s; a>=0 && depth[a]<0; a=parentSlot[a]) depth[a] = d--;
+        }
+        
+        int[] start = new int[maxDepth + 2];
+        for (int s=0; s<numSlots; s++) if (handleOf[s] >= 0) start[depth[s] + 1]++;
+        for (int d=0; d<=maxDepth; d++) start[d + 1] += start[d];
+        int[] newSlot = new int[numSlots];
+        for (int s=0; s<numSlots; s++) if (handleOf[s] >= 0) newSlot[s] = start[depth[s]]++;
+        
+        float[] oldPos = pos, oldRot = rot, oldSca = sca, oldOffsets = offsets;
+        boolean[] oldHasOffset = hasOffset;
+        int[] oldParentSlot = parentSlot, oldHandleOf = handleOf;
+        Object[] oldSources = sources;
+        allocate(handleOf.length);
+        
+        for (int s=0; s<numSlots; s++)
+        {
+            int node = oldHandleOf[s];
+            if (node < 0) continue;
+            
+            int n = newSlot[s], p = oldParentSlot[s];
+            System.arraycopy(oldPos, s*3, pos, n*3, 3);
+            System.arraycopy(oldRot, s*4, rot, n*4, 4);
+            System.arraycopy(oldSca, s*3, sca, n*3, 3);
+            System.arraycopy(oldOffsets, s*16, offsets, n*16, 16);
+            hasOffset[n] = oldHasOffset[s];
+            parentSlot[n] = p >= 0 ? newSlot[p] : -1;
+            handleOf[n] = node;
+            sources[n] = oldSources[s];
+            slotOf[node] = n;
+        }
+        
+        numSlots = size;
+        Arrays.fill(dirty, 0, numSlots, true);
+        firstDirty = 0;
+        unsorted = false;
+    }
+    
+    //Packs the local transform of the given slot as a column-major matrix.
+    private void localMatrix(int s, float[] r)
+    {
+        int p = s*3, q = s*4;
+        float x = rot[q], y = rot[q + 1], z = rot[q + 2], w = rot[q + 3];
+        float sx = sca[p], sy = sca[p + 1], sz = sca[p + 2];
+        
+        float xx = 2.0f*x*x, yy = 2.0f*y*y, zz = 2.0f*z*z;
+        float xy = 2.0f*x*y, xz = 2.0f*x*z, yz = 2.0f*y*z;
+        float wx = 2.0f*w*x, wy = 2.0f*w*y, wz = 2.0f*w*z;
+        
+        r[0] = (1.0f - yy - zz)*sx;
+        r[1] = (xy + wz)*sx;
+        r[2] = (xz - wy)*sx;
+        r[3] = 0.0f;
+        
+        r[4] = (xy - wz)*sy;
+        r[5] = (1.0f - xx - zz)*sy;
+        r[6] = (yz + wx)*sy;
+        r[7] = 0.0f;
+        
+        r[8] = (xz + wy)*sz;
+        r[9] = (yz - wx)*sz;
+        r[10] = (1.0f - xx - yy)*sz;
+        r[11] = 0.0f;
+        
+        r[12] = pos[p];
+        r[13] = pos[p + 1];
+        r[14] = pos[p + 2];
+        r[15] = 1.0f;
+    }
+    
+    //Marks the given slot dirty if its object's transform has changed.
+    private void follow(int s, Transform transform)
+    {
+        int p = s*3, q = s*4;
+        Vec3 tp = transform.pos, ts = transform.sca;
+        if (pos[p] != tp.x || pos[p + 1] != tp.y || pos[p + 2] != tp.z ||
+            rot[q] != transform.rot.x || rot[q + 1] != transform.rot.y ||
+            rot[q + 2] != transform.rot.z || rot[q + 3] != transform.rot.w ||
+            sca[p] != ts.x || sca[p + 1] != ts.y || sca[p + 2] != ts.z)
+            putLocal(s, transform);
+    }
+    
+    /**
+     * Updates the world matrix of each node whose local transform, offset, or
+     * ancestors have changed since the last update. Nodes which follow objects
+     * or bones first read their current transform or matrix, so any armature
+     * solvers should be solved before this is called.
+     */
+    public void update()
+    {
+        if (unsorted) sort();
+        
+        for (int s=0; s<numSlots; s++)
+        {
+            Object source = sources[s];
+            if (source == null) continue;
+            if (source instanceof ModelObject) follow(s, ((ModelObject<?>)source).transform);
+            else
+            {
+                ((BoneSolver)source).getModelMatrix(boneMatrix);
+                if (differs(boneMatrix, offsets, s*16))
+                {
+                    put(boneMatrix, offsets, s*16);
+                    markDirty(s);
+                }
+            }
+        }
+        
+        //Parents come first, so a dirty parent has always been updated, and
+        //has marked its children dirty, by the time they are reached.
+        for (int s=firstDirty; s<numSlots; s++)
+        {
+            int p = parentSlot[s];
+            if (!dirty[s])
+            {
+                if (p < 0 || !dirty[p]) continue;
+                dirty[s] = true;
+            }
+            
+            localMatrix(s, local);
+            float[] m = local;
+            if (hasOffset[s])
+            {
+                mult(offsets, s*16, local, 0, offsetLocal, 0);
+                m = offsetLocal;
+            }
+            if (p >= 0) mult(worlds, p*16, m, 0, worlds, s*16);
+            else System.arraycopy(m, 0, worlds, s*16, 16);
+        }
+        
+        if (firstDirty < numSlots) Arrays.fill(dirty, firstDirty, numSlots, false);
+        firstDirty = numSlots;
+    }
+    
+    /**
+     * Copies the world matrix of the given node, as of the last update, into
+     * {@code result}.
+     * 
+     * @param node A node.
+     * @param result The matrix in which to store the result.
+     */
+    public void getWorld(int node, Mat4 result)
+    {
+        float[] d = worlds;
+        int i = slot(node)*16;
+        result.a = d[i]; result.e = d[i + 1]; result.i = d[i + 2]; result.m = d[i + 3];
+        result.b = d[i + 4]; result.f = d[i + 5]; result.j = d[i + 6]; result.n = d[i + 7];
+        result.c = d[i + 8]; result.g = d[i + 9]; result.k = d[i + 10]; result.o = d[i + 11];
+        result.d = d[i + 12]; result.h = d[i + 13]; result.l = d[i + 14]; result.p = d[i + 15];
+    }
+    
+    /**
+     * Decomposes the world matrix of the given node, as of the last update, and
+     * stores it in {@code result}. Not valid for nodes whose world matrix has
+     * shearing.
+     * 
+     * @param node A node.
+     * @param result The transform in which to store the result.
+     */
+    public void getWorld(int node, Transform result)
+    {
+        try (Scratch scratch = Scratch.push())
+        {
+            Mat4 m = scratch.mat4();
+            getWorld(node, m);
+            Transform.decompose(m, result);
+        }
+    }
+    
+    /**
+     * Copies the world position of the given node, as of the last update, into
+     * {@code result}.
+     * 
+     * @param node A node.
+     * @param result The vector in which to store the result.
+     */
+    public void getWorldPos(int node, Vec3 result)
+    {
+        int i = slot(node)*16;
+        result.set(worlds[i + 12], worlds[i + 13], worlds[i + 14]);
+    }
+    
+    /**
+     * @return The number of nodes in this graph.
+     */
+    public int size()
+    {
+        return size;
+    }
+}
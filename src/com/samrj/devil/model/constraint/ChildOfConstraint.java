@@ -2,6 +2,7 @@ package com.samrj.devil.model.constraint;
 
 import com.samrj.devil.math.Mat3;
 import com.samrj.devil.math.Quat;
+import com.samrj.devil.math.Scratch;
 import com.samrj.devil.math.topo.DAG;
 import com.samrj.devil.model.ArmatureSolver;
 import com.samrj.devil.model.ArmatureSolver.BoneSolver;
@@ -50,13 +51,18 @@ public class ChildOfConstraint implements ArmatureSolver.Constraint
     {
         child.finalTransform.pos.set(child.poseTransform.pos);
         
-        Mat3 basis = Mat3.identity();
-        basis.mult(child.bone.invMat);
-        basis.mult(parent.rotMatrix);
-        basis.mult(parent.bone.matrix); //is this where it should be? everything else is I think.
-        basis.mult(child.bone.matrix);
-        basis.rotate(Quat.normalize(child.poseTransform.rot));
-        
-        child.finalTransform.rot.setRotation(basis);
+        try (Scratch scratch = Scratch.push())
+        {
+            Mat3 basis = scratch.mat3().setIdentity();
+            basis.mult(child.bone.invMat);
+            basis.mult(parent.rotMatrix);
+            basis.mult(parent.bone.matrix); //is this where it should be? everything else is I think.
+            basis.mult(child.bone.matrix);
+            Quat rot = scratch.quat();
+            Quat.normalize(child.poseTransform.rot, rot);
+            basis.rotate(rot);
+            
+            child.finalTransform.rot.setRotation(basis);
+        }
     }
 }
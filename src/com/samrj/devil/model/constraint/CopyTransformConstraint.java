@@ -1,6 +1,7 @@
 package com.samrj.devil.model.constraint;
 
 import com.samrj.devil.math.Mat3;
+import com.samrj.devil.math.Scratch;
 import com.samrj.devil.math.Transform;
 import com.samrj.devil.math.Vec3;
 import com.samrj.devil.math.topo.DAG;
@@ -47,25 +48,28 @@ public class CopyTransformConstraint implements ArmatureSolver.Constraint
     @Override
     public void solve()
     {
-        Vec3 head = new Vec3(target.bone.head);
-        if (parent != null) head.mult(parent.skinMatrix);
-        
-        Transform t = Transform.identity();
-        
-        t.pos.set(source.getHeadPos()); //object
-        t.pos.sub(head);
-        if (parent != null) t.pos.mult(parent.invRotMat);
-        t.pos.mult(target.bone.invMat);
-        
-        Mat3 basis = Mat3.identity();
-        basis.mult(target.bone.invMat);
-        if (target.bone.inheritRotation) basis.mult(parent.invRotMat);
-        basis.mult(source.rotMatrix);
-        basis.mult(source.bone.matrix); //is this where it should be?
-        basis.mult(target.bone.matrix);
-        t.rot.setRotation(basis);
-        
-        target.finalTransform.set(target.poseTransform);
-        target.finalTransform.lerp(t, influence);
+        try (Scratch scratch = Scratch.push())
+        {
+            Vec3 head = scratch.vec3().set(target.bone.head);
+            if (parent != null) head.mult(parent.skinMatrix);
+            
+            Transform t = scratch.transform().setIdentity();
+            
+            source.getHeadPos(t.pos); //object
+            t.pos.sub(head);
+            if (parent != null) t.pos.mult(parent.invRotMat);
+            t.pos.mult(target.bone.invMat);
+            
+            Mat3 basis = scratch.mat3().setIdentity();
+            basis.mult(target.bone.invMat);
+            if (target.bone.inheritRotation) basis.mult(parent.invRotMat);
+            basis.mult(source.rotMatrix);
+            basis.mult(source.bone.matrix); //is this where it should be?
+            basis.mult(target.bone.matrix);
+            t.rot.setRotation(basis);
+            
+            target.finalTransform.set(target.poseTransform);
+            target.finalTransform.lerp(t, influence);
+        }
     }
 }
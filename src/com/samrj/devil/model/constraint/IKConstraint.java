@@ -2,6 +2,7 @@ package com.samrj.devil.model.constraint;
 
 import com.samrj.devil.math.Mat3;
 import com.samrj.devil.math.Quat;
+import com.samrj.devil.math.Scratch;
 import com.samrj.devil.math.Util;
 import com.samrj.devil.math.Vec3;
 import com.samrj.devil.math.topo.DAG;
@@ -16,6 +17,8 @@ import java.util.Set;
  */
 public class IKConstraint implements ArmatureSolver.Constraint
 {
+    private static final Vec3 X_AXIS = new Vec3(1.0f, 0.0f, 0.0f);
+    
     private static float nrm(Vec3 v)
     {
         float len = v.length();
@@ -84,20 +87,32 @@ public class IKConstraint implements ArmatureSolver.Constraint
         
         Quat rot1 = start.finalTransform.rot;
         Quat rot2 = end.finalTransform.rot;
-        Vec3 headPos = start.getHeadPos();
+        float x;
         
-        //Create basis vectors for bone orientation.
-        Vec3 ikAxis = target.getHeadPos().sub(headPos);
-        Vec3 poleAxis = pole.getHeadPos().sub(headPos).reject(ikAxis).normalize();
-        float x = nrm(ikAxis);
-        toStart(ikAxis);
-        toStart(poleAxis);
-        Vec3 yAxis = Vec3.cross(poleAxis, ikAxis).normalize();
-        Mat3 basis = new Mat3(ikAxis.x, yAxis.x, poleAxis.x,
-                              ikAxis.y, yAxis.y, poleAxis.y,
-                              ikAxis.z, yAxis.z, poleAxis.z);
-        rot1.mult(Quat.rotation(basis));
-        rot1.rotate(new Vec3(1, 0, 0), poleAngle);
+        try (Scratch scratch = Scratch.push())
+        {
+            Vec3 headPos = scratch.vec3();
+            start.getHeadPos(headPos);
+            
+            //Create basis vectors for bone orientation.
+            Vec3 ikAxis = scratch.vec3(), poleAxis = scratch.vec3(), yAxis = scratch.vec3();
+            target.getHeadPos(ikAxis);
+            ikAxis.sub(headPos);
+            pole.getHeadPos(poleAxis);
+            poleAxis.sub(headPos).reject(ikAxis).normalize();
+            x = nrm(ikAxis);
+            toStart(ikAxis);
+            toStart(poleAxis);
+            Vec3.cross(poleAxis, ikAxis, yAxis);
+            yAxis.normalize();
+            Mat3 basis = scratch.mat3().set(ikAxis.x, yAxis.x, poleAxis.x,
+                                            ikAxis.y, yAxis.y, poleAxis.y,
+                                            ikAxis.z, yAxis.z, poleAxis.z);
+            Quat rot = scratch.quat();
+            Quat.rotation(basis, rot);
+            rot1.mult(rot);
+            rot1.rotate(X_AXIS, poleAngle);
+        }
         
         if (x < d1 + d2) //Calculate IK angles and perform hinge rotations.
         {
@@ -22,8 +22,11 @@
 
 package com.samrj.devil.net;
 
+import com.samrj.devil.util.LongObjectHashMap;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.net.Inet4Address;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
@@ -62,7 +65,9 @@ public class UDPServer implements AutoCloseable
     private final byte[] password;
     private final SecureRandom csprng;
     private final MessageDigest digest;
-    private final Map<SocketAddress, ServerClient> clients = new HashMap<>();
+    private final LongObjectHashMap<ServerClient> clients = new LongObjectHashMap<>();
+    private final Map<SocketAddress, ServerClient> otherClients = new HashMap<>();
+    private final ArrayList<ServerClient> clientList = new ArrayList<>();
     private final Set<ServerClient> connectedClients = Collections.newSetFromMap(new IdentityHashMap<>());
     private final int capacity;
     
@@ -154,9 +159,47 @@ public class UDPServer implements AutoCloseable
         }
     }
     
+    /**
+     * Packs an IPv4 address and port into a key for the client map, or returns
+     * -1 for any other kind of address. An Inet4Address hashes to its address,
+     * so the hash is used rather than copying the address out, and clients
+     * found by key are still checked against the full address.
+     */
+    private static long addressKey(SocketAddress address)
+    {
+        if (!(address instanceof InetSocketAddress)) return -1L;
+        InetSocketAddress socketAddress = (InetSocketAddress)address;
+        InetAddress inetAddress = socketAddress.getAddress();
+        if (!(inetAddress instanceof Inet4Address)) return -1L;
+        
+        return ((inetAddress.hashCode() & 0xFFFFFFFFL) << 16) | socketAddress.getPort();
+    }
+    
+    private void removeClient(ServerClient client)
+    {
+        if (client.key != -1L) clients.remove(client.key);
+        else otherClients.remove(client.address);
+    }
+    
+    private List<ServerClient> allClients()
+    {
+        clientList.clear();
+        clients.values(clientList);
+        clientList.addAll(otherClients.values());
+        return clientList;
+    }
+    
     private void incomingPacket(ByteBuffer buffer, SocketAddress address) throws IOException
     {
-        ServerClient client = clients.get(address);
+        long key = addressKey(address);
+        ServerClient client = null;
+        if (key != -1L)
+        {
+            client = clients.get(key);
+            //Any other address with the same key goes in the general map.
+            if (client != null && !client.address.equals(address)) key = -1L;
+        }
+        if (key == -1L) client = otherClients.get(address);
         
         if (client == null)
         {
@@ -173,8 +216,9 @@ public class UDPServer implements AutoCloseable
                 return;
             }
             
-            client = new ServerClient(address);
-            clients.put(address, client);
+            client = new ServerClient(address, key);
+            if (key != -1L) clients.put(key, client);
+            else otherClients.put(address, client);
             
             client.nonce = nonce;
             client.serverNonce = new byte[16];
@@ -196,7 +240,7 @@ public class UDPServer implements AutoCloseable
                 
                 if (connectedClients.size() >= capacity)
                 {
-                    clients.remove(address);
+                    removeClient(client);
                     client.state = CLIENT_STATE_DISCONNECTED;
                     sendServerFull(address, client.nonce);
                     return;
@@ -206,7 +250,7 @@ public class UDPServer implements AutoCloseable
                 buffer.get(challengeResponse);
                 if (!Arrays.equals(challengeResponse, client.expectedChallengeResponse))
                 {
-                    clients.remove(address);
+                    removeClient(client);
                     client.state = CLIENT_STATE_DISCONNECTED;
                     sendPasswordIncorrect(client);
                     break;
@@ -328,13 +372,14 @@ public class UDPServer implements AutoCloseable
             }
             
             //OUTGOING
-            for (Iterator<ServerClient> it = clients.values().iterator(); it.hasNext();)
+            List<ServerClient> list = allClients();
+            for (int i=0; i<list.size(); i++)
             {
-                ServerClient client = it.next();
+                ServerClient client = list.get(i);
                 float timeOut = client.state == CLIENT_STATE_CONNECTED ? CONNECTED_TIME_OUT : PENDING_TIME_OUT;
                 if (client.lastHeardFrom >= timeOut)
                 {
-                    it.remove();
+                    removeClient(client);
                     client.state = CLIENT_STATE_DISCONNECTED;
                     connectedClients.remove(client);
                     verbosity.low(log, () -> "SERVER: Timed out client " + client.address);
@@ -351,6 +396,7 @@ public class UDPServer implements AutoCloseable
                 client.lastHeardFrom += dt;
                 client.lastSpokenTo += dt;
             }
+            list.clear();
         }
     }
     
@@ -360,12 +406,14 @@ public class UDPServer implements AutoCloseable
     @Override
     public void close() throws IOException
     {
-        for (ServerClient client : clients.values())
+        for (ServerClient client : allClients())
         {
             if (client.state == CLIENT_STATE_CONNECTED && channel.isOpen()) sendDisconnect(client);
             client.state = CLIENT_STATE_DISCONNECTED;
         }
+        clientList.clear();
         clients.clear();
+        otherClients.clear();
         connectedClients.clear();
         channel.close();
     }
@@ -376,6 +424,7 @@ public class UDPServer implements AutoCloseable
     public class ServerClient implements Peer
     {
         private final SocketAddress address;
+        private final long key;
         private int state = CLIENT_STATE_CONNECTION_PENDING;
         private float lastHeardFrom = 0.0f;
         private float lastSpokenTo = Float.POSITIVE_INFINITY;
@@ -387,9 +436,10 @@ public class UDPServer implements AutoCloseable
         
         private final ArrayDeque<byte[]> inbox = new ArrayDeque<>();
         
-        private ServerClient(SocketAddress address)
+        private ServerClient(SocketAddress address, long key)
         {
             this.address = address;
+            this.key = key;
         }
         
         /**
@@ -464,7 +514,7 @@ public class UDPServer implements AutoCloseable
                 connectedClients.remove(this);
             }
             state = CLIENT_STATE_DISCONNECTED;
-            clients.remove(address);
+            removeClient(this);
             inbox.clear();
         }
     }
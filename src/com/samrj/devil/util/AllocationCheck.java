@@ -0,0 +1,138 @@
+package com.samrj.devil.util;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Checks that designated hot paths do not allocate on the heap. Checking is
+ * off by default, and costs nothing once compiled. Setting the system property
+ * devil.allocationCheck to true turns it on, for tests and profiling runs, in
+ * which case a path that allocates throws an IllegalStateException.
+ * 
+ * Each path is allowed to allocate during its first few calls, so that scratch
+ * pools and lazily created state may warm up. The number of calls defaults to
+ * 100, and may be set with the system property devil.allocationCheck.warmup.
+ * 
+ * Allocations are counted per thread, using the JVM's thread allocation
+ * counter. Code which only avoids allocating once the JIT compiler has applied
+ * escape analysis will fail while it is still interpreted, so hot paths should
+ * use result parameters or Scratch instead. The JVM's optimizing compiler may
+ * itself cause occasional small allocations while it recompiles code, so checks
+ * should run either interpreted (-Xint) or with -XX:TieredStopAtLevel=1.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class AllocationCheck
+{
+    /**
+     * Whether allocation checking is on.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("devil.allocationCheck");
+    
+    private static final int WARMUP = Integer.getInteger("devil.allocationCheck.warmup", 100);
+    private static final com.sun.management.ThreadMXBean THREADS;
+    private static final long OVERHEAD;
+    
+    static
+    {
+        if (ENABLED)
+        {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (!(bean instanceof com.sun.management.ThreadMXBean) ||
+                !((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported())
+                throw new UnsupportedOperationException("Thread allocation counting is not supported by this JVM.");
+            
+            THREADS = (com.sun.management.ThreadMXBean)bean;
+            THREADS.setThreadAllocatedMemoryEnabled(true);
+            
+            //Reading the counter may itself allocate, on some JVMs.
+            long overhead = Long.MAX_VALUE;
+            for (int i=0; i<16; i++)
+            {
+                long start = allocatedBytes();
+                overhead = Math.min(overhead, allocatedBytes() - start);
+            }
+            OVERHEAD = overhead;
+        }
+        else
+        {
+            THREADS = null;
+            OVERHEAD = 0L;
+        }
+    }
+    
+    private static long allocatedBytes()
+    {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    
+    /**
+     * Creates a new hot path with the given name, which is used in error
+     * messages. Paths should be created once, and stored in static fields.
+     * 
+     * @param name The name of the path.
+     * @return A new path.
+     */
+    public static Path path(String name)
+    {
+        if (name == null) throw new NullPointerException();
+        return new Path(name);
+    }
+    
+    /**
+     * A section of code which should not allocate.
+     */
+    public static final class Path
+    {
+        private final String name;
+        private volatile int calls;
+        
+        private Path(String name)
+        {
+            this.name = name;
+        }
+        
+        /**
+         * Marks the start of this path on the current thread.
+         * 
+         * @return A mark to pass to end().
+         */
+        public long begin()
+        {
+            return ENABLED ? allocatedBytes() : 0L;
+        }
+        
+        /**
+         * Marks the end of this path on the current thread.
+         * 
+         * @param mark The value returned by the matching call to begin().
+         * @throws IllegalStateException If checking is on and this path has
+         *         allocated after warming up.
+         */
+        public void end(long mark)
+        {
+            if (!ENABLED) return;
+            
+            long bytes = allocatedBytes() - mark - OVERHEAD;
+            if (calls < WARMUP)
+            {
+                calls++;
+                return;
+            }
+            if (bytes > 0L) throw new IllegalStateException(name + " allocated " + bytes + " bytes.");
+        }
+        
+        /**
+         * @return The name of this path.
+         */
+        public String getName()
+        {
+            return name;
+        }
+    }
+    
+    private AllocationCheck()
+    {
+    }
+}
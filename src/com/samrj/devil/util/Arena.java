@@ -0,0 +1,349 @@
+package com.samrj.devil.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Bump allocator for short-lived native memory. Allocating only moves a
+ * pointer forward through a large native block, and the whole arena is freed
+ * at once by rewinding it, so allocations are much cheaper than malloc() and
+ * free(). Blocks are allocated through NativeMemory, so arena memory is counted
+ * there.
+ * 
+ * Each thread has a scratch arena, used like MemoryStack or Scratch:
+ * 
+ * <pre>
+ * try (Arena arena = Arena.push())
+ * {
+ *     ByteBuffer buffer = arena.malloc(size);
+ *     ...
+ * }
+ * </pre>
+ * 
+ * Each thread also has a frame arena, for memory which is needed until the
+ * end of the current frame. Game resets its thread's frame arena at the end of
+ * every frame; other threads must call endFrame() themselves.
+ * 
+ * An arena keeps the blocks it has allocated when it is rewound, so once warmed
+ * up it does not allocate native memory. Blocks are kept until free() is
+ * called, or freeThread() for a thread's own arenas. Requests larger than the
+ * block size are given their own block, which is freed as soon as it is
+ * rewound past. Arenas are not thread safe, and memory taken from an arena
+ * must not be used after the arena is rewound past it.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class Arena implements AutoCloseable
+{
+    /**
+     * The default size of each block, in bytes.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+    
+    private static final ThreadLocal<Arena> SCRATCH = ThreadLocal.withInitial(() -> new Arena(NativeMemory.Category.SCRATCH));
+    private static final ThreadLocal<Arena> FRAME = ThreadLocal.withInitial(() -> new Arena(NativeMemory.Category.FRAME));
+    
+    /**
+     * Opens a new frame in this thread's scratch arena, and returns the arena.
+     * The frame must be closed by the same thread, before any frame opened
+     * before it.
+     * 
+     * @return This thread's scratch arena.
+     */
+    public static Arena push()
+    {
+        return SCRATCH.get().pushFrame();
+    }
+    
+    /**
+     * Returns this thread's frame arena, whose memory lasts until the next
+     * call to endFrame() on this thread.
+     * 
+     * @return This thread's frame arena.
+     */
+    public static Arena frame()
+    {
+        return FRAME.get();
+    }
+    
+    /**
+     * Rewinds this thread's frame arena, freeing all memory taken from it
+     * during the current frame.
+     */
+    public static void endFrame()
+    {
+        FRAME.get().reset();
+    }
+    
+    /**
+     * Frees the blocks of this thread's scratch and frame arenas, such as
+     * before a thread exits. Both arenas may still be used afterwards.
+     */
+    public static void freeThread()
+    {
+        SCRATCH.get().free();
+        FRAME.get().free();
+    }
+    
+    private final NativeMemory.Category category;
+    private final int blockSize;
+    
+    //Blocks, in the order they are used. Oversized blocks hold one allocation.
+    private long[] blocks = new long[4];
+    private long[] blockSizes = new long[4];
+    private int numBlocks;
+    
+    //The block being allocated from, and the offset of its first free byte.
+    private int current = -1;
+    private long offset;
+    
+    //Saved positions for nested frames, as pairs of block and offset.
+    private long[] marks = new long[16];
+    private int depth;
+    
+    private long used, peak;
+    
+    /**
+     * Creates a new arena with the given block size. No memory is allocated
+     * until the arena is first used.
+     * 
+     * @param category The category to count this arena's memory under.
+     * @param blockSize The size of each block, in bytes.
+     */
+    public Arena(NativeMemory.Category category, int blockSize)
+    {
+        if (category == null) throw new NullPointerException();
+        if (blockSize <= 0) throw new IllegalArgumentException();
+        this.category = category;
+        this.blockSize = blockSize;
+    }
+    
+    /**
+     * Creates a new arena with the default block size.
+     * 
+     * @param category The category to count this arena's memory under.
+     */
+    public Arena(NativeMemory.Category category)
+    {
+        this(category, DEFAULT_BLOCK_SIZE);
+    }
+    
+    /**
+     * Opens a new frame in this arena. Closing the arena then returns all
+     * memory taken since the frame was opened.
+     * 
+     * @return This arena.
+     */
+    public Arena pushFrame()
+    {
+        if (depth*2 == marks.length) marks = Arrays.copyOf(marks, marks.length*2);
+        marks[depth*2] = current;
+        marks[depth*2 + 1] = offset;
+        depth++;
+        return this;
+    }
+    
+    private void insertBlock(int index, long size)
+    {
+        if (numBlocks == blocks.length)
+        {
+            blocks = Arrays.copyOf(blocks, numBlocks*2);
+            blockSizes = Arrays.copyOf(blockSizes, numBlocks*2);
+        }
+        long address = NativeMemory.nmalloc(category, size);
+        System.arraycopy(blocks, index, blocks, index + 1, numBlocks - index);
+        System.arraycopy(blockSizes, index, blockSizes, index + 1, numBlocks - index);
+        blocks[index] = address;
+        blockSizes[index] = size;
+        numBlocks++;
+    }
+    
+    /**
+     * Allocates the given number of bytes with the given alignment, and returns
+     * their address.
+     * 
+     * @param size The number of bytes to allocate.
+     * @param alignment The alignment of the memory, which must be a power of two.
+     * @return The address of the allocated memory.
+     */
+    public long nmalloc(long size, int alignment)
+    {
+        if (size < 0L) throw new IllegalArgumentException();
+        if (alignment <= 0 || (alignment & (alignment - 1)) != 0) throw new IllegalArgumentException();
+        
+        if (current >= 0)
+        {
+            long address = (blocks[current] + offset + alignment - 1) & -alignment;
+            long end = address - blocks[current] + size;
+            if (end <= blockSizes[current])
+            {
+                used += end - offset;
+                if (used > peak) peak = used;
+                offset = end;
+                return address;
+            }
+        }
+        
+        //Move on to the next block, allocating it if needed. The rest of the
+        //current block goes unused until the arena is rewound.
+        if (current >= 0) used += blockSizes[current] - offset;
+        long needed = size + alignment - 1;
+        int next = current + 1;
+        if (needed > blockSize) insertBlock(next, needed);
+        else if (next == numBlocks || blockSizes[next] != blockSize) insertBlock(next, blockSize);
+        
+        current = next;
+        long address = (blocks[current] + alignment - 1) & -alignment;
+        offset = address - blocks[current] + size;
+        used += offset;
+        if (used > peak) peak = used;
+        return address;
+    }
+    
+    /**
+     * Allocates the given number of bytes, aligned to eight bytes.
+     * 
+     * @param size The number of bytes to allocate.
+     * @return The address of the allocated memory.
+     */
+    public long nmalloc(long size)
+    {
+        return nmalloc(size, 8);
+    }
+    
+    /**
+     * Returns a buffer with uninitialized contents, in native byte order.
+     * 
+     * @param size The size of the buffer, in bytes.
+     * @return A buffer over memory from this arena.
+     */
+    public ByteBuffer malloc(int size)
+    {
+        return memByteBuffer(nmalloc(size), size).order(ByteOrder.nativeOrder());
+    }
+    
+    /**
+     * Returns a buffer filled with zeroes, in native byte order.
+     * 
+     * @param size The size of the buffer, in bytes.
+     * @return A buffer over memory from this arena.
+     */
+    public ByteBuffer calloc(int size)
+    {
+        long address = nmalloc(size);
+        memSet(address, 0, size);
+        return memByteBuffer(address, size).order(ByteOrder.nativeOrder());
+    }
+    
+    /**
+     * Returns a float buffer with uninitialized contents.
+     * 
+     * @param size The number of floats in the buffer.
+     * @return A buffer over memory from this arena.
+     */
+    public FloatBuffer mallocFloat(int size)
+    {
+        return memFloatBuffer(nmalloc(size*4L), size);
+    }
+    
+    /**
+     * Returns an int buffer with uninitialized contents.
+     * 
+     * @param size The number of ints in the buffer.
+     * @return A buffer over memory from this arena.
+     */
+    public IntBuffer mallocInt(int size)
+    {
+        return memIntBuffer(nmalloc(size*4L), size);
+    }
+    
+    //Rewinds to the given position, freeing any oversized blocks after it.
+    private void rewind(int block, long blockOffset)
+    {
+        int kept = block + 1;
+        for (int i=block + 1; i<numBlocks; i++)
+        {
+            if (blockSizes[i] != blockSize) NativeMemory.nfree(blocks[i]);
+            else
+            {
+                blocks[kept] = blocks[i];
+                blockSizes[kept++] = blockSize;
+            }
+        }
+        numBlocks = kept;
+        
+        //Count the bytes in use up to the new position.
+        used = blockOffset;
+        for (int i=0; i<block; i++) used += blockSizes[i];
+        
+        current = block;
+        offset = blockOffset;
+    }
+    
+    /**
+     * Closes the most recent frame, returning all memory taken since it was
+     * opened.
+     */
+    @Override
+    public void close()
+    {
+        if (depth == 0) throw new IllegalStateException("No open arena frame.");
+        depth--;
+        rewind((int)marks[depth*2], marks[depth*2 + 1]);
+    }
+    
+    /**
+     * Returns all memory taken from this arena, and discards any open frames.
+     */
+    public void reset()
+    {
+        depth = 0;
+        rewind(-1, 0L);
+    }
+    
+    /**
+     * Resets this arena and frees all of its blocks. The arena may still be
+     * used afterwards, and will allocate new blocks as needed.
+     */
+    public void free()
+    {
+        reset();
+        for (int i=0; i<numBlocks; i++) NativeMemory.nfree(blocks[i]);
+        numBlocks = 0;
+    }
+    
+    /**
+     * @return The number of bytes taken from this arena and not yet returned,
+     *         including alignment padding and any unused space at the end of
+     *         filled blocks.
+     */
+    public long getUsedBytes()
+    {
+        return used;
+    }
+    
+    /**
+     * @return The largest number of bytes ever taken from this arena at once.
+     */
+    public long getPeakBytes()
+    {
+        return peak;
+    }
+    
+    /**
+     * @return The number of bytes of native memory held by this arena.
+     */
+    public long getReservedBytes()
+    {
+        long total = 0L;
+        for (int i=0; i<numBlocks; i++) total += blockSizes[i];
+        return total;
+    }
+}
@@ -0,0 +1,14 @@
+package com.samrj.devil.util;
+
+/**
+ * Float specialization of Consumer, which does not box.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+@FunctionalInterface
+public interface FloatConsumer
+{
+    public void accept(float value);
+}
@@ -0,0 +1,206 @@
+package com.samrj.devil.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Hash set of ints, which does not box. Uses open addressing with linear
+ * probing, so adding an entry only allocates when the table grows.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class IntHashSet
+{
+    //Zero marks empty slots, so whether zero is present is kept separately.
+    private int[] keys;
+    private int mask, maxFill, size;
+    private boolean hasZeroKey;
+    
+    /**
+     * Creates a new set which may hold the given number of entries before it
+     * needs to grow.
+     * 
+     * @param expectedSize The expected number of entries.
+     */
+    public IntHashSet(int expectedSize)
+    {
+        allocate(PrimitiveHash.capacityFor(expectedSize));
+    }
+    
+    /**
+     * Creates a new, empty set.
+     */
+    public IntHashSet()
+    {
+        this(0);
+    }
+    
+    private void allocate(int capacity)
+    {
+        keys = new int[capacity];
+        mask = capacity - 1;
+        maxFill = PrimitiveHash.maxFill(capacity);
+    }
+    
+    private int slot(int key)
+    {
+        int slot = PrimitiveHash.mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+    
+    /**
+     * Adds the given value to this set.
+     * 
+     * @param value The value to add.
+     * @return True if the value was not already present.
+     */
+    public boolean add(int value)
+    {
+        if (value == 0)
+        {
+            if (hasZeroKey) return false;
+            hasZeroKey = true;
+            size++;
+            return true;
+        }
+        
+        int slot = slot(value);
+        if (keys[slot] != 0) return false;
+        
+        keys[slot] = value;
+        if (++size > maxFill) rehash(keys.length << 1);
+        return true;
+    }
+    
+    /**
+     * Returns whether this set contains the given value.
+     * 
+     * @param value The value to look for.
+     * @return Whether the value is present.
+     */
+    public boolean contains(int value)
+    {
+        if (value == 0) return hasZeroKey;
+        return keys[slot(value)] != 0;
+    }
+    
+    /**
+     * Removes the given value from this set, if present.
+     * 
+     * @param value The value to remove.
+     * @return True if the value was removed.
+     */
+    public boolean remove(int value)
+    {
+        if (value == 0)
+        {
+            if (!hasZeroKey) return false;
+            hasZeroKey = false;
+            size--;
+            return true;
+        }
+        
+        int slot = slot(value);
+        if (keys[slot] == 0) return false;
+        shiftKeys(slot);
+        size--;
+        return true;
+    }
+    
+    //Fills the hole at the given slot with later entries from its probe run,
+    //so that lookups never need to skip over deleted entries.
+    private void shiftKeys(int hole)
+    {
+        while (true)
+        {
+            int last = hole;
+            int key;
+            while (true)
+            {
+                hole = (hole + 1) & mask;
+                key = keys[hole];
+                if (key == 0)
+                {
+                    keys[last] = 0;
+                    return;
+                }
+                int ideal = PrimitiveHash.mix(key) & mask;
+                if (last <= hole ? last >= ideal || ideal > hole : last >= ideal && ideal > hole) break;
+            }
+            keys[last] = key;
+        }
+    }
+    
+    private void rehash(int capacity)
+    {
+        int[] oldKeys = keys;
+        allocate(capacity);
+        for (int key : oldKeys)
+        {
+            if (key == 0) continue;
+            int slot = PrimitiveHash.mix(key) & mask;
+            while (keys[slot] != 0) slot = (slot + 1) & mask;
+            keys[slot] = key;
+        }
+    }
+    
+    /**
+     * Removes every value from this set, keeping its capacity.
+     */
+    public void clear()
+    {
+        Arrays.fill(keys, 0);
+        hasZeroKey = false;
+        size = 0;
+    }
+    
+    /**
+     * @return The number of values in this set.
+     */
+    public int size()
+    {
+        return size;
+    }
+    
+    /**
+     * @return Whether this set is empty.
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+    
+    /**
+     * Performs the given action for each value in this set, in no particular
+     * order. The set must not be modified during iteration.
+     * 
+     * @param action The action to perform.
+     */
+    public void forEach(IntConsumer action)
+    {
+        if (hasZeroKey) action.accept(0);
+        for (int key : keys) if (key != 0) action.accept(key);
+    }
+    
+    /**
+     * Returns a new array containing every value in this set, in no particular
+     * order.
+     */
+    public int[] toArray()
+    {
+        int[] out = new int[size];
+        int i = 0;
+        if (hasZeroKey) out[i++] = 0;
+        for (int key : keys) if (key != 0) out[i++] = key;
+        return out;
+    }
+    
+    @Override
+    public String toString()
+    {
+        return Arrays.toString(toArray());
+    }
+}
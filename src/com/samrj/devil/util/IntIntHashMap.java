@@ -0,0 +1,232 @@
+package com.samrj.devil.util;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from ints to ints, which does not box. Uses open addressing with
+ * linear probing, so entries are stored in two flat arrays and adding an entry
+ * only allocates when the table grows.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class IntIntHashMap
+{
+    //Zero marks empty slots, so the entry for the zero key is kept separately.
+    private int[] keys, values;
+    private int mask, maxFill, size;
+    private boolean hasZeroKey;
+    private int zeroValue;
+    
+    /**
+     * Creates a new map which may hold the given number of entries before it
+     * needs to grow.
+     * 
+     * @param expectedSize The expected number of entries.
+     */
+    public IntIntHashMap(int expectedSize)
+    {
+        allocate(PrimitiveHash.capacityFor(expectedSize));
+    }
+    
+    /**
+     * Creates a new, empty map.
+     */
+    public IntIntHashMap()
+    {
+        this(0);
+    }
+    
+    private void allocate(int capacity)
+    {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        maxFill = PrimitiveHash.maxFill(capacity);
+    }
+    
+    private int slot(int key)
+    {
+        int slot = PrimitiveHash.mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+    
+    /**
+     * Returns the value for the given key, or the given default if this map
+     * has no entry for it.
+     * 
+     * @param key The key to look up.
+     * @param missing The value to return if the key is absent.
+     * @return The value for the key.
+     */
+    public int get(int key, int missing)
+    {
+        if (key == 0) return hasZeroKey ? zeroValue : missing;
+        int slot = slot(key);
+        return keys[slot] == 0 ? missing : values[slot];
+    }
+    
+    /**
+     * Returns whether this map has an entry for the given key.
+     * 
+     * @param key The key to look up.
+     * @return Whether the key is present.
+     */
+    public boolean containsKey(int key)
+    {
+        if (key == 0) return hasZeroKey;
+        return keys[slot(key)] != 0;
+    }
+    
+    /**
+     * Maps the given key to the given value, replacing any previous value.
+     * 
+     * @param key The key to map.
+     * @param value The value to map it to.
+     * @return True if the key was not already present.
+     */
+    public boolean put(int key, int value)
+    {
+        if (key == 0)
+        {
+            zeroValue = value;
+            if (hasZeroKey) return false;
+            hasZeroKey = true;
+            size++;
+            return true;
+        }
+        
+        int slot = slot(key);
+        values[slot] = value;
+        if (keys[slot] != 0) return false;
+        
+        keys[slot] = key;
+        if (++size > maxFill) rehash(keys.length << 1);
+        return true;
+    }
+    
+    /**
+     * Removes the entry for the given key, if present.
+     * 
+     * @param key The key to remove.
+     * @return True if an entry was removed.
+     */
+    public boolean remove(int key)
+    {
+        if (key == 0)
+        {
+            if (!hasZeroKey) return false;
+            hasZeroKey = false;
+            size--;
+            return true;
+        }
+        
+        int slot = slot(key);
+        if (keys[slot] == 0) return false;
+        shiftKeys(slot);
+        size--;
+        return true;
+    }
+    
+    //Fills the hole at the given slot with later entries from its probe run,
+    //so that lookups never need to skip over deleted entries.
+    private void shiftKeys(int hole)
+    {
+        while (true)
+        {
+            int last = hole;
+            int key;
+            while (true)
+            {
+                hole = (hole + 1) & mask;
+                key = keys[hole];
+                if (key == 0)
+                {
+                    keys[last] = 0;
+                    return;
+                }
+                int ideal = PrimitiveHash.mix(key) & mask;
+                if (last <= hole ? last >= ideal || ideal > hole : last >= ideal && ideal > hole) break;
+            }
+            keys[last] = key;
+            values[last] = values[hole];
+        }
+    }
+    
+    private void rehash(int capacity)
+    {
+        int[] oldKeys = keys, oldValues = values;
+        allocate(capacity);
+        for (int i=0; i<oldKeys.length; i++)
+        {
+            int key = oldKeys[i];
+            if (key == 0) continue;
+            int slot = PrimitiveHash.mix(key) & mask;
+            while (keys[slot] != 0) slot = (slot + 1) & mask;
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+        }
+    }
+    
+    /**
+     * Removes every entry from this map, keeping its capacity.
+     */
+    public void clear()
+    {
+        Arrays.fill(keys, 0);
+        hasZeroKey = false;
+        size = 0;
+    }
+    
+    /**
+     * @return The number of entries in this map.
+     */
+    public int size()
+    {
+        return size;
+    }
+    
+    /**
+     * @return Whether this map has no entries.
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+    
+    /**
+     * Performs the given action for each entry in this map, in no particular
+     * order. The map must not be modified during iteration.
+     * 
+     * @param action The action to perform.
+     */
+    public void forEach(EntryConsumer action)
+    {
+        if (hasZeroKey) action.accept(0, zeroValue);
+        for (int i=0; i<keys.length; i++)
+            if (keys[i] != 0) action.accept(keys[i], values[i]);
+    }
+    
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("{");
+        forEach((key, value) ->
+        {
+            if (builder.length() > 1) builder.append(", ");
+            builder.append(key).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+    
+    /**
+     * Accepts the entries of an IntIntHashMap.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer
+    {
+        public void accept(int key, int value);
+    }
+}
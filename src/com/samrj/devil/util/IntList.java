@@ -1,12 +1,14 @@
 package com.samrj.devil.util;
 
 import java.util.Arrays;
-import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
 
 /**
  * Automatically resizing integer array.
  */
-public final class IntList implements Iterable<Integer>
+public final class IntList
 {
     private static final int DEFAULT_CAPACITY = 8;
     private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
@@ -33,7 +35,7 @@ public final class IntList implements Iterable<Integer>
     }
     
     /**
-     * Creates a new IntList with the default capacity, ten.
+     * Creates a new IntList with the default capacity, eight.
      */
     public IntList()
     {
@@ -107,7 +109,46 @@ public final class IntList implements Iterable<Integer>
      */
     public void add(IntList list)
     {
-        add(list.array);
+        int newSize = size + list.size;
+        grow(newSize);
+        System.arraycopy(list.array, 0, array, size, list.size);
+        size = newSize;
+    }
+    
+    /**
+     * Removes the entry at the given index, shifting any later entries down.
+     * 
+     * @param index The index of the entry to remove.
+     * @return The removed value.
+     */
+    public int remove(int index)
+    {
+        if (index >= size) throw new ArrayIndexOutOfBoundsException();
+        int value = array[index];
+        System.arraycopy(array, index + 1, array, index, size - index - 1);
+        size--;
+        return value;
+    }
+    
+    /**
+     * Returns the index of the first entry equal to the given value, or -1 if
+     * there is none.
+     * 
+     * @param value The value to search for.
+     * @return The index of the value, or -1.
+     */
+    public int indexOf(int value)
+    {
+        for (int i=0; i<size; i++) if (array[i] == value) return i;
+        return -1;
+    }
+    
+    /**
+     * Sorts the entries of this list into ascending order.
+     */
+    public void sort()
+    {
+        Arrays.sort(array, 0, size);
     }
     
     /**
@@ -148,13 +189,27 @@ public final class IntList implements Iterable<Integer>
         return array.length;
     }
     
-    @Override
-    public Iterator<Integer> iterator()
+    /**
+     * Performs the given action for each entry in this list, in order.
+     * 
+     * @param action The action to perform.
+     */
+    public void forEach(IntConsumer action)
+    {
+        for (int i=0; i<size; i++) action.accept(array[i]);
+    }
+    
+    /**
+     * Returns an iterator over the entries in this list, which does not box.
+     * 
+     * @return A new iterator.
+     */
+    public PrimitiveIterator.OfInt iterator()
     {
         return new IntListIterator();
     }
     
-    private final class IntListIterator implements Iterator<Integer>
+    private final class IntListIterator implements PrimitiveIterator.OfInt
     {
         private int i = 0;
         
@@ -165,8 +220,9 @@ public final class IntList implements Iterable<Integer>
         }
 
         @Override
-        public Integer next()
+        public int nextInt()
         {
+            if (i >= size) throw new NoSuchElementException();
             return array[i++];
         }
     }
@@ -0,0 +1,257 @@
+package com.samrj.devil.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Hash map from longs to objects, which does not box its keys. Uses open
+ * addressing with linear probing, so adding an entry only allocates when the
+ * table grows. Null values are not permitted.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class LongObjectHashMap<V>
+{
+    //Zero marks empty slots, so the entry for the zero key is kept separately.
+    private long[] keys;
+    private Object[] values;
+    private int mask, maxFill, size;
+    private V zeroValue;
+    
+    /**
+     * Creates a new map which may hold the given number of entries before it
+     * needs to grow.
+     * 
+     * @param expectedSize The expected number of entries.
+     */
+    public LongObjectHashMap(int expectedSize)
+    {
+        allocate(PrimitiveHash.capacityFor(expectedSize));
+    }
+    
+    /**
+     * Creates a new, empty map.
+     */
+    public LongObjectHashMap()
+    {
+        this(0);
+    }
+    
+    private void allocate(int capacity)
+    {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        maxFill = PrimitiveHash.maxFill(capacity);
+    }
+    
+    private int slot(long key)
+    {
+        int slot = PrimitiveHash.mix(key) & mask;
+        while (keys[slot] != 0L && keys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+    
+    /**
+     * Returns the value for the given key, or null if this map has no entry for
+     * it.
+     * 
+     * @param key The key to look up.
+     * @return The value for the key, or null.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key)
+    {
+        if (key == 0L) return zeroValue;
+        return (V)values[slot(key)];
+    }
+    
+    /**
+     * Returns whether this map has an entry for the given key.
+     * 
+     * @param key The key to look up.
+     * @return Whether the key is present.
+     */
+    public boolean containsKey(long key)
+    {
+        return get(key) != null;
+    }
+    
+    /**
+     * Maps the given key to the given value, replacing any previous value.
+     * 
+     * @param key The key to map.
+     * @param value The value to map it to. May not be null.
+     * @return The previous value for the key, or null if it was absent.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value)
+    {
+        if (value == null) throw new NullPointerException();
+        
+        if (key == 0L)
+        {
+            V old = zeroValue;
+            zeroValue = value;
+            if (old == null) size++;
+            return old;
+        }
+        
+        int slot = slot(key);
+        V old = (V)values[slot];
+        values[slot] = value;
+        if (old != null) return old;
+        
+        keys[slot] = key;
+        if (++size > maxFill) rehash(keys.length << 1);
+        return null;
+    }
+    
+    /**
+     * Removes the entry for the given key, if present.
+     * 
+     * @param key The key to remove.
+     * @return The removed value, or null if the key was absent.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key)
+    {
+        if (key == 0L)
+        {
+            V old = zeroValue;
+            if (old == null) return null;
+            zeroValue = null;
+            size--;
+            return old;
+        }
+        
+        int slot = slot(key);
+        V old = (V)values[slot];
+        if (old == null) return null;
+        shiftKeys(slot);
+        size--;
+        return old;
+    }
+    
+    //Fills the hole at the given slot with later entries from its probe run,
+    //so that lookups never need to skip over deleted entries.
+    private void shiftKeys(int hole)
+    {
+        while (true)
+        {
+            int last = hole;
+            long key;
+            while (true)
+            {
+                hole = (hole + 1) & mask;
+                key = keys[hole];
+                if (key == 0L)
+                {
+                    keys[last] = 0L;
+                    values[last] = null;
+                    return;
+                }
+                int ideal = PrimitiveHash.mix(key) & mask;
+                if (last <= hole ? last >= ideal || ideal > hole : last >= ideal && ideal > hole) break;
+            }
+            keys[last] = key;
+            values[last] = values[hole];
+        }
+    }
+    
+    private void rehash(int capacity)
+    {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i=0; i<oldKeys.length; i++)
+        {
+            long key = oldKeys[i];
+            if (key == 0L) continue;
+            int slot = PrimitiveHash.mix(key) & mask;
+            while (keys[slot] != 0L) slot = (slot + 1) & mask;
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+        }
+    }
+    
+    /**
+     * Removes every entry from this map, keeping its capacity.
+     */
+    public void clear()
+    {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, null);
+        zeroValue = null;
+        size = 0;
+    }
+    
+    /**
+     * @return The number of entries in this map.
+     */
+    public int size()
+    {
+        return size;
+    }
+    
+    /**
+     * @return Whether this map has no entries.
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+    
+    /**
+     * Performs the given action for each entry in this map, in no particular
+     * order. The map must not be modified during iteration.
+     * 
+     * @param action The action to perform.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> action)
+    {
+        if (zeroValue != null) action.accept(0L, zeroValue);
+        for (int i=0; i<keys.length; i++)
+            if (keys[i] != 0L) action.accept(keys[i], (V)values[i]);
+    }
+    
+    /**
+     * Adds every value in this map to the given collection, in no particular
+     * order. Useful for iterating over a copy while modifying this map.
+     * 
+     * @param result The collection to add to.
+     * @return The given collection.
+     */
+    @SuppressWarnings("unchecked")
+    public <C extends Collection<? super V>> C values(C result)
+    {
+        if (zeroValue != null) result.add(zeroValue);
+        for (int i=0; i<keys.length; i++)
+            if (keys[i] != 0L) result.add((V)values[i]);
+        return result;
+    }
+    
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("{");
+        forEach((key, value) ->
+        {
+            if (builder.length() > 1) builder.append(", ");
+            builder.append(key).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+    
+    /**
+     * Accepts the entries of a LongObjectHashMap.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V>
+    {
+        public void accept(long key, V value);
+    }
+}
@@ -0,0 +1,339 @@
+package com.samrj.devil.util;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.lwjgl.PointerBuffer;
+import org.lwjgl.system.Pointer;
+
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Tracked native memory allocation. Every long-lived native buffer in the
+ * library is allocated and freed through this class, so that native memory use
+ * may be counted by category, and so that buffers which are never freed can be
+ * found with a leak report. Short-lived native memory should come from an
+ * Arena instead, which is cheaper and is also counted here.
+ * 
+ * Buffers allocated here must be freed here, and not with MemoryUtil.memFree().
+ * Setting the system property devil.memory.trace to true records the stack
+ * trace of each allocation, which the leak report then includes.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class NativeMemory
+{
+    /**
+     * Whether allocation stack traces are recorded.
+     */
+    public static final boolean TRACE = Boolean.getBoolean("devil.memory.trace");
+    
+    /**
+     * The kinds of native memory counted separately.
+     */
+    public enum Category
+    {
+        MODEL, GL, AL, GRAPHICS, GUI, FRAME, SCRATCH, OTHER;
+    }
+    
+    private static final Category[] CATEGORIES = Category.values();
+    private static final Object LOCK = new Object();
+    private static final LongObjectHashMap<Allocation> LIVE = new LongObjectHashMap<>();
+    private static final long[] LIVE_BYTES = new long[CATEGORIES.length];
+    private static final long[] PEAK_BYTES = new long[CATEGORIES.length];
+    private static final long[] TOTAL_BYTES = new long[CATEGORIES.length];
+    private static final int[] LIVE_COUNT = new int[CATEGORIES.length];
+    
+    private static final class Allocation
+    {
+        private final Category category;
+        private final long size;
+        private final Throwable trace;
+        
+        private Allocation(Category category, long size)
+        {
+            this.category = category;
+            this.size = size;
+            trace = TRACE ? new Throwable("Allocated " + size + " bytes of " + category + " memory") : null;
+        }
+    }
+    
+    private static void track(long address, Category category, long size)
+    {
+        Allocation allocation = new Allocation(category, size);
+        synchronized (LOCK)
+        {
+            int c = category.ordinal();
+            LIVE.put(address, allocation);
+            LIVE_BYTES[c] += size;
+            TOTAL_BYTES[c] += size;
+            LIVE_COUNT[c]++;
+            if (LIVE_BYTES[c] > PEAK_BYTES[c]) PEAK_BYTES[c] = LIVE_BYTES[c];
+        }
+    }
+    
+    private static Allocation untrack(long address)
+    {
+        synchronized (LOCK)
+        {
+            Allocation allocation = LIVE.remove(address);
+            if (allocation == null) throw new IllegalArgumentException("Memory was not allocated by NativeMemory, or was already freed.");
+            int c = allocation.category.ordinal();
+            LIVE_BYTES[c] -= allocation.size;
+            LIVE_COUNT[c]--;
+            return allocation;
+        }
+    }
+    
+    /**
+     * Allocates the given number of bytes of uninitialized native memory, and
+     * returns its address. Must be freed with nfree().
+     * 
+     * @param category The category to count the memory under.
+     * @param size The number of bytes to allocate.
+     * @return The address of the new memory.
+     */
+    public static long nmalloc(Category category, long size)
+    {
+        if (category == null) throw new NullPointerException();
+        if (size < 0L) throw new IllegalArgumentException();
+        long address = nmemAllocChecked(size);
+        track(address, category, size);
+        return address;
+    }
+    
+    /**
+     * Frees native memory allocated by nmalloc().
+     * 
+     * @param address The address of the memory to free.
+     */
+    public static void nfree(long address)
+    {
+        if (address == NULL) return;
+        untrack(address);
+        nmemFree(address);
+    }
+    
+    /**
+     * Allocates a new native buffer with uninitialized contents.
+     * 
+     * @param category The category to count the memory under.
+     * @param size The size of the buffer, in bytes.
+     * @return A new buffer.
+     */
+    public static ByteBuffer malloc(Category category, int size)
+    {
+        return memByteBuffer(nmalloc(category, size), size);
+    }
+    
+    /**
+     * Allocates a new native buffer filled with zeroes.
+     * 
+     * @param category The category to count the memory under.
+     * @param size The size of the buffer, in bytes.
+     * @return A new buffer.
+     */
+    public static ByteBuffer calloc(Category category, int size)
+    {
+        if (category == null) throw new NullPointerException();
+        if (size < 0) throw new IllegalArgumentException();
+        long address = nmemCallocChecked(1L, size);
+        track(address, category, size);
+        return memByteBuffer(address, size);
+    }
+    
+    /**
+     * Allocates a new native float buffer with uninitialized contents.
+     * 
+     * @param category The category to count the memory under.
+     * @param size The number of floats in the buffer.
+     * @return A new buffer.
+     */
+    public static FloatBuffer mallocFloat(Category category, int size)
+    {
+        return memFloatBuffer(nmalloc(category, size*4L), size);
+    }
+    
+    /**
+     * Allocates a new native int buffer with uninitialized contents.
+     * 
+     * @param category The category to count the memory under.
+     * @param size The number of ints in the buffer.
+     * @return A new buffer.
+     */
+    public static IntBuffer mallocInt(Category category, int size)
+    {
+        return memIntBuffer(nmalloc(category, size*4L), size);
+    }
+    
+    /**
+     * Allocates a new native pointer buffer with uninitialized contents.
+     * 
+     * @param category The category to count the memory under.
+     * @param size The number of pointers in the buffer.
+     * @return A new buffer.
+     */
+    public static PointerBuffer mallocPointer(Category category, int size)
+    {
+        return memPointerBuffer(nmalloc(category, (long)size*Pointer.POINTER_SIZE), size);
+    }
+    
+    /**
+     * Resizes the given buffer, which must have been allocated by this class.
+     * Its contents are kept up to the lesser of the old and new sizes, and its
+     * position and limit are kept where they fit. The given buffer must no
+     * longer be used.
+     * 
+     * @param buffer The buffer to resize.
+     * @param size The new size of the buffer, in bytes.
+     * @return The resized buffer.
+     */
+    public static ByteBuffer realloc(ByteBuffer buffer, int size)
+    {
+        if (size < 0) throw new IllegalArgumentException();
+        long address = memAddress0(buffer);
+        Allocation old = untrack(address);
+        long newAddress;
+        try
+        {
+            newAddress = nmemReallocChecked(address, size);
+        }
+        catch (Throwable t)
+        {
+            track(address, old.category, old.size);
+            throw t;
+        }
+        track(newAddress, old.category, size);
+        
+        ByteBuffer out = memByteBuffer(newAddress, size);
+        out.order(buffer.order());
+        out.limit(Math.min(buffer.limit(), size));
+        out.position(Math.min(buffer.position(), out.limit()));
+        return out;
+    }
+    
+    /**
+     * Frees the given buffer, which must have been allocated by this class. Does
+     * nothing if the buffer is null.
+     * 
+     * @param buffer The buffer to free.
+     */
+    public static void free(Buffer buffer)
+    {
+        if (buffer != null) nfree(memAddress0(buffer));
+    }
+    
+    /**
+     * Frees the given pointer buffer, which must have been allocated by this
+     * class. Does nothing if the buffer is null.
+     * 
+     * @param buffer The buffer to free.
+     */
+    public static void free(PointerBuffer buffer)
+    {
+        if (buffer != null) nfree(buffer.address0());
+    }
+    
+    /**
+     * @return The number of bytes currently allocated in the given category.
+     */
+    public static long getLiveBytes(Category category)
+    {
+        synchronized (LOCK)
+        {
+            return LIVE_BYTES[category.ordinal()];
+        }
+    }
+    
+    /**
+     * @return The number of bytes currently allocated in every category.
+     */
+    public static long getLiveBytes()
+    {
+        synchronized (LOCK)
+        {
+            long total = 0L;
+            for (long bytes : LIVE_BYTES) total += bytes;
+            return total;
+        }
+    }
+    
+    /**
+     * @return The largest number of bytes ever allocated at once in the given
+     *         category.
+     */
+    public static long getPeakBytes(Category category)
+    {
+        synchronized (LOCK)
+        {
+            return PEAK_BYTES[category.ordinal()];
+        }
+    }
+    
+    /**
+     * @return The total number of bytes ever allocated in the given category.
+     */
+    public static long getTotalBytes(Category category)
+    {
+        synchronized (LOCK)
+        {
+            return TOTAL_BYTES[category.ordinal()];
+        }
+    }
+    
+    /**
+     * @return The number of allocations currently live in the given category.
+     */
+    public static int getLiveCount(Category category)
+    {
+        synchronized (LOCK)
+        {
+            return LIVE_COUNT[category.ordinal()];
+        }
+    }
+    
+    /**
+     * Returns a report of native memory use by category, followed by every
+     * allocation which has not yet been freed. If allocation tracing is on, each
+     * allocation is listed with the stack trace which allocated it. Memory held
+     * by arenas is listed under FRAME and SCRATCH.
+     * 
+     * @return A leak report.
+     */
+    public static String report()
+    {
+        List<Allocation> live;
+        StringBuilder builder = new StringBuilder("Native memory:\n");
+        synchronized (LOCK)
+        {
+            for (int c=0; c<CATEGORIES.length; c++)
+                builder.append(String.format("%-9s live %d bytes in %d allocations, peak %d bytes, total %d bytes%n",
+                        CATEGORIES[c], LIVE_BYTES[c], LIVE_COUNT[c], PEAK_BYTES[c], TOTAL_BYTES[c]));
+            live = LIVE.values(new ArrayList<>(LIVE.size()));
+        }
+        
+        if (live.isEmpty()) return builder.append("No live allocations.\n").toString();
+        
+        builder.append(live.size()).append(" live allocations:\n");
+        StringWriter writer = new StringWriter();
+        PrintWriter printer = new PrintWriter(writer);
+        for (Allocation allocation : live)
+        {
+            if (allocation.trace != null) allocation.trace.printStackTrace(printer);
+            else printer.println(allocation.size + " bytes of " + allocation.category + " memory");
+        }
+        printer.flush();
+        return builder.append(writer).toString();
+    }
+    
+    private NativeMemory()
+    {
+    }
+}
@@ -0,0 +1,59 @@
+package com.samrj.devil.util;
+
+/**
+ * Hashing and sizing shared by the open addressing primitive hash tables.
+ * Tables have power of two capacities, and are resized once they would be more
+ * than three quarters full.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+final class PrimitiveHash
+{
+    static final int MIN_CAPACITY = 8;
+    static final int MAX_CAPACITY = 1 << 30;
+    
+    /**
+     * Scrambles the bits of the given key, so that keys which differ only in
+     * their high bits do not all land in the same slot.
+     */
+    static int mix(int key)
+    {
+        int h = key*0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+    
+    static int mix(long key)
+    {
+        long h = key*0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+    
+    /**
+     * Returns the smallest table capacity which holds the given number of
+     * entries without resizing.
+     */
+    static int capacityFor(int expectedSize)
+    {
+        if (expectedSize < 0) throw new IllegalArgumentException();
+        long needed = ((long)expectedSize*4L + 2L)/3L;
+        if (needed > MAX_CAPACITY) throw new OutOfMemoryError();
+        int capacity = MIN_CAPACITY;
+        while (capacity < needed) capacity <<= 1;
+        return capacity;
+    }
+    
+    /**
+     * Returns the number of entries at which a table of the given capacity
+     * should grow.
+     */
+    static int maxFill(int capacity)
+    {
+        return capacity - (capacity >>> 2);
+    }
+    
+    private PrimitiveHash()
+    {
+    }
+}
@@ -0,0 +1,205 @@
+package com.samrj.devil.util;
+
+import java.util.Arrays;
+
+/**
+ * Sorted map from floats to ints, which does not box. Entries are kept in two
+ * parallel arrays sorted by key, so lookups are binary searches over a flat
+ * array. Best suited to maps which are built once and then searched often,
+ * as inserting a key in the middle moves every entry after it.
+ * 
+ * Keys are ordered as by Float.compare(), so -0.0 and 0.0 are distinct keys.
+ * NaN keys are not permitted.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+public final class SortedFloatIntMap
+{
+    private static final int DEFAULT_CAPACITY = 8;
+    
+    private float[] keys;
+    private int[] values;
+    private int size;
+    
+    /**
+     * Creates a new, empty map with the given initial capacity.
+     * 
+     * @param initialCapacity The initial size of the backing arrays.
+     */
+    public SortedFloatIntMap(int initialCapacity)
+    {
+        keys = new float[initialCapacity];
+        values = new int[initialCapacity];
+    }
+    
+    /**
+     * Creates a new, empty map with the default capacity, eight.
+     */
+    public SortedFloatIntMap()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    private int search(float key)
+    {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+    
+    /**
+     * Maps the given key to the given value, replacing any previous value.
+     * 
+     * @param key The key to map. May not be NaN.
+     * @param value The value to map it to.
+     * @return True if the key was not already present.
+     */
+    public boolean put(float key, int value)
+    {
+        if (Float.isNaN(key)) throw new IllegalArgumentException("NaN key.");
+        
+        int index = search(key);
+        if (index >= 0)
+        {
+            values[index] = value;
+            return false;
+        }
+        
+        index = -index - 1;
+        if (size == keys.length)
+        {
+            int capacity = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        return true;
+    }
+    
+    /**
+     * Returns the value for the given key, or the given default if this map
+     * has no entry for it.
+     * 
+     * @param key The key to look up.
+     * @param missing The value to return if the key is absent.
+     * @return The value for the key.
+     */
+    public int get(float key, int missing)
+    {
+        int index = search(key);
+        return index >= 0 ? values[index] : missing;
+    }
+    
+    /**
+     * Returns the index of the entry with the greatest key less than or equal
+     * to the given key, or -1 if there is no such entry.
+     * 
+     * @param key The key to search for.
+     * @return The index of the floor entry, or -1.
+     */
+    public int floorIndex(float key)
+    {
+        int index = search(key);
+        return index >= 0 ? index : -index - 2;
+    }
+    
+    /**
+     * Returns the index of the entry with the least key greater than or equal
+     * to the given key, or -1 if there is no such entry.
+     * 
+     * @param key The key to search for.
+     * @return The index of the ceiling entry, or -1.
+     */
+    public int ceilingIndex(float key)
+    {
+        int index = search(key);
+        if (index >= 0) return index;
+        index = -index - 1;
+        return index < size ? index : -1;
+    }
+    
+    /**
+     * Returns the value of the entry with the greatest key less than or equal
+     * to the given key, or the given default if there is no such entry.
+     * 
+     * @param key The key to search for.
+     * @param missing The value to return if there is no floor entry.
+     * @return The value of the floor entry.
+     */
+    public int floor(float key, int missing)
+    {
+        int index = floorIndex(key);
+        return index >= 0 ? values[index] : missing;
+    }
+    
+    /**
+     * Returns the value of the entry with the least key greater than or equal
+     * to the given key, or the given default if there is no such entry.
+     * 
+     * @param key The key to search for.
+     * @param missing The value to return if there is no ceiling entry.
+     * @return The value of the ceiling entry.
+     */
+    public int ceiling(float key, int missing)
+    {
+        int index = ceilingIndex(key);
+        return index >= 0 ? values[index] : missing;
+    }
+    
+    /**
+     * Returns the key of the entry at the given index, in ascending key order.
+     * 
+     * @param index The index of the entry.
+     * @return The key at the index.
+     */
+    public float keyAt(int index)
+    {
+        if (index >= size) throw new ArrayIndexOutOfBoundsException();
+        return keys[index];
+    }
+    
+    /**
+     * Returns the value of the entry at the given index, in ascending key
+     * order.
+     * 
+     * @param index The index of the entry.
+     * @return The value at the index.
+     */
+    public int valueAt(int index)
+    {
+        if (index >= size) throw new ArrayIndexOutOfBoundsException();
+        return values[index];
+    }
+    
+    /**
+     * Removes every entry from this map, keeping its capacity.
+     */
+    public void clear()
+    {
+        size = 0;
+    }
+    
+    /**
+     * @return The number of entries in this map.
+     */
+    public int size()
+    {
+        return size;
+    }
+    
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("{");
+        for (int i=0; i<size; i++)
+        {
+            if (i > 0) builder.append(", ");
+            builder.append(keys[i]).append('=').append(values[i]);
+        }
+        return builder.append('}').toString();
+    }
+}
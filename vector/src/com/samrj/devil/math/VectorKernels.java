@@ -0,0 +1,245 @@
+package com.samrj.devil.math;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Batch math kernels implemented with the incubating JDK vector API. Loaded
+ * reflectively by MathKernels when present, so that the rest of the library
+ * need not depend on it.
+ * 
+ * Each kernel performs the same float operations in the same order as
+ * ScalarKernels, without fused multiply-adds, so that results are identical.
+ * Leftover elements which do not fill a whole vector go through the scalar
+ * code.
+ * 
+ * @author Samuel Johnson (SmashMaster)
+ * @copyright 2020 Samuel Johnson
+ * @license https://github.com/SmashMaster/DevilUtil/blob/master/LICENSE
+ */
+final class VectorKernels implements MathKernels
+{
+    private static final VectorSpecies<Float> SPECIES_4 = FloatVector.SPECIES_128;
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    
+    /**
+     * The number of packed quaternions which fit in a vector.
+     */
+    private static final int QUATS = LANES/4;
+    
+    /**
+     * Shuffles which broadcast one component of each packed quaternion to the
+     * rest of that quaternion's lanes.
+     */
+    private static final VectorShuffle<Float> LANE_0 = VectorShuffle.fromOp(SPECIES, i -> i & ~3);
+    private static final VectorShuffle<Float> LANE_1 = VectorShuffle.fromOp(SPECIES, i -> (i & ~3) + 1);
+    private static final VectorShuffle<Float> LANE_2 = VectorShuffle.fromOp(SPECIES, i -> (i & ~3) + 2);
+    private static final VectorShuffle<Float> LANE_3 = VectorShuffle.fromOp(SPECIES, i -> (i & ~3) + 3);
+    
+    /**
+     * Scratch lanes for quatSlerp(): the dot products, then the start and end
+     * weights. Kept per thread, since one instance is shared by every thread.
+     */
+    private static final ThreadLocal<float[]> SLERP_LANES = ThreadLocal.withInitial(() -> new float[LANES*3]);
+    
+    /**
+     * Returns the sum of the components of each packed quaternion, in each of
+     * that quaternion's lanes. Each sum is ((x + y) + z) + w, like the scalar
+     * code, so the lanes are broadcast rather than reduced.
+     */
+    private static FloatVector sums(FloatVector v)
+    {
+        return v.rearrange(LANE_0).add(v.rearrange(LANE_1)).add(v.rearrange(LANE_2)).add(v.rearrange(LANE_3));
+    }
+    
+    /**
+     * Returns the length of each packed quaternion, in each of its lanes.
+     */
+    private static FloatVector lengths(FloatVector v)
+    {
+        return sums(v.mul(v)).lanewise(VectorOperators.SQRT);
+    }
+    
+    VectorKernels()
+    {
+    }
+    
+    @Override
+    public String getName()
+    {
+        return "vector" + SPECIES.vectorBitSize();
+    }
+    
+    @Override
+    public void mat4Mult(float[] a, int aStride, float[] b, int bStride, float[] r, int count)
+    {
+        FloatVector c0 = null, c1 = null, c2 = null, c3 = null;
+        
+        for (int n=0; n<count; n++)
+        {
+            int ao = n*aStride, bo = n*bStride, ro = n*16;
+            
+            //Columns of a are loaded before any writes, so r may overlap a.
+            if (aStride != 0 || n == 0)
+            {
+                c0 = FloatVector.fromArray(SPECIES_4, a, ao);
+                c1 = FloatVector.fromArray(SPECIES_4, a, ao + 4);
+                c2 = FloatVector.fromArray(SPECIES_4, a, ao + 8);
+                c3 = FloatVector.fromArray(SPECIES_4, a, ao + 12);
+            }
+            
+            for (int c=0; c<16; c+=4)
+            {
+                float y0 = b[bo + c], y1 = b[bo + c + 1], y2 = b[bo + c + 2], y3 = b[bo + c + 3];
+                c0.mul(y0)
+                  .add(c1.mul(y1))
+                  .add(c2.mul(y2))
+                  .add(c3.mul(y3))
+                  .intoArray(r, ro + c);
+            }
+        }
+    }
+    
+    @Override
+    public void mat4MultPoints(float[] m, int mStride, float[] v, float[] r, int count)
+    {
+        if (count == 0) return;
+        
+        //Each point is stored as four floats, spilling into the next point, so
+        //the next point must be read before the current one is stored.
+        float x = v[0], y = v[1], z = v[2];
+        int end = (count - 1)*3;
+        
+        if (mStride == 0)
+        {
+            FloatVector c0 = FloatVector.fromArray(SPECIES_4, m, 0);
+            FloatVector c1 = FloatVector.fromArray(SPECIES_4, m, 4);
+            FloatVector c2 = FloatVector.fromArray(SPECIES_4, m, 8);
+            FloatVector c3 = FloatVector.fromArray(SPECIES_4, m, 12);
+            
+            for (int i=0; i<end; i+=3)
+            {
+                FloatVector result = c0.mul(x).add(c1.mul(y)).add(c2.mul(z)).add(c3);
+                x = v[i + 3]; y = v[i + 4]; z = v[i + 5];
+                result.intoArray(r, i);
+            }
+        }
+        else for (int i=0, mo=0; i<end; i+=3, mo+=16)
+        {
+            FloatVector c0 = FloatVector.fromArray(SPECIES_4, m, mo);
+            FloatVector c1 = FloatVector.fromArray(SPECIES_4, m, mo + 4);
+            FloatVector c2 = FloatVector.fromArray(SPECIES_4, m, mo + 8);
+            FloatVector c3 = FloatVector.fromArray(SPECIES_4, m, mo + 12);
+            FloatVector result = c0.mul(x).add(c1.mul(y)).add(c2.mul(z)).add(c3);
+            x = v[i + 3]; y = v[i + 4]; z = v[i + 5];
+            result.intoArray(r, i);
+        }
+        
+        ScalarKernels.mat4MultPointAt(m, (count - 1)*mStride, v, r, end);
+    }
+    
+    @Override
+    public void quatNormalize(float[] q, float[] r, int count)
+    {
+        int end = count - count%QUATS;
+        FloatVector one = FloatVector.broadcast(SPECIES, 1.0f);
+        
+        for (int i=0; i<end*4; i+=LANES)
+        {
+            FloatVector v = FloatVector.fromArray(SPECIES, q, i);
+            v.mul(one.div(lengths(v))).intoArray(r, i);
+        }
+        
+        for (int i=end*4; i<count*4; i+=4) ScalarKernels.quatNormalizeAt(q, r, i);
+    }
+    
+    @Override
+    public void quatSlerp(float[] a, float[] b, float t, float[] r, int count)
+    {
+        int end = count - count%QUATS;
+        FloatVector one = FloatVector.broadcast(SPECIES, 1.0f);
+        float[] lanes = SLERP_LANES.get();
+        
+        for (int i=0; i<end*4; i+=LANES)
+        {
+            FloatVector v0 = FloatVector.fromArray(SPECIES, a, i);
+            FloatVector v1 = FloatVector.fromArray(SPECIES, b, i);
+            sums(v0.mul(v1)).intoArray(lanes, 0);
+            
+            //There are no vector trigonometric functions which match Math
+            //exactly, so the weights come from the scalar code, which also
+            //honours Util.FAST_MATH.
+            for (int l=0; l<LANES; l+=4)
+            {
+                float dot = lanes[l];
+                float s0 = ScalarKernels.slerpStart(Math.abs(dot), t);
+                float s1 = ScalarKernels.slerpEnd(Math.abs(dot), t);
+                if (dot < 0.0f) s0 = -s0; //Take the shortest path.
+                for (int j=0; j<4; j++)
+                {
+                    lanes[LANES + l + j] = s0;
+                    lanes[LANES*2 + l + j] = s1;
+                }
+            }
+            
+            FloatVector s0 = FloatVector.fromArray(SPECIES, lanes, LANES);
+            FloatVector s1 = FloatVector.fromArray(SPECIES, lanes, LANES*2);
+            FloatVector v = v0.mul(s0).add(v1.mul(s1));
+            v.mul(one.div(lengths(v))).intoArray(r, i);
+        }
+        
+        for (int i=end*4; i<count*4; i+=4) ScalarKernels.quatSlerpAt(a, b, t, r, i);
+    }
+    
+    @Override
+    public void dot(float[] ax, float[] ay, float[] az, float[] bx, float[] by, float[] bz, float[] r, int count)
+    {
+        int end = SPECIES.loopBound(count);
+        
+        for (int i=0; i<end; i+=LANES)
+        {
+            FloatVector x = FloatVector.fromArray(SPECIES, ax, i).mul(FloatVector.fromArray(SPECIES, bx, i));
+            FloatVector y = FloatVector.fromArray(SPECIES, ay, i).mul(FloatVector.fromArray(SPECIES, by, i));
+            FloatVector z = FloatVector.fromArray(SPECIES, az, i).mul(FloatVector.fromArray(SPECIES, bz, i));
+            x.add(y).add(z).intoArray(r, i);
+        }
+        
+        for (int i=end; i<count; i++) r[i] = ax[i]*bx[i] + ay[i]*by[i] + az[i]*bz[i];
+    }
+    
+    @Override
+    public void cross(float[] ax, float[] ay, float[] az, float[] bx, float[] by, float[] bz,
+                      float[] rx, float[] ry, float[] rz, int count)
+    {
+        int end = SPECIES.loopBound(count);
+        
+        for (int i=0; i<end; i+=LANES)
+        {
+            FloatVector x0 = FloatVector.fromArray(SPECIES, ax, i);
+            FloatVector y0 = FloatVector.fromArray(SPECIES, ay, i);
+            FloatVector z0 = FloatVector.fromArray(SPECIES, az, i);
+            FloatVector x1 = FloatVector.fromArray(SPECIES, bx, i);
+            FloatVector y1 = FloatVector.fromArray(SPECIES, by, i);
+            FloatVector z1 = FloatVector.fromArray(SPECIES, bz, i);
+            
+            //All loads happen before any stores, so results may overlap inputs.
+            FloatVector x = y0.mul(z1).sub(z0.mul(y1));
+            FloatVector y = z0.mul(x1).sub(x0.mul(z1));
+            FloatVector z = x0.mul(y1).sub(y0.mul(x1));
+            x.intoArray(rx, i);
+            y.intoArray(ry, i);
+            z.intoArray(rz, i);
+        }
+        
+        for (int i=end; i<count; i++)
+        {
+            float x = ay[i]*bz[i] - az[i]*by[i];
+            float y = az[i]*bx[i] - ax[i]*bz[i];
+            float z = ax[i]*by[i] - ay[i]*bx[i];
+            rx[i] = x; ry[i] = y; rz[i] = z;
+        }
+    }
+}